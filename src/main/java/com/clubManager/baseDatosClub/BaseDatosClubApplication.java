@@ -3,6 +3,7 @@ package com.clubManager.baseDatosClub;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import com.clubManager.baseDatosClub.config.FileStorageProperties;
 
 /**
@@ -18,6 +19,7 @@ import com.clubManager.baseDatosClub.config.FileStorageProperties;
 
 @SpringBootApplication
 @EnableConfigurationProperties(FileStorageProperties.class)
+@EnableScheduling
 public class BaseDatosClubApplication {
 
 	/**
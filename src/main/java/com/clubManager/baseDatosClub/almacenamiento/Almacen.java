@@ -0,0 +1,107 @@
+package com.clubManager.baseDatosClub.almacenamiento;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Almacén de los archivos subidos, identificados por una clave con forma de ruta relativa
+ * ({@code fotosJugadores/ab/<sha256>.jpg}). La URL pública de un archivo es siempre
+ * {@code /uploads/<clave>}, sea cual sea el almacén, así que las URLs guardadas no dependen de él.
+ *
+ * La implementación se elige con {@code clubmanager.almacen.tipo}: {@code local} guarda en el
+ * disco del nodo, {@code memoria} en memoria para pruebas y {@code s3} en un bucket compatible
+ * con S3, compartido por todos los nodos.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+public interface Almacen {
+
+    /**
+     * Guarda el contenido de un archivo local con la clave indicada, sustituyendo el anterior.
+     * El archivo de origen puede moverse o borrarse; quien llama debe tratarlo como consumido.
+     *
+     * @param clave clave del archivo
+     * @param origen archivo local con el contenido
+     */
+
+    void guardar(String clave, Path origen) throws IOException;
+
+    /**
+     * Lee el contenido completo de un archivo. Solo para archivos pequeños.
+     *
+     * @param clave clave del archivo
+     * @return contenido del archivo
+     * @throws java.nio.file.NoSuchFileException si no existe
+     */
+
+    byte[] leer(String clave) throws IOException;
+
+    /**
+     * Abre un flujo sobre un tramo del archivo.
+     *
+     * @param clave clave del archivo
+     * @param inicio posición del primer byte
+     * @param longitud número de bytes, o -1 hasta el final
+     * @return flujo con el tramo pedido, que debe cerrar quien llama
+     * @throws java.nio.file.NoSuchFileException si no existe
+     */
+
+    InputStream abrir(String clave, long inicio, long longitud) throws IOException;
+
+    /**
+     * Borra un archivo. No hace nada si no existe.
+     *
+     * @param clave clave del archivo
+     */
+
+    void borrar(String clave) throws IOException;
+
+    /**
+     * Tamaño y fecha de modificación de un archivo.
+     *
+     * @param clave clave del archivo
+     * @return estado del archivo, vacío si no existe
+     */
+
+    Optional<EstadoObjeto> estado(String clave) throws IOException;
+
+    /**
+     * Recorre los archivos cuya clave empieza por el prefijo indicado. El recorrido es perezoso:
+     * los almacenes remotos piden el listado por páginas a medida que se consume el flujo, así que
+     * la memoria usada no depende del número de archivos. Un error al pedir una página se lanza
+     * como {@link java.io.UncheckedIOException}.
+     *
+     * @param prefijo prefijo de las claves, vacío para recorrer todo el almacén
+     * @return flujo de archivos, que debe cerrar quien llama
+     */
+
+    Stream<ObjetoListado> listar(String prefijo) throws IOException;
+
+    /**
+     * Mueve un archivo a otra clave, sustituyendo el que hubiera. El archivo movido queda con
+     * la fecha de modificación del momento en que se mueve.
+     *
+     * @param clave clave actual del archivo
+     * @param destino nueva clave
+     * @throws java.nio.file.NoSuchFileException si no existe
+     */
+
+    void mover(String clave, String destino) throws IOException;
+
+    /**
+     * Ruta en el disco local del archivo, para los almacenes que la tienen. Permite servirlo
+     * con sendfile en lugar de copiarlo a través de un flujo.
+     *
+     * @param clave clave del archivo
+     * @return ruta local, vacía si el almacén no es local o la clave no es válida
+     */
+
+    default Optional<Path> rutaLocal(String clave)
+    {
+        return Optional.empty();
+    }
+}
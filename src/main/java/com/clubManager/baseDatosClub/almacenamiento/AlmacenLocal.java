@@ -0,0 +1,176 @@
+package com.clubManager.baseDatosClub.almacenamiento;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Almacén sobre una carpeta del disco local. Es el almacén por defecto.
+ *
+ * Cada archivo se publica con un renombrado atómico, de modo que nunca se ve a medias. Si el
+ * origen está en otro sistema de archivos se copia antes a un temporal junto al destino.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Component
+@ConditionalOnProperty(name = "clubmanager.almacen.tipo", havingValue = "local", matchIfMissing = true)
+public class AlmacenLocal implements Almacen {
+
+	//Area de datos
+
+    private final Path raiz;
+
+    //Constructor
+
+    public AlmacenLocal(@Value("${clubmanager.upload.dir}") String directorio)
+    {
+        this.raiz = Paths.get(directorio).toAbsolutePath().normalize();
+    }
+
+    //Métodos principales
+
+    @Override
+    public void guardar(String clave, Path origen) throws IOException
+    {
+        Path destino = ruta(clave);
+        Files.createDirectories(destino.getParent());
+        try
+        {
+            Files.move(origen, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Path temporal = destino.resolveSibling("." + UUID.randomUUID() + ".parte");
+            try
+            {
+                Files.copy(origen, temporal);
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.deleteIfExists(origen);
+            }
+            finally
+            {
+                Files.deleteIfExists(temporal);
+            }
+        }
+    }
+
+    @Override
+    public byte[] leer(String clave) throws IOException
+    {
+        return Files.readAllBytes(ruta(clave));
+    }
+
+    @Override
+    public InputStream abrir(String clave, long inicio, long longitud) throws IOException
+    {
+        FileChannel canal = FileChannel.open(ruta(clave), StandardOpenOption.READ);
+        canal.position(inicio);
+        InputStream entrada = Channels.newInputStream(canal);
+        return longitud < 0 ? entrada : new EntradaAcotada(entrada, longitud);
+    }
+
+    @Override
+    public void borrar(String clave) throws IOException
+    {
+        Files.deleteIfExists(ruta(clave));
+    }
+
+    @Override
+    public Optional<EstadoObjeto> estado(String clave) throws IOException
+    {
+        Path ruta = ruta(clave);
+        if (!Files.isRegularFile(ruta))
+        {
+            return Optional.empty();
+        }
+        BasicFileAttributes atributos = Files.readAttributes(ruta, BasicFileAttributes.class);
+        return Optional.of(new EstadoObjeto(atributos.size(), atributos.lastModifiedTime().toInstant()));
+    }
+
+    @Override
+    public Stream<ObjetoListado> listar(String prefijo) throws IOException
+    {
+        // Se recorre solo la carpeta que contiene el prefijo
+        Path inicio = raiz.resolve(prefijo.substring(0, prefijo.lastIndexOf('/') + 1)).normalize();
+        if (!inicio.startsWith(raiz) || !Files.isDirectory(inicio))
+        {
+            return Stream.empty();
+        }
+
+        return Files.walk(inicio)
+                .map(this::listado)
+                .filter(objeto -> objeto != null && objeto.getClave().startsWith(prefijo));
+    }
+
+    @Override
+    public void mover(String clave, String destino) throws IOException
+    {
+        Path nueva = ruta(destino);
+        Files.createDirectories(nueva.getParent());
+        Files.move(ruta(clave), nueva, StandardCopyOption.REPLACE_EXISTING);
+        Files.setLastModifiedTime(nueva, FileTime.from(Instant.now()));
+    }
+
+    @Override
+    public Optional<Path> rutaLocal(String clave)
+    {
+        try
+        {
+            return Optional.of(ruta(clave));
+        }
+        catch (IllegalArgumentException e)
+        {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Entrada del listado de un archivo regular, o nulo si es una carpeta o ya no existe.
+     */
+
+    private ObjetoListado listado(Path ruta)
+    {
+        try
+        {
+            BasicFileAttributes atributos = Files.readAttributes(ruta, BasicFileAttributes.class);
+            if (!atributos.isRegularFile())
+            {
+                return null;
+            }
+            return new ObjetoListado(raiz.relativize(ruta).toString().replace('\\', '/'),
+                    atributos.size(), atributos.lastModifiedTime().toInstant());
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    private Path ruta(String clave)
+    {
+        Path ruta = raiz.resolve(clave).normalize();
+        if (!ruta.startsWith(raiz) || ruta.equals(raiz))
+        {
+            throw new IllegalArgumentException("Clave de archivo inválida");
+        }
+        return ruta;
+    }
+}
@@ -0,0 +1,110 @@
+package com.clubManager.baseDatosClub.almacenamiento;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Almacén en memoria, para pruebas y desarrollo. Su contenido se pierde al reiniciar
+ * y no se comparte entre nodos.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Component
+@ConditionalOnProperty(name = "clubmanager.almacen.tipo", havingValue = "memoria")
+public class AlmacenMemoria implements Almacen {
+
+	//Area de datos
+
+    private final Map<String, Objeto> objetos = new ConcurrentHashMap<>();
+
+    //Métodos principales
+
+    @Override
+    public void guardar(String clave, Path origen) throws IOException
+    {
+        objetos.put(clave, new Objeto(Files.readAllBytes(origen), Instant.now()));
+        Files.deleteIfExists(origen);
+    }
+
+    @Override
+    public byte[] leer(String clave) throws IOException
+    {
+        return obtener(clave).contenido.clone();
+    }
+
+    @Override
+    public InputStream abrir(String clave, long inicio, long longitud) throws IOException
+    {
+        byte[] contenido = obtener(clave).contenido;
+        int desde = (int) Math.min(inicio, contenido.length);
+        int cuantos = longitud < 0 ? contenido.length - desde : (int) Math.min(longitud, contenido.length - desde);
+        return new ByteArrayInputStream(contenido, desde, cuantos);
+    }
+
+    @Override
+    public void borrar(String clave)
+    {
+        objetos.remove(clave);
+    }
+
+    @Override
+    public Optional<EstadoObjeto> estado(String clave)
+    {
+        Objeto objeto = objetos.get(clave);
+        return objeto == null
+                ? Optional.empty()
+                : Optional.of(new EstadoObjeto(objeto.contenido.length, objeto.modificado));
+    }
+
+    @Override
+    public Stream<ObjetoListado> listar(String prefijo)
+    {
+        return objetos.entrySet().stream()
+                .filter(e -> e.getKey().startsWith(prefijo))
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> new ObjetoListado(e.getKey(), e.getValue().contenido.length, e.getValue().modificado));
+    }
+
+    @Override
+    public void mover(String clave, String destino) throws IOException
+    {
+        Objeto objeto = obtener(clave);
+        objetos.put(destino, new Objeto(objeto.contenido, Instant.now()));
+        objetos.remove(clave);
+    }
+
+    private Objeto obtener(String clave) throws NoSuchFileException
+    {
+        Objeto objeto = objetos.get(clave);
+        if (objeto == null)
+        {
+            throw new NoSuchFileException(clave);
+        }
+        return objeto;
+    }
+
+    private static class Objeto
+    {
+        private final byte[] contenido;
+        private final Instant modificado;
+
+        Objeto(byte[] contenido, Instant modificado)
+        {
+            this.contenido = contenido;
+            this.modificado = modificado;
+        }
+    }
+}
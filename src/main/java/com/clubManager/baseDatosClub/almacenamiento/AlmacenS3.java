@@ -0,0 +1,450 @@
+package com.clubManager.baseDatosClub.almacenamiento;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Almacén sobre un bucket compatible con S3 (AWS, MinIO, Ceph...), compartido por todos los nodos.
+ *
+ * Usa la API REST con direcciones de tipo ruta ({@code <endpoint>/<bucket>/<clave>}) y firma
+ * cada petición con AWS Signature Version 4, sin depender del SDK. Los archivos se suben desde
+ * el temporal local con su longitud conocida y sin firmar el cuerpo ({@code UNSIGNED-PAYLOAD}),
+ * para no tener que leerlo dos veces; los tramos se piden con la cabecera {@code Range}.
+ * El listado usa ListObjectsV2 página a página y el movimiento es una copia en el servidor
+ * seguida del borrado del original.
+ *
+ * El tiempo máximo configurado se aplica a la conexión y a las peticiones pequeñas. La subida
+ * de un archivo dispone además de un segundo por cada {@value #BYTES_POR_SEGUNDO} bytes, de modo
+ * que un archivo grande no falla por tardar más que ese tiempo fijo y una subida atascada no
+ * queda esperando para siempre.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Component
+@ConditionalOnProperty(name = "clubmanager.almacen.tipo", havingValue = "s3")
+public class AlmacenS3 implements Almacen {
+
+	//Area de datos
+
+    private static final String ALGORITMO = "AWS4-HMAC-SHA256";
+    private static final String SIN_FIRMAR = "UNSIGNED-PAYLOAD";
+    private static final String HASH_VACIO = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+    /** Velocidad mínima de subida que se tolera antes de dar por fallido un PUT: 64 KiB/s. */
+    static final long BYTES_POR_SEGUNDO = 64 * 1024;
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private final String endpoint;
+    private final String bucket;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+    private final Duration timeout;
+    private final HttpClient cliente;
+
+    //Constructor
+
+    /**
+     * Crea el cliente del bucket.
+     *
+     * @param endpoint URL base del servicio, por ejemplo {@code https://s3.eu-west-1.amazonaws.com}
+     * @param bucket nombre del bucket
+     * @param region región con la que se firman las peticiones
+     * @param accessKey identificador de la clave de acceso
+     * @param secretKey clave secreta
+     * @param timeoutMs tiempo máximo de conexión y de espera de la respuesta, al que las subidas
+     *                  suman el tiempo que corresponde a su tamaño
+     */
+
+    public AlmacenS3
+    		(
+    		@Value("${clubmanager.almacen.s3.endpoint}") String endpoint,
+    		@Value("${clubmanager.almacen.s3.bucket}") String bucket,
+    		@Value("${clubmanager.almacen.s3.region:us-east-1}") String region,
+    		@Value("${clubmanager.almacen.s3.access-key}") String accessKey,
+    		@Value("${clubmanager.almacen.s3.secret-key}") String secretKey,
+    		@Value("${clubmanager.almacen.s3.timeout-ms:30000}") long timeoutMs
+    		)
+    {
+        this.endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+        this.bucket = bucket;
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.cliente = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    //Métodos principales
+
+    @Override
+    public void guardar(String clave, Path origen) throws IOException
+    {
+        Duration limite = timeout.plusSeconds(Files.size(origen) / BYTES_POR_SEGUNDO);
+        HttpRequest peticion = firmada("PUT", clave, Map.of(), SIN_FIRMAR)
+                .timeout(limite)
+                .PUT(HttpRequest.BodyPublishers.ofFile(origen))
+                .build();
+        HttpResponse<String> respuesta = enviar(peticion, HttpResponse.BodyHandlers.ofString());
+        comprobar(respuesta.statusCode(), clave, respuesta.body());
+        Files.deleteIfExists(origen);
+    }
+
+    @Override
+    public byte[] leer(String clave) throws IOException
+    {
+        HttpRequest peticion = firmada("GET", clave, Map.of(), HASH_VACIO).GET().build();
+        HttpResponse<byte[]> respuesta = enviar(peticion, HttpResponse.BodyHandlers.ofByteArray());
+        comprobar(respuesta.statusCode(), clave, null);
+        return respuesta.body();
+    }
+
+    @Override
+    public InputStream abrir(String clave, long inicio, long longitud) throws IOException
+    {
+        if (longitud == 0)
+        {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        Map<String, String> cabeceras = inicio == 0 && longitud < 0
+                ? Map.of()
+                : Map.of("range", "bytes=" + inicio + "-" + (longitud < 0 ? "" : String.valueOf(inicio + longitud - 1)));
+        HttpRequest peticion = firmada("GET", clave, cabeceras, HASH_VACIO).GET().build();
+        HttpResponse<InputStream> respuesta = enviar(peticion, HttpResponse.BodyHandlers.ofInputStream());
+        if (respuesta.statusCode() / 100 != 2)
+        {
+            respuesta.body().close();
+            comprobar(respuesta.statusCode(), clave, null);
+        }
+        return respuesta.body();
+    }
+
+    @Override
+    public void borrar(String clave) throws IOException
+    {
+        HttpRequest peticion = firmada("DELETE", clave, Map.of(), HASH_VACIO).DELETE().build();
+        HttpResponse<Void> respuesta = enviar(peticion, HttpResponse.BodyHandlers.discarding());
+        if (respuesta.statusCode() != 404)
+        {
+            comprobar(respuesta.statusCode(), clave, null);
+        }
+    }
+
+    @Override
+    public Optional<EstadoObjeto> estado(String clave) throws IOException
+    {
+        HttpRequest peticion = firmada("HEAD", clave, Map.of(), HASH_VACIO)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<Void> respuesta = enviar(peticion, HttpResponse.BodyHandlers.discarding());
+        if (respuesta.statusCode() == 404)
+        {
+            return Optional.empty();
+        }
+        comprobar(respuesta.statusCode(), clave, null);
+
+        long tamano = respuesta.headers().firstValueAsLong("Content-Length").orElse(0L);
+        Instant modificado = respuesta.headers().firstValue("Last-Modified")
+                .map(v -> ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant())
+                .orElse(Instant.EPOCH);
+        return Optional.of(new EstadoObjeto(tamano, modificado));
+    }
+
+    @Override
+    public Stream<ObjetoListado> listar(String prefijo)
+    {
+        Iterator<ObjetoListado> paginas = new Iterator<>()
+        {
+            private Iterator<ObjetoListado> pagina = Collections.emptyIterator();
+            private String continuacion;
+            private boolean quedan = true;
+
+            @Override
+            public boolean hasNext()
+            {
+                while (!pagina.hasNext() && quedan)
+                {
+                    pedirPagina();
+                }
+                return pagina.hasNext();
+            }
+
+            @Override
+            public ObjetoListado next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                return pagina.next();
+            }
+
+            private void pedirPagina()
+            {
+                String consulta = (continuacion == null ? "" : "continuation-token=" + codificar(continuacion, false) + "&")
+                        + "list-type=2&prefix=" + codificar(prefijo, false);
+                URI uri = URI.create(endpoint + "/" + bucket + "?" + consulta);
+                try
+                {
+                    HttpResponse<byte[]> respuesta = enviar(firmada("GET", uri, Map.of(), HASH_VACIO).GET().build(),
+                            HttpResponse.BodyHandlers.ofByteArray());
+                    comprobar(respuesta.statusCode(), bucket, null);
+
+                    Element raiz = leerXml(respuesta.body());
+                    List<ObjetoListado> objetos = new ArrayList<>();
+                    NodeList contenidos = raiz.getElementsByTagName("Contents");
+                    for (int i = 0; i < contenidos.getLength(); i++)
+                    {
+                        Element contenido = (Element) contenidos.item(i);
+                        objetos.add(new ObjetoListado(texto(contenido, "Key"),
+                                Long.parseLong(texto(contenido, "Size")),
+                                Instant.parse(texto(contenido, "LastModified"))));
+                    }
+                    pagina = objetos.iterator();
+                    continuacion = texto(raiz, "NextContinuationToken");
+                    quedan = "true".equals(texto(raiz, "IsTruncated")) && continuacion != null;
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(paginas, Spliterator.ORDERED), false);
+    }
+
+    @Override
+    public void mover(String clave, String destino) throws IOException
+    {
+        HttpRequest peticion = firmada("PUT", destino,
+                Map.of("x-amz-copy-source", "/" + bucket + "/" + codificar(clave, true)), HASH_VACIO)
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<String> respuesta = enviar(peticion, HttpResponse.BodyHandlers.ofString());
+        comprobar(respuesta.statusCode(), clave, respuesta.body());
+        // Una copia puede fallar después de responder 200; el error viene entonces en el cuerpo
+        if (respuesta.body().contains("<Error>"))
+        {
+            throw new IOException("S3 no pudo copiar " + clave + ": " + respuesta.body());
+        }
+        borrar(clave);
+    }
+
+    /**
+     * Prepara una petición al objeto con las cabeceras de firma ya puestas.
+     */
+
+    private HttpRequest.Builder firmada(String metodo, String clave, Map<String, String> extra, String hashCuerpo)
+    {
+        return firmada(metodo, URI.create(endpoint + "/" + bucket + "/" + codificar(clave, true)), extra, hashCuerpo);
+    }
+
+    /**
+     * Prepara una petición a la URI indicada, cuya consulta ya debe ir ordenada y codificada
+     * como exige la firma, con las cabeceras de firma ya puestas.
+     */
+
+    private HttpRequest.Builder firmada(String metodo, URI uri, Map<String, String> extra, String hashCuerpo)
+    {
+        String fecha = FORMATO_FECHA.format(ZonedDateTime.now(ZoneOffset.UTC));
+
+        Map<String, String> cabeceras = new TreeMap<>(extra);
+        cabeceras.put("x-amz-content-sha256", hashCuerpo);
+        cabeceras.put("x-amz-date", fecha);
+
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(uri).timeout(timeout);
+        cabeceras.forEach(peticion::header);
+        return peticion.header("Authorization",
+                firmar(metodo, uri, cabeceras, hashCuerpo, fecha, region, accessKey, secretKey));
+    }
+
+    /**
+     * Calcula la cabecera {@code Authorization} de AWS Signature Version 4 para el servicio S3.
+     *
+     * @param cabeceras cabeceras firmadas, en minúsculas y sin {@code host}, que se toma de la URI
+     * @param fecha fecha de la petición en formato {@code yyyyMMdd'T'HHmmss'Z'}
+     * @return valor de la cabecera {@code Authorization}
+     */
+
+    static String firmar(String metodo, URI uri, Map<String, String> cabeceras, String hashCuerpo, String fecha,
+            String region, String accessKey, String secretKey)
+    {
+        Map<String, String> firmadas = new TreeMap<>(cabeceras);
+        firmadas.put("host", uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort());
+
+        StringBuilder canonicas = new StringBuilder();
+        firmadas.forEach((nombre, valor) -> canonicas.append(nombre).append(':').append(valor.trim()).append('\n'));
+        String nombresFirmados = String.join(";", firmadas.keySet());
+
+        String peticionCanonica = metodo + "\n"
+                + uri.getRawPath() + "\n"
+                + (uri.getRawQuery() == null ? "" : uri.getRawQuery()) + "\n"
+                + canonicas + "\n"
+                + nombresFirmados + "\n"
+                + hashCuerpo;
+
+        String dia = fecha.substring(0, 8);
+        String ambito = dia + "/" + region + "/s3/aws4_request";
+        String textoAFirmar = ALGORITMO + "\n" + fecha + "\n" + ambito + "\n" + sha256(peticionCanonica);
+
+        byte[] clave = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), dia);
+        clave = hmac(clave, region);
+        clave = hmac(clave, "s3");
+        clave = hmac(clave, "aws4_request");
+        String firma = HexFormat.of().formatHex(hmac(clave, textoAFirmar));
+
+        return ALGORITMO + " Credential=" + accessKey + "/" + ambito
+                + ", SignedHeaders=" + nombresFirmados + ", Signature=" + firma;
+    }
+
+    private <T> HttpResponse<T> enviar(HttpRequest peticion, HttpResponse.BodyHandler<T> manejador) throws IOException
+    {
+        try
+        {
+            return cliente.send(peticion, manejador);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Petición a S3 interrumpida");
+        }
+    }
+
+    private static void comprobar(int estado, String clave, String cuerpo) throws IOException
+    {
+        if (estado == 404)
+        {
+            throw new NoSuchFileException(clave);
+        }
+        if (estado / 100 != 2)
+        {
+            throw new IOException("S3 respondió " + estado + " para " + clave + (cuerpo == null ? "" : ": " + cuerpo));
+        }
+    }
+
+    /**
+     * Lee la respuesta XML de S3 sin resolver DTD ni entidades externas.
+     */
+
+    private static Element leerXml(byte[] cuerpo) throws IOException
+    {
+        try
+        {
+            DocumentBuilderFactory fabrica = DocumentBuilderFactory.newInstance();
+            fabrica.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            fabrica.setExpandEntityReferences(false);
+            return fabrica.newDocumentBuilder().parse(new ByteArrayInputStream(cuerpo)).getDocumentElement();
+        }
+        catch (ParserConfigurationException | SAXException e)
+        {
+            throw new IOException("Respuesta de S3 no válida", e);
+        }
+    }
+
+    /**
+     * Texto del primer elemento hijo con el nombre indicado, o nulo si no hay ninguno.
+     */
+
+    private static String texto(Element padre, String nombre)
+    {
+        NodeList nodos = padre.getElementsByTagName(nombre);
+        return nodos.getLength() == 0 ? null : nodos.item(0).getTextContent();
+    }
+
+    /**
+     * Codifica un texto como exige la firma de S3. Las claves de las rutas conservan las barras;
+     * los valores de la consulta las codifican.
+     */
+
+    private static String codificar(String texto, boolean conservarBarras)
+    {
+        StringBuilder codificada = new StringBuilder();
+        for (byte b : texto.getBytes(StandardCharsets.UTF_8))
+        {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && conservarBarras))
+            {
+                codificada.append(c);
+            }
+            else
+            {
+                codificada.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        return codificada.toString();
+    }
+
+    private static String sha256(String texto)
+    {
+        try
+        {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(texto.getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hmac(byte[] clave, String texto)
+    {
+        try
+        {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(clave, "HmacSHA256"));
+            return mac.doFinal(texto.getBytes(StandardCharsets.UTF_8));
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.clubManager.baseDatosClub.almacenamiento;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Flujo que deja de leer tras un número de bytes, para servir un tramo de un archivo.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+class EntradaAcotada extends FilterInputStream {
+
+	//Area de datos
+
+    private long restantes;
+
+    //Constructor
+
+    EntradaAcotada(InputStream entrada, long longitud)
+    {
+        super(entrada);
+        this.restantes = longitud;
+    }
+
+    //Métodos principales
+
+    @Override
+    public int read() throws IOException
+    {
+        if (restantes <= 0)
+        {
+            return -1;
+        }
+        int b = super.read();
+        if (b >= 0)
+        {
+            restantes--;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (restantes <= 0)
+        {
+            return -1;
+        }
+        int leidos = super.read(b, off, (int) Math.min(len, restantes));
+        if (leidos > 0)
+        {
+            restantes -= leidos;
+        }
+        return leidos;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        long saltados = super.skip(Math.min(n, restantes));
+        restantes -= saltados;
+        return saltados;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        return (int) Math.min(super.available(), restantes);
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+}
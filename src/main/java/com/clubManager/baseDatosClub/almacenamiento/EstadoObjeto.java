@@ -0,0 +1,37 @@
+package com.clubManager.baseDatosClub.almacenamiento;
+
+import java.time.Instant;
+
+/**
+ * Tamaño en bytes y fecha de última modificación de un archivo de un {@link Almacen}.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+public class EstadoObjeto {
+
+	//Area de datos
+
+    private final long tamano;
+    private final Instant modificado;
+
+    //Constructor
+
+    public EstadoObjeto(long tamano, Instant modificado)
+    {
+        this.tamano = tamano;
+        this.modificado = modificado;
+    }
+
+    //Métodos Getter
+
+    public long getTamano()
+    {
+        return tamano;
+    }
+
+    public Instant getModificado()
+    {
+        return modificado;
+    }
+}
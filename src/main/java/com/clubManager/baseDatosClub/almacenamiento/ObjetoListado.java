@@ -0,0 +1,45 @@
+package com.clubManager.baseDatosClub.almacenamiento;
+
+import java.time.Instant;
+
+/**
+ * Archivo devuelto al listar un {@link Almacen}: su clave, su tamaño en bytes y su fecha
+ * de última modificación.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+public class ObjetoListado {
+
+	//Area de datos
+
+    private final String clave;
+    private final long tamano;
+    private final Instant modificado;
+
+    //Constructor
+
+    public ObjetoListado(String clave, long tamano, Instant modificado)
+    {
+        this.clave = clave;
+        this.tamano = tamano;
+        this.modificado = modificado;
+    }
+
+    //Métodos Getter
+
+    public String getClave()
+    {
+        return clave;
+    }
+
+    public long getTamano()
+    {
+        return tamano;
+    }
+
+    public Instant getModificado()
+    {
+        return modificado;
+    }
+}
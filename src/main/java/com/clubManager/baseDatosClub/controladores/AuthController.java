@@ -2,15 +2,23 @@ package com.clubManager.baseDatosClub.controladores;
 
 import com.clubManager.baseDatosClub.dto.LoginRequest;
 import com.clubManager.baseDatosClub.dto.LoginResponse;
+import com.clubManager.baseDatosClub.entidades.Credencial;
 import com.clubManager.baseDatosClub.entidades.Entrenador;
 import com.clubManager.baseDatosClub.entidades.Jugador;
 import com.clubManager.baseDatosClub.entidades.Padre;
 import com.clubManager.baseDatosClub.repositorios.EntrenadorRepositorio;
 import com.clubManager.baseDatosClub.repositorios.JugadorRepositorio;
 import com.clubManager.baseDatosClub.repositorios.PadreRepositorio;
+import com.clubManager.baseDatosClub.seguridad.PasswordServicio;
 import com.clubManager.baseDatosClub.seguridad.TokenService;
+import com.clubManager.baseDatosClub.servicios.CredencialServicio;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * Controlador encargado de gestionar el inicio de sesión de usuarios.
@@ -28,7 +36,10 @@ public class AuthController {
     private final EntrenadorRepositorio entrenadorRepo;
     private final JugadorRepositorio jugadorRepo;
     private final PadreRepositorio padreRepo;
+    private final CredencialServicio credencialServicio;
+    private final PasswordServicio passwordServicio;
     private final TokenService tokenService;
+    private final MeterRegistry meterRegistry;
     
     //Constructor
 
@@ -37,21 +48,34 @@ public class AuthController {
     			EntrenadorRepositorio entrenadorRepo,
                           JugadorRepositorio jugadorRepo,
                           PadreRepositorio padreRepo,
-                          TokenService tokenService
+                          CredencialServicio credencialServicio,
+                          PasswordServicio passwordServicio,
+                          TokenService tokenService,
+                          MeterRegistry meterRegistry
     				) 
     {
         this.entrenadorRepo = entrenadorRepo;
         this.jugadorRepo = jugadorRepo;
         this.padreRepo = padreRepo;
+        this.credencialServicio = credencialServicio;
+        this.passwordServicio = passwordServicio;
         this.tokenService = tokenService;
+        this.meterRegistry = meterRegistry;
     }
     
     /**
      * Maneja la autenticación de usuarios mediante un identificador y contraseña.
      * 
      * Se diferencia entre los tres tipos de usuarios del sistema: entrenador, jugador y padre.  
+     * Las credenciales se resuelven con una única consulta al índice de {@link Credencial},
+     * comprobando los tipos en ese orden de prioridad.
+     * Las contraseñas se verifican con {@link PasswordServicio}; si la guardada está en texto
+     * plano o con un coste BCrypt antiguo, se vuelve a hashear en segundo plano; el nuevo hash
+     * solo se guarda si la contraseña no ha cambiado entretanto.
+     * Si el pool de hashing está saturado se responde 503 sin esperar.
      * Si las credenciales son correctas, genera un token JWT y devuelve información
      * del usuario junto con el token. Para jugadores también incluye el ID del equipo.
+     * La duración de cada login se registra en la métrica {@code clubmanager.login}.
      *
      * @param request Objeto {@link LoginRequest} que contiene el identificador y la contraseña.
      * @return {@link ResponseEntity} con un objeto {@link LoginResponse} si la autenticación es exitosa,
@@ -66,52 +90,60 @@ public class AuthController {
         String tipoUsuario = null;
         String idUsuario = null;
         String idEquipo = null;
+        String resultado = "error";
+        Timer.Sample muestra = Timer.start(meterRegistry);
 
         try {
-            Entrenador entrenador = entrenadorRepo.findById(identificador).orElse(null);
-            if (entrenador != null && entrenador.getPassword().equals(password)) 
-            {
-                tipoUsuario = "entrenador";
-                idUsuario = entrenador.getIdEntrenador();
-            }
-            
-            if (tipoUsuario == null) 
+            for (Credencial credencial : credencialServicio.buscarPorIdentificador(identificador)) 
             {
-                Jugador jugador = jugadorRepo.findById(identificador).orElse(null);
-                if (jugador != null && jugador.getPassword().equals(password)) 
+                if (passwordServicio.verificar(password, credencial.getPassword())) 
                 {
-                    tipoUsuario = "jugador";
-                    idUsuario = jugador.getIdJugador();
-                    if (jugador.getEquipo() != null) {
-                        idEquipo = jugador.getEquipo().getIdEquipo();
-                }    
-              }
-            }
-
-            if (tipoUsuario == null) 
-            {
-                Padre padre = padreRepo.findById(identificador).orElse(null);
-                if (padre != null && padre.getPassword().equals(password)) 
-                {
-                    tipoUsuario = "padre";
-                    idUsuario = padre.getIdPadre();
+                    tipoUsuario = credencial.getTipoUsuario();
+                    idUsuario = credencial.getIdentificador();
+                    if (passwordServicio.necesitaRehash(credencial.getPassword())) 
+                    {
+                        String id = idUsuario;
+                        String tipo = tipoUsuario;
+                        String anterior = credencial.getPassword();
+                        passwordServicio.rehashEnSegundoPlano(password,
+                                hash -> credencialServicio.rehashearPassword(id, tipo, anterior, hash));
+                    }
+                    if (Credencial.TIPO_JUGADOR.equals(tipoUsuario)) 
+                    {
+                        idEquipo = credencial.getIdEquipo();
+                    }
+                    break;
                 }
             }
             
             if (tipoUsuario == null) 
             {
+                resultado = "rechazado";
                 return ResponseEntity.status(401).body("Identificador o contraseña incorrectos");
             }
 
             String token = tokenService.generarToken(idUsuario, tipoUsuario);
+            resultado = "ok";
 
             return ResponseEntity.ok(new LoginResponse(tipoUsuario, idUsuario, token, idEquipo));
 
         } 
+        catch (ResponseStatusException e) 
+        {
+            resultado = "saturado";
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
+        }
         catch (Exception e) 
         {
             return ResponseEntity.status(500).body("Error interno del servidor");
         }
+        finally 
+        {
+            muestra.stop(Timer.builder("clubmanager.login")
+                    .tag("resultado", resultado)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+        }
     }
     
     /**
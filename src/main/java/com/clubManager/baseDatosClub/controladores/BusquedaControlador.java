@@ -0,0 +1,46 @@
+package com.clubManager.baseDatosClub.controladores;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import com.clubManager.baseDatosClub.dto.PersonaBusquedaDTO;
+import com.clubManager.baseDatosClub.servicios.BusquedaServicio;
+
+/**
+ * Controlador REST para buscar jugadores y padres mientras se escribe.
+ * 
+ * @author Sergio Vigil Soto
+ */
+
+@RestController
+@RequestMapping("/api/busqueda")
+public class BusquedaControlador {
+
+	//Area de datos
+
+    @Autowired
+    private BusquedaServicio busquedaServicio;
+
+    /**
+     * Busca jugadores y padres por el comienzo de las palabras de su nombre, sus apellidos
+     * o su DNI, sin distinguir mayúsculas ni acentos.
+     * 
+     * @param q texto escrito por el usuario
+     * @param tipo {@code jugador} o {@code padre}; si no se indica, ambos
+     * @param limite número máximo de resultados
+     * @return personas encontradas
+     */
+    
+    @GetMapping
+    public List<PersonaBusquedaDTO> buscar
+    		(
+    		@RequestParam String q,
+    		@RequestParam(required = false) String tipo,
+    		@RequestParam(required = false) Integer limite
+    		) 
+    {
+        return busquedaServicio.buscar(q, tipo, limite);
+    }
+}
@@ -1,17 +1,34 @@
 package com.clubManager.baseDatosClub.controladores;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
+import com.clubManager.baseDatosClub.dto.EstadisticasAlmacenamientoDTO;
+import com.clubManager.baseDatosClub.dto.PaginaGaleriaDTO;
+import com.clubManager.baseDatosClub.dto.ResultadoLimpiezaDTO;
+import com.clubManager.baseDatosClub.dto.UsoAlmacenamientoDTO;
 import com.clubManager.baseDatosClub.entidades.Galeria;
+import com.clubManager.baseDatosClub.servicios.ArchivoGuardado;
+import com.clubManager.baseDatosClub.servicios.CuotaAlmacenamientoServicio;
+import com.clubManager.baseDatosClub.servicios.ExportacionGaleriaServicio;
 import com.clubManager.baseDatosClub.servicios.FileStorageService;
 import com.clubManager.baseDatosClub.servicios.GaleriaServicio;
+import com.clubManager.baseDatosClub.servicios.LimpiezaArchivosServicio;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 /**
  * Controlador REST para gestionar operaciones sobre la entidad Galeria.
@@ -33,6 +50,15 @@ public class GaleriaControlador {
     @Autowired
     private FileStorageService fileStorageService;  
 
+    @Autowired
+    private LimpiezaArchivosServicio limpiezaArchivosServicio;
+
+    @Autowired
+    private ExportacionGaleriaServicio exportacionGaleriaServicio;
+
+    @Autowired
+    private CuotaAlmacenamientoServicio cuotaServicio;
+
     /**
      * Lista todos los documentos asociados a un equipo específico.
      * 
@@ -51,6 +77,56 @@ public class GaleriaControlador {
         return ResponseEntity.ok(lista);
     }
 
+    /**
+     * Devuelve los documentos de un equipo por páginas, del más reciente al más antiguo, con solo
+     * los datos que se muestran en el listado. Para pedir la siguiente página se envía el
+     * {@code siguienteCursor} recibido en la anterior.
+     * 
+     * @param idEquipo identificador del equipo
+     * @param tipo tipo de documento por el que filtrar (opcional)
+     * @param cursor cursor de la página anterior (opcional)
+     * @param tamano número de documentos por página (opcional)
+     * @return página de documentos
+     */
+    
+    @GetMapping("/equipo/{idEquipo}/pagina")
+    public PaginaGaleriaDTO listarPaginaPorEquipo
+    		(
+            @PathVariable String idEquipo,
+            @RequestParam(required = false) String tipo,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano
+            )
+    {
+        return galeriaServicio.listarPaginaPorEquipo(idEquipo, tipo, cursor, tamano);
+    }
+
+    /**
+     * Descarga todos los documentos de un equipo en un ZIP que se va escribiendo en la respuesta
+     * a medida que se leen los archivos, sin generarlo antes en el servidor.
+     * 
+     * @param idEquipo identificador del equipo
+     * @param response respuesta en la que se escribe el ZIP; 204 si el equipo no tiene documentos
+     */
+    
+    @GetMapping("/equipo/{idEquipo}/zip")
+    public void exportarGaleriaPorEquipo(@PathVariable String idEquipo, HttpServletResponse response) throws IOException
+    {
+        List<Galeria> lista = galeriaServicio.listarGaleriaPorEquipo(idEquipo);
+        if (lista == null || lista.isEmpty()) 
+        {
+            response.setStatus(HttpStatus.NO_CONTENT.value());
+            return;
+        }
+
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("galeria-" + idEquipo + ".zip", StandardCharsets.UTF_8)
+                .build()
+                .toString());
+        exportacionGaleriaServicio.exportarZip(lista, response.getOutputStream());
+    }
+
     /**
      * Busca un documento específico en la galería por su identificador único.
      * 
@@ -74,20 +150,173 @@ public class GaleriaControlador {
             @RequestParam String nombreDocumento
             ) 
     {
-        try 
+        try (CuotaAlmacenamientoServicio.Reserva reserva = cuotaServicio.reservar(idEquipo, file.getSize())) 
         {
-            String url = fileStorageService.storeFile(file, "fotosJugadores"); 
+            ArchivoGuardado archivo = fileStorageService.storeFile(file, "fotosJugadores"); 
+            reserva.ajustar(archivo.getTamano());
 
             LocalDate fecha = LocalDate.now();
-            galeriaServicio.crearDocumento(tipo, autor, fecha, url, nombreDocumento, idEquipo);
+            galeriaServicio.crearDocumento(tipo, autor, fecha, archivo, nombreDocumento, idEquipo);
+            reserva.confirmar();
 
-            return ResponseEntity.ok(url);
+            return ResponseEntity.ok(archivo.getUrl());
+        } 
+        catch (ResponseStatusException e) 
+        {
+            return ResponseEntity.status(e.getStatusCode()).body("Error al subir la imagen: " + e.getReason());
         } 
         catch (Exception e)
         {
             return ResponseEntity.badRequest().body("Error al subir la imagen: " + e.getMessage());
         }
     }
+
+    /**
+     * Sube un archivo enviado como cuerpo de la petición, sin multipart.
+     * 
+     * El cuerpo se escribe directamente en disco según llega, por lo que el archivo nunca se
+     * carga entero en memoria ni pasa por un temporal de multipart. Si la cabecera
+     * {@code Content-Length} o el propio flujo superan el tamaño máximo se responde 413.
+     * 
+     * Si el cliente envía la huella del archivo en {@code X-Content-SHA256} y el equipo ya tiene
+     * un documento con ese contenido, se crea el documento sin leer ni escribir el cuerpo. El atajo
+     * se limita a los contenidos del propio equipo: conocer la huella de un archivo ajeno no basta
+     * para enlazarlo, y la respuesta no revela si está guardado; en ese caso se lee el cuerpo.
+     * 
+     * Antes de escribir se reserva en la cuota del equipo el {@code Content-Length}, o el tamaño
+     * máximo si no se envía; si no cabe se responde 507 sin leer el cuerpo.
+     * 
+     * @param idEquipo        Identificador del equipo al que se asocia el documento.
+     * @param tipo            Tipo del documento.
+     * @param autor           Autor del documento.
+     * @param nombreDocumento Nombre identificativo del documento.
+     * @param nombreArchivo   Nombre original del archivo, del que se toma la extensión.
+     * @param sha256          Huella SHA-256 del archivo (opcional).
+     * @param request         Petición cuyo cuerpo es el contenido del archivo.
+     * @return URL pública del archivo guardado.
+     */
+    
+    @PostMapping("/{idEquipo}/subir-stream")
+    public ResponseEntity<?> subirStream
+    		(
+            @PathVariable String idEquipo,
+            @RequestParam String tipo,
+            @RequestParam String autor,
+            @RequestParam String nombreDocumento,
+            @RequestParam String nombreArchivo,
+            @RequestHeader(value = "X-Content-SHA256", required = false) String sha256,
+            HttpServletRequest request
+            ) 
+    {
+        String huella = sha256 == null ? null : sha256.trim().toLowerCase();
+        if (huella != null && galeriaServicio.equipoTieneContenido(idEquipo, huella)) 
+        {
+            Optional<ArchivoGuardado> existente = fileStorageService.reutilizar(huella);
+            if (existente.isPresent()) 
+            {
+                ArchivoGuardado archivo = existente.get();
+                CuotaAlmacenamientoServicio.Reserva reserva;
+                try 
+                {
+                    reserva = cuotaServicio.reservar(idEquipo, archivo.getTamano());
+                } 
+                catch (ResponseStatusException e) 
+                {
+                    fileStorageService.liberar(archivo.getSha256(), archivo.getUrl());
+                    return ResponseEntity.status(e.getStatusCode()).body("Error al subir el archivo: " + e.getReason());
+                }
+
+                try (reserva) 
+                {
+                    galeriaServicio.crearDocumento(tipo, autor, LocalDate.now(), archivo, nombreDocumento, idEquipo);
+                    reserva.confirmar();
+                    return ResponseEntity.ok(archivo.getUrl());
+                } 
+                catch (ResponseStatusException e) 
+                {
+                    return ResponseEntity.status(e.getStatusCode()).body("Error al subir el archivo: " + e.getReason());
+                }
+            }
+        }
+
+        if (request.getContentLengthLong() > fileStorageService.getMaxBytes()) 
+        {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body("Error al subir el archivo: supera el tamaño máximo");
+        }
+
+        long previstos = request.getContentLengthLong() > 0 ? request.getContentLengthLong() : fileStorageService.getMaxBytes();
+        try (CuotaAlmacenamientoServicio.Reserva reserva = cuotaServicio.reservar(idEquipo, previstos)) 
+        {
+            ArchivoGuardado archivo = fileStorageService.storeStream(request.getInputStream(), "fotosJugadores", nombreArchivo);
+            reserva.ajustar(archivo.getTamano());
+            galeriaServicio.crearDocumento(tipo, autor, LocalDate.now(), archivo, nombreDocumento, idEquipo);
+            reserva.confirmar();
+
+            return ResponseEntity.ok(archivo.getUrl());
+        } 
+        catch (ResponseStatusException e) 
+        {
+            return ResponseEntity.status(e.getStatusCode()).body("Error al subir el archivo: " + e.getReason());
+        } 
+        catch (Exception e) 
+        {
+            return ResponseEntity.badRequest().body("Error al subir el archivo: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Devuelve el resumen del almacenamiento de la galería: archivos en disco,
+     * documentos que los usan, bytes ocupados y bytes ahorrados por la deduplicación.
+     * 
+     * @return estadísticas de almacenamiento
+     */
+    
+    @GetMapping("/almacenamiento")
+    public EstadisticasAlmacenamientoDTO obtenerEstadisticasAlmacenamiento() 
+    {
+        return galeriaServicio.obtenerEstadisticasAlmacenamiento();
+    }
+    
+    /**
+     * Devuelve los bytes que ocupan los documentos de cada equipo y su cuota, leídos de los
+     * contadores de uso sin recorrer el almacenamiento.
+     * 
+     * @return uso de cada equipo
+     */
+    
+    @GetMapping("/almacenamiento/equipos")
+    public List<UsoAlmacenamientoDTO> listarUsoPorEquipo() 
+    {
+        return cuotaServicio.listar();
+    }
+    
+    /**
+     * Devuelve los bytes que ocupan los documentos de un equipo, su cuota y lo que le queda libre.
+     * 
+     * @param idEquipo identificador del equipo
+     * @return uso del equipo, o 404 si el equipo no existe
+     */
+    
+    @GetMapping("/almacenamiento/equipo/{idEquipo}")
+    public UsoAlmacenamientoDTO obtenerUsoPorEquipo(@PathVariable String idEquipo) 
+    {
+        return cuotaServicio.consultar(idEquipo);
+    }
+    
+    /**
+     * Lanza una pasada de limpieza de los archivos que ya no usa ningún registro,
+     * sin esperar a la programada.
+     * 
+     * @return archivos revisados, huérfanos retirados y bytes apartados y recuperados,
+     *         o 409 si ya hay una limpieza en curso
+     */
+    
+    @PostMapping("/almacenamiento/limpieza")
+    public ResultadoLimpiezaDTO limpiarAlmacenamiento() 
+    {
+        return limpiezaArchivosServicio.limpiar();
+    }
     
     /**
      * Creamos un nuevo documento en la galería con los datos proporcionados.
@@ -158,7 +387,7 @@ public class GaleriaControlador {
      */
     
     @DeleteMapping("/equipo/{idEquipo}")
-    public void eliminarGaleriaPorEquipo(@PathVariable Long idEquipo) 
+    public void eliminarGaleriaPorEquipo(@PathVariable String idEquipo) 
     {
         galeriaServicio.eliminarGaleriaPorEquipo(idEquipo);
     }
@@ -2,14 +2,17 @@ package com.clubManager.baseDatosClub.controladores;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.clubManager.baseDatosClub.dto.JugadorDetalleDTO;
+import com.clubManager.baseDatosClub.dto.JugadorPlantillaDTO;
 import com.clubManager.baseDatosClub.dto.JugadorPuntuacionDTO;
 import com.clubManager.baseDatosClub.dto.JugadorRelacionDTO;
 import com.clubManager.baseDatosClub.entidades.Jugador;
@@ -146,16 +149,16 @@ public class JugadorControlador {
      * Devuelve una lista con todos los jugadores que se encuentran activos
      * y que pertenecen a un equipo.
      * 
-     * @return lista de jugadores activos de un equipo dado
+     * @return plantilla activa de un equipo dado, sin credenciales ni datos de contacto
      */
     
     @GetMapping("/{idEquipo}/jugadores/activos")
-    public ResponseEntity<List<Jugador>> listarJugadoresActivosPorEquipo
+    public ResponseEntity<List<JugadorPlantillaDTO>> listarJugadoresActivosPorEquipo
     		(
     		@PathVariable String idEquipo
     		) 
     {
-        List<Jugador> jugadores = jugadorServicio.listarJugadoresActivosPorEquipo(idEquipo);
+        List<JugadorPlantillaDTO> jugadores = jugadorServicio.listarJugadoresActivosPorEquipo(idEquipo);
         return ResponseEntity.ok(jugadores);
     }
     
@@ -164,26 +167,17 @@ public class JugadorControlador {
      *
      * @param idJugador identificador único del jugador
      * @param tarjetasRojas cantidad de tarjetas rojas a sumar (debe ser positiva)
-     * @return jugador actualizado con las tarjetas rojas incrementadas
+     * @return tarjetas rojas del jugador tras la suma
      * @throws IllegalArgumentException si el jugador no existe o la cantidad es inválida
      */
     
     @PutMapping("/{idJugador}/incrementarRojas")
-    public Jugador incrementarRojas
+    public int incrementarRojas
     		(
     		@PathVariable String idJugador, 
     		@RequestParam("tarjetasRojas") Integer tarjetasRojas
     		) 
     {
-        if (tarjetasRojas <= 0) 
-        {
-            throw new IllegalArgumentException("Las tarjetas rojas a incrementar deben ser positivas.");
-        }
-
-        Jugador jugador = jugadorServicio.obtenerJugadorPorId(idJugador)
-            .orElseThrow(() -> new IllegalArgumentException("No se encontró el jugador con id: " + idJugador));
-
-        jugador.setTarjetasRojas(jugador.getTarjetasRojas() + tarjetasRojas);
         return jugadorServicio.incrementarRojas(idJugador, tarjetasRojas);
     }
 
@@ -192,27 +186,17 @@ public class JugadorControlador {
      *
      * @param idJugador identificador único del jugador
      * @param tarjetasAmarillas cantidad de tarjetas amarillas a sumar (debe ser positiva)
-     * @return jugador actualizado con las tarjetas amarillas incrementadas
+     * @return tarjetas amarillas del jugador tras la suma
      * @throws IllegalArgumentException si el jugador no existe o la cantidad es inválida
      */
     
     @PutMapping("/{idJugador}/incrementarAmarillas")
-    public Jugador incrementarAmarillas
+    public int incrementarAmarillas
     		(
     		@PathVariable String idJugador, 
     		@RequestParam("tarjetasAmarillas") Integer tarjetasAmarillas
     		) 
     {
-    	
-        if (tarjetasAmarillas <= 0) 
-        {
-            throw new IllegalArgumentException("Las tarjetas amarillas a incrementar deben ser positivas.");
-        }
-
-        Jugador jugador = jugadorServicio.obtenerJugadorPorId(idJugador)
-            .orElseThrow(() -> new IllegalArgumentException("No se encontró el jugador con id: " + idJugador));
-
-        jugador.setTarjetasAmarillas(jugador.getTarjetasAmarillas() + tarjetasAmarillas);
         return jugadorServicio.incrementarAmarillas(idJugador, tarjetasAmarillas);
     }
 
@@ -239,25 +223,25 @@ public class JugadorControlador {
      * 
      * @param idJugador ID del jugador
      * @param goles cantidad de goles a sumar
-     * @return jugador con goles actualizados
+     * @return goles del jugador tras la suma
      */
     
     @PutMapping("/{idJugador}/incrementarGoles")
-    public Jugador incrementarGoles(@PathVariable String idJugador, @RequestParam("goles") Integer goles)
+    public int incrementarGoles(@PathVariable String idJugador, @RequestParam("goles") Integer goles)
     {
         return jugadorServicio.incrementarGoles(idJugador, goles);
     }
     
     /**
-     * Incrementa la cantidad de goles anotados por un jugador.
+     * Incrementa la cantidad de goles encajados por un portero.
      * 
      * @param idJugador ID del jugador
-     * @param goles cantidad de goles a sumar
-     * @return jugador con goles actualizados
+     * @param golesEncajados cantidad de goles a sumar
+     * @return goles encajados del jugador tras la suma
      */
     
     @PutMapping("/{idJugador}/incrementarGolesEncajados")
-    public Jugador incrementarGolesEncajados
+    public int incrementarGolesEncajados
     		(
     		@PathVariable String idJugador, 
     		@RequestParam("golesEncajados") Integer golesEncajados
@@ -271,11 +255,11 @@ public class JugadorControlador {
      *
      * @param idJugador ID del jugador al que se sumarán los puntos.
      * @param puntos    Cantidad de puntos a añadir.
-     * @return Jugador actualizado con los nuevos puntos totales.
+     * @return Puntos totales del jugador tras la suma.
      */
     
     @PutMapping("/{idJugador}/incrementarPuntos")
-    public ResponseEntity<Jugador> incrementarPuntosTotales
+    public ResponseEntity<Integer> incrementarPuntosTotales
     		(
             @PathVariable String idJugador,
             @RequestParam("puntos") Integer puntos
@@ -283,8 +267,7 @@ public class JugadorControlador {
     {
         try 
         {
-            Jugador jugadorActualizado = jugadorServicio.incrementarPuntos(idJugador, puntos);
-            return ResponseEntity.ok(jugadorActualizado);
+            return ResponseEntity.ok(jugadorServicio.incrementarPuntos(idJugador, puntos));
         } 
         catch (IllegalArgumentException e) 
         {
@@ -370,12 +353,45 @@ public class JugadorControlador {
     /**
      * Devuelve el ranking de jugadores ordenado por puntos de forma descendente.
      *
+     * @param idEquipo identificador del equipo
+     * @param limite número máximo de jugadores; sin él se devuelve el ranking completo
      * @return Lista de JugadorPuntuacionDTO con el ranking
      */
     
     @GetMapping("/ranking/{idEquipo}")
-    public List<JugadorPuntuacionDTO> obtenerRankingPorEquipo(@PathVariable String idEquipo) 
+    public List<JugadorPuntuacionDTO> obtenerRankingPorEquipo(@PathVariable String idEquipo,
+    		@RequestParam(required = false) Integer limite) 
     {
-        return jugadorServicio.obtenerRankingPorEquipo(idEquipo);
+        if (limite == null) 
+        {
+            return jugadorServicio.obtenerRankingPorEquipo(idEquipo);
+        }
+        try 
+        {
+            return jugadorServicio.obtenerRankingPorEquipo(idEquipo, limite);
+        } 
+        catch (IllegalArgumentException e) 
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Devuelve la posición de un jugador en el ranking de su equipo.
+     *
+     * @param idEquipo identificador del equipo
+     * @param idJugador identificador del jugador
+     * @return posición empezando en 1, o 404 si el jugador no pertenece al equipo
+     */
+    
+    @GetMapping("/ranking/{idEquipo}/{idJugador}")
+    public ResponseEntity<Integer> obtenerPosicionEnRanking(@PathVariable String idEquipo, @PathVariable String idJugador) 
+    {
+        OptionalInt posicion = jugadorServicio.obtenerPosicionEnRanking(idEquipo, idJugador);
+        if (posicion.isEmpty()) 
+        {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(posicion.getAsInt());
     }
 }
\ No newline at end of file
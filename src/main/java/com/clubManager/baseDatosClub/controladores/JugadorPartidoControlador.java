@@ -1,5 +1,6 @@
 package com.clubManager.baseDatosClub.controladores;
 
+import com.clubManager.baseDatosClub.dto.EstadisticaActaDTO;
 import com.clubManager.baseDatosClub.dto.JugadorPuntuacionDTO;
 import com.clubManager.baseDatosClub.entidades.JugadorPartido;
 import com.clubManager.baseDatosClub.entidades.JugadorPartidoPK;
@@ -148,4 +149,24 @@ public class JugadorPartidoControlador {
         JugadorPuntuacionDTO dto = jugadorPartidoServicio.asignarPuntuacion(idJugador, idPartido, puntuacion);
         return ResponseEntity.ok(dto);
     }
-}
\ No newline at end of file
+    
+    /**
+     * Aplica el acta de un partido en una sola petición y una sola transacción: goles, goles
+     * encajados, tarjetas y puntos de cada jugador, y los puntos también a su puntuación en el
+     * partido. Si algún jugador no está en el partido no se aplica nada y se responde 404.
+     * 
+     * @param idPartido identificador del partido
+     * @param acta lo que suma cada jugador, una línea por jugador
+     * @return puntuación en el partido y puntos totales de los jugadores del acta
+     */
+    
+    @PutMapping("/{idPartido}/acta")
+    public List<JugadorPuntuacionDTO> registrarActa
+    		(
+            @PathVariable Long idPartido,
+            @RequestBody List<EstadisticaActaDTO> acta
+            ) 
+    {
+        return jugadorPartidoServicio.registrarActa(idPartido, acta);
+    }
+}
@@ -0,0 +1,233 @@
+package com.clubManager.baseDatosClub.controladores;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import com.clubManager.baseDatosClub.almacenamiento.Almacen;
+import com.clubManager.baseDatosClub.almacenamiento.EstadoObjeto;
+import com.clubManager.baseDatosClub.servicios.FileStorageService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Controlador que sirve los archivos subidos bajo {@code /uploads/**}.
+ *
+ * Los archivos guardados por contenido llevan el SHA-256 en el nombre, así que nunca cambian:
+ * se sirven con ese hash como ETag fuerte y con {@code Cache-Control} inmutable de un año.
+ * Los archivos antiguos, con nombre aleatorio, usan un ETag de fecha y tamaño y se revalidan
+ * en cada uso. Se responde 304 a las peticiones condicionales y 206 a las peticiones de un
+ * rango de bytes, de modo que los vídeos se pueden reanudar y recorrer sin descargarlos enteros.
+ *
+ * Con el almacén local, si el contenedor admite sendfile el envío se delega en él, que copia el
+ * archivo al socket con {@link FileChannel#transferTo} sin pasar por la memoria de la aplicación.
+ * Con un almacén remoto el tramo pedido se copia desde su flujo.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@RestController
+public class MediaControlador {
+
+	//Area de datos
+
+    private static final Pattern NOMBRE_POR_CONTENIDO = Pattern.compile("^([0-9a-f]{64}(?:_[a-z]+)?)(?:\\.[^./]*)?$");
+    private static final Pattern RANGO = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    private static final String SENDFILE_SOPORTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    //Métodos principales
+
+    /**
+     * Sirve un archivo subido, completo o por rangos.
+     *
+     * @param request petición, con las cabeceras condicionales y de rango
+     * @param response respuesta en la que se escribe el archivo
+     */
+
+    @RequestMapping(value = "/uploads/**", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void servir(HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        // Los temporales y la cuarentena empiezan por punto y no tienen clave, así que nunca se sirven
+        String url = UriUtils.decode(request.getRequestURI().substring(request.getContextPath().length()),
+                StandardCharsets.UTF_8);
+        String clave = fileStorageService.clave(url);
+        Almacen almacen = fileStorageService.getAlmacen();
+        Optional<EstadoObjeto> estado = clave == null ? Optional.empty() : almacen.estado(clave);
+        if (estado.isEmpty())
+        {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        String nombre = clave.substring(clave.lastIndexOf('/') + 1);
+        long tamano = estado.get().getTamano();
+        long modificado = estado.get().getModificado().toEpochMilli();
+        Matcher porContenido = NOMBRE_POR_CONTENIDO.matcher(nombre);
+        boolean inmutable = porContenido.matches();
+        String etag = inmutable
+                ? "\"" + porContenido.group(1) + "\""
+                : "\"" + Long.toHexString(modificado) + "-" + Long.toHexString(tamano) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, modificado);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, inmutable
+                ? CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable().getHeaderValue()
+                : CacheControl.noCache().getHeaderValue());
+
+        if (coincideEtag(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag))
+        {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(nombre)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        long inicio = 0;
+        long fin = tamano - 1;
+        String rango = request.getHeader(HttpHeaders.RANGE);
+        String siRango = request.getHeader(HttpHeaders.IF_RANGE);
+        if (rango != null && (siRango == null || siRango.equals(etag)))
+        {
+            long[] limites = interpretarRango(rango, tamano);
+            if (limites == null)
+            {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamano);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            if (limites.length == 2)
+            {
+                inicio = limites[0];
+                fin = limites[1];
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + tamano);
+            }
+        }
+
+        long longitud = fin - inicio + 1;
+        response.setContentLengthLong(longitud);
+        if ("HEAD".equals(request.getMethod()) || longitud == 0)
+        {
+            return;
+        }
+
+        Optional<Path> archivo = almacen.rutaLocal(clave);
+        if (archivo.isEmpty())
+        {
+            // Almacén remoto: se copia el tramo pedido por un búfer de tamaño fijo
+            try (InputStream entrada = almacen.abrir(clave, inicio, longitud))
+            {
+                entrada.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTE)))
+        {
+            request.setAttribute(SENDFILE_ARCHIVO, archivo.get().toString());
+            request.setAttribute(SENDFILE_INICIO, inicio);
+            request.setAttribute(SENDFILE_FIN, fin + 1);
+            return;
+        }
+
+        try (FileChannel canal = FileChannel.open(archivo.get(), StandardOpenOption.READ))
+        {
+            WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+            long enviado = 0;
+            while (enviado < longitud)
+            {
+                enviado += canal.transferTo(inicio + enviado, longitud - enviado, salida);
+            }
+        }
+    }
+
+    /**
+     * Interpreta una cabecera {@code Range} de un solo rango.
+     *
+     * @return {@code [inicio, fin]} si el rango es válido, un array vacío si la cabecera
+     *         no se entiende y debe ignorarse, o nulo si el rango queda fuera del archivo
+     */
+
+    private static long[] interpretarRango(String cabecera, long tamano)
+    {
+        Matcher m = RANGO.matcher(cabecera.trim());
+        if (!m.matches() || (m.group(1).isEmpty() && m.group(2).isEmpty()))
+        {
+            return new long[0];
+        }
+
+        try
+        {
+            long inicio;
+            long fin;
+            if (m.group(1).isEmpty())
+            {
+                // bytes=-N: los últimos N bytes
+                long sufijo = Long.parseLong(m.group(2));
+                if (sufijo == 0)
+                {
+                    return null;
+                }
+                inicio = Math.max(0, tamano - sufijo);
+                fin = tamano - 1;
+            }
+            else
+            {
+                inicio = Long.parseLong(m.group(1));
+                fin = m.group(2).isEmpty() ? tamano - 1 : Math.min(Long.parseLong(m.group(2)), tamano - 1);
+            }
+            return inicio >= tamano || inicio > fin ? null : new long[] {inicio, fin};
+        }
+        catch (NumberFormatException e)
+        {
+            return new long[0];
+        }
+    }
+
+    private static boolean coincideEtag(String ifNoneMatch, String etag)
+    {
+        if (ifNoneMatch == null)
+        {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(","))
+        {
+            String valor = candidato.trim();
+            if (valor.equals("*") || valor.equals(etag) || valor.equals("W/" + etag))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
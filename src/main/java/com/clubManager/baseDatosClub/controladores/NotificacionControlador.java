@@ -4,15 +4,23 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.clubManager.baseDatosClub.dto.NotificacionDTO;
+import com.clubManager.baseDatosClub.dto.PaginaNotificacionesDTO;
 import com.clubManager.baseDatosClub.entidades.Notificacion;
+import com.clubManager.baseDatosClub.servicios.CanalNotificacionesServicio;
 import com.clubManager.baseDatosClub.servicios.NotificacionServicio;
 
 /**
@@ -28,6 +36,9 @@ public class NotificacionControlador {
 
     @Autowired
     private NotificacionServicio notificacionServicio;
+
+    @Autowired
+    private CanalNotificacionesServicio canalNotificaciones;
     
     /**
      * Lista todas las notificaciones asociadas a un equipo específico.
@@ -42,6 +53,57 @@ public class NotificacionControlador {
         return notificacionServicio.listarNotificacionesPorEquipo(idEquipo);
     }
     
+    /**
+     * Devuelve el historial de notificaciones de un equipo por páginas, de la más reciente
+     * a la más antigua. Para pedir la siguiente página se envía el {@code siguienteCursor}
+     * recibido en la anterior.
+     *
+     * @param idEquipo ID del equipo
+     * @param cursor cursor de la página anterior (opcional)
+     * @param tamano número de notificaciones por página (opcional)
+     * @return página de notificaciones
+     */
+    
+    @GetMapping("/equipo/{idEquipo}/pagina")
+    public PaginaNotificacionesDTO listarPaginaPorEquipo
+    		(
+            @PathVariable String idEquipo,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano
+            )
+    {
+        return notificacionServicio.listarPaginaPorEquipo(idEquipo, cursor, tamano);
+    }
+    
+    /**
+     * Abre un flujo Server-Sent Events con las nuevas notificaciones de un equipo.
+     * Cada evento lleva como id el {@code idNotificacion}; si el cliente se reconecta con
+     * la cabecera {@code Last-Event-ID} recibe primero las notificaciones que se perdió.
+     *
+     * @param idEquipo ID del equipo
+     * @param lastEventId último id de evento recibido por el cliente (opcional)
+     * @return emisor SSE de la conexión
+     */
+    
+    @GetMapping(value = "/stream/equipo/{idEquipo}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribir
+    		(
+            @PathVariable String idEquipo,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+            )
+    {
+        Long ultimoId = null;
+        try 
+        {
+            ultimoId = lastEventId != null ? Long.valueOf(lastEventId.trim()) : null;
+        } 
+        catch (NumberFormatException e) 
+        {
+            // Un Last-Event-ID no numérico se ignora y el cliente solo recibe lo nuevo
+        }
+        return canalNotificaciones.suscribir(idEquipo, ultimoId);
+    }
+    
     /**
      * Busca una notificación por su ID, validando que pertenezca al equipo indicado.
      *
@@ -62,25 +124,30 @@ public class NotificacionControlador {
     
     /**
      * Busca la última notificación emitida para un equipo.
+     * La respuesta lleva como ETag el id de la notificación; si el cliente envía ese mismo
+     * valor en {@code If-None-Match} se responde 304 sin cuerpo.
      *
      * @param idEquipo ID del equipo
+     * @param request petición, para comprobar la cabecera {@code If-None-Match}
      * @return NotificacionDTO los datos de la última notificación
      */
     
     @GetMapping("/ultima/equipo/{idEquipo}")
-    public ResponseEntity<NotificacionDTO> obtenerUltimaPorEquipo(@PathVariable String idEquipo) 
+    public ResponseEntity<NotificacionDTO> obtenerUltimaPorEquipo(@PathVariable String idEquipo, WebRequest request) 
     {
-        Optional<Notificacion> opt = notificacionServicio.obtenerUltimaPorEquipo(idEquipo);
+        Optional<NotificacionDTO> opt = notificacionServicio.obtenerUltimaPorEquipo(idEquipo);
         if (opt.isEmpty()) return ResponseEntity.notFound().build();
 
-        Notificacion n = opt.get();
-        NotificacionDTO dto = new NotificacionDTO();
-        dto.setIdNotificacion(n.getIdNotificacion());
-        dto.setTitulo(n.getTitulo());
-        dto.setMensaje(n.getMensaje());
-        dto.setFecha(n.getFecha());
-        dto.setIdEquipo(n.getEquipo().getIdEquipo());
-        return ResponseEntity.ok(dto);
+        NotificacionDTO dto = opt.get();
+        String etag = "\"" + dto.getIdNotificacion() + "\"";
+        if (request.checkNotModified(etag)) 
+        {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(dto);
     }
 
     /**
@@ -0,0 +1,97 @@
+package com.clubManager.baseDatosClub.dto;
+
+/**
+ * DTO con lo que suma un jugador en el acta de un partido: goles, goles encajados, tarjetas
+ * y puntos. Los campos que no se envían cuentan como cero.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+public class EstadisticaActaDTO {
+
+	//Area de datos
+
+    private String idJugador;
+    private Integer goles;
+    private Integer golesEncajados;
+    private Integer tarjetasAmarillas;
+    private Integer tarjetasRojas;
+    private Integer puntos;
+
+    //Constructores
+
+    public EstadisticaActaDTO() {}
+
+    public EstadisticaActaDTO(String idJugador, Integer goles, Integer golesEncajados, Integer tarjetasAmarillas,
+    		Integer tarjetasRojas, Integer puntos)
+    {
+        this.idJugador = idJugador;
+        this.goles = goles;
+        this.golesEncajados = golesEncajados;
+        this.tarjetasAmarillas = tarjetasAmarillas;
+        this.tarjetasRojas = tarjetasRojas;
+        this.puntos = puntos;
+    }
+
+    // Métodos Getters y setters
+
+    public String getIdJugador()
+    {
+    	return idJugador;
+    }
+
+    public void setIdJugador(String idJugador)
+    {
+    	this.idJugador = idJugador;
+    }
+
+    public Integer getGoles()
+    {
+    	return goles;
+    }
+
+    public void setGoles(Integer goles)
+    {
+    	this.goles = goles;
+    }
+
+    public Integer getGolesEncajados()
+    {
+    	return golesEncajados;
+    }
+
+    public void setGolesEncajados(Integer golesEncajados)
+    {
+    	this.golesEncajados = golesEncajados;
+    }
+
+    public Integer getTarjetasAmarillas()
+    {
+    	return tarjetasAmarillas;
+    }
+
+    public void setTarjetasAmarillas(Integer tarjetasAmarillas)
+    {
+    	this.tarjetasAmarillas = tarjetasAmarillas;
+    }
+
+    public Integer getTarjetasRojas()
+    {
+    	return tarjetasRojas;
+    }
+
+    public void setTarjetasRojas(Integer tarjetasRojas)
+    {
+    	this.tarjetasRojas = tarjetasRojas;
+    }
+
+    public Integer getPuntos()
+    {
+    	return puntos;
+    }
+
+    public void setPuntos(Integer puntos)
+    {
+    	this.puntos = puntos;
+    }
+}
@@ -0,0 +1,86 @@
+package com.clubManager.baseDatosClub.dto;
+
+/**
+ * DTO con el resumen del almacenamiento deduplicado de la galería.
+ * 
+ * {@code ratioDeduplicacion} es el número de documentos por cada archivo guardado en disco,
+ * y {@code bytesAhorrados} lo que ocuparían las copias repetidas si no se deduplicasen.
+ * 
+ * @author Sergio Vigil Soto
+ */
+
+public class EstadisticasAlmacenamientoDTO {
+	
+	//Area de Datos
+	
+	private long contenidos;
+	private long referencias;
+	private long bytesAlmacenados;
+	private long bytesAhorrados;
+	private double ratioDeduplicacion;
+	
+	//Constructores
+	
+	public EstadisticasAlmacenamientoDTO() {}
+	
+	public EstadisticasAlmacenamientoDTO(Long contenidos, Long referencias, Long bytesAlmacenados, Long bytesReferenciados) 
+	{
+		this.contenidos = contenidos;
+		this.referencias = referencias;
+		this.bytesAlmacenados = bytesAlmacenados;
+		this.bytesAhorrados = bytesReferenciados - bytesAlmacenados;
+		this.ratioDeduplicacion = contenidos == 0 ? 1.0 : (double) referencias / contenidos;
+	}
+	
+	//Métodos Getters y Setters
+
+	public long getContenidos() 
+	{
+		return contenidos;
+	}
+
+	public void setContenidos(long contenidos) 
+	{
+		this.contenidos = contenidos;
+	}
+
+	public long getReferencias() 
+	{
+		return referencias;
+	}
+
+	public void setReferencias(long referencias) 
+	{
+		this.referencias = referencias;
+	}
+
+	public long getBytesAlmacenados() 
+	{
+		return bytesAlmacenados;
+	}
+
+	public void setBytesAlmacenados(long bytesAlmacenados) 
+	{
+		this.bytesAlmacenados = bytesAlmacenados;
+	}
+
+	public long getBytesAhorrados() 
+	{
+		return bytesAhorrados;
+	}
+
+	public void setBytesAhorrados(long bytesAhorrados) 
+	{
+		this.bytesAhorrados = bytesAhorrados;
+	}
+
+	public double getRatioDeduplicacion() 
+	{
+		return ratioDeduplicacion;
+	}
+
+	public void setRatioDeduplicacion(double ratioDeduplicacion) 
+	{
+		this.ratioDeduplicacion = ratioDeduplicacion;
+	}
+}
@@ -0,0 +1,135 @@
+package com.clubManager.baseDatosClub.dto;
+
+import java.time.LocalDate;
+
+/**
+ * DTO con los datos de un documento de la galería que se muestran en los listados,
+ * sin las relaciones con entrenador, jugador, padre y equipo.
+ * 
+ * @author Sergio Vigil Soto
+ */
+
+public class GaleriaResumenDTO {
+	
+	//Area de Datos
+	
+	private Long idDocumento;
+	private String tipo;
+	private String autor;
+	private LocalDate fecha;
+	private String url;
+	private String nombreDocumento;
+	private Long tamano;
+	private String urlMiniatura;
+	private String urlVista;
+	
+	//Constructores
+	
+	public GaleriaResumenDTO() {}
+	
+	public GaleriaResumenDTO(Long idDocumento, String tipo, String autor, LocalDate fecha, String url,
+			String nombreDocumento, Long tamano, String urlMiniatura, String urlVista) 
+	{
+		this.idDocumento = idDocumento;
+		this.tipo = tipo;
+		this.autor = autor;
+		this.fecha = fecha;
+		this.url = url;
+		this.nombreDocumento = nombreDocumento;
+		this.tamano = tamano;
+		this.urlMiniatura = urlMiniatura;
+		this.urlVista = urlVista;
+	}
+	
+	//Métodos Getters y Setters
+
+	public Long getIdDocumento() 
+	{
+		return idDocumento;
+	}
+
+	public void setIdDocumento(Long idDocumento) 
+	{
+		this.idDocumento = idDocumento;
+	}
+
+	public String getTipo() 
+	{
+		return tipo;
+	}
+
+	public void setTipo(String tipo) 
+	{
+		this.tipo = tipo;
+	}
+
+	public String getAutor() 
+	{
+		return autor;
+	}
+
+	public void setAutor(String autor) 
+	{
+		this.autor = autor;
+	}
+
+	public LocalDate getFecha() 
+	{
+		return fecha;
+	}
+
+	public void setFecha(LocalDate fecha) 
+	{
+		this.fecha = fecha;
+	}
+
+	public String getUrl() 
+	{
+		return url;
+	}
+
+	public void setUrl(String url) 
+	{
+		this.url = url;
+	}
+
+	public String getNombreDocumento() 
+	{
+		return nombreDocumento;
+	}
+
+	public void setNombreDocumento(String nombreDocumento) 
+	{
+		this.nombreDocumento = nombreDocumento;
+	}
+
+	public Long getTamano() 
+	{
+		return tamano;
+	}
+
+	public void setTamano(Long tamano) 
+	{
+		this.tamano = tamano;
+	}
+
+	public String getUrlMiniatura() 
+	{
+		return urlMiniatura;
+	}
+
+	public void setUrlMiniatura(String urlMiniatura) 
+	{
+		this.urlMiniatura = urlMiniatura;
+	}
+
+	public String getUrlVista() 
+	{
+		return urlVista;
+	}
+
+	public void setUrlVista(String urlVista) 
+	{
+		this.urlVista = urlVista;
+	}
+}
@@ -0,0 +1,172 @@
+package com.clubManager.baseDatosClub.dto;
+
+import java.time.LocalDate;
+
+/**
+ * DTO con los datos de un jugador que se muestran en la plantilla de su equipo, sin
+ * credenciales, datos de contacto ni relaciones.
+ * 
+ * @author Sergio Vigil Soto
+ */
+
+public class JugadorPlantillaDTO {
+	
+	//Area de Datos
+	
+	private String idJugador;
+	private String nombre;
+	private String apellidos;
+	private Integer dorsal;
+	private String posicion;
+	private String foto;
+	private LocalDate fechaNacimiento;
+	private Integer goles;
+	private Integer golesEncajados;
+	private Integer tarjetasAmarillas;
+	private Integer tarjetasRojas;
+	private Integer puntosTotales;
+	
+	//Constructores
+	
+	public JugadorPlantillaDTO() {}
+	
+	public JugadorPlantillaDTO(String idJugador, String nombre, String apellidos, Integer dorsal, String posicion,
+			String foto, LocalDate fechaNacimiento, Integer goles, Integer golesEncajados, Integer tarjetasAmarillas,
+			Integer tarjetasRojas, Integer puntosTotales) 
+	{
+		this.idJugador = idJugador;
+		this.nombre = nombre;
+		this.apellidos = apellidos;
+		this.dorsal = dorsal;
+		this.posicion = posicion;
+		this.foto = foto;
+		this.fechaNacimiento = fechaNacimiento;
+		this.goles = goles;
+		this.golesEncajados = golesEncajados;
+		this.tarjetasAmarillas = tarjetasAmarillas;
+		this.tarjetasRojas = tarjetasRojas;
+		this.puntosTotales = puntosTotales;
+	}
+	
+	//Métodos Getters y Setters
+
+	public String getIdJugador() 
+	{
+		return idJugador;
+	}
+
+	public void setIdJugador(String idJugador) 
+	{
+		this.idJugador = idJugador;
+	}
+
+	public String getNombre() 
+	{
+		return nombre;
+	}
+
+	public void setNombre(String nombre) 
+	{
+		this.nombre = nombre;
+	}
+
+	public String getApellidos() 
+	{
+		return apellidos;
+	}
+
+	public void setApellidos(String apellidos) 
+	{
+		this.apellidos = apellidos;
+	}
+
+	public Integer getDorsal() 
+	{
+		return dorsal;
+	}
+
+	public void setDorsal(Integer dorsal) 
+	{
+		this.dorsal = dorsal;
+	}
+
+	public String getPosicion() 
+	{
+		return posicion;
+	}
+
+	public void setPosicion(String posicion) 
+	{
+		this.posicion = posicion;
+	}
+
+	public String getFoto() 
+	{
+		return foto;
+	}
+
+	public void setFoto(String foto) 
+	{
+		this.foto = foto;
+	}
+
+	public LocalDate getFechaNacimiento() 
+	{
+		return fechaNacimiento;
+	}
+
+	public void setFechaNacimiento(LocalDate fechaNacimiento) 
+	{
+		this.fechaNacimiento = fechaNacimiento;
+	}
+
+	public Integer getGoles() 
+	{
+		return goles;
+	}
+
+	public void setGoles(Integer goles) 
+	{
+		this.goles = goles;
+	}
+
+	public Integer getGolesEncajados() 
+	{
+		return golesEncajados;
+	}
+
+	public void setGolesEncajados(Integer golesEncajados) 
+	{
+		this.golesEncajados = golesEncajados;
+	}
+
+	public Integer getTarjetasAmarillas() 
+	{
+		return tarjetasAmarillas;
+	}
+
+	public void setTarjetasAmarillas(Integer tarjetasAmarillas) 
+	{
+		this.tarjetasAmarillas = tarjetasAmarillas;
+	}
+
+	public Integer getTarjetasRojas() 
+	{
+		return tarjetasRojas;
+	}
+
+	public void setTarjetasRojas(Integer tarjetasRojas) 
+	{
+		this.tarjetasRojas = tarjetasRojas;
+	}
+
+	public Integer getPuntosTotales() 
+	{
+		return puntosTotales;
+	}
+
+	public void setPuntosTotales(Integer puntosTotales) 
+	{
+		this.puntosTotales = puntosTotales;
+	}
+}
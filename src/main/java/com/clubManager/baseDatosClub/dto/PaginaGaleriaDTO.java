@@ -0,0 +1,55 @@
+package com.clubManager.baseDatosClub.dto;
+
+import java.util.List;
+
+/**
+ * DTO con una página de los documentos de la galería de un equipo.
+ * 
+ * {@code siguienteCursor} se pasa tal cual para pedir la página siguiente;
+ * es nulo cuando no quedan más documentos.
+ * 
+ * Al filtrar por tipo las páginas se leen del índice del equipo por tipo, fecha e id, así que
+ * un tipo poco frecuente no obliga a recorrer documentos de otros tipos.
+ * 
+ * @author Sergio Vigil Soto
+ */
+
+public class PaginaGaleriaDTO {
+	
+	//Area de Datos
+	
+	private List<GaleriaResumenDTO> documentos;
+	private String siguienteCursor;
+	
+	//Constructores
+	
+	public PaginaGaleriaDTO() {}
+	
+	public PaginaGaleriaDTO(List<GaleriaResumenDTO> documentos, String siguienteCursor) 
+	{
+		this.documentos = documentos;
+		this.siguienteCursor = siguienteCursor;
+	}
+	
+	//Métodos Getters y Setters
+
+	public List<GaleriaResumenDTO> getDocumentos() 
+	{
+		return documentos;
+	}
+
+	public void setDocumentos(List<GaleriaResumenDTO> documentos) 
+	{
+		this.documentos = documentos;
+	}
+
+	public String getSiguienteCursor() 
+	{
+		return siguienteCursor;
+	}
+
+	public void setSiguienteCursor(String siguienteCursor) 
+	{
+		this.siguienteCursor = siguienteCursor;
+	}
+}
@@ -0,0 +1,52 @@
+package com.clubManager.baseDatosClub.dto;
+
+import java.util.List;
+
+/**
+ * DTO con una página del historial de notificaciones de un equipo.
+ * 
+ * {@code siguienteCursor} se pasa tal cual para pedir la página siguiente;
+ * es nulo cuando no quedan más notificaciones.
+ * 
+ * @author Sergio Vigil Soto
+ */
+
+public class PaginaNotificacionesDTO {
+	
+	//Area de Datos
+	
+	private List<NotificacionDTO> notificaciones;
+	private String siguienteCursor;
+	
+	//Constructores
+	
+	public PaginaNotificacionesDTO() {}
+	
+	public PaginaNotificacionesDTO(List<NotificacionDTO> notificaciones, String siguienteCursor) 
+	{
+		this.notificaciones = notificaciones;
+		this.siguienteCursor = siguienteCursor;
+	}
+	
+	//Métodos Getters y Setters
+
+	public List<NotificacionDTO> getNotificaciones() 
+	{
+		return notificaciones;
+	}
+
+	public void setNotificaciones(List<NotificacionDTO> notificaciones) 
+	{
+		this.notificaciones = notificaciones;
+	}
+
+	public String getSiguienteCursor() 
+	{
+		return siguienteCursor;
+	}
+
+	public void setSiguienteCursor(String siguienteCursor) 
+	{
+		this.siguienteCursor = siguienteCursor;
+	}
+}
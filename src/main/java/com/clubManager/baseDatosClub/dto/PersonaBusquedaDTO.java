@@ -0,0 +1,84 @@
+package com.clubManager.baseDatosClub.dto;
+
+/**
+ * DTO con un resultado de la búsqueda de personas: un jugador o un padre con su nombre y,
+ * para los jugadores, el equipo al que pertenecen.
+ * 
+ * @author Sergio Vigil Soto
+ */
+
+public class PersonaBusquedaDTO {
+	
+	//Area de Datos
+	
+	private String tipo;
+	private String id;
+	private String nombre;
+	private String apellidos;
+	private String idEquipo;
+	
+	//Constructores
+	
+	public PersonaBusquedaDTO() {}
+	
+	public PersonaBusquedaDTO(String tipo, String id, String nombre, String apellidos, String idEquipo) 
+	{
+		this.tipo = tipo;
+		this.id = id;
+		this.nombre = nombre;
+		this.apellidos = apellidos;
+		this.idEquipo = idEquipo;
+	}
+	
+	//Métodos Getters y Setters
+
+	public String getTipo() 
+	{
+		return tipo;
+	}
+
+	public void setTipo(String tipo) 
+	{
+		this.tipo = tipo;
+	}
+
+	public String getId() 
+	{
+		return id;
+	}
+
+	public void setId(String id) 
+	{
+		this.id = id;
+	}
+
+	public String getNombre() 
+	{
+		return nombre;
+	}
+
+	public void setNombre(String nombre) 
+	{
+		this.nombre = nombre;
+	}
+
+	public String getApellidos() 
+	{
+		return apellidos;
+	}
+
+	public void setApellidos(String apellidos) 
+	{
+		this.apellidos = apellidos;
+	}
+
+	public String getIdEquipo() 
+	{
+		return idEquipo;
+	}
+
+	public void setIdEquipo(String idEquipo) 
+	{
+		this.idEquipo = idEquipo;
+	}
+}
@@ -0,0 +1,74 @@
+package com.clubManager.baseDatosClub.dto;
+
+/**
+ * DTO con el resultado de una pasada de limpieza de archivos huérfanos.
+ * 
+ * {@code bytesRecuperados} es el espacio liberado en disco en la pasada, y
+ * {@code bytesEnCuarentena} lo que se ha apartado a la cuarentena y se liberará al vencer su retención.
+ * 
+ * @author Sergio Vigil Soto
+ */
+
+public class ResultadoLimpiezaDTO {
+	
+	//Area de Datos
+	
+	private long revisados;
+	private long huerfanos;
+	private long bytesEnCuarentena;
+	private long bytesRecuperados;
+	
+	//Constructores
+	
+	public ResultadoLimpiezaDTO() {}
+	
+	public ResultadoLimpiezaDTO(long revisados, long huerfanos, long bytesEnCuarentena, long bytesRecuperados) 
+	{
+		this.revisados = revisados;
+		this.huerfanos = huerfanos;
+		this.bytesEnCuarentena = bytesEnCuarentena;
+		this.bytesRecuperados = bytesRecuperados;
+	}
+	
+	//Métodos Getters y Setters
+
+	public long getRevisados() 
+	{
+		return revisados;
+	}
+
+	public void setRevisados(long revisados) 
+	{
+		this.revisados = revisados;
+	}
+
+	public long getHuerfanos() 
+	{
+		return huerfanos;
+	}
+
+	public void setHuerfanos(long huerfanos) 
+	{
+		this.huerfanos = huerfanos;
+	}
+
+	public long getBytesEnCuarentena() 
+	{
+		return bytesEnCuarentena;
+	}
+
+	public void setBytesEnCuarentena(long bytesEnCuarentena) 
+	{
+		this.bytesEnCuarentena = bytesEnCuarentena;
+	}
+
+	public long getBytesRecuperados() 
+	{
+		return bytesRecuperados;
+	}
+
+	public void setBytesRecuperados(long bytesRecuperados) 
+	{
+		this.bytesRecuperados = bytesRecuperados;
+	}
+}
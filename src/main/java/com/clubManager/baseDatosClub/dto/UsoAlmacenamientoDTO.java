@@ -0,0 +1,74 @@
+package com.clubManager.baseDatosClub.dto;
+
+/**
+ * DTO con el espacio que ocupan los documentos de un equipo y su cuota.
+ *
+ * Una {@code cuota} de 0 o menor indica que el equipo no tiene límite; en ese caso
+ * {@code bytesDisponibles} es {@link Long#MAX_VALUE}.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+public class UsoAlmacenamientoDTO {
+
+	//Area de Datos
+
+	private String idEquipo;
+	private long bytesUsados;
+	private long cuota;
+	private long bytesDisponibles;
+
+	//Constructores
+
+	public UsoAlmacenamientoDTO() {}
+
+	public UsoAlmacenamientoDTO(String idEquipo, long bytesUsados, long cuota)
+	{
+		this.idEquipo = idEquipo;
+		this.bytesUsados = bytesUsados;
+		this.cuota = cuota;
+		this.bytesDisponibles = cuota <= 0 ? Long.MAX_VALUE : Math.max(0, cuota - bytesUsados);
+	}
+
+	//Métodos Getters y Setters
+
+	public String getIdEquipo()
+	{
+		return idEquipo;
+	}
+
+	public void setIdEquipo(String idEquipo)
+	{
+		this.idEquipo = idEquipo;
+	}
+
+	public long getBytesUsados()
+	{
+		return bytesUsados;
+	}
+
+	public void setBytesUsados(long bytesUsados)
+	{
+		this.bytesUsados = bytesUsados;
+	}
+
+	public long getCuota()
+	{
+		return cuota;
+	}
+
+	public void setCuota(long cuota)
+	{
+		this.cuota = cuota;
+	}
+
+	public long getBytesDisponibles()
+	{
+		return bytesDisponibles;
+	}
+
+	public void setBytesDisponibles(long bytesDisponibles)
+	{
+		this.bytesDisponibles = bytesDisponibles;
+	}
+}
@@ -0,0 +1,150 @@
+package com.clubManager.baseDatosClub.entidades;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * Entidad que representa un archivo almacenado en disco, identificado por el SHA-256 de su contenido.
+ *
+ * Mapea la tabla {@code contenido_archivo}. Cada contenido distinto se guarda una sola vez y
+ * los documentos de la {@link Galeria} con el mismo {@code sha256} lo comparten. La columna
+ * {@code referencias} cuenta cuántos documentos lo usan; cuando llega a cero se borra el archivo.
+ *
+ * Antes de borrar el archivo la fila se marca en {@code borrandoDesde}, y solo se elimina cuando
+ * el archivo ya no existe. Mientras está marcada no admite referencias nuevas, de modo que todos
+ * los nodos ven el borrado y ninguno reutiliza un archivo que otro está retirando.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Entity
+@Table(name = "contenido_archivo")
+public class ContenidoArchivo {
+
+	// Área de Datos
+
+    /**
+     * Huella SHA-256 del contenido, en hexadecimal.
+     * Corresponde a la columna {@code sha256}, clave primaria.
+     */
+
+    @Id
+    @Column(name = "sha256", length = 64)
+    private String sha256;
+
+    /**
+     * Ruta pública del archivo.
+     * Columna {@code url}, no nula.
+     */
+
+    @Column(name = "url", nullable = false, length = 255)
+    private String url;
+
+    /**
+     * Tamaño del archivo en bytes.
+     * Columna {@code tamano}, no nula.
+     */
+
+    @Column(name = "tamano", nullable = false)
+    private long tamano;
+
+    /**
+     * Número de documentos que usan este contenido.
+     * Columna {@code referencias}, no nula.
+     */
+
+    @Column(name = "referencias", nullable = false)
+    private int referencias;
+
+    /**
+     * Momento en que se guardó el contenido por primera vez.
+     * Columna {@code fechaCreacion}, no nula.
+     */
+
+    @Column(name = "fechaCreacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    /**
+     * Momento en que se empezó a borrar el archivo, nulo mientras está en uso.
+     * Columna {@code borrandoDesde}.
+     */
+
+    @Column(name = "borrandoDesde")
+    private LocalDateTime borrandoDesde;
+
+    // Constructores
+
+    public ContenidoArchivo() {}
+
+    public ContenidoArchivo(String sha256, String url, long tamano)
+    {
+        this.sha256 = sha256;
+        this.url = url;
+        this.tamano = tamano;
+        this.referencias = 1;
+        this.fechaCreacion = LocalDateTime.now();
+    }
+
+    // Métodos Getter y Setter
+
+    public String getSha256()
+    {
+        return sha256;
+    }
+
+    public void setSha256(String sha256)
+    {
+        this.sha256 = sha256;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    public void setUrl(String url)
+    {
+        this.url = url;
+    }
+
+    public long getTamano()
+    {
+        return tamano;
+    }
+
+    public void setTamano(long tamano)
+    {
+        this.tamano = tamano;
+    }
+
+    public int getReferencias()
+    {
+        return referencias;
+    }
+
+    public void setReferencias(int referencias)
+    {
+        this.referencias = referencias;
+    }
+
+    public LocalDateTime getFechaCreacion()
+    {
+        return fechaCreacion;
+    }
+
+    public void setFechaCreacion(LocalDateTime fechaCreacion)
+    {
+        this.fechaCreacion = fechaCreacion;
+    }
+
+    public LocalDateTime getBorrandoDesde()
+    {
+        return borrandoDesde;
+    }
+
+    public void setBorrandoDesde(LocalDateTime borrandoDesde)
+    {
+        this.borrandoDesde = borrandoDesde;
+    }
+}
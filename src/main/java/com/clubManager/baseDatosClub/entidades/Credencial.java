@@ -0,0 +1,140 @@
+package com.clubManager.baseDatosClub.entidades;
+
+import jakarta.persistence.*;
+
+/**
+ * Entidad que representa el índice de credenciales usado en el inicio de sesión.
+ *
+ * Mapea la tabla {@code credencial}, que reúne en una sola tabla el identificador, el tipo,
+ * la contraseña y el equipo de entrenadores, jugadores y padres. Así el login se resuelve
+ * con una única consulta indexada sin cargar las entidades completas.
+ *
+ * Se mantiene sincronizada desde los servicios que crean, modifican o eliminan usuarios.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Entity
+@Table
+(
+    name = "credencial",
+    uniqueConstraints = @UniqueConstraint
+    (
+        name = "uk_credencial_identificador_tipo",
+        columnNames = {"identificador", "tipoUsuario"}
+    )
+)
+public class Credencial {
+
+	// Área de Datos
+
+	public static final String TIPO_ENTRENADOR = "entrenador";
+	public static final String TIPO_JUGADOR = "jugador";
+	public static final String TIPO_PADRE = "padre";
+
+    /**
+     * Identificador único de la credencial.
+     * Corresponde a la columna {@code idCredencial}, con auto-incremento.
+     */
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "idCredencial")
+    private Long idCredencial;
+
+    /**
+     * Identificador del usuario (idEntrenador, idJugador o idPadre).
+     * Columna {@code identificador}, no nula.
+     */
+
+    @Column(name = "identificador", nullable = false, length = 36)
+    private String identificador;
+
+    /**
+     * Tipo de usuario: {@value #TIPO_ENTRENADOR}, {@value #TIPO_JUGADOR} o {@value #TIPO_PADRE}.
+     * Columna {@code tipoUsuario}, no nula.
+     */
+
+    @Column(name = "tipoUsuario", nullable = false, length = 10)
+    private String tipoUsuario;
+
+    /**
+     * Contraseña del usuario.
+     * Columna {@code password}, no nula.
+     */
+
+    @Column(name = "password", nullable = false, length = 255)
+    private String password;
+
+    /**
+     * Equipo del jugador, devuelto en la respuesta del login.
+     * Columna {@code idEquipo}, opcional.
+     */
+
+    @Column(name = "idEquipo", length = 36)
+    private String idEquipo;
+
+    // Constructores
+
+    public Credencial() {}
+
+    public Credencial(String identificador, String tipoUsuario, String password, String idEquipo)
+    {
+        this.identificador = identificador;
+        this.tipoUsuario = tipoUsuario;
+        this.password = password;
+        this.idEquipo = idEquipo;
+    }
+
+    // Métodos Getter y Setter
+
+    public Long getIdCredencial()
+    {
+        return idCredencial;
+    }
+
+    public void setIdCredencial(Long idCredencial)
+    {
+        this.idCredencial = idCredencial;
+    }
+
+    public String getIdentificador()
+    {
+        return identificador;
+    }
+
+    public void setIdentificador(String identificador)
+    {
+        this.identificador = identificador;
+    }
+
+    public String getTipoUsuario()
+    {
+        return tipoUsuario;
+    }
+
+    public void setTipoUsuario(String tipoUsuario)
+    {
+        this.tipoUsuario = tipoUsuario;
+    }
+
+    public String getPassword()
+    {
+        return password;
+    }
+
+    public void setPassword(String password)
+    {
+        this.password = password;
+    }
+
+    public String getIdEquipo()
+    {
+        return idEquipo;
+    }
+
+    public void setIdEquipo(String idEquipo)
+    {
+        this.idEquipo = idEquipo;
+    }
+}
@@ -0,0 +1,258 @@
+package com.clubManager.baseDatosClub.entidades;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * Entidad que representa el envío pendiente de una notificación push a un dispositivo.
+ *
+ * Mapea la tabla {@code envio_push}, que actúa como bandeja de salida: las filas se guardan
+ * en la misma transacción que la {@link Notificacion} y un proceso en segundo plano las envía
+ * a FCM, reintentando con espera exponencial. Los envíos que fallan de forma definitiva quedan
+ * en estado {@value #ESTADO_FALLIDO}. Los envíos terminados se purgan al vencer su retención.
+ *
+ * Para que varias instancias de la aplicación puedan vaciar la bandeja a la vez, cada una
+ * reclama las filas escribiendo un identificador de reclamo y una fecha límite.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Entity
+@Table
+(
+    name = "envio_push",
+    indexes =
+    {
+        @Index(name = "idx_envio_push_estado_proximo", columnList = "estado, proximoIntento"),
+        @Index(name = "idx_envio_push_estado_creacion", columnList = "estado, fechaCreacion"),
+        @Index(name = "idx_envio_push_reclamado", columnList = "reclamadoPor"),
+        @Index(name = "idx_envio_push_token", columnList = "token")
+    }
+)
+public class EnvioPush {
+
+	// Área de Datos
+
+	public static final String ESTADO_PENDIENTE = "pendiente";
+	public static final String ESTADO_ENVIADO = "enviado";
+	public static final String ESTADO_FALLIDO = "fallido";
+
+    /**
+     * Identificador único del envío.
+     * Corresponde a la columna {@code idEnvio}, con auto-incremento.
+     */
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "idEnvio")
+    private Long idEnvio;
+
+    /**
+     * Notificación a la que pertenece el envío.
+     * Columna {@code idNotificacion}, no nula.
+     */
+
+    @Column(name = "idNotificacion", nullable = false)
+    private Long idNotificacion;
+
+    /**
+     * Token FCM del dispositivo destinatario.
+     * Columna {@code token}, no nula.
+     */
+
+    @Column(name = "token", nullable = false, length = 255)
+    private String token;
+
+    /**
+     * Cuerpo JSON del mensaje que se envía a FCM.
+     * Columna {@code payload}, no nula.
+     */
+
+    @Column(name = "payload", nullable = false, length = 4000)
+    private String payload;
+
+    /**
+     * Estado del envío: {@value #ESTADO_PENDIENTE}, {@value #ESTADO_ENVIADO} o {@value #ESTADO_FALLIDO}.
+     * Columna {@code estado}, no nula.
+     */
+
+    @Column(name = "estado", nullable = false, length = 10)
+    private String estado;
+
+    /**
+     * Número de intentos fallidos realizados.
+     * Columna {@code intentos}.
+     */
+
+    @Column(name = "intentos", nullable = false)
+    private int intentos;
+
+    /**
+     * Momento a partir del cual puede volver a intentarse el envío.
+     * Columna {@code proximoIntento}, no nula.
+     */
+
+    @Column(name = "proximoIntento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    /**
+     * Identificador del reclamo que está procesando el envío, o nulo si está libre.
+     * Columna {@code reclamadoPor}.
+     */
+
+    @Column(name = "reclamadoPor", length = 36)
+    private String reclamadoPor;
+
+    /**
+     * Fecha límite del reclamo; pasada esta fecha otra instancia puede reclamar el envío.
+     * Columna {@code reclamadoHasta}.
+     */
+
+    @Column(name = "reclamadoHasta")
+    private LocalDateTime reclamadoHasta;
+
+    /**
+     * Último error obtenido al enviar.
+     * Columna {@code ultimoError}.
+     */
+
+    @Column(name = "ultimoError", length = 500)
+    private String ultimoError;
+
+    /**
+     * Fecha de creación del envío.
+     * Columna {@code fechaCreacion}, no nula.
+     */
+
+    @Column(name = "fechaCreacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    // Constructores
+
+    public EnvioPush() {}
+
+    public EnvioPush(Long idNotificacion, String token, String payload)
+    {
+        LocalDateTime ahora = LocalDateTime.now();
+        this.idNotificacion = idNotificacion;
+        this.token = token;
+        this.payload = payload;
+        this.estado = ESTADO_PENDIENTE;
+        this.intentos = 0;
+        this.proximoIntento = ahora;
+        this.fechaCreacion = ahora;
+    }
+
+    // Métodos Getter y Setter
+
+    public Long getIdEnvio()
+    {
+        return idEnvio;
+    }
+
+    public void setIdEnvio(Long idEnvio)
+    {
+        this.idEnvio = idEnvio;
+    }
+
+    public Long getIdNotificacion()
+    {
+        return idNotificacion;
+    }
+
+    public void setIdNotificacion(Long idNotificacion)
+    {
+        this.idNotificacion = idNotificacion;
+    }
+
+    public String getToken()
+    {
+        return token;
+    }
+
+    public void setToken(String token)
+    {
+        this.token = token;
+    }
+
+    public String getPayload()
+    {
+        return payload;
+    }
+
+    public void setPayload(String payload)
+    {
+        this.payload = payload;
+    }
+
+    public String getEstado()
+    {
+        return estado;
+    }
+
+    public void setEstado(String estado)
+    {
+        this.estado = estado;
+    }
+
+    public int getIntentos()
+    {
+        return intentos;
+    }
+
+    public void setIntentos(int intentos)
+    {
+        this.intentos = intentos;
+    }
+
+    public LocalDateTime getProximoIntento()
+    {
+        return proximoIntento;
+    }
+
+    public void setProximoIntento(LocalDateTime proximoIntento)
+    {
+        this.proximoIntento = proximoIntento;
+    }
+
+    public String getReclamadoPor()
+    {
+        return reclamadoPor;
+    }
+
+    public void setReclamadoPor(String reclamadoPor)
+    {
+        this.reclamadoPor = reclamadoPor;
+    }
+
+    public LocalDateTime getReclamadoHasta()
+    {
+        return reclamadoHasta;
+    }
+
+    public void setReclamadoHasta(LocalDateTime reclamadoHasta)
+    {
+        this.reclamadoHasta = reclamadoHasta;
+    }
+
+    public String getUltimoError()
+    {
+        return ultimoError;
+    }
+
+    public void setUltimoError(String ultimoError)
+    {
+        this.ultimoError = ultimoError;
+    }
+
+    public LocalDateTime getFechaCreacion()
+    {
+        return fechaCreacion;
+    }
+
+    public void setFechaCreacion(LocalDateTime fechaCreacion)
+    {
+        this.fechaCreacion = fechaCreacion;
+    }
+}
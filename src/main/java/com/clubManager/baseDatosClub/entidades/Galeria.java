@@ -2,6 +2,8 @@ package com.clubManager.baseDatosClub.entidades;
 
 import java.time.LocalDate;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.*;
 
 /**
@@ -15,11 +17,27 @@ import jakarta.persistence.*;
  */
 
 @Entity
-@Table(name = "galeria")
+@Table
+(
+    name = "galeria",
+    indexes =
+    {
+        @Index(name = "idx_galeria_equipo_fecha_id", columnList = "idEquipo, fecha DESC, idDocumento DESC"),
+        @Index(name = "idx_galeria_equipo_tipo_fecha_id", columnList = "idEquipo, tipo, fecha DESC, idDocumento DESC"),
+        @Index(name = "idx_galeria_equipo_sha256", columnList = "idEquipo, sha256"),
+        @Index(name = "idx_galeria_url", columnList = "url"),
+        @Index(name = "idx_galeria_url_miniatura", columnList = "urlMiniatura"),
+        @Index(name = "idx_galeria_url_vista", columnList = "urlVista")
+    }
+)
 public class Galeria {
 
     // Área de Datos
 
+    public static final String VARIANTES_OK = "ok";
+    public static final String VARIANTES_NO_IMAGEN = "no_imagen";
+    public static final String VARIANTES_SIN_ARCHIVO = "sin_archivo";
+
     /**
      * Identificador único del documento.
      * Corresponde a la columna {@code id_documento}, con auto-incremento.
@@ -70,6 +88,48 @@ public class Galeria {
     
     @Column(name = "nombreDocumento", nullable = false, length = 255)
     private String nombreDocumento;
+
+    /**
+     * Huella SHA-256 del contenido del archivo, en hexadecimal.
+     * Columna {@code sha256}, nula en documentos que no se subieron al servidor.
+     */
+    
+    @Column(name = "sha256", length = 64)
+    private String sha256;
+
+    /**
+     * Tamaño del archivo en bytes.
+     * Columna {@code tamano}, nula en documentos que no se subieron al servidor.
+     */
+    
+    @Column(name = "tamano")
+    private Long tamano;
+
+    /**
+     * Ruta de la miniatura cuadrada de la imagen.
+     * Columna {@code urlMiniatura}, nula hasta que se genera o si el archivo no es una imagen.
+     */
+    
+    @Column(name = "urlMiniatura")
+    private String urlMiniatura;
+
+    /**
+     * Ruta de la vista previa de tamaño medio de la imagen.
+     * Columna {@code urlVista}, nula hasta que se genera o si el archivo no es una imagen.
+     */
+    
+    @Column(name = "urlVista")
+    private String urlVista;
+
+    /**
+     * Resultado de la generación de variantes: {@value #VARIANTES_OK}, {@value #VARIANTES_NO_IMAGEN}
+     * o {@value #VARIANTES_SIN_ARCHIVO}.
+     * Columna {@code estadoVariantes}, nula mientras el documento no se ha procesado.
+     */
+    
+    @JsonIgnore
+    @Column(name = "estadoVariantes", length = 12)
+    private String estadoVariantes;
   
     // Relaciones
 
@@ -172,6 +232,56 @@ public class Galeria {
         this.nombreDocumento = nombreDocumento;
     }
 
+    public String getSha256() 
+    {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) 
+    {
+        this.sha256 = sha256;
+    }
+
+    public Long getTamano() 
+    {
+        return tamano;
+    }
+
+    public void setTamano(Long tamano) 
+    {
+        this.tamano = tamano;
+    }
+
+    public String getUrlMiniatura() 
+    {
+        return urlMiniatura;
+    }
+
+    public void setUrlMiniatura(String urlMiniatura) 
+    {
+        this.urlMiniatura = urlMiniatura;
+    }
+
+    public String getUrlVista() 
+    {
+        return urlVista;
+    }
+
+    public void setUrlVista(String urlVista) 
+    {
+        this.urlVista = urlVista;
+    }
+
+    public String getEstadoVariantes() 
+    {
+        return estadoVariantes;
+    }
+
+    public void setEstadoVariantes(String estadoVariantes) 
+    {
+        this.estadoVariantes = estadoVariantes;
+    }
+
     public Entrenador getEntrenador() 
     {
         return entrenador;
@@ -12,12 +12,18 @@ import jakarta.validation.constraints.Size;
  * Entidad que representa una notificación enviada a jugadores, entrenadores o padres.
  * 
  * Mapea la tabla {@code Notificacion} en la base de datos.
+ * El índice sobre (idEquipo, fecha, idNotificacion), descendente como se lee el historial,
+ * sirve la paginación por cursor.
  * 
  * @author Sergio Vigil Soto
  */
 
 @Entity
-@Table(name = "notificacion")
+@Table
+(
+    name = "notificacion",
+    indexes = @Index(name = "idx_notificacion_equipo_fecha_id", columnList = "idEquipo, fecha DESC, idNotificacion DESC")
+)
 public class Notificacion {
 
     // Área de Datos
@@ -0,0 +1,89 @@
+package com.clubManager.baseDatosClub.entidades;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+
+/**
+ * Entidad con los bytes que ocupan los documentos subidos por un equipo.
+ *
+ * Mapea la tabla {@code uso_almacenamiento}. El contador se mantiene al subir y al borrar
+ * documentos, para conocer el uso de cada equipo y aplicar su cuota sin recorrer el disco.
+ * Cada documento cuenta su tamaño completo aunque comparta archivo con otros por la deduplicación.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Entity
+@Table(name = "uso_almacenamiento")
+public class UsoAlmacenamiento {
+
+	// Área de Datos
+
+    /**
+     * Identificador del equipo.
+     * Corresponde a la columna {@code idEquipo}, clave primaria.
+     */
+
+    @Id
+    @Column(name = "idEquipo", length = 36)
+    private String idEquipo;
+
+    /**
+     * Bytes ocupados por los documentos del equipo, incluidas las subidas en curso.
+     * Columna {@code bytes}, no nula.
+     */
+
+    @Column(name = "bytes", nullable = false)
+    private long bytes;
+
+    /**
+     * Última vez que una subida o un borrado cambió el contador, en cualquier nodo.
+     * Columna {@code actualizado}, nula si no ha cambiado desde que se creó.
+     */
+
+    @Column(name = "actualizado")
+    private LocalDateTime actualizado;
+
+    // Constructores
+
+    public UsoAlmacenamiento() {}
+
+    public UsoAlmacenamiento(String idEquipo, long bytes)
+    {
+        this.idEquipo = idEquipo;
+        this.bytes = bytes;
+    }
+
+    // Métodos Getter y Setter
+
+    public String getIdEquipo()
+    {
+        return idEquipo;
+    }
+
+    public void setIdEquipo(String idEquipo)
+    {
+        this.idEquipo = idEquipo;
+    }
+
+    public long getBytes()
+    {
+        return bytes;
+    }
+
+    public void setBytes(long bytes)
+    {
+        this.bytes = bytes;
+    }
+
+    public LocalDateTime getActualizado()
+    {
+        return actualizado;
+    }
+
+    public void setActualizado(LocalDateTime actualizado)
+    {
+        this.actualizado = actualizado;
+    }
+}
@@ -0,0 +1,152 @@
+package com.clubManager.baseDatosClub.repositorios;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.clubManager.baseDatosClub.dto.EstadisticasAlmacenamientoDTO;
+import com.clubManager.baseDatosClub.entidades.ContenidoArchivo;
+
+/**
+ * Repositorio JPA para la entidad {@link ContenidoArchivo}.
+ *
+ * Las referencias se actualizan con UPDATE atómicos en lugar de leer, sumar y guardar,
+ * para que dos subidas simultáneas del mismo contenido no pierdan ninguna. La primera subida
+ * inserta la fila sin fusionar con una existente: si otro nodo se adelanta, la clave duplicada
+ * indica que hay que sumar una referencia en su lugar.
+ *
+ * El borrado se hace en dos pasos visibles para todos los nodos: la fila sin referencias se
+ * marca con un UPDATE condicional, se borra el archivo y solo después se elimina la fila.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Repository
+public interface ContenidoArchivoRepositorio extends JpaRepository<ContenidoArchivo, String> {
+
+	/**
+	 * Suma una referencia al contenido indicado, si no se está borrando.
+	 *
+	 * @param sha256 huella del contenido
+	 * @return número de filas actualizadas, 0 si el contenido no existe o se está borrando
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE ContenidoArchivo c SET c.referencias = c.referencias + 1 "
+			+ "WHERE c.sha256 = :sha256 AND c.borrandoDesde IS NULL")
+	int sumarReferencia(@Param("sha256") String sha256);
+
+	/**
+	 * Inserta un contenido nuevo con una referencia. No fusiona con una fila existente:
+	 * si la huella ya está guardada lanza
+	 * {@link org.springframework.dao.DataIntegrityViolationException}.
+	 *
+	 * @param sha256 huella del contenido
+	 * @param url ruta pública del archivo
+	 * @param tamano tamaño en bytes
+	 * @param fechaCreacion momento de la subida
+	 * @return número de filas insertadas
+	 */
+
+	@Modifying
+	@Transactional
+	@Query(value = "INSERT INTO contenido_archivo (sha256, url, tamano, referencias, fechaCreacion) "
+			+ "VALUES (:sha256, :url, :tamano, 1, :fechaCreacion)", nativeQuery = true)
+	int insertar(@Param("sha256") String sha256, @Param("url") String url, @Param("tamano") long tamano,
+			@Param("fechaCreacion") LocalDateTime fechaCreacion);
+
+	/**
+	 * Resta una referencia al contenido indicado.
+	 *
+	 * @param sha256 huella del contenido
+	 * @return número de filas actualizadas, 0 si el contenido no existe
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE ContenidoArchivo c SET c.referencias = c.referencias - 1 WHERE c.sha256 = :sha256 AND c.referencias > 0")
+	int restarReferencia(@Param("sha256") String sha256);
+
+	/**
+	 * Marca para borrar el contenido indicado si ya no tiene referencias. Solo un nodo
+	 * consigue marcarlo, y desde ese momento no admite referencias nuevas.
+	 *
+	 * @param sha256 huella del contenido
+	 * @param ahora momento de la marca
+	 * @return 1 si se marcó, 0 si aún tiene referencias, ya estaba marcado o no existe
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE ContenidoArchivo c SET c.borrandoDesde = :ahora "
+			+ "WHERE c.sha256 = :sha256 AND c.referencias <= 0 AND c.borrandoDesde IS NULL")
+	int marcarBorrando(@Param("sha256") String sha256, @Param("ahora") LocalDateTime ahora);
+
+	/**
+	 * Se queda con el borrado de un contenido marcado hace tiempo, cuyo nodo no llegó
+	 * a terminarlo.
+	 *
+	 * @param sha256 huella del contenido
+	 * @param limite las marcas anteriores a este momento se consideran abandonadas
+	 * @param ahora momento de la nueva marca
+	 * @return 1 si se renovó la marca, 0 en otro caso
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE ContenidoArchivo c SET c.borrandoDesde = :ahora "
+			+ "WHERE c.sha256 = :sha256 AND c.borrandoDesde < :limite")
+	int tomarBorradoAbandonado(@Param("sha256") String sha256, @Param("limite") LocalDateTime limite,
+			@Param("ahora") LocalDateTime ahora);
+
+	/**
+	 * Elimina la fila de un contenido marcado para borrar, una vez borrado su archivo.
+	 *
+	 * @param sha256 huella del contenido
+	 * @return 1 si se eliminó, 0 si no estaba marcado
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM ContenidoArchivo c WHERE c.sha256 = :sha256 AND c.borrandoDesde IS NOT NULL")
+	int eliminarBorrado(@Param("sha256") String sha256);
+
+	/**
+	 * Resume el almacenamiento deduplicado con una sola consulta de agregado.
+	 *
+	 * @return número de contenidos y referencias, bytes en disco y bytes que ocuparían sin deduplicar
+	 */
+
+	@Query("SELECT new com.clubManager.baseDatosClub.dto.EstadisticasAlmacenamientoDTO"
+			+ "(COUNT(c), COALESCE(SUM(c.referencias), 0L), COALESCE(SUM(c.tamano), 0L), "
+			+ "COALESCE(SUM(c.tamano * c.referencias), 0L)) FROM ContenidoArchivo c")
+	EstadisticasAlmacenamientoDTO resumir();
+
+	/**
+	 * Filtra, de un lote de URLs, las que siguen en uso: como contenido guardado, como documento
+	 * de la galería o sus variantes, o como foto de un jugador, entrenador, padre o equipo.
+	 * Se resuelve en una sola consulta por lote.
+	 *
+	 * @param urls lote de URLs que comprobar
+	 * @return URLs del lote que están referenciadas
+	 */
+
+	@Query("SELECT c.url FROM ContenidoArchivo c WHERE c.url IN :urls "
+			+ "UNION SELECT g.url FROM Galeria g WHERE g.url IN :urls "
+			+ "UNION SELECT g.urlMiniatura FROM Galeria g WHERE g.urlMiniatura IN :urls "
+			+ "UNION SELECT g.urlVista FROM Galeria g WHERE g.urlVista IN :urls "
+			+ "UNION SELECT j.foto FROM Jugador j WHERE j.foto IN :urls "
+			+ "UNION SELECT e.foto FROM Entrenador e WHERE e.foto IN :urls "
+			+ "UNION SELECT p.foto FROM Padre p WHERE p.foto IN :urls "
+			+ "UNION SELECT q.fotoEquipo FROM Equipo q WHERE q.fotoEquipo IN :urls "
+			+ "UNION SELECT q.escudoEquipo FROM Equipo q WHERE q.escudoEquipo IN :urls")
+	List<String> buscarUrlsReferenciadas(@Param("urls") Collection<String> urls);
+}
@@ -0,0 +1,146 @@
+package com.clubManager.baseDatosClub.repositorios;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.clubManager.baseDatosClub.entidades.Credencial;
+
+/**
+ * Repositorio JPA para la entidad {@link Credencial}.
+ *
+ * Permite resolver el login con una sola consulta sobre el índice único
+ * (identificador, tipoUsuario) y mantener el índice sincronizado con las tablas de usuarios.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Repository
+public interface CredencialRepositorio extends JpaRepository<Credencial, Long> {
+
+	/**
+	 * Obtiene todas las credenciales registradas con un identificador.
+	 * Puede haber una por cada tipo de usuario.
+	 *
+	 * @param identificador identificador del usuario
+	 * @return lista de credenciales con ese identificador
+	 */
+
+	List<Credencial> findByIdentificador(String identificador);
+
+	/**
+	 * Busca la credencial de un usuario concreto.
+	 *
+	 * @param identificador identificador del usuario
+	 * @param tipoUsuario tipo de usuario
+	 * @return Optional con la credencial si existe
+	 */
+
+	Optional<Credencial> findByIdentificadorAndTipoUsuario(String identificador, String tipoUsuario);
+
+	/**
+	 * Elimina la credencial de un usuario concreto.
+	 *
+	 * @param identificador identificador del usuario
+	 * @param tipoUsuario tipo de usuario
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM Credencial c WHERE c.identificador = :identificador AND c.tipoUsuario = :tipoUsuario")
+	void eliminarPorIdentificadorYTipo(@Param("identificador") String identificador,
+			@Param("tipoUsuario") String tipoUsuario);
+
+	/**
+	 * Elimina las credenciales de un tipo de usuario asociadas a un equipo.
+	 *
+	 * @param idEquipo identificador del equipo
+	 * @param tipoUsuario tipo de usuario
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM Credencial c WHERE c.idEquipo = :idEquipo AND c.tipoUsuario = :tipoUsuario")
+	void eliminarPorEquipoYTipo(@Param("idEquipo") String idEquipo, @Param("tipoUsuario") String tipoUsuario);
+
+	/**
+	 * Indexa los entrenadores que todavía no tienen credencial.
+	 *
+	 * @return número de credenciales creadas
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("INSERT INTO Credencial (identificador, tipoUsuario, password, idEquipo) "
+			+ "SELECT e.idEntrenador, 'entrenador', e.password, null FROM Entrenador e "
+			+ "WHERE NOT EXISTS (SELECT 1 FROM Credencial c "
+			+ "WHERE c.identificador = e.idEntrenador AND c.tipoUsuario = 'entrenador')")
+	int indexarEntrenadoresPendientes();
+
+	/**
+	 * Indexa los jugadores que todavía no tienen credencial.
+	 *
+	 * @return número de credenciales creadas
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("INSERT INTO Credencial (identificador, tipoUsuario, password, idEquipo) "
+			+ "SELECT j.idJugador, 'jugador', j.password, eq.idEquipo FROM Jugador j LEFT JOIN j.equipo eq "
+			+ "WHERE NOT EXISTS (SELECT 1 FROM Credencial c "
+			+ "WHERE c.identificador = j.idJugador AND c.tipoUsuario = 'jugador')")
+	int indexarJugadoresPendientes();
+
+	/**
+	 * Indexa los padres que todavía no tienen credencial.
+	 *
+	 * @return número de credenciales creadas
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("INSERT INTO Credencial (identificador, tipoUsuario, password, idEquipo) "
+			+ "SELECT p.idPadre, 'padre', p.password, null FROM Padre p "
+			+ "WHERE NOT EXISTS (SELECT 1 FROM Credencial c "
+			+ "WHERE c.identificador = p.idPadre AND c.tipoUsuario = 'padre')")
+	int indexarPadresPendientes();
+
+	/**
+	 * Actualiza la contraseña de la credencial de un usuario.
+	 *
+	 * @param identificador identificador del usuario
+	 * @param tipoUsuario tipo de usuario
+	 * @param password nuevo hash de la contraseña
+	 * @return número de filas actualizadas
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE Credencial c SET c.password = :password "
+			+ "WHERE c.identificador = :identificador AND c.tipoUsuario = :tipoUsuario")
+	int actualizarPassword(@Param("identificador") String identificador,
+			@Param("tipoUsuario") String tipoUsuario, @Param("password") String password);
+
+	/**
+	 * Sustituye la contraseña de la credencial de un usuario solo si sigue siendo la indicada.
+	 *
+	 * @param identificador identificador del usuario
+	 * @param tipoUsuario tipo de usuario
+	 * @param anterior hash o contraseña que se verificó en el login
+	 * @param password nuevo hash de la misma contraseña
+	 * @return 1 si se sustituyó, 0 si la contraseña ya había cambiado
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE Credencial c SET c.password = :password "
+			+ "WHERE c.identificador = :identificador AND c.tipoUsuario = :tipoUsuario AND c.password = :anterior")
+	int reemplazarPassword(@Param("identificador") String identificador, @Param("tipoUsuario") String tipoUsuario,
+			@Param("anterior") String anterior, @Param("password") String password);
+}
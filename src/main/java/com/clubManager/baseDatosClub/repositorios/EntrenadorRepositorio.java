@@ -1,12 +1,18 @@
 package com.clubManager.baseDatosClub.repositorios;
 
+import java.util.Collection;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.clubManager.baseDatosClub.entidades.Entrenador;
 
+import jakarta.transaction.Transactional;
+
 /**
  * Repositorio JPA para la entidad Entrenador.
  * Permite realizar operaciones CRUD y consultas personalizadas
@@ -46,4 +52,47 @@ public interface EntrenadorRepositorio extends JpaRepository<Entrenador, String>
      */
     
     boolean existsByDni(String dni);
+
+    /**
+     * Actualiza únicamente la contraseña de un entrenador.
+     *
+     * @param idEntrenador identificador del entrenador
+     * @param password nuevo hash de la contraseña
+     * @return número de filas actualizadas
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Entrenador x SET x.password = :password WHERE x.idEntrenador = :idEntrenador")
+    int actualizarPassword(@Param("idEntrenador") String idEntrenador, @Param("password") String password);
+
+    /**
+     * Sustituye la contraseña de un entrenador solo si sigue siendo la indicada.
+     * Se usa al migrar contraseñas antiguas a su hash BCrypt tras un login correcto, para no
+     * deshacer un cambio de contraseña hecho mientras se calculaba el hash.
+     *
+     * @param idEntrenador identificador del entrenador
+     * @param anterior hash o contraseña que se verificó en el login
+     * @param password nuevo hash de la misma contraseña
+     * @return 1 si se sustituyó, 0 si la contraseña ya había cambiado
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Entrenador x SET x.password = :password WHERE x.idEntrenador = :idEntrenador AND x.password = :anterior")
+    int reemplazarPassword(@Param("idEntrenador") String idEntrenador, @Param("anterior") String anterior,
+    		@Param("password") String password);
+
+    /**
+     * Borra los tokens FCM caducados de los entrenadores, que sin ellos dejan de recibir por
+     * push los avisos de su equipo hasta que vuelven a registrar el dispositivo.
+     *
+     * @param tokens tokens FCM rechazados
+     * @return número de entrenadores que se han quedado sin token
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Entrenador x SET x.fcmToken = null WHERE x.fcmToken IN :tokens")
+    int eliminarTokensFcm(@Param("tokens") Collection<String> tokens);
 }
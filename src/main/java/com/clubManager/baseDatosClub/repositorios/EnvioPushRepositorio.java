@@ -0,0 +1,157 @@
+package com.clubManager.baseDatosClub.repositorios;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.clubManager.baseDatosClub.entidades.EnvioPush;
+
+/**
+ * Repositorio JPA para la entidad {@link EnvioPush}.
+ *
+ * El reclamo de envíos se hace con un UPDATE condicional: solo una instancia puede marcar
+ * una fila libre con su identificador de reclamo, así que nunca se envía dos veces.
+ * Las actualizaciones de resultado comprueban el reclamo para ignorar los que ya han caducado.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Repository
+public interface EnvioPushRepositorio extends JpaRepository<EnvioPush, Long> {
+
+	/**
+	 * Obtiene los envíos pendientes cuyo próximo intento ya ha llegado y que nadie tiene reclamados.
+	 *
+	 * @param ahora momento actual
+	 * @param pageable tamaño máximo del lote
+	 * @return identificadores de los envíos candidatos
+	 */
+
+	@Query("SELECT e.idEnvio FROM EnvioPush e WHERE e.estado = 'pendiente' AND e.proximoIntento <= :ahora "
+			+ "AND (e.reclamadoHasta IS NULL OR e.reclamadoHasta < :ahora) ORDER BY e.proximoIntento")
+	List<Long> buscarCandidatos(@Param("ahora") LocalDateTime ahora, Pageable pageable);
+
+	/**
+	 * Reclama los envíos indicados que sigan libres.
+	 *
+	 * @param ids identificadores de los envíos
+	 * @param reclamo identificador único del reclamo
+	 * @param hasta fecha límite del reclamo
+	 * @param ahora momento actual
+	 * @return número de envíos reclamados
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE EnvioPush e SET e.reclamadoPor = :reclamo, e.reclamadoHasta = :hasta "
+			+ "WHERE e.idEnvio IN :ids AND e.estado = 'pendiente' "
+			+ "AND (e.reclamadoHasta IS NULL OR e.reclamadoHasta < :ahora)")
+	int reclamar(@Param("ids") List<Long> ids, @Param("reclamo") String reclamo,
+			@Param("hasta") LocalDateTime hasta, @Param("ahora") LocalDateTime ahora);
+
+	/**
+	 * Obtiene los envíos de un reclamo.
+	 *
+	 * @param reclamadoPor identificador del reclamo
+	 * @return lista de envíos reclamados
+	 */
+
+	List<EnvioPush> findByReclamadoPor(String reclamadoPor);
+
+	/**
+	 * Marca un envío como entregado.
+	 *
+	 * @param idEnvio identificador del envío
+	 * @param reclamo identificador del reclamo que lo procesó
+	 * @return número de filas actualizadas
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE EnvioPush e SET e.estado = 'enviado', e.reclamadoPor = null, e.reclamadoHasta = null "
+			+ "WHERE e.idEnvio = :idEnvio AND e.reclamadoPor = :reclamo")
+	int marcarEnviado(@Param("idEnvio") Long idEnvio, @Param("reclamo") String reclamo);
+
+	/**
+	 * Libera un envío y lo deja pendiente para un nuevo intento.
+	 *
+	 * @param idEnvio identificador del envío
+	 * @param reclamo identificador del reclamo que lo procesó
+	 * @param intentos número de intentos realizados
+	 * @param proximoIntento momento del siguiente intento
+	 * @param error último error, puede ser nulo
+	 * @return número de filas actualizadas
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE EnvioPush e SET e.intentos = :intentos, e.proximoIntento = :proximoIntento, "
+			+ "e.ultimoError = :error, e.reclamadoPor = null, e.reclamadoHasta = null "
+			+ "WHERE e.idEnvio = :idEnvio AND e.reclamadoPor = :reclamo")
+	int reprogramar(@Param("idEnvio") Long idEnvio, @Param("reclamo") String reclamo,
+			@Param("intentos") int intentos, @Param("proximoIntento") LocalDateTime proximoIntento,
+			@Param("error") String error);
+
+	/**
+	 * Mueve un envío al estado fallido (dead-letter).
+	 *
+	 * @param idEnvio identificador del envío
+	 * @param reclamo identificador del reclamo que lo procesó
+	 * @param intentos número de intentos realizados
+	 * @param error último error
+	 * @return número de filas actualizadas
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE EnvioPush e SET e.estado = 'fallido', e.intentos = :intentos, e.ultimoError = :error, "
+			+ "e.reclamadoPor = null, e.reclamadoHasta = null "
+			+ "WHERE e.idEnvio = :idEnvio AND e.reclamadoPor = :reclamo")
+	int marcarFallido(@Param("idEnvio") Long idEnvio, @Param("reclamo") String reclamo,
+			@Param("intentos") int intentos, @Param("error") String error);
+
+	/**
+	 * Descarta los envíos pendientes dirigidos a tokens que FCM ya no reconoce.
+	 *
+	 * @param tokens tokens FCM inválidos
+	 * @param error motivo que se guarda en el envío
+	 * @return número de envíos descartados
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE EnvioPush e SET e.estado = 'fallido', e.ultimoError = :error "
+			+ "WHERE e.token IN :tokens AND e.estado = 'pendiente' AND e.reclamadoPor IS NULL")
+	int descartarPendientesPorToken(@Param("tokens") Collection<String> tokens, @Param("error") String error);
+
+	/**
+	 * Obtiene los envíos enviados o fallidos creados antes de una fecha.
+	 *
+	 * @param limite fecha de creación a partir de la cual se conservan
+	 * @param pageable tamaño máximo del lote
+	 * @return identificadores de los envíos terminados
+	 */
+
+	@Query("SELECT e.idEnvio FROM EnvioPush e WHERE e.estado IN ('enviado', 'fallido') AND e.fechaCreacion < :limite")
+	List<Long> buscarTerminadosAntesDe(@Param("limite") LocalDateTime limite, Pageable pageable);
+
+	/**
+	 * Borra los envíos indicados que sigan terminados.
+	 *
+	 * @param ids identificadores de los envíos
+	 * @return número de envíos borrados
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM EnvioPush e WHERE e.idEnvio IN :ids AND e.estado IN ('enviado', 'fallido')")
+	int borrarTerminados(@Param("ids") List<Long> ids);
+}
@@ -53,4 +53,17 @@ public interface EquipoRepositorio extends JpaRepository<Equipo, String> {
     @Modifying
     @Query("UPDATE Equipo e SET e.clasificacion = :url WHERE e.idEquipo = :idEquipo")
     void actualizarClasificacion(@Param("idEquipo") String idEquipo, @Param("url") String url);
-}
\ No newline at end of file
+
+    /**
+     * Obtiene los tokens FCM distintos y no nulos de todos los miembros de un equipo
+     * (jugadores, padres y entrenadores) con una única consulta, sin cargar las entidades.
+     *
+     * @param idEquipo identificador único del equipo
+     * @return lista de tokens FCM de los miembros del equipo
+     */
+
+    @Query("SELECT j.fcmToken FROM Jugador j WHERE j.equipo.idEquipo = :idEquipo AND j.fcmToken IS NOT NULL "
+            + "UNION SELECT p.fcmToken FROM Equipo e JOIN e.padres p WHERE e.idEquipo = :idEquipo AND p.fcmToken IS NOT NULL "
+            + "UNION SELECT en.fcmToken FROM Entrenador en WHERE en.equipo.idEquipo = :idEquipo AND en.fcmToken IS NOT NULL")
+    List<String> buscarTokensFcm(@Param("idEquipo") String idEquipo);
+}
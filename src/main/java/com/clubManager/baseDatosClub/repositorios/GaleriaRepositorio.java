@@ -1,10 +1,17 @@
 package com.clubManager.baseDatosClub.repositorios;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.clubManager.baseDatosClub.dto.GaleriaResumenDTO;
 import com.clubManager.baseDatosClub.entidades.Galeria;
 
 /**
@@ -38,4 +45,133 @@ public interface GaleriaRepositorio extends JpaRepository<Galeria, Long>
 	
 	void deleteByEquipo_IdEquipo(String idEquipo);
 
+	/**
+	 * Comprueba si un equipo tiene algún documento con el contenido indicado.
+	 *
+	 * @param idEquipo identificador único del equipo
+	 * @param sha256 huella del contenido
+	 * @return true si el equipo ya usa ese contenido
+	 */
+
+	boolean existsByEquipo_IdEquipoAndSha256(String idEquipo, String sha256);
+
+	/**
+	 * Guarda las rutas de la miniatura y la vista previa en todos los documentos que usan
+	 * el mismo archivo, y los marca como procesados.
+	 *
+	 * @param url ruta del archivo original
+	 * @param urlMiniatura ruta de la miniatura
+	 * @param urlVista ruta de la vista previa
+	 * @return número de documentos actualizados
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE Galeria g SET g.urlMiniatura = :urlMiniatura, g.urlVista = :urlVista, "
+			+ "g.estadoVariantes = 'ok' WHERE g.url = :url")
+	int actualizarVariantes(@Param("url") String url, @Param("urlMiniatura") String urlMiniatura,
+			@Param("urlVista") String urlVista);
+
+	/**
+	 * Marca como procesados, sin variantes, los documentos de un archivo que no las admite,
+	 * para que la puesta al día no vuelva a abrirlo.
+	 *
+	 * @param url ruta del archivo original
+	 * @param estado motivo por el que no tiene variantes
+	 * @return número de documentos actualizados
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE Galeria g SET g.estadoVariantes = :estado WHERE g.url = :url AND g.urlMiniatura IS NULL")
+	int marcarSinVariantes(@Param("url") String url, @Param("estado") String estado);
+
+	/**
+	 * Obtiene, en orden de id, los documentos subidos al servidor que aún no se han procesado.
+	 * Los que no son imágenes o no tienen archivo quedan marcados y no vuelven a aparecer.
+	 *
+	 * @param desde id a partir del cual se busca, excluido
+	 * @param pageable tamaño del lote
+	 * @return pares {@code [idDocumento, url]}
+	 */
+
+	@Query("SELECT g.idDocumento, g.url FROM Galeria g WHERE g.idDocumento > :desde "
+			+ "AND g.urlMiniatura IS NULL AND g.estadoVariantes IS NULL AND g.url LIKE '/uploads/%' "
+			+ "ORDER BY g.idDocumento")
+	List<Object[]> buscarSinMiniatura(@Param("desde") Long desde, Pageable pageable);
+
+	/**
+	 * Obtiene la primera página de la galería de un equipo, del documento más reciente al más antiguo,
+	 * sin cargar las entidades relacionadas.
+	 *
+	 * @param idEquipo identificador único del equipo
+	 * @param pageable tamaño de la página
+	 * @return documentos de la página
+	 */
+
+	@Query("SELECT new com.clubManager.baseDatosClub.dto.GaleriaResumenDTO"
+			+ "(g.idDocumento, g.tipo, g.autor, g.fecha, g.url, g.nombreDocumento, g.tamano, g.urlMiniatura, g.urlVista) "
+			+ "FROM Galeria g WHERE g.equipo.idEquipo = :idEquipo "
+			+ "ORDER BY g.equipo.idEquipo, g.fecha DESC, g.idDocumento DESC")
+	List<GaleriaResumenDTO> buscarPrimeraPagina(@Param("idEquipo") String idEquipo, Pageable pageable);
+
+	/**
+	 * Obtiene la página de la galería de un equipo que sigue al cursor (fecha, idDocumento).
+	 * Como en el historial de notificaciones, el índice del equipo por fecha e id permite empezar
+	 * a leer justo tras el cursor, así que cada página cuesta lo mismo sea cual sea su profundidad.
+	 *
+	 * @param idEquipo identificador único del equipo
+	 * @param fecha fecha del último documento de la página anterior
+	 * @param idDocumento id del último documento de la página anterior
+	 * @param pageable tamaño de la página
+	 * @return documentos de la página
+	 */
+
+	@Query("SELECT new com.clubManager.baseDatosClub.dto.GaleriaResumenDTO"
+			+ "(g.idDocumento, g.tipo, g.autor, g.fecha, g.url, g.nombreDocumento, g.tamano, g.urlMiniatura, g.urlVista) "
+			+ "FROM Galeria g WHERE g.equipo.idEquipo = :idEquipo "
+			+ "AND g.fecha <= :fecha AND (g.fecha < :fecha OR g.idDocumento < :idDocumento) "
+			+ "ORDER BY g.equipo.idEquipo, g.fecha DESC, g.idDocumento DESC")
+	List<GaleriaResumenDTO> buscarPaginaTras(@Param("idEquipo") String idEquipo, @Param("fecha") LocalDate fecha,
+			@Param("idDocumento") Long idDocumento, Pageable pageable);
+
+	/**
+	 * Obtiene la primera página de los documentos de un tipo de la galería de un equipo.
+	 * Usa {@code idx_galeria_equipo_tipo_fecha_id}, así que solo lee documentos del tipo pedido.
+	 *
+	 * @param idEquipo identificador único del equipo
+	 * @param tipo tipo de documento
+	 * @param pageable tamaño de la página
+	 * @return documentos de la página
+	 */
+
+	@Query("SELECT new com.clubManager.baseDatosClub.dto.GaleriaResumenDTO"
+			+ "(g.idDocumento, g.tipo, g.autor, g.fecha, g.url, g.nombreDocumento, g.tamano, g.urlMiniatura, g.urlVista) "
+			+ "FROM Galeria g WHERE g.equipo.idEquipo = :idEquipo AND g.tipo = :tipo "
+			+ "ORDER BY g.equipo.idEquipo, g.tipo, g.fecha DESC, g.idDocumento DESC")
+	List<GaleriaResumenDTO> buscarPrimeraPaginaPorTipo(@Param("idEquipo") String idEquipo, @Param("tipo") String tipo,
+			Pageable pageable);
+
+	/**
+	 * Obtiene la página de los documentos de un tipo que sigue al cursor (fecha, idDocumento).
+	 * El tipo forma parte de {@code idx_galeria_equipo_tipo_fecha_id}, de modo que la lectura es
+	 * un rango acotado del índice que empieza tras el cursor y no recorre documentos de otros
+	 * tipos, por escaso que sea el pedido.
+	 *
+	 * @param idEquipo identificador único del equipo
+	 * @param tipo tipo de documento
+	 * @param fecha fecha del último documento de la página anterior
+	 * @param idDocumento id del último documento de la página anterior
+	 * @param pageable tamaño de la página
+	 * @return documentos de la página
+	 */
+
+	@Query("SELECT new com.clubManager.baseDatosClub.dto.GaleriaResumenDTO"
+			+ "(g.idDocumento, g.tipo, g.autor, g.fecha, g.url, g.nombreDocumento, g.tamano, g.urlMiniatura, g.urlVista) "
+			+ "FROM Galeria g WHERE g.equipo.idEquipo = :idEquipo AND g.tipo = :tipo "
+			+ "AND g.fecha <= :fecha AND (g.fecha < :fecha OR g.idDocumento < :idDocumento) "
+			+ "ORDER BY g.equipo.idEquipo, g.tipo, g.fecha DESC, g.idDocumento DESC")
+	List<GaleriaResumenDTO> buscarPaginaTrasPorTipo(@Param("idEquipo") String idEquipo, @Param("tipo") String tipo,
+			@Param("fecha") LocalDate fecha, @Param("idDocumento") Long idDocumento, Pageable pageable);
+
 }
\ No newline at end of file
@@ -1,13 +1,17 @@
 package com.clubManager.baseDatosClub.repositorios;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.clubManager.baseDatosClub.dto.JugadorPuntuacionDTO;
 import com.clubManager.baseDatosClub.entidades.JugadorPartido;
 import com.clubManager.baseDatosClub.entidades.JugadorPartidoPK;
 
@@ -90,4 +94,47 @@ public interface JugadorPartidoRepositorio extends JpaRepository<JugadorPartido,
     
     @Query("SELECT COALESCE(SUM(jp.puntuacion), 0) FROM JugadorPartido jp WHERE jp.jugador.idJugador = :idJugador")
     int sumPuntuacionByJugador(@Param("idJugador") String idJugador);
-}
\ No newline at end of file
+
+    /**
+     * Suma a la puntuación del jugador en el partido en una sola sentencia, sin leer antes la fila.
+     *
+     * @param idJugador identificador del jugador
+     * @param idPartido identificador del partido
+     * @param cantidad cantidad que se suma
+     * @return número de filas actualizadas, 0 si el jugador no está en el partido
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE JugadorPartido jp SET jp.puntuacion = COALESCE(jp.puntuacion, 0) + :cantidad "
+    		+ "WHERE jp.id.idJugador = :idJugador AND jp.id.idPartido = :idPartido")
+    int sumarPuntuacion(@Param("idJugador") String idJugador, @Param("idPartido") Long idPartido,
+    		@Param("cantidad") int cantidad);
+
+    /**
+     * Obtiene los identificadores de los jugadores convocados a un partido, sin cargar las entidades.
+     *
+     * @param idPartido identificador del partido
+     * @return identificadores de los jugadores del partido
+     */
+
+    @Query("SELECT jp.id.idJugador FROM JugadorPartido jp WHERE jp.id.idPartido = :idPartido")
+    List<String> buscarIdsJugadores(@Param("idPartido") Long idPartido);
+
+    /**
+     * Obtiene la puntuación en el partido y los puntos totales de los jugadores indicados
+     * con una sola consulta, ordenados de más a menos puntos totales.
+     *
+     * @param idPartido identificador del partido
+     * @param idsJugadores identificadores de los jugadores
+     * @return puntuación de cada jugador
+     */
+
+    @Query("SELECT new com.clubManager.baseDatosClub.dto.JugadorPuntuacionDTO"
+    		+ "(j.idJugador, j.nombre, j.puntosTotales, jp.puntuacion) "
+    		+ "FROM JugadorPartido jp JOIN jp.jugador j "
+    		+ "WHERE jp.id.idPartido = :idPartido AND j.idJugador IN :idsJugadores "
+    		+ "ORDER BY j.puntosTotales DESC, j.idJugador")
+    List<JugadorPuntuacionDTO> buscarPuntuaciones(@Param("idPartido") Long idPartido,
+    		@Param("idsJugadores") Collection<String> idsJugadores);
+}
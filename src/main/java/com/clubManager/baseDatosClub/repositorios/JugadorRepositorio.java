@@ -1,14 +1,18 @@
 package com.clubManager.baseDatosClub.repositorios;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.clubManager.baseDatosClub.dto.JugadorPlantillaDTO;
+import com.clubManager.baseDatosClub.dto.JugadorRelacionDTO;
 import com.clubManager.baseDatosClub.entidades.Jugador;
 
 import jakarta.transaction.Transactional;
@@ -20,6 +24,9 @@ import jakarta.transaction.Transactional;
  * 
  * La clave primaria de esta entidad es el id del jugador (tipo String).
  * 
+ * Las estadísticas (goles, tarjetas y puntos) se suman con UPDATE atómicos en lugar de leer,
+ * sumar y guardar, para que dos entrenadores que anotan a la vez no pierdan ninguna.
+ * 
  * @author Sergio Vigil Soto
  */
 
@@ -55,6 +62,65 @@ public interface JugadorRepositorio extends JpaRepository<Jugador, String> {
 	
 	List<Jugador> findByEquipo_IdEquipo(String idEquipo);
 
+	/**
+	 * Lista el identificador, nombre y apellidos de los jugadores de un equipo con una sola
+	 * consulta, sin cargar las entidades.
+	 *
+	 * @param idEquipo identificador del equipo
+	 * @return jugadores del equipo
+	 */
+
+	@Query("SELECT new com.clubManager.baseDatosClub.dto.JugadorRelacionDTO(x.idJugador, x.nombre, x.apellidos) "
+			+ "FROM Jugador x WHERE x.equipo.idEquipo = :idEquipo")
+	List<JugadorRelacionDTO> buscarRelacionPorEquipo(@Param("idEquipo") String idEquipo);
+
+	/**
+	 * Lista la plantilla activa de un equipo con una sola consulta, sin cargar las entidades.
+	 *
+	 * @param idEquipo identificador del equipo
+	 * @return jugadores activos del equipo
+	 */
+
+	@Query("SELECT new com.clubManager.baseDatosClub.dto.JugadorPlantillaDTO"
+			+ "(x.idJugador, x.nombre, x.apellidos, x.dorsal, x.posicion, x.foto, x.fechaNacimiento, "
+			+ "x.goles, x.golesEncajados, x.tarjetasAmarillas, x.tarjetasRojas, x.puntosTotales) "
+			+ "FROM Jugador x WHERE x.equipo.idEquipo = :idEquipo AND x.activo = true")
+	List<JugadorPlantillaDTO> buscarPlantillaActivaPorEquipo(@Param("idEquipo") String idEquipo);
+
+	/**
+	 * Lee un lote de jugadores para el índice de búsqueda, en orden de identificador a partir
+	 * del último leído, para recorrer la tabla por tramos sin cargar las entidades.
+	 *
+	 * @param ultimo identificador del último jugador del lote anterior, "" para empezar
+	 * @param pagina tamaño del lote
+	 * @return filas (idJugador, nombre, apellidos, dni, idEquipo)
+	 */
+
+	@Query("SELECT x.idJugador, x.nombre, x.apellidos, x.dni, e.idEquipo FROM Jugador x LEFT JOIN x.equipo e "
+			+ "WHERE x.idJugador > :ultimo ORDER BY x.idJugador")
+	List<Object[]> buscarLoteParaBusqueda(@Param("ultimo") String ultimo, Pageable pagina);
+
+	/**
+	 * Lee los datos que indexa la búsqueda de los jugadores indicados.
+	 *
+	 * @param ids identificadores de los jugadores
+	 * @return filas (idJugador, nombre, apellidos, dni, idEquipo) de los que existen
+	 */
+
+	@Query("SELECT x.idJugador, x.nombre, x.apellidos, x.dni, e.idEquipo FROM Jugador x LEFT JOIN x.equipo e "
+			+ "WHERE x.idJugador IN :ids")
+	List<Object[]> buscarParaBusqueda(@Param("ids") Collection<String> ids);
+
+	/**
+	 * Lista los identificadores de los jugadores de un equipo.
+	 *
+	 * @param idEquipo identificador del equipo
+	 * @return identificadores de sus jugadores
+	 */
+
+	@Query("SELECT x.idJugador FROM Jugador x WHERE x.equipo.idEquipo = :idEquipo")
+	List<String> buscarIdsPorEquipo(@Param("idEquipo") String idEquipo);
+
 	/**
 	 * Realiza la vinculación entre un jugador y un padre en la tabla intermedia Jugador_Padre.
 	 * Requiere que el jugador y el padre existan previamente en sus respectivas tablas.
@@ -96,7 +162,173 @@ public interface JugadorRepositorio extends JpaRepository<Jugador, String> {
 	
 	List<Jugador> findByEquipo_IdEquipoOrderByPuntosTotalesDesc(String idEquipo);
 
+	/**
+	 * Lee el identificador, el nombre y los puntos totales de los jugadores de un equipo,
+	 * sin cargar las entidades.
+	 *
+	 * @param idEquipo identificador del equipo
+	 * @return filas (idJugador, nombre, puntosTotales), con 0 para los jugadores sin puntos
+	 */
+
+	@Query("SELECT x.idJugador, x.nombre, COALESCE(x.puntosTotales, 0) FROM Jugador x WHERE x.equipo.idEquipo = :idEquipo")
+	List<Object[]> buscarPuntosPorEquipo(@Param("idEquipo") String idEquipo);
+
+    /**
+     * Actualiza únicamente la contraseña de un jugador.
+     *
+     * @param idJugador identificador del jugador
+     * @param password nuevo hash de la contraseña
+     * @return número de filas actualizadas
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Jugador x SET x.password = :password WHERE x.idJugador = :idJugador")
+    int actualizarPassword(@Param("idJugador") String idJugador, @Param("password") String password);
+
+    /**
+     * Sustituye la contraseña de un jugador solo si sigue siendo la indicada.
+     * Se usa al migrar contraseñas antiguas a su hash BCrypt tras un login correcto, para no
+     * deshacer un cambio de contraseña hecho mientras se calculaba el hash.
+     *
+     * @param idJugador identificador del jugador
+     * @param anterior hash o contraseña que se verificó en el login
+     * @param password nuevo hash de la misma contraseña
+     * @return 1 si se sustituyó, 0 si la contraseña ya había cambiado
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Jugador x SET x.password = :password WHERE x.idJugador = :idJugador AND x.password = :anterior")
+    int reemplazarPassword(@Param("idJugador") String idJugador, @Param("anterior") String anterior,
+    		@Param("password") String password);
+
+    /**
+     * Quita el token FCM a los jugadores cuyo dispositivo ya no reconoce FCM, para que los
+     * avisos del equipo dejen de intentar llegar a él. El jugador vuelve a recibirlos cuando
+     * la aplicación registra un token nuevo.
+     *
+     * @param tokens tokens FCM rechazados
+     * @return número de jugadores que se han quedado sin token
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Jugador x SET x.fcmToken = null WHERE x.fcmToken IN :tokens")
+    int eliminarTokensFcm(@Param("tokens") Collection<String> tokens);
+
+    /**
+     * Suma a los goles anotados del jugador en una sola sentencia, sin leer antes la fila.
+     *
+     * @param idJugador identificador del jugador
+     * @param cantidad cantidad que se suma
+     * @return número de filas actualizadas, 0 si el jugador no existe
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Jugador x SET x.goles = COALESCE(x.goles, 0) + :cantidad WHERE x.idJugador = :idJugador")
+    int sumarGoles(@Param("idJugador") String idJugador, @Param("cantidad") int cantidad);
+
+    /**
+     * Lee los goles anotados del jugador sin cargar la entidad.
+     *
+     * @param idJugador identificador del jugador
+     * @return valor actual, 0 si no tiene
+     */
+
+    @Query("SELECT COALESCE(x.goles, 0) FROM Jugador x WHERE x.idJugador = :idJugador")
+    int leerGoles(@Param("idJugador") String idJugador);
+
+    /**
+     * Suma a los goles encajados del jugador en una sola sentencia, sin leer antes la fila.
+     *
+     * @param idJugador identificador del jugador
+     * @param cantidad cantidad que se suma
+     * @return número de filas actualizadas, 0 si el jugador no existe
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Jugador x SET x.golesEncajados = COALESCE(x.golesEncajados, 0) + :cantidad WHERE x.idJugador = :idJugador")
+    int sumarGolesEncajados(@Param("idJugador") String idJugador, @Param("cantidad") int cantidad);
+
+    /**
+     * Lee los goles encajados del jugador sin cargar la entidad.
+     *
+     * @param idJugador identificador del jugador
+     * @return valor actual, 0 si no tiene
+     */
+
+    @Query("SELECT COALESCE(x.golesEncajados, 0) FROM Jugador x WHERE x.idJugador = :idJugador")
+    int leerGolesEncajados(@Param("idJugador") String idJugador);
+
+    /**
+     * Suma a las tarjetas rojas del jugador en una sola sentencia, sin leer antes la fila.
+     *
+     * @param idJugador identificador del jugador
+     * @param cantidad cantidad que se suma
+     * @return número de filas actualizadas, 0 si el jugador no existe
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Jugador x SET x.tarjetasRojas = COALESCE(x.tarjetasRojas, 0) + :cantidad WHERE x.idJugador = :idJugador")
+    int sumarRojas(@Param("idJugador") String idJugador, @Param("cantidad") int cantidad);
+
+    /**
+     * Lee las tarjetas rojas del jugador sin cargar la entidad.
+     *
+     * @param idJugador identificador del jugador
+     * @return valor actual, 0 si no tiene
+     */
+
+    @Query("SELECT COALESCE(x.tarjetasRojas, 0) FROM Jugador x WHERE x.idJugador = :idJugador")
+    int leerRojas(@Param("idJugador") String idJugador);
+
+    /**
+     * Suma a las tarjetas amarillas del jugador en una sola sentencia, sin leer antes la fila.
+     *
+     * @param idJugador identificador del jugador
+     * @param cantidad cantidad que se suma
+     * @return número de filas actualizadas, 0 si el jugador no existe
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Jugador x SET x.tarjetasAmarillas = COALESCE(x.tarjetasAmarillas, 0) + :cantidad WHERE x.idJugador = :idJugador")
+    int sumarAmarillas(@Param("idJugador") String idJugador, @Param("cantidad") int cantidad);
+
+    /**
+     * Lee las tarjetas amarillas del jugador sin cargar la entidad.
+     *
+     * @param idJugador identificador del jugador
+     * @return valor actual, 0 si no tiene
+     */
+
+    @Query("SELECT COALESCE(x.tarjetasAmarillas, 0) FROM Jugador x WHERE x.idJugador = :idJugador")
+    int leerAmarillas(@Param("idJugador") String idJugador);
+
+    /**
+     * Suma a los puntos totales del jugador en una sola sentencia, sin leer antes la fila.
+     *
+     * @param idJugador identificador del jugador
+     * @param cantidad cantidad que se suma
+     * @return número de filas actualizadas, 0 si el jugador no existe
+     */
 
+    @Modifying
+    @Transactional
+    @Query("UPDATE Jugador x SET x.puntosTotales = COALESCE(x.puntosTotales, 0) + :cantidad WHERE x.idJugador = :idJugador")
+    int sumarPuntos(@Param("idJugador") String idJugador, @Param("cantidad") int cantidad);
 
+    /**
+     * Lee los puntos totales del jugador sin cargar la entidad.
+     *
+     * @param idJugador identificador del jugador
+     * @return valor actual, 0 si no tiene
+     */
 
+    @Query("SELECT COALESCE(x.puntosTotales, 0) FROM Jugador x WHERE x.idJugador = :idJugador")
+    int leerPuntos(@Param("idJugador") String idJugador);
 }
@@ -1,11 +1,16 @@
 package com.clubManager.baseDatosClub.repositorios;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.clubManager.baseDatosClub.dto.NotificacionDTO;
 import com.clubManager.baseDatosClub.entidades.Notificacion;
 
 /**
@@ -37,9 +42,54 @@ public interface NotificacionRepositorio extends JpaRepository<Notificacion, Lon
 	
 	Optional<Notificacion> findTopByEquipo_IdEquipoOrderByFechaDesc(String idEquipo);
 
+	/**
+	 * Obtiene la primera página del historial de un equipo, de la más reciente a la más antigua.
+	 *
+	 * @param idEquipo identificador único del equipo
+	 * @param pageable tamaño de la página
+	 * @return notificaciones de la página
+	 */
 
+	@Query("SELECT new com.clubManager.baseDatosClub.dto.NotificacionDTO"
+			+ "(n.idNotificacion, n.titulo, n.mensaje, n.fecha, n.equipo.idEquipo) "
+			+ "FROM Notificacion n WHERE n.equipo.idEquipo = :idEquipo "
+			+ "ORDER BY n.equipo.idEquipo, n.fecha DESC, n.idNotificacion DESC")
+	List<NotificacionDTO> buscarPrimeraPagina(@Param("idEquipo") String idEquipo, Pageable pageable);
 
+	/**
+	 * Obtiene la página del historial de un equipo que sigue al cursor (fecha, idNotificacion).
+	 * La condición sobre {@code fecha} acota el recorrido del índice y el orden coincide con el
+	 * suyo, de modo que cada página lee las mismas filas sea cual sea su profundidad.
+	 *
+	 * @param idEquipo identificador único del equipo
+	 * @param fecha fecha de la última notificación de la página anterior
+	 * @param idNotificacion id de la última notificación de la página anterior
+	 * @param pageable tamaño de la página
+	 * @return notificaciones de la página
+	 */
+
+	@Query("SELECT new com.clubManager.baseDatosClub.dto.NotificacionDTO"
+			+ "(n.idNotificacion, n.titulo, n.mensaje, n.fecha, n.equipo.idEquipo) "
+			+ "FROM Notificacion n WHERE n.equipo.idEquipo = :idEquipo AND n.fecha <= :fecha "
+			+ "AND (n.fecha < :fecha OR n.idNotificacion < :idNotificacion) "
+			+ "ORDER BY n.equipo.idEquipo, n.fecha DESC, n.idNotificacion DESC")
+	List<NotificacionDTO> buscarPaginaTras(@Param("idEquipo") String idEquipo, @Param("fecha") LocalDate fecha,
+			@Param("idNotificacion") Long idNotificacion, Pageable pageable);
 
+	/**
+	 * Obtiene las notificaciones de un equipo posteriores a una dada, en orden de creación.
+	 * Se usa para reenviar a un cliente SSE las notificaciones que se perdió al desconectarse.
+	 *
+	 * @param idEquipo identificador único del equipo
+	 * @param idNotificacion última notificación recibida por el cliente
+	 * @param pageable número máximo de notificaciones a devolver
+	 * @return lista de notificaciones posteriores
+	 */
 
-   
+	@Query("SELECT new com.clubManager.baseDatosClub.dto.NotificacionDTO"
+			+ "(n.idNotificacion, n.titulo, n.mensaje, n.fecha, n.equipo.idEquipo) "
+			+ "FROM Notificacion n WHERE n.equipo.idEquipo = :idEquipo AND n.idNotificacion > :idNotificacion "
+			+ "ORDER BY n.idNotificacion")
+	List<NotificacionDTO> buscarPosterioresA(@Param("idEquipo") String idEquipo,
+			@Param("idNotificacion") Long idNotificacion, Pageable pageable);
 }
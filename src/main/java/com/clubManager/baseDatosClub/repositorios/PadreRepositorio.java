@@ -1,15 +1,20 @@
 package com.clubManager.baseDatosClub.repositorios;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.clubManager.baseDatosClub.entidades.Padre;
 
+import jakarta.transaction.Transactional;
+
 /**
  * Repositorio JPA para la entidad Padre.
  * Permite realizar operaciones CRUD y consultas personalizadas
@@ -51,6 +56,78 @@ public interface PadreRepositorio extends JpaRepository<Padre, String> {
     @Query("SELECT p FROM Padre p JOIN p.equipos e WHERE e.idEquipo = :idEquipo")
     List<Padre> buscarPadresPorEquipo(@Param("idEquipo") String idEquipo);
 
+    /**
+     * Lista los identificadores de los padres vinculados al equipo indicado.
+     * 
+     * @param idEquipo identificador del equipo
+     * @return identificadores de sus padres
+     */
+    
+    @Query("SELECT p.idPadre FROM Padre p JOIN p.equipos e WHERE e.idEquipo = :idEquipo")
+    List<String> buscarIdsPorEquipo(@Param("idEquipo") String idEquipo);
 
-}
+    /**
+     * Lee un lote de padres para el índice de búsqueda, en orden de identificador a partir
+     * del último leído, para recorrer la tabla por tramos sin cargar las entidades.
+     * 
+     * @param ultimo identificador del último padre del lote anterior, "" para empezar
+     * @param pagina tamaño del lote
+     * @return filas (idPadre, nombre, apellidos, dni)
+     */
+    
+    @Query("SELECT p.idPadre, p.nombre, p.apellidos, p.dni FROM Padre p WHERE p.idPadre > :ultimo ORDER BY p.idPadre")
+    List<Object[]> buscarLoteParaBusqueda(@Param("ultimo") String ultimo, Pageable pagina);
+
+    /**
+     * Lee los datos que indexa la búsqueda de los padres indicados.
+     * 
+     * @param ids identificadores de los padres
+     * @return filas (idPadre, nombre, apellidos, dni) de los que existen
+     */
+    
+    @Query("SELECT p.idPadre, p.nombre, p.apellidos, p.dni FROM Padre p WHERE p.idPadre IN :ids")
+    List<Object[]> buscarParaBusqueda(@Param("ids") Collection<String> ids);
+
+    /**
+     * Actualiza únicamente la contraseña de un padre.
+     *
+     * @param idPadre identificador del padre
+     * @param password nuevo hash de la contraseña
+     * @return número de filas actualizadas
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Padre x SET x.password = :password WHERE x.idPadre = :idPadre")
+    int actualizarPassword(@Param("idPadre") String idPadre, @Param("password") String password);
 
+    /**
+     * Sustituye la contraseña de un padre solo si sigue siendo la indicada.
+     * Se usa al migrar contraseñas antiguas a su hash BCrypt tras un login correcto, para no
+     * deshacer un cambio de contraseña hecho mientras se calculaba el hash.
+     *
+     * @param idPadre identificador del padre
+     * @param anterior hash o contraseña que se verificó en el login
+     * @param password nuevo hash de la misma contraseña
+     * @return 1 si se sustituyó, 0 si la contraseña ya había cambiado
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Padre x SET x.password = :password WHERE x.idPadre = :idPadre AND x.password = :anterior")
+    int reemplazarPassword(@Param("idPadre") String idPadre, @Param("anterior") String anterior,
+    		@Param("password") String password);
+
+    /**
+     * Borra de los padres los tokens FCM que FCM ha rechazado, de modo que los avisos de los
+     * equipos de sus hijos no se sigan enviando a un teléfono que ya no los recibe.
+     *
+     * @param tokens tokens FCM rechazados
+     * @return número de padres que se han quedado sin token
+     */
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Padre p SET p.fcmToken = null WHERE p.fcmToken IN :tokens")
+    int eliminarTokensFcm(@Param("tokens") Collection<String> tokens);
+}
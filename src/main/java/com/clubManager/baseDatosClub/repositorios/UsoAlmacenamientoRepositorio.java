@@ -0,0 +1,113 @@
+package com.clubManager.baseDatosClub.repositorios;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.clubManager.baseDatosClub.entidades.UsoAlmacenamiento;
+
+/**
+ * Repositorio JPA para la entidad {@link UsoAlmacenamiento}.
+ *
+ * Los contadores se actualizan con UPDATE atómicos, y la reserva comprueba la cuota en la misma
+ * sentencia, para que dos subidas simultáneas del mismo equipo no la superen entre las dos.
+ * Cada cambio guarda su momento en {@code actualizado}, que la reconciliación usa para no tocar
+ * contadores con reservas abiertas en cualquier nodo.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Repository
+public interface UsoAlmacenamientoRepositorio extends JpaRepository<UsoAlmacenamiento, String> {
+
+	/**
+	 * Suma bytes al uso del equipo solo si no supera la cuota.
+	 *
+	 * @param idEquipo identificador del equipo
+	 * @param bytes bytes que se quieren reservar
+	 * @param cuota bytes máximos del equipo
+	 * @param ahora momento del cambio
+	 * @return 1 si se reservó, 0 si se superaría la cuota o el equipo no tiene contador
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE UsoAlmacenamiento u SET u.bytes = u.bytes + :bytes, u.actualizado = :ahora "
+			+ "WHERE u.idEquipo = :idEquipo AND u.bytes + :bytes <= :cuota")
+	int reservar(@Param("idEquipo") String idEquipo, @Param("bytes") long bytes, @Param("cuota") long cuota,
+			@Param("ahora") LocalDateTime ahora);
+
+	/**
+	 * Suma (o resta, con bytes negativos) al uso del equipo sin comprobar la cuota.
+	 *
+	 * @param idEquipo identificador del equipo
+	 * @param bytes bytes que se suman
+	 * @param ahora momento del cambio
+	 * @return número de filas actualizadas, 0 si el equipo no tiene contador
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE UsoAlmacenamiento u SET u.bytes = u.bytes + :bytes, u.actualizado = :ahora "
+			+ "WHERE u.idEquipo = :idEquipo")
+	int sumar(@Param("idEquipo") String idEquipo, @Param("bytes") long bytes, @Param("ahora") LocalDateTime ahora);
+
+	/**
+	 * Crea el contador del equipo con los bytes que ya ocupan sus documentos subidos.
+	 *
+	 * @param idEquipo identificador del equipo
+	 * @return 1 si se creó, 0 si el equipo no existe
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("INSERT INTO UsoAlmacenamiento (idEquipo, bytes) SELECT e.idEquipo, "
+			+ "(SELECT COALESCE(SUM(g.tamano), 0L) FROM Galeria g WHERE g.equipo = e) FROM Equipo e WHERE e.idEquipo = :idEquipo")
+	int crear(@Param("idEquipo") String idEquipo);
+
+	/**
+	 * Corrige el uso del equipo solo si no ha cambiado desde que se leyó ni desde el límite
+	 * indicado. Un contador que ha cambiado hace poco puede tener reservas abiertas en otro nodo,
+	 * que la galería aún no refleja.
+	 *
+	 * @param idEquipo identificador del equipo
+	 * @param leidos bytes leídos antes de calcular el valor real
+	 * @param reales bytes que ocupan de verdad los documentos del equipo
+	 * @param limite solo se corrige si el último cambio es anterior a este momento
+	 * @return 1 si se corrigió, 0 si el contador cambió entretanto o después del límite
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("UPDATE UsoAlmacenamiento u SET u.bytes = :reales WHERE u.idEquipo = :idEquipo AND u.bytes = :leidos "
+			+ "AND (u.actualizado IS NULL OR u.actualizado < :limite)")
+	int corregir(@Param("idEquipo") String idEquipo, @Param("leidos") long leidos, @Param("reales") long reales,
+			@Param("limite") LocalDateTime limite);
+
+	/**
+	 * Elimina los contadores de equipos que ya no existen.
+	 *
+	 * @return número de contadores eliminados
+	 */
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM UsoAlmacenamiento u WHERE u.idEquipo NOT IN (SELECT e.idEquipo FROM Equipo e)")
+	int eliminarSinEquipo();
+
+	/**
+	 * Bytes que ocupan los documentos subidos de cada equipo, calculados desde la galería
+	 * con una sola consulta de agregado.
+	 *
+	 * @return pares {@code [idEquipo, bytes]} de los equipos con algún documento subido
+	 */
+
+	@Query("SELECT g.equipo.idEquipo, SUM(g.tamano) FROM Galeria g WHERE g.tamano IS NOT NULL GROUP BY g.equipo.idEquipo")
+	List<Object[]> sumarTamanoPorEquipo();
+}
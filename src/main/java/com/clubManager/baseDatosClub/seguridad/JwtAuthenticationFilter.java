@@ -14,6 +14,8 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.Collections;
 
+import io.jsonwebtoken.Claims;
+
 /**
  * Filtro de Spring Security que intercepta cada petición HTTP para validar el token JWT.
  * 
@@ -44,16 +46,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String authHeader = request.getHeader("Authorization");
 
-        if (authHeader != null && authHeader.toLowerCase().startsWith("bearer ")) {
-            String token = authHeader.replaceFirst("(?i)^bearer", "").trim();
-            token = token.replaceAll("\\s", "");
+        if (authHeader != null && authHeader.regionMatches(true, 0, "bearer ", 0, 7)) {
+            String token = eliminarEspacios(authHeader.substring(7));
 
             try {
-                String idUsuario = tokenService.extraerIdUsuario(token);
-                String tipoUsuario = tokenService.extraerTipoUsuario(token);
-                boolean tokenValido = tokenService.validarToken(token, idUsuario);
+                Claims claims = tokenService.verificarToken(token);
+                String idUsuario = claims.getSubject();
+                String tipoUsuario = claims.get("tipoUsuario", String.class);
 
-                if (idUsuario != null && tipoUsuario != null && tokenValido) 
+                if (idUsuario != null && tipoUsuario != null)
                 {
                     if (SecurityContextHolder.getContext().getAuthentication() == null) {
                         String rolSpring = tipoUsuario.startsWith("ROLE_") ? tipoUsuario : "ROLE_" + 
@@ -80,6 +81,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Elimina los espacios en blanco del token sin usar expresiones regulares.
+     * Si el token no contiene espacios se devuelve la misma cadena.
+     */
+
+    private static String eliminarEspacios(String token)
+    {
+        int i = 0;
+        while (i < token.length() && !Character.isWhitespace(token.charAt(i)))
+        {
+            i++;
+        }
+        if (i == token.length())
+        {
+            return token;
+        }
+
+        StringBuilder sb = new StringBuilder(token.length());
+        sb.append(token, 0, i);
+        for (; i < token.length(); i++)
+        {
+            char c = token.charAt(i);
+            if (!Character.isWhitespace(c))
+            {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) 
     {
@@ -0,0 +1,234 @@
+package com.clubManager.baseDatosClub.seguridad;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Servicio encargado de generar y verificar los hashes de las contraseñas con BCrypt.
+ *
+ * El cálculo de BCrypt es costoso en CPU, por lo que se ejecuta en un pool de hilos propio
+ * con una cola acotada. Si la cola está llena la petición se rechaza de inmediato con un
+ * 503 en lugar de bloquear los hilos que atienden peticiones HTTP.
+ *
+ * Las contraseñas antiguas guardadas en texto plano, o con un coste inferior al configurado,
+ * se vuelven a hashear en segundo plano tras un login correcto.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Service
+public class PasswordServicio {
+
+	//Area de datos
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("^\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}$");
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final MeterRegistry meterRegistry;
+    private final Counter rechazos;
+
+    //Constructor
+
+    /**
+     * Crea el servicio y su pool de hilos de hashing.
+     *
+     * @param coste factor de trabajo de BCrypt para los nuevos hashes
+     * @param hilos número de hilos dedicados al hashing (0 = número de procesadores)
+     * @param colaMax número máximo de tareas en espera antes de rechazar
+     * @param timeoutMs tiempo máximo que una petición espera a su verificación
+     * @param meterRegistry registro de métricas
+     */
+
+    public PasswordServicio
+    		(
+    		@Value("${clubmanager.password.bcrypt-coste:10}") int coste,
+    		@Value("${clubmanager.password.hilos:0}") int hilos,
+    		@Value("${clubmanager.password.cola-max:64}") int colaMax,
+    		@Value("${clubmanager.password.timeout-ms:5000}") long timeoutMs,
+    		MeterRegistry meterRegistry
+    		)
+    {
+        int numHilos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+
+        this.encoder = new BCryptPasswordEncoder(coste);
+        this.timeoutMs = timeoutMs;
+        this.meterRegistry = meterRegistry;
+        this.executor = new ThreadPoolExecutor(numHilos, numHilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(colaMax),
+                r ->
+                {
+                    Thread t = new Thread(r, "hash-password-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.rechazos = Counter.builder("clubmanager.password.rechazos")
+                .description("Operaciones de hashing rechazadas por saturación")
+                .register(meterRegistry);
+        meterRegistry.gauge("clubmanager.password.cola", executor, e -> e.getQueue().size());
+    }
+
+    //Métodos principales
+
+    /**
+     * Genera el hash BCrypt de una contraseña.
+     * Si la contraseña ya es un hash BCrypt se devuelve sin cambios, para no volver a hashear
+     * las entidades que llegan de nuevo al servidor con la contraseña ya almacenada.
+     *
+     * @param password contraseña en texto plano
+     * @return hash BCrypt de la contraseña
+     * @throws ResponseStatusException 503 si el pool de hashing está saturado
+     */
+
+    public String hashear(String password)
+    {
+        if (password == null || esHash(password))
+        {
+            return password;
+        }
+        return ejecutar(() -> encoder.encode(password));
+    }
+
+    /**
+     * Comprueba si una contraseña coincide con la almacenada.
+     * Admite hashes BCrypt de cualquier coste y contraseñas antiguas en texto plano.
+     * La duración se registra en {@code clubmanager.password.verificacion}, etiquetada por coste.
+     *
+     * @param password contraseña introducida por el usuario
+     * @param almacenada hash o contraseña guardada
+     * @return true si coinciden
+     * @throws ResponseStatusException 503 si el pool de hashing está saturado
+     */
+
+    public boolean verificar(String password, String almacenada)
+    {
+        if (password == null || almacenada == null)
+        {
+            return false;
+        }
+
+        if (!esHash(almacenada))
+        {
+            return MessageDigest.isEqual(
+                    password.getBytes(StandardCharsets.UTF_8),
+                    almacenada.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Timer timer = Timer.builder("clubmanager.password.verificacion")
+                .tag("coste", almacenada.substring(4, 6))
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        return ejecutar(() -> timer.recordCallable(() -> encoder.matches(password, almacenada)));
+    }
+
+    /**
+     * Indica si la contraseña almacenada debe volver a hashearse: está en texto plano
+     * o su coste es inferior al configurado.
+     *
+     * @param almacenada hash o contraseña guardada
+     * @return true si conviene actualizarla
+     */
+
+    public boolean necesitaRehash(String almacenada)
+    {
+        return almacenada != null && (!esHash(almacenada) || encoder.upgradeEncoding(almacenada));
+    }
+
+    /**
+     * Calcula en segundo plano el nuevo hash de una contraseña y lo entrega al consumidor.
+     * Si el pool está saturado la tarea se descarta; se reintentará en el siguiente login.
+     *
+     * @param password contraseña en texto plano ya verificada
+     * @param guardar acción que persiste el nuevo hash
+     */
+
+    public void rehashEnSegundoPlano(String password, Consumer<String> guardar)
+    {
+        try
+        {
+            executor.execute(() -> guardar.accept(encoder.encode(password)));
+        }
+        catch (RejectedExecutionException e)
+        {
+            rechazos.increment();
+        }
+    }
+
+    /**
+     * Indica si el valor tiene formato de hash BCrypt.
+     */
+
+    public boolean esHash(String valor)
+    {
+        return BCRYPT_PATTERN.matcher(valor).matches();
+    }
+
+    @PreDestroy
+    public void cerrar()
+    {
+        executor.shutdown();
+    }
+
+    /**
+     * Ejecuta la tarea en el pool de hashing y espera su resultado.
+     */
+
+    private <T> T ejecutar(Callable<T> tarea)
+    {
+        Future<T> futuro;
+        try
+        {
+            futuro = executor.submit(tarea);
+        }
+        catch (RejectedExecutionException e)
+        {
+            rechazos.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Servidor ocupado, inténtalo de nuevo");
+        }
+
+        try
+        {
+            return futuro.get(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException e)
+        {
+            futuro.cancel(true);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Servidor ocupado, inténtalo de nuevo");
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hashing interrumpido", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("Error al procesar la contraseña", e.getCause());
+        }
+    }
+}
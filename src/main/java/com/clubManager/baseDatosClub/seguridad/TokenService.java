@@ -1,27 +1,64 @@
 package com.clubManager.baseDatosClub.seguridad;
 
-import java.util.Date;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 
 /**
  * Servicio encargado de generar, validar y extraer información de tokens JWT.
  *
+ * La verificación de la firma se realiza una sola vez por token: los claims ya verificados
+ * se guardan en una caché acotada en tamaño y con caducidad, indexada por el hash del token,
+ * de forma que las peticiones repetidas de una misma sesión no repiten el cálculo criptográfico.
+ *
  * @author Sergio Vigil Soto
  */
 
 @Service
 public class TokenService {
-	
+
 	//Area de datos
 
     private final Key key = Keys.hmacShaKeyFor("miClaveSecreta12345678901234567890123456789012".getBytes());
 
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build();
+
+    private final CacheClaims cache;
+
+    //Constructor
+
+    /**
+     * Crea el servicio con una caché de claims verificados.
+     *
+     * @param maxEntradas número máximo de tokens verificados que se mantienen en memoria
+     * @param ttlSegundos segundos que un token verificado permanece en caché
+     */
+
+    public TokenService
+    		(
+    		@Value("${clubmanager.jwt.cache.max-entradas:10000}") int maxEntradas,
+    		@Value("${clubmanager.jwt.cache.ttl-segundos:300}") long ttlSegundos
+    		)
+    {
+        this.cache = new CacheClaims(maxEntradas, TimeUnit.SECONDS.toNanos(ttlSegundos));
+    }
+
+    //Métodos principales
+
     /**
      * Genera un token JWT con ID de usuario y tipo.
      *
@@ -29,8 +66,8 @@ public class TokenService {
      * @param tipoUsuario tipo de usuario.
      * @return token JWT firmado
      */
-    
-    public String generarToken(String idUsuario, String tipoUsuario) 
+
+    public String generarToken(String idUsuario, String tipoUsuario)
     {
         String token = Jwts.builder()
                 .setSubject(idUsuario)
@@ -42,6 +79,31 @@ public class TokenService {
         return token;
     }
 
+    /**
+     * Verifica la firma del token y devuelve sus claims.
+     *
+     * Si el token ya fue verificado recientemente se devuelven los claims de la caché
+     * sin volver a parsear ni comprobar la firma.
+     *
+     * @param token token JWT sin espacios
+     * @return claims verificados del token
+     * @throws io.jsonwebtoken.JwtException si el token no es válido
+     */
+
+    public Claims verificarToken(String token)
+    {
+        String clave = hash(token);
+        Claims claims = cache.obtener(clave);
+        if (claims != null)
+        {
+            return claims;
+        }
+
+        claims = parser.parseClaimsJws(token).getBody();
+        cache.guardar(clave, claims);
+        return claims;
+    }
+
     /**
      * Valida si el token es correcto y pertenece al usuario.
      *
@@ -49,15 +111,15 @@ public class TokenService {
      * @param idUsuario identificador del usuario
      * @return true si es válido
      */
-    
+
     public boolean validarToken(String token, String idUsuario) {
-        try 
+        try
         {
             String subject = extraerIdUsuario(token);
             boolean valido = subject.equals(idUsuario);
             return valido;
-        } 
-        catch (Exception e) 
+        }
+        catch (Exception e)
         {
         	 return false;
         }
@@ -66,58 +128,114 @@ public class TokenService {
     /**
      * Extrae el ID del usuario del token.
      */
-    
-    public String extraerIdUsuario(String token) 
+
+    public String extraerIdUsuario(String token)
     {
-        try 
-        {
-            String id = extraerClaims(token).getSubject();
-            return id;
-        } 
-        catch (Exception e) 
-        {
-            throw e;
-        }
+        return extraerClaims(token).getSubject();
     }
 
     /**
      * Extrae el tipo de usuario del token.
      */
-    
-    public String extraerTipoUsuario(String token) 
+
+    public String extraerTipoUsuario(String token)
+    {
+        return (String) extraerClaims(token).get("tipoUsuario");
+    }
+
+    /**
+     * Extrae los claims del token, lanzando una excepción si no es válido.
+     */
+
+    private Claims extraerClaims(String token)
     {
-        try 
+        return verificarToken(token.replaceAll("\\s", ""));
+    }
+
+    /**
+     * Calcula el hash SHA-256 del token, usado como clave de la caché para no
+     * retener los tokens completos en memoria.
+     */
+
+    private static String hash(String token)
+    {
+        try
         {
-            String tipo = (String) extraerClaims(token).get("tipoUsuario");
-            return tipo;
-        } 
-        catch (Exception e)
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(bytes);
+        }
+        catch (NoSuchAlgorithmException e)
         {
-            throw e;
+            throw new IllegalStateException("SHA-256 no disponible", e);
         }
     }
 
-    
-
     /**
-     * Extrae los claims del token, lanzando una excepción si no es válido.
+     * Caché LRU de claims verificados con caducidad por entrada.
+     *
+     * Si el token incluye fecha de expiración, la entrada nunca sobrevive a ella.
      */
-    
-    private Claims extraerClaims(String token) 
+
+    private static final class CacheClaims
     {
-        try
+        private final int maxEntradas;
+        private final long ttlNanos;
+        private final Map<String, Entrada> entradas;
+
+        private record Entrada(Claims claims, long caducaEn) {}
+
+        CacheClaims(int maxEntradas, long ttlNanos)
         {
-            String sanitized = token.replaceAll("\\s", "");
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(sanitized)
-                    .getBody();
-            return claims;
-        } 
-        catch (Exception e) 
+            this.maxEntradas = maxEntradas;
+            this.ttlNanos = ttlNanos;
+            this.entradas = new LinkedHashMap<>(16, 0.75f, true)
+            {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest)
+                {
+                    return size() > CacheClaims.this.maxEntradas;
+                }
+            };
+        }
+
+        synchronized Claims obtener(String clave)
+        {
+            Entrada entrada = entradas.get(clave);
+            if (entrada == null)
+            {
+                return null;
+            }
+            if (System.nanoTime() - entrada.caducaEn() >= 0)
+            {
+                entradas.remove(clave);
+                return null;
+            }
+            return entrada.claims();
+        }
+
+        void guardar(String clave, Claims claims)
         {
-            throw e;
+            if (maxEntradas <= 0 || ttlNanos <= 0)
+            {
+                return;
+            }
+
+            long ahora = System.nanoTime();
+            long caducaEn = ahora + ttlNanos;
+            if (claims.getExpiration() != null)
+            {
+                long restante = TimeUnit.MILLISECONDS.toNanos(
+                        claims.getExpiration().getTime() - System.currentTimeMillis());
+                caducaEn = ahora + Math.min(ttlNanos, restante);
+            }
+
+            synchronized (this)
+            {
+                entradas.put(clave, new Entrada(claims, caducaEn));
+            }
         }
     }
-}
\ No newline at end of file
+}
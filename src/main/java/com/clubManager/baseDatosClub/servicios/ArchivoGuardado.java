@@ -0,0 +1,51 @@
+package com.clubManager.baseDatosClub.servicios;
+
+/**
+ * Resultado de guardar un archivo con {@link FileStorageService}: la URL pública,
+ * el tamaño en bytes y la huella SHA-256 del contenido, en hexadecimal.
+ * {@code deduplicado} indica que el contenido ya existía y no se ha escrito de nuevo.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+public class ArchivoGuardado {
+
+	//Area de datos
+
+    private final String url;
+    private final long tamano;
+    private final String sha256;
+    private final boolean deduplicado;
+
+    //Constructor
+
+    public ArchivoGuardado(String url, long tamano, String sha256, boolean deduplicado)
+    {
+        this.url = url;
+        this.tamano = tamano;
+        this.sha256 = sha256;
+        this.deduplicado = deduplicado;
+    }
+
+    //Métodos Getter
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    public long getTamano()
+    {
+        return tamano;
+    }
+
+    public String getSha256()
+    {
+        return sha256;
+    }
+
+    public boolean isDeduplicado()
+    {
+        return deduplicado;
+    }
+}
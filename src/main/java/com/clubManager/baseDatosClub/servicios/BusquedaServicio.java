@@ -0,0 +1,320 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.clubManager.baseDatosClub.dto.PersonaBusquedaDTO;
+import com.clubManager.baseDatosClub.entidades.Credencial;
+import com.clubManager.baseDatosClub.repositorios.JugadorRepositorio;
+import com.clubManager.baseDatosClub.repositorios.PadreRepositorio;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Servicio de búsqueda de jugadores y padres por nombre, apellidos o DNI mientras se escribe.
+ *
+ * Las consultas se resuelven en memoria con {@link IndiceBusqueda}, sin acceder a la base de
+ * datos. El índice se construye al arrancar recorriendo las tablas por lotes en orden de
+ * identificador, y después se mantiene con los eventos que publican los servicios de jugadores,
+ * padres y equipos: tras cada cambio confirmado se vuelven a leer las personas afectadas y se
+ * sustituyen o quitan del índice. Los cambios que llegan mientras se construye se aplican al
+ * terminar.
+ *
+ * Esos eventos solo salen de las transacciones de este proceso. Para que los cambios hechos desde
+ * otra instancia de la aplicación acaben apareciendo, el índice se reconstruye entero cada
+ * {@code clubmanager.busqueda.reconstruccion-ms}; mientras tanto las consultas siguen usando el
+ * anterior. Con cien mil personas cada reconstrucción lee las dos tablas por lotes en unos
+ * segundos.
+ *
+ * El número de personas indexadas se publica en {@code clubmanager.busqueda.personas}.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Service
+public class BusquedaServicio {
+
+	//Area de datos
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaServicio.class);
+
+    @Autowired
+    private JugadorRepositorio jugadorRepo;
+
+    @Autowired
+    private PadreRepositorio padreRepo;
+
+    @Value("${clubmanager.busqueda.limite:10}")
+    private int limitePorDefecto;
+
+    @Value("${clubmanager.busqueda.limite-max:50}")
+    private int limiteMaximo;
+
+    /**
+     * Entradas del índice que revisa como mucho una consulta, para acotar las de una o dos letras.
+     */
+
+    @Value("${clubmanager.busqueda.max-revisadas:5000}")
+    private int maxRevisadas;
+
+    @Value("${clubmanager.busqueda.lote:1000}")
+    private int lote;
+
+    private final IndiceBusqueda indice = new IndiceBusqueda();
+    private final Object cerrojo = new Object();
+    private Set<String> jugadoresPendientes;
+    private Set<String> equiposPendientes;
+    private Set<String> padresPendientes;
+    private volatile boolean listo;
+
+    //Constructor
+
+    public BusquedaServicio(MeterRegistry meterRegistry)
+    {
+        meterRegistry.gauge("clubmanager.busqueda.personas", indice, IndiceBusqueda::tamano);
+    }
+
+    //Métodos principales
+
+    /**
+     * Busca jugadores y padres cuyas palabras de nombre, apellidos o DNI empiecen por las del
+     * texto, sin distinguir mayúsculas ni acentos.
+     *
+     * @param texto texto escrito por el usuario
+     * @param tipo {@value Credencial#TIPO_JUGADOR}, {@value Credencial#TIPO_PADRE} o null para ambos
+     * @param limite número máximo de resultados, o null para el valor por defecto
+     * @return personas encontradas
+     * @throws ResponseStatusException 400 si el tipo o el límite no son válidos, 503 si el índice
+     *         aún se está construyendo
+     */
+
+    public List<PersonaBusquedaDTO> buscar(String texto, String tipo, Integer limite)
+    {
+        if (tipo != null && !Credencial.TIPO_JUGADOR.equals(tipo) && !Credencial.TIPO_PADRE.equals(tipo))
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tipo de persona no válido: " + tipo);
+        }
+        if (limite != null && limite <= 0)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El límite debe ser positivo");
+        }
+        if (!listo)
+        {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "El índice de búsqueda se está construyendo");
+        }
+        int tamano = limite == null ? limitePorDefecto : Math.min(limite, limiteMaximo);
+        return indice.buscar(texto, tipo, tamano, maxRevisadas);
+    }
+
+    /**
+     * Construye el índice al arrancar la aplicación.
+     */
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirAlArrancar()
+    {
+        construir();
+    }
+
+    /**
+     * Vuelve a construir el índice para recoger los cambios que no han llegado como eventos.
+     */
+
+    @Scheduled(fixedDelayString = "${clubmanager.busqueda.reconstruccion-ms:900000}",
+            initialDelayString = "${clubmanager.busqueda.reconstruccion-ms:900000}")
+    public void reconstruir()
+    {
+        construir();
+    }
+
+    /**
+     * Construye el índice desde cero recorriendo jugadores y padres por lotes. Las construcciones
+     * no se solapan.
+     *
+     * @return número de personas indexadas
+     */
+
+    public synchronized int construir()
+    {
+        long inicio = System.nanoTime();
+        synchronized (cerrojo)
+        {
+            jugadoresPendientes = new HashSet<>();
+            equiposPendientes = new HashSet<>();
+            padresPendientes = new HashSet<>();
+        }
+
+        List<IndiceBusqueda.Ficha> fichas = new ArrayList<>();
+        String ultimo = "";
+        List<Object[]> filas;
+        do
+        {
+            filas = jugadorRepo.buscarLoteParaBusqueda(ultimo, PageRequest.of(0, lote));
+            filas.forEach(fila -> fichas.add(fichaJugador(fila)));
+            ultimo = filas.isEmpty() ? ultimo : (String) filas.get(filas.size() - 1)[0];
+        }
+        while (filas.size() == lote);
+
+        ultimo = "";
+        do
+        {
+            filas = padreRepo.buscarLoteParaBusqueda(ultimo, PageRequest.of(0, lote));
+            filas.forEach(fila -> fichas.add(fichaPadre(fila)));
+            ultimo = filas.isEmpty() ? ultimo : (String) filas.get(filas.size() - 1)[0];
+        }
+        while (filas.size() == lote);
+        indice.cargar(fichas);
+
+        Set<String> jugadores;
+        Set<String> equipos;
+        Set<String> padres;
+        synchronized (cerrojo)
+        {
+            jugadores = jugadoresPendientes;
+            equipos = equiposPendientes;
+            padres = padresPendientes;
+            jugadoresPendientes = null;
+            equiposPendientes = null;
+            padresPendientes = null;
+        }
+        equipos.forEach(idEquipo -> jugadores.addAll(jugadoresDeEquipo(idEquipo)));
+        refrescarJugadores(jugadores);
+        refrescarPadres(padres);
+        listo = true;
+
+        log.info("Índice de búsqueda construido con {} personas en {} ms", fichas.size(),
+                (System.nanoTime() - inicio) / 1_000_000);
+        return fichas.size();
+    }
+
+    /**
+     * Actualiza los jugadores afectados por un cambio de plantilla, una vez confirmado. Si el
+     * cambio no indica el jugador, se revisan todos los del equipo.
+     *
+     * @param evento evento con el equipo y el jugador afectados
+     */
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarPlantilla(PlantillaCambiadaEvento evento)
+    {
+        String idJugador = evento.getIdJugador();
+        String idEquipo = evento.getIdEquipo();
+        if (idJugador == null && idEquipo == null)
+        {
+            return;
+        }
+
+        synchronized (cerrojo)
+        {
+            if (jugadoresPendientes != null)
+            {
+                if (idJugador != null)
+                {
+                    jugadoresPendientes.add(idJugador);
+                }
+                else
+                {
+                    equiposPendientes.add(idEquipo);
+                }
+                return;
+            }
+        }
+        refrescarJugadores(idJugador != null ? Set.of(idJugador) : jugadoresDeEquipo(idEquipo));
+    }
+
+    /**
+     * Actualiza los padres creados, modificados o borrados, una vez confirmado el cambio.
+     *
+     * @param evento evento con los padres afectados
+     */
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarPadres(PadresCambiadosEvento evento)
+    {
+        synchronized (cerrojo)
+        {
+            if (padresPendientes != null)
+            {
+                padresPendientes.addAll(evento.getIdsPadres());
+                return;
+            }
+        }
+        refrescarPadres(evento.getIdsPadres());
+    }
+
+    /**
+     * Jugadores que el índice tiene en el equipo más los que tiene ahora en la base de datos.
+     */
+
+    private Set<String> jugadoresDeEquipo(String idEquipo)
+    {
+        Set<String> ids = new HashSet<>(indice.idsDeEquipo(Credencial.TIPO_JUGADOR, idEquipo));
+        ids.addAll(jugadorRepo.buscarIdsPorEquipo(idEquipo));
+        return ids;
+    }
+
+    private void refrescarJugadores(Collection<String> ids)
+    {
+        if (ids.isEmpty())
+        {
+            return;
+        }
+        // Leer y aplicar bajo el mismo cerrojo: si dos cambios de la misma persona se cruzan,
+        // gana la lectura más reciente
+        synchronized (indice)
+        {
+            List<IndiceBusqueda.Ficha> leidas = jugadorRepo.buscarParaBusqueda(ids).stream()
+                    .map(BusquedaServicio::fichaJugador)
+                    .toList();
+            indice.aplicar(leidas, claves(Credencial.TIPO_JUGADOR, ids));
+        }
+    }
+
+    private void refrescarPadres(Collection<String> ids)
+    {
+        if (ids.isEmpty())
+        {
+            return;
+        }
+        synchronized (indice)
+        {
+            List<IndiceBusqueda.Ficha> leidas = padreRepo.buscarParaBusqueda(ids).stream()
+                    .map(BusquedaServicio::fichaPadre)
+                    .toList();
+            indice.aplicar(leidas, claves(Credencial.TIPO_PADRE, ids));
+        }
+    }
+
+    private static List<String> claves(String tipo, Collection<String> ids)
+    {
+        return ids.stream().map(id -> IndiceBusqueda.clave(tipo, id)).toList();
+    }
+
+    private static IndiceBusqueda.Ficha fichaJugador(Object[] fila)
+    {
+        return new IndiceBusqueda.Ficha(Credencial.TIPO_JUGADOR, (String) fila[0], (String) fila[1],
+                (String) fila[2], (String) fila[3], (String) fila[4]);
+    }
+
+    private static IndiceBusqueda.Ficha fichaPadre(Object[] fila)
+    {
+        return new IndiceBusqueda.Ficha(Credencial.TIPO_PADRE, (String) fila[0], (String) fila[1],
+                (String) fila[2], (String) fila[3], null);
+    }
+}
@@ -0,0 +1,419 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.clubManager.baseDatosClub.dto.NotificacionDTO;
+import com.clubManager.baseDatosClub.repositorios.NotificacionRepositorio;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Servicio que reparte en tiempo real las nuevas notificaciones de cada equipo a los clientes
+ * conectados por Server-Sent Events.
+ *
+ * Las conexiones se guardan en memoria agrupadas por equipo. Al ser peticiones asíncronas,
+ * una conexión inactiva no ocupa ningún hilo. Publicar una notificación solo la añade a la
+ * cola de cada conexión; las escrituras, que pueden bloquearse si el cliente lee despacio, se
+ * hacen en un pool propio y cada conexión se atiende en orden por un único hilo a la vez. Una
+ * conexión cuya cola se llena se cierra: el cliente se reconecta y recupera lo perdido con el
+ * reenvío. Así un cliente lento no retrasa al resto de equipos.
+ *
+ * Cada cierto tiempo se manda un comentario de latido, desde un planificador propio, para que
+ * proxies y clientes no cierren las conexiones inactivas.
+ *
+ * El id de cada evento es el {@code idNotificacion}. Si el cliente se reconecta con la cabecera
+ * {@code Last-Event-ID}, primero recibe las notificaciones que se perdió.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Service
+public class CanalNotificacionesServicio {
+
+	//Area de datos
+
+    static final String EVENTO = "notificacion";
+
+    /** Número de ids enviados que recuerda cada conexión para descartar duplicados. */
+    static final int IDS_RECORDADOS = 512;
+
+    /** Eventos que envía un hilo a una conexión antes de dejar paso a las demás. */
+    private static final int LOTE = 16;
+
+    @Autowired
+    private NotificacionRepositorio notificacionRepo;
+
+    @Value("${clubmanager.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${clubmanager.sse.max-reenvio:100}")
+    private int maxReenvio;
+
+    @Value("${clubmanager.sse.max-pendientes:256}")
+    private int maxPendientes = 256;
+
+    @Value("${clubmanager.sse.latido-ms:15000}")
+    private long latidoMs = 15000;
+
+    private final Map<String, Set<Suscripcion>> suscripciones = new ConcurrentHashMap<>();
+    private final AtomicInteger conectados = new AtomicInteger();
+    private final Counter descartadas;
+    private final ExecutorService envio = Executors.newFixedThreadPool(4, r -> crearHilo(r, "envio-sse"));
+    private final ExecutorService reenvio = Executors.newFixedThreadPool(2, r -> crearHilo(r, "reenvio-sse"));
+    private final ScheduledExecutorService latidos =
+            Executors.newSingleThreadScheduledExecutor(r -> crearHilo(r, "latido-sse"));
+
+    //Constructor
+
+    public CanalNotificacionesServicio(MeterRegistry meterRegistry)
+    {
+        meterRegistry.gauge("clubmanager.sse.conexiones", conectados);
+        this.descartadas = Counter.builder("clubmanager.sse.descartadas")
+                .description("Conexiones cerradas por no leer a tiempo sus notificaciones")
+                .register(meterRegistry);
+    }
+
+    //Métodos principales
+
+    /**
+     * Programa los latidos en el planificador propio del servicio, para no ocupar el
+     * planificador compartido de las tareas {@code @Scheduled}.
+     */
+
+    @PostConstruct
+    public void iniciar()
+    {
+        latidos.scheduleAtFixedRate(this::enviarLatidos, latidoMs, latidoMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Abre una suscripción a las notificaciones de un equipo.
+     *
+     * @param idEquipo identificador del equipo
+     * @param ultimoId último {@code idNotificacion} recibido por el cliente, o nulo
+     * @return emisor SSE que se devuelve como respuesta de la petición
+     */
+
+    public SseEmitter suscribir(String idEquipo, Long ultimoId)
+    {
+        SseEmitter emitter = crearEmitter();
+        Suscripcion suscripcion = new Suscripcion(idEquipo, emitter, ultimoId);
+
+        suscripciones.compute(idEquipo, (k, destino) ->
+        {
+            Set<Suscripcion> conjunto = destino != null ? destino : ConcurrentHashMap.newKeySet();
+            conjunto.add(suscripcion);
+            return conjunto;
+        });
+        conectados.incrementAndGet();
+
+        Runnable quitar = () -> quitar(idEquipo, suscripcion);
+        emitter.onCompletion(quitar);
+        emitter.onTimeout(quitar);
+        emitter.onError(e -> quitar.run());
+
+        reenvio.execute(() ->
+        {
+            List<NotificacionDTO> perdidas = ultimoId == null
+                    ? List.of()
+                    : notificacionRepo.buscarPosterioresA(idEquipo, ultimoId, PageRequest.of(0, maxReenvio));
+            suscripcion.terminarReenvio(perdidas);
+        });
+        return emitter;
+    }
+
+    /**
+     * Reparte una notificación recién guardada a los suscriptores de su equipo.
+     * Se ejecuta tras el commit para no anunciar notificaciones que no llegan a guardarse.
+     *
+     * @param evento evento con la notificación guardada
+     */
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alGuardarNotificacion(NotificacionGuardadaEvento evento)
+    {
+        publicar(evento.getNotificacion());
+    }
+
+    /**
+     * Envía una notificación a todos los suscriptores de su equipo.
+     * No espera a ninguna escritura: solo la deja en la cola de cada conexión.
+     *
+     * @param notificacion notificación a enviar
+     */
+
+    public void publicar(NotificacionDTO notificacion)
+    {
+        Set<Suscripcion> destino = suscripciones.get(notificacion.getIdEquipo());
+        if (destino == null || destino.isEmpty())
+        {
+            return;
+        }
+
+        for (Suscripcion suscripcion : destino)
+        {
+            suscripcion.publicar(notificacion);
+        }
+    }
+
+    /**
+     * Encola un latido en las conexiones que no tienen nada pendiente de enviar.
+     */
+
+    public void enviarLatidos()
+    {
+        suscripciones.values().forEach(destino -> destino.forEach(Suscripcion::latido));
+    }
+
+    /**
+     * Número de conexiones abiertas.
+     */
+
+    public int getConexiones()
+    {
+        return conectados.get();
+    }
+
+    @PreDestroy
+    public void cerrar()
+    {
+        latidos.shutdownNow();
+        envio.shutdownNow();
+        reenvio.shutdownNow();
+        suscripciones.values().forEach(destino -> destino.forEach(s -> s.emitter.complete()));
+    }
+
+    /**
+     * Crea el emisor de una nueva conexión.
+     */
+
+    protected SseEmitter crearEmitter()
+    {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private static Thread crearHilo(Runnable r, String nombre)
+    {
+        Thread t = new Thread(r, nombre);
+        t.setDaemon(true);
+        return t;
+    }
+
+    private void quitar(String idEquipo, Suscripcion suscripcion)
+    {
+        suscripciones.computeIfPresent(idEquipo, (k, destino) ->
+        {
+            if (destino.remove(suscripcion))
+            {
+                conectados.decrementAndGet();
+            }
+            return destino.isEmpty() ? null : destino;
+        });
+    }
+
+    /**
+     * Conexión de un cliente. Mientras se reenvían las notificaciones perdidas, las nuevas se
+     * guardan en un búfer; después se encolan solo las que el cliente aún no ha recibido.
+     * La cola la vacía un hilo del pool de envío, que se programa cuando llega el primer
+     * evento y termina cuando no queda nada pendiente.
+     *
+     * Los ids se asignan al insertar pero las transacciones pueden confirmarse en otro orden,
+     * así que una notificación puede llegar después de otra con un id mayor. Por eso los
+     * duplicados se detectan con los últimos ids enviados y no comparando con el mayor.
+     */
+
+    private class Suscripcion implements Runnable
+    {
+        private final String idEquipo;
+        private final SseEmitter emitter;
+        private final Set<Long> enviadas = new LinkedHashSet<>();
+        private final Deque<SseEmitter.SseEventBuilder> cola = new ArrayDeque<>();
+        private List<NotificacionDTO> bufer = new ArrayList<>();
+        private boolean programada;
+        private boolean cerrada;
+
+        Suscripcion(String idEquipo, SseEmitter emitter, Long ultimoId)
+        {
+            this.idEquipo = idEquipo;
+            this.emitter = emitter;
+            if (ultimoId != null)
+            {
+                enviadas.add(ultimoId);
+            }
+        }
+
+        synchronized void terminarReenvio(List<NotificacionDTO> perdidas)
+        {
+            if (cerrada)
+            {
+                return;
+            }
+            for (NotificacionDTO n : perdidas)
+            {
+                encolarSiNueva(n);
+            }
+            for (NotificacionDTO n : bufer)
+            {
+                encolarSiNueva(n);
+            }
+            bufer = null;
+            programar();
+        }
+
+        synchronized void publicar(NotificacionDTO notificacion)
+        {
+            if (cerrada)
+            {
+                return;
+            }
+            if ((bufer != null ? bufer.size() : cola.size()) >= maxPendientes)
+            {
+                descartar();
+                return;
+            }
+            if (bufer != null)
+            {
+                bufer.add(notificacion);
+                return;
+            }
+            encolarSiNueva(notificacion);
+            programar();
+        }
+
+        synchronized void latido()
+        {
+            if (!cerrada && bufer == null && cola.isEmpty())
+            {
+                cola.add(SseEmitter.event().comment("latido"));
+                programar();
+            }
+        }
+
+        /**
+         * Envía un lote de eventos pendientes y, si quedan más, se vuelve a programar para
+         * que el resto de conexiones no esperen a que esta se vacíe.
+         */
+
+        @Override
+        public void run()
+        {
+            for (int i = 0; i < LOTE; i++)
+            {
+                SseEmitter.SseEventBuilder evento;
+                synchronized (this)
+                {
+                    evento = cola.poll();
+                    if (evento == null)
+                    {
+                        programada = false;
+                        return;
+                    }
+                }
+                try
+                {
+                    emitter.send(evento);
+                }
+                catch (IOException | IllegalStateException e)
+                {
+                    synchronized (this)
+                    {
+                        cerrada = true;
+                        cola.clear();
+                        programada = false;
+                    }
+                    quitar(idEquipo, this);
+                    return;
+                }
+            }
+            synchronized (this)
+            {
+                programada = false;
+                programar();
+            }
+        }
+
+        private void encolarSiNueva(NotificacionDTO notificacion)
+        {
+            if (!enviadas.add(notificacion.getIdNotificacion()))
+            {
+                return;
+            }
+            if (enviadas.size() > IDS_RECORDADOS)
+            {
+                Iterator<Long> it = enviadas.iterator();
+                it.next();
+                it.remove();
+            }
+            cola.add(SseEmitter.event()
+                    .id(String.valueOf(notificacion.getIdNotificacion()))
+                    .name(EVENTO)
+                    .data(notificacion, MediaType.APPLICATION_JSON));
+        }
+
+        private void programar()
+        {
+            if (programada || cerrada || cola.isEmpty())
+            {
+                return;
+            }
+            try
+            {
+                envio.execute(this);
+                programada = true;
+            }
+            catch (RejectedExecutionException e)
+            {
+                cerrada = true;
+                cola.clear();
+            }
+        }
+
+        /**
+         * Cierra una conexión que no lee a tiempo. El cierre se hace en el pool de envío porque
+         * puede esperar a que termine una escritura bloqueada.
+         */
+
+        private void descartar()
+        {
+            cerrada = true;
+            cola.clear();
+            bufer = null;
+            descartadas.increment();
+            quitar(idEquipo, this);
+            try
+            {
+                envio.execute(emitter::complete);
+            }
+            catch (RejectedExecutionException e)
+            {
+                // El servicio se está cerrando y completará el emisor
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+
+import com.clubManager.baseDatosClub.dto.JugadorPuntuacionDTO;
+
+/**
+ * Clasificación de los jugadores de un equipo, ordenada por puntos de mayor a menor y, a
+ * igualdad de puntos, por identificador.
+ *
+ * Los puntos se guardan en un array de enteros paralelo al de identificadores, de forma que la
+ * posición de un jugador y el corte de los N primeros se encuentran con una búsqueda binaria.
+ * Un cambio de puntos mueve al jugador a su nuevo sitio desplazando solo los que quedan entre
+ * la posición antigua y la nueva.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+class Clasificacion {
+
+	//Area de datos
+
+    private final String[] ids;
+    private final int[] puntos;
+    private final Map<String, Integer> puntosPorJugador;
+    private final Map<String, String> nombres;
+    private final long cargada = System.nanoTime();
+
+    //Constructor
+
+    /**
+     * Crea la clasificación a partir de las filas (idJugador, nombre, puntos) de un equipo.
+     *
+     * @param filas filas del equipo, en cualquier orden
+     */
+
+    Clasificacion(List<Object[]> filas)
+    {
+        int tamano = filas.size();
+        this.puntosPorJugador = new HashMap<>(tamano * 2);
+        this.nombres = new HashMap<>(tamano * 2);
+
+        Object[][] ordenadas = filas.toArray(new Object[0][]);
+        Arrays.sort(ordenadas, (a, b) -> comparar(puntos(a), (String) a[0], puntos(b), (String) b[0]));
+
+        this.ids = new String[tamano];
+        this.puntos = new int[tamano];
+        for (int i = 0; i < tamano; i++)
+        {
+            ids[i] = (String) ordenadas[i][0];
+            puntos[i] = puntos(ordenadas[i]);
+            puntosPorJugador.put(ids[i], puntos[i]);
+            nombres.put(ids[i], (String) ordenadas[i][1]);
+        }
+    }
+
+    //Métodos principales
+
+    /**
+     * Los primeros jugadores de la clasificación.
+     *
+     * @param limite número máximo de jugadores; si es negativo, todos
+     * @return jugadores con sus puntos totales, en orden
+     */
+
+    synchronized List<JugadorPuntuacionDTO> primeros(int limite)
+    {
+        int hasta = limite < 0 ? ids.length : Math.min(limite, ids.length);
+        List<JugadorPuntuacionDTO> resultado = new ArrayList<>(hasta);
+        for (int i = 0; i < hasta; i++)
+        {
+            resultado.add(new JugadorPuntuacionDTO(ids[i], nombres.get(ids[i]), puntos[i], null));
+        }
+        return resultado;
+    }
+
+    /**
+     * Posición de un jugador. Los jugadores empatados a puntos comparten posición.
+     *
+     * @param idJugador identificador del jugador
+     * @return posición empezando en 1, vacío si el jugador no está en el equipo
+     */
+
+    synchronized OptionalInt posicion(String idJugador)
+    {
+        Integer actuales = puntosPorJugador.get(idJugador);
+        if (actuales == null)
+        {
+            return OptionalInt.empty();
+        }
+        // Primer jugador con esos puntos: el de menor identificador posible
+        return OptionalInt.of(buscar(actuales, "") + 1);
+    }
+
+    /**
+     * Sube los puntos de un jugador a su nuevo total. Un total menor que el conocido se ignora:
+     * los puntos solo se suman, así que un aviso que llega tarde no hace retroceder al jugador.
+     *
+     * @param idJugador identificador del jugador
+     * @param nuevos puntos totales del jugador
+     * @return true si el jugador está en la clasificación
+     */
+
+    synchronized boolean actualizar(String idJugador, int nuevos)
+    {
+        Integer actuales = puntosPorJugador.get(idJugador);
+        if (actuales == null)
+        {
+            return false;
+        }
+        if (nuevos <= actuales)
+        {
+            return true;
+        }
+
+        int desde = buscar(actuales, idJugador);
+        // Sitio que ocuparía entre los demás jugadores, sin contarle a él
+        int hasta = buscar(nuevos, idJugador);
+        System.arraycopy(ids, hasta, ids, hasta + 1, desde - hasta);
+        System.arraycopy(puntos, hasta, puntos, hasta + 1, desde - hasta);
+        ids[hasta] = idJugador;
+        puntos[hasta] = nuevos;
+        puntosPorJugador.put(idJugador, nuevos);
+        return true;
+    }
+
+    /**
+     * Identificadores de los jugadores de la clasificación.
+     */
+
+    synchronized List<String> jugadores()
+    {
+        return List.of(ids);
+    }
+
+    /**
+     * Momento en que se leyeron las filas, en la escala de {@link System#nanoTime()}.
+     */
+
+    long cargada()
+    {
+        return cargada;
+    }
+
+    /**
+     * Primer índice cuyo jugador va detrás de (puntos, idJugador) o es él mismo.
+     */
+
+    private int buscar(int valor, String idJugador)
+    {
+        int bajo = 0;
+        int alto = ids.length;
+        while (bajo < alto)
+        {
+            int medio = (bajo + alto) >>> 1;
+            if (comparar(puntos[medio], ids[medio], valor, idJugador) < 0)
+            {
+                bajo = medio + 1;
+            }
+            else
+            {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    private static int comparar(int puntosA, String idA, int puntosB, String idB)
+    {
+        int porPuntos = Integer.compare(puntosB, puntosA);
+        return porPuntos != 0 ? porPuntos : idA.compareTo(idB);
+    }
+
+    private static int puntos(Object[] fila)
+    {
+        return ((Number) fila[2]).intValue();
+    }
+}
@@ -0,0 +1,214 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.clubManager.baseDatosClub.dto.JugadorPuntuacionDTO;
+import com.clubManager.baseDatosClub.repositorios.JugadorRepositorio;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Servicio que mantiene en memoria la clasificación por puntos de cada equipo.
+ *
+ * La clasificación de un equipo se carga al consultarlo por primera vez, leyendo solo el
+ * identificador, el nombre y los puntos de sus jugadores. Después se actualiza en escritura:
+ * cada suma de puntos confirmada mueve al jugador a su nuevo puesto sin volver a consultar la
+ * base de datos. Cuando cambia la plantilla del equipo se descarta la entrada y la siguiente
+ * consulta la recarga.
+ *
+ * Los avisos solo llegan de las transacciones de este proceso: los puntos sumados desde otra
+ * instancia de la aplicación no mueven a nadie aquí. Por eso cada clasificación caduca a los
+ * {@code clubmanager.clasificacion.cache.ttl-ms} de haberse leído, aunque se haya actualizado
+ * después, y ese es el retraso máximo con el que se ven los cambios hechos en otra instancia.
+ *
+ * Los aciertos y fallos se contabilizan en {@code clubmanager.clasificacion.cache},
+ * y la proporción de aciertos se publica en {@code clubmanager.clasificacion.cache.ratio}.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Service
+public class ClasificacionServicio {
+
+	//Area de datos
+
+    @Autowired
+    private JugadorRepositorio jugadorRepo;
+
+    @Value("${clubmanager.clasificacion.cache.max-entradas:2000}")
+    private int maxEntradas;
+
+    @Value("${clubmanager.clasificacion.cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    private final Map<String, Clasificacion> clasificaciones = new ConcurrentHashMap<>();
+    private final Map<String, String> equipoDeJugador = new ConcurrentHashMap<>();
+    private final AtomicLong generacion = new AtomicLong();
+    private final Counter aciertos;
+    private final Counter fallos;
+
+    //Constructor
+
+    public ClasificacionServicio(MeterRegistry meterRegistry)
+    {
+        this.aciertos = meterRegistry.counter("clubmanager.clasificacion.cache", "resultado", "acierto");
+        this.fallos = meterRegistry.counter("clubmanager.clasificacion.cache", "resultado", "fallo");
+        meterRegistry.gauge("clubmanager.clasificacion.cache.ratio", this, ClasificacionServicio::ratioAciertos);
+    }
+
+    //Métodos principales
+
+    /**
+     * Los primeros jugadores de la clasificación de un equipo.
+     *
+     * @param idEquipo identificador del equipo
+     * @param limite número máximo de jugadores; si es negativo, todos
+     * @return jugadores ordenados por puntos totales de mayor a menor
+     */
+
+    public List<JugadorPuntuacionDTO> primeros(String idEquipo, int limite)
+    {
+        return obtener(idEquipo).primeros(limite);
+    }
+
+    /**
+     * Posición de un jugador en la clasificación de su equipo. Los jugadores empatados a puntos
+     * comparten posición.
+     *
+     * @param idEquipo identificador del equipo
+     * @param idJugador identificador del jugador
+     * @return posición empezando en 1, vacío si el jugador no es del equipo
+     */
+
+    public OptionalInt posicion(String idEquipo, String idJugador)
+    {
+        return obtener(idEquipo).posicion(idJugador);
+    }
+
+    /**
+     * Mueve al jugador a su nuevo puesto una vez confirmada la suma de sus puntos.
+     *
+     * @param evento evento con el nuevo total del jugador
+     */
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alSumarPuntos(PuntosJugadorEvento evento)
+    {
+        generacion.incrementAndGet();
+        String idEquipo = equipoDeJugador.get(evento.getIdJugador());
+        Clasificacion clasificacion = idEquipo == null ? null : clasificaciones.get(idEquipo);
+        if (clasificacion != null)
+        {
+            clasificacion.actualizar(evento.getIdJugador(), evento.getPuntosTotales());
+        }
+    }
+
+    /**
+     * Descarta las clasificaciones afectadas por un cambio de plantilla, una vez confirmado.
+     *
+     * @param evento evento con el equipo y el jugador afectados
+     */
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarPlantilla(PlantillaCambiadaEvento evento)
+    {
+        if (evento.getIdJugador() != null)
+        {
+            String anterior = equipoDeJugador.get(evento.getIdJugador());
+            if (anterior != null)
+            {
+                invalidar(anterior);
+            }
+        }
+        if (evento.getIdEquipo() != null)
+        {
+            invalidar(evento.getIdEquipo());
+        }
+    }
+
+    /**
+     * Descarta la clasificación de un equipo.
+     *
+     * @param idEquipo identificador del equipo
+     */
+
+    public void invalidar(String idEquipo)
+    {
+        generacion.incrementAndGet();
+        Clasificacion descartada = clasificaciones.remove(idEquipo);
+        if (descartada != null)
+        {
+            descartada.jugadores().forEach(id -> equipoDeJugador.remove(id, idEquipo));
+        }
+    }
+
+    /**
+     * Proporción de consultas servidas desde la caché.
+     */
+
+    public double ratioAciertos()
+    {
+        double total = aciertos.count() + fallos.count();
+        return total == 0 ? 0 : aciertos.count() / total;
+    }
+
+    private Clasificacion obtener(String idEquipo)
+    {
+        Clasificacion cacheada = clasificaciones.get(idEquipo);
+        if (cacheada != null && System.nanoTime() - cacheada.cargada() < ttlMs * 1_000_000)
+        {
+            aciertos.increment();
+            return cacheada;
+        }
+        if (cacheada != null)
+        {
+            descartar(idEquipo, cacheada);
+        }
+        fallos.increment();
+
+        // Si se suman puntos o cambia una plantilla mientras se consulta, el resultado puede
+        // estar obsoleto y no se guarda
+        long inicio = generacion.get();
+        Clasificacion cargada = new Clasificacion(jugadorRepo.buscarPuntosPorEquipo(idEquipo));
+        if (generacion.get() != inicio || clasificaciones.size() >= maxEntradas)
+        {
+            return cargada;
+        }
+
+        Clasificacion previa = clasificaciones.putIfAbsent(idEquipo, cargada);
+        if (previa != null)
+        {
+            return previa;
+        }
+        cargada.jugadores().forEach(id -> equipoDeJugador.put(id, idEquipo));
+
+        // Un aviso que llegue entre la comprobación anterior y el guardado no ha visto la entrada
+        if (generacion.get() != inicio)
+        {
+            invalidar(idEquipo);
+        }
+        return cargada;
+    }
+
+    /**
+     * Quita una clasificación caducada si sigue siendo la guardada.
+     */
+
+    private void descartar(String idEquipo, Clasificacion descartada)
+    {
+        if (clasificaciones.remove(idEquipo, descartada))
+        {
+            descartada.jugadores().forEach(id -> equipoDeJugador.remove(id, idEquipo));
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Servicio que mantiene el token OAuth2 de la cuenta de servicio de Firebase.
+ *
+ * La clave {@code service-account.json} se lee una sola vez. El token se guarda en memoria y
+ * se renueva en segundo plano antes de que caduque. Si varios hilos necesitan renovarlo a la
+ * vez, comparten una única petición a Google.
+ *
+ * Cada renovación se registra en {@code clubmanager.fcm.credencial.refresco}, etiquetada
+ * por resultado y por origen (fondo o petición).
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Service
+public class CredencialGoogleServicio {
+
+	//Area de datos
+
+    private static final Logger log = LoggerFactory.getLogger(CredencialGoogleServicio.class);
+
+    private static final List<String> SCOPES = List.of("https://www.googleapis.com/auth/firebase.messaging");
+
+    /** Un token a menos de este tiempo de caducar ya no se entrega y se renueva en el momento. */
+    private static final Duration MARGEN_MINIMO = Duration.ofSeconds(30);
+
+    private final Callable<GoogleCredentials> cargador;
+    private final Duration margenRefresco;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService programador;
+    private final AtomicReference<CompletableFuture<AccessToken>> refrescoEnCurso = new AtomicReference<>();
+
+    private GoogleCredentials credenciales;
+    private ScheduledFuture<?> siguienteRefresco;
+    private volatile AccessToken token;
+
+    //Constructores
+
+    /**
+     * Crea el servicio leyendo la cuenta de servicio del classpath.
+     *
+     * @param margenSegundos antelación con la que se renueva el token antes de caducar
+     * @param meterRegistry registro de métricas
+     */
+
+    @Autowired
+    public CredencialGoogleServicio
+    		(
+    		@Value("${clubmanager.fcm.credencial.margen-segundos:300}") long margenSegundos,
+    		MeterRegistry meterRegistry
+    		)
+    {
+        this(CredencialGoogleServicio::cargarDesdeClasspath, Duration.ofSeconds(margenSegundos), meterRegistry);
+    }
+
+    /**
+     * Crea el servicio con un cargador de credenciales propio.
+     */
+
+    CredencialGoogleServicio(Callable<GoogleCredentials> cargador, Duration margenRefresco, MeterRegistry meterRegistry)
+    {
+        this.cargador = cargador;
+        this.margenRefresco = margenRefresco;
+        this.meterRegistry = meterRegistry;
+        this.programador = Executors.newSingleThreadScheduledExecutor(r ->
+        {
+            Thread t = new Thread(r, "refresco-credencial-fcm");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    //Métodos principales
+
+    /**
+     * Devuelve un token de acceso válido para FCM.
+     * Normalmente se sirve de memoria; solo se contacta con Google si el token
+     * no existe o está a punto de caducar.
+     *
+     * @return valor del token de acceso
+     * @throws Exception si no se puede obtener el token
+     */
+
+    public String obtenerAccessToken() throws Exception
+    {
+        AccessToken actual = token;
+        if (vigente(actual))
+        {
+            return actual.getTokenValue();
+        }
+
+        try
+        {
+            return refrescar(false, "peticion").get().getTokenValue();
+        }
+        catch (ExecutionException e)
+        {
+            throw e.getCause() instanceof Exception causa ? causa : e;
+        }
+    }
+
+    @PreDestroy
+    public void cerrar()
+    {
+        programador.shutdownNow();
+    }
+
+    /**
+     * Renueva el token. Si ya hay una renovación en curso se devuelve esa misma.
+     *
+     * @param forzar renovar aunque el token actual siga vigente
+     * @param origen etiqueta de la métrica: "fondo" o "peticion"
+     */
+
+    CompletableFuture<AccessToken> refrescar(boolean forzar, String origen)
+    {
+        CompletableFuture<AccessToken> nuevo = new CompletableFuture<>();
+        CompletableFuture<AccessToken> existente = refrescoEnCurso.compareAndExchange(null, nuevo);
+        if (existente != null)
+        {
+            return existente;
+        }
+
+        AccessToken actual = token;
+        if (!forzar && vigente(actual))
+        {
+            refrescoEnCurso.set(null);
+            nuevo.complete(actual);
+            return nuevo;
+        }
+
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        String resultado = "error";
+        try
+        {
+            if (credenciales == null)
+            {
+                credenciales = cargador.call();
+            }
+            AccessToken renovado = credenciales.refreshAccessToken();
+            token = renovado;
+            programarRefresco(renovado);
+            resultado = "ok";
+            nuevo.complete(renovado);
+        }
+        catch (Exception e)
+        {
+            nuevo.completeExceptionally(e);
+        }
+        finally
+        {
+            refrescoEnCurso.set(null);
+            muestra.stop(Timer.builder("clubmanager.fcm.credencial.refresco")
+                    .tag("resultado", resultado)
+                    .tag("origen", origen)
+                    .register(meterRegistry));
+        }
+        return nuevo;
+    }
+
+    /**
+     * Programa la siguiente renovación en segundo plano antes de que el token caduque.
+     */
+
+    private synchronized void programarRefresco(AccessToken renovado)
+    {
+        if (renovado.getExpirationTime() == null || programador.isShutdown())
+        {
+            return;
+        }
+        if (siguienteRefresco != null)
+        {
+            siguienteRefresco.cancel(false);
+        }
+
+        long espera = renovado.getExpirationTime().getTime() - margenRefresco.toMillis() - System.currentTimeMillis();
+        siguienteRefresco = programador.schedule(() ->
+        {
+            refrescar(true, "fondo").exceptionally(e ->
+            {
+                log.warn("No se pudo renovar el token de FCM: {}", e.getMessage());
+                return null;
+            });
+        }, Math.max(espera, 0), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Indica si el token existe y no está a punto de caducar.
+     */
+
+    private static boolean vigente(AccessToken accessToken)
+    {
+        return accessToken != null
+                && (accessToken.getExpirationTime() == null
+                    || accessToken.getExpirationTime().toInstant().isAfter(Instant.now().plus(MARGEN_MINIMO)));
+    }
+
+    /**
+     * Lee la cuenta de servicio de Firebase del classpath.
+     */
+
+    private static GoogleCredentials cargarDesdeClasspath() throws Exception
+    {
+        try (InputStream serviceAccount = CredencialGoogleServicio.class.getClassLoader()
+                .getResourceAsStream("service-account.json"))
+        {
+            if (serviceAccount == null)
+            {
+                throw new FileNotFoundException("No se encontró service-account.json en el classpath");
+            }
+            return GoogleCredentials.fromStream(serviceAccount).createScoped(SCOPES);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.util.List;
+
+import com.clubManager.baseDatosClub.entidades.Credencial;
+
+/**
+ * Interfaz de servicio para gestionar el índice de credenciales usado en el login.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+public interface CredencialServicio {
+
+    /**
+     * Busca las credenciales de un identificador con una única consulta.
+     * El resultado se ordena por prioridad: entrenador, jugador y padre.
+     *
+     * @param identificador identificador introducido en el login
+     * @return lista de credenciales, vacía si no existe ninguna
+     */
+
+    List<Credencial> buscarPorIdentificador(String identificador);
+
+    /**
+     * Crea o actualiza la credencial de un usuario.
+     *
+     * @param identificador identificador del usuario
+     * @param tipoUsuario tipo de usuario (ver constantes de {@link Credencial})
+     * @param password contraseña del usuario
+     * @param idEquipo equipo del usuario, puede ser nulo
+     */
+
+    void registrar(String identificador, String tipoUsuario, String password, String idEquipo);
+
+    /**
+     * Actualiza el equipo asociado a la credencial de un usuario, si existe.
+     *
+     * @param identificador identificador del usuario
+     * @param tipoUsuario tipo de usuario
+     * @param idEquipo nuevo equipo
+     */
+
+    void actualizarEquipo(String identificador, String tipoUsuario, String idEquipo);
+
+    /**
+     * Sustituye la contraseña guardada de un usuario, tanto en su credencial como en
+     * la tabla de su tipo de usuario.
+     *
+     * @param identificador identificador del usuario
+     * @param tipoUsuario tipo de usuario
+     * @param password nuevo hash de la contraseña
+     */
+
+    void actualizarPassword(String identificador, String tipoUsuario, String password);
+
+    /**
+     * Guarda el nuevo hash de una contraseña migrada tras un login correcto, solo si la
+     * contraseña guardada sigue siendo la que se verificó. Si el usuario la ha cambiado
+     * mientras se calculaba el hash, no se toca.
+     *
+     * @param identificador identificador del usuario
+     * @param tipoUsuario tipo de usuario
+     * @param anterior hash o contraseña que se verificó en el login
+     * @param password nuevo hash de la misma contraseña
+     * @return true si se guardó, false si la contraseña ya había cambiado
+     */
+
+    boolean rehashearPassword(String identificador, String tipoUsuario, String anterior, String password);
+
+    /**
+     * Elimina la credencial de un usuario.
+     *
+     * @param identificador identificador del usuario
+     * @param tipoUsuario tipo de usuario
+     */
+
+    void eliminar(String identificador, String tipoUsuario);
+
+    /**
+     * Elimina las credenciales de todos los jugadores de un equipo.
+     *
+     * @param idEquipo identificador del equipo
+     */
+
+    void eliminarJugadoresDeEquipo(String idEquipo);
+
+    /**
+     * Crea las credenciales de los usuarios existentes que aún no están indexados.
+     *
+     * @return número de credenciales creadas
+     */
+
+    int indexarUsuariosPendientes();
+}
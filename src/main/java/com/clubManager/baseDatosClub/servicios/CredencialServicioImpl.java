@@ -0,0 +1,182 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.clubManager.baseDatosClub.entidades.Credencial;
+import com.clubManager.baseDatosClub.repositorios.CredencialRepositorio;
+import com.clubManager.baseDatosClub.repositorios.EntrenadorRepositorio;
+import com.clubManager.baseDatosClub.repositorios.JugadorRepositorio;
+import com.clubManager.baseDatosClub.repositorios.PadreRepositorio;
+
+import jakarta.transaction.Transactional;
+
+/**
+ * Implementación del servicio {@link CredencialServicio}.
+ *
+ * Al arrancar la aplicación indexa los usuarios que existieran antes de crear la tabla
+ * {@code credencial}; a partir de ahí los servicios de usuarios la mantienen al día.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Service
+public class CredencialServicioImpl implements CredencialServicio {
+
+	//Area de datos
+
+    @Autowired
+    private CredencialRepositorio credencialRepositorio;
+
+    @Autowired
+    private EntrenadorRepositorio entrenadorRepositorio;
+
+    @Autowired
+    private JugadorRepositorio jugadorRepositorio;
+
+    @Autowired
+    private PadreRepositorio padreRepositorio;
+
+    private static final List<String> PRIORIDAD = List.of
+    		(
+    		Credencial.TIPO_ENTRENADOR,
+    		Credencial.TIPO_JUGADOR,
+    		Credencial.TIPO_PADRE
+    		);
+
+    //Métodos principales
+
+    /**
+     * {@inheritDoc}
+     */
+
+    @Override
+    public List<Credencial> buscarPorIdentificador(String identificador)
+    {
+        if (identificador == null)
+        {
+            return List.of();
+        }
+
+        return credencialRepositorio.findByIdentificador(identificador).stream()
+                .sorted(Comparator.comparingInt(c -> PRIORIDAD.indexOf(c.getTipoUsuario())))
+                .toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    @Override
+    @Transactional
+    public void registrar(String identificador, String tipoUsuario, String password, String idEquipo)
+    {
+        Credencial credencial = credencialRepositorio.findByIdentificadorAndTipoUsuario(identificador, tipoUsuario)
+                .orElseGet(() -> new Credencial(identificador, tipoUsuario, password, idEquipo));
+
+        credencial.setPassword(password);
+        credencial.setIdEquipo(idEquipo);
+        credencialRepositorio.save(credencial);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    @Override
+    @Transactional
+    public void actualizarEquipo(String identificador, String tipoUsuario, String idEquipo)
+    {
+        credencialRepositorio.findByIdentificadorAndTipoUsuario(identificador, tipoUsuario)
+                .ifPresent(c ->
+                {
+                    c.setIdEquipo(idEquipo);
+                    credencialRepositorio.save(c);
+                });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    @Override
+    @Transactional
+    public void actualizarPassword(String identificador, String tipoUsuario, String password)
+    {
+        switch (tipoUsuario)
+        {
+            case Credencial.TIPO_ENTRENADOR -> entrenadorRepositorio.actualizarPassword(identificador, password);
+            case Credencial.TIPO_JUGADOR -> jugadorRepositorio.actualizarPassword(identificador, password);
+            case Credencial.TIPO_PADRE -> padreRepositorio.actualizarPassword(identificador, password);
+            default -> throw new IllegalArgumentException("Tipo de usuario no válido: " + tipoUsuario);
+        }
+        credencialRepositorio.actualizarPassword(identificador, tipoUsuario, password);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    @Override
+    @Transactional
+    public boolean rehashearPassword(String identificador, String tipoUsuario, String anterior, String password)
+    {
+        int filas = switch (tipoUsuario)
+        {
+            case Credencial.TIPO_ENTRENADOR -> entrenadorRepositorio.reemplazarPassword(identificador, anterior, password);
+            case Credencial.TIPO_JUGADOR -> jugadorRepositorio.reemplazarPassword(identificador, anterior, password);
+            case Credencial.TIPO_PADRE -> padreRepositorio.reemplazarPassword(identificador, anterior, password);
+            default -> throw new IllegalArgumentException("Tipo de usuario no válido: " + tipoUsuario);
+        };
+        // Si la tabla del usuario ya tiene otra contraseña, la credencial se actualizó con ella
+        return filas == 1
+                && credencialRepositorio.reemplazarPassword(identificador, tipoUsuario, anterior, password) == 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    @Override
+    public void eliminar(String identificador, String tipoUsuario)
+    {
+        credencialRepositorio.eliminarPorIdentificadorYTipo(identificador, tipoUsuario);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    @Override
+    public void eliminarJugadoresDeEquipo(String idEquipo)
+    {
+        credencialRepositorio.eliminarPorEquipoYTipo(idEquipo, Credencial.TIPO_JUGADOR);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+
+    @Override
+    public int indexarUsuariosPendientes()
+    {
+        return credencialRepositorio.indexarEntrenadoresPendientes()
+                + credencialRepositorio.indexarJugadoresPendientes()
+                + credencialRepositorio.indexarPadresPendientes();
+    }
+
+    /**
+     * Completa el índice con los usuarios ya existentes al arrancar la aplicación.
+     */
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexarAlArrancar()
+    {
+        indexarUsuariosPendientes();
+    }
+}
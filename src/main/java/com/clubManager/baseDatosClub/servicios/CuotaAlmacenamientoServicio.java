@@ -0,0 +1,313 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.clubManager.baseDatosClub.dto.UsoAlmacenamientoDTO;
+import com.clubManager.baseDatosClub.entidades.UsoAlmacenamiento;
+import com.clubManager.baseDatosClub.repositorios.UsoAlmacenamientoRepositorio;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Servicio que lleva la cuenta de los bytes que ocupa cada equipo y aplica su cuota.
+ *
+ * El uso se guarda en {@link UsoAlmacenamiento} y se actualiza de forma incremental: antes de
+ * escribir una subida se reservan los bytes previstos con un UPDATE que comprueba la cuota en la
+ * misma sentencia, y al borrar un documento se devuelve su tamaño. Así la cuota se aplica antes
+ * de tocar el disco y el uso de un equipo se consulta leyendo una fila, sin recorrer archivos.
+ * El contador de un equipo se crea la primera vez que hace falta, a partir de los documentos que
+ * ya tiene.
+ *
+ * Una pasada programada compara cada contador con la suma de los tamaños de la galería y corrige
+ * las desviaciones, por ejemplo las que deja un proceso que cae con una reserva a medias. Las
+ * reservas abiertas en otros nodos no se ven desde aquí, así que tampoco se corrigen los contadores
+ * que han cambiado en los últimos {@code clubmanager.almacen.cuota.reconciliacion-reposo-minutos},
+ * que debe superar lo que tarda la subida más larga. Tampoco los equipos con subidas en curso en
+ * este nodo ni los contadores que cambian durante la pasada; quedan para la siguiente.
+ *
+ * Las subidas rechazadas por la cuota se cuentan en {@code clubmanager.almacen.cuota.rechazadas}
+ * y los bytes corregidos en {@code clubmanager.almacen.cuota.desvio}.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Service
+public class CuotaAlmacenamientoServicio {
+
+	//Area de datos
+
+    private static final Logger log = LoggerFactory.getLogger(CuotaAlmacenamientoServicio.class);
+
+    @Autowired
+    private UsoAlmacenamientoRepositorio usoRepo;
+
+    @Value("${clubmanager.almacen.cuota.bytes-por-equipo:0}")
+    private long cuota;
+
+    @Value("${clubmanager.almacen.cuota.reconciliacion-reposo-minutos:60}")
+    private long minutosReposo = 60;
+
+    private final Map<String, AtomicLong> enCurso = new ConcurrentHashMap<>();
+    private final Counter rechazadas;
+    private final DistributionSummary desvio;
+
+    //Constructor
+
+    public CuotaAlmacenamientoServicio(MeterRegistry meterRegistry)
+    {
+        this.rechazadas = meterRegistry.counter("clubmanager.almacen.cuota.rechazadas");
+        this.desvio = DistributionSummary.builder("clubmanager.almacen.cuota.desvio")
+                .description("Bytes corregidos en el uso de un equipo al reconciliarlo con la galería")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    //Métodos principales
+
+    /**
+     * Reserva espacio para una subida del equipo. La reserva se confirma cuando el documento queda
+     * guardado; si se cierra sin confirmar, los bytes se devuelven.
+     *
+     * @param idEquipo identificador del equipo
+     * @param bytes bytes que se van a escribir como máximo
+     * @return reserva, que debe cerrarse al terminar la subida
+     * @throws ResponseStatusException 507 si se superaría la cuota, 404 si el equipo no existe
+     */
+
+    public Reserva reservar(String idEquipo, long bytes)
+    {
+        long reservados = Math.max(0, bytes);
+        long limite = cuota <= 0 ? Long.MAX_VALUE : cuota;
+
+        AtomicLong pendientes = enCurso.computeIfAbsent(idEquipo, k -> new AtomicLong());
+        pendientes.addAndGet(reservados);
+        boolean hecha = false;
+        try
+        {
+            hecha = usoRepo.reservar(idEquipo, reservados, limite, LocalDateTime.now()) == 1;
+            if (!hecha && !usoRepo.existsById(idEquipo))
+            {
+                if (!crearContador(idEquipo))
+                {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Equipo no encontrado");
+                }
+                hecha = usoRepo.reservar(idEquipo, reservados, limite, LocalDateTime.now()) == 1;
+            }
+        }
+        finally
+        {
+            if (!hecha)
+            {
+                pendientes.addAndGet(-reservados);
+            }
+        }
+
+        if (!hecha)
+        {
+            rechazadas.increment();
+            throw new ResponseStatusException(HttpStatus.INSUFFICIENT_STORAGE,
+                    "El equipo ha alcanzado su cuota de " + cuota + " bytes");
+        }
+        return new Reserva(idEquipo, reservados, pendientes);
+    }
+
+    /**
+     * Descuenta del uso del equipo los bytes de documentos borrados.
+     *
+     * @param idEquipo identificador del equipo
+     * @param bytes bytes liberados
+     */
+
+    public void devolver(String idEquipo, long bytes)
+    {
+        if (bytes > 0)
+        {
+            usoRepo.sumar(idEquipo, -bytes, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Uso de almacenamiento de un equipo.
+     *
+     * @param idEquipo identificador del equipo
+     * @return bytes usados, cuota y bytes disponibles
+     * @throws ResponseStatusException 404 si el equipo no existe
+     */
+
+    public UsoAlmacenamientoDTO consultar(String idEquipo)
+    {
+        UsoAlmacenamiento uso = usoRepo.findById(idEquipo)
+                .or(() -> crearContador(idEquipo) ? usoRepo.findById(idEquipo) : Optional.empty())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Equipo no encontrado"));
+        return new UsoAlmacenamientoDTO(uso.getIdEquipo(), uso.getBytes(), cuota);
+    }
+
+    /**
+     * Uso de almacenamiento de los equipos que tienen contador.
+     *
+     * @return uso de cada equipo
+     */
+
+    public List<UsoAlmacenamientoDTO> listar()
+    {
+        return usoRepo.findAll().stream()
+                .map(u -> new UsoAlmacenamientoDTO(u.getIdEquipo(), u.getBytes(), cuota))
+                .toList();
+    }
+
+    /**
+     * Pasada programada de la reconciliación.
+     */
+
+    @Scheduled(cron = "${clubmanager.almacen.cuota.reconciliacion-cron:0 0 5 * * *}")
+    public void reconciliacionProgramada()
+    {
+        reconciliar();
+    }
+
+    /**
+     * Corrige los contadores que no coinciden con la suma de los tamaños de la galería, crea los
+     * que faltan y elimina los de equipos que ya no existen.
+     *
+     * @return número de contadores corregidos
+     */
+
+    public int reconciliar()
+    {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(minutosReposo);
+        Map<String, Long> leidos = new HashMap<>();
+        usoRepo.findAll().forEach(u -> leidos.put(u.getIdEquipo(), u.getBytes()));
+
+        // Se toman después de leer los contadores y antes de sumar la galería: una subida que
+        // empieza más tarde cambia el contador y la corrección no se aplica
+        Set<String> ocupados = new HashSet<>();
+        for (Map.Entry<String, AtomicLong> pendientes : enCurso.entrySet())
+        {
+            if (pendientes.getValue().get() != 0)
+            {
+                ocupados.add(pendientes.getKey());
+            }
+        }
+
+        Map<String, Long> reales = new HashMap<>();
+        for (Object[] fila : usoRepo.sumarTamanoPorEquipo())
+        {
+            reales.put((String) fila[0], ((Number) fila[1]).longValue());
+        }
+
+        int corregidos = 0;
+        for (Map.Entry<String, Long> contador : leidos.entrySet())
+        {
+            String idEquipo = contador.getKey();
+            long leido = contador.getValue();
+            long real = reales.getOrDefault(idEquipo, 0L);
+            if (real != leido && !ocupados.contains(idEquipo) && usoRepo.corregir(idEquipo, leido, real, limite) == 1)
+            {
+                log.warn("Uso de almacenamiento del equipo {} corregido de {} a {} bytes", idEquipo, leido, real);
+                desvio.record(Math.abs(real - leido));
+                corregidos++;
+            }
+        }
+
+        reales.keySet().stream()
+                .filter(id -> !leidos.containsKey(id))
+                .forEach(this::crearContador);
+        int eliminados = usoRepo.eliminarSinEquipo();
+
+        log.info("Reconciliación del uso de almacenamiento: {} contadores corregidos, {} eliminados", corregidos, eliminados);
+        return corregidos;
+    }
+
+    /**
+     * Crea el contador del equipo con los bytes de los documentos que ya tiene.
+     *
+     * @return true si el contador existe al terminar, false si el equipo no existe
+     */
+
+    private boolean crearContador(String idEquipo)
+    {
+        try
+        {
+            return usoRepo.crear(idEquipo) == 1 || usoRepo.existsById(idEquipo);
+        }
+        catch (DataIntegrityViolationException e)
+        {
+            // Lo ha creado otra subida a la vez
+            return true;
+        }
+    }
+
+    /**
+     * Espacio reservado para una subida en curso.
+     */
+
+    public final class Reserva implements AutoCloseable {
+
+        private final String idEquipo;
+        private final AtomicLong pendientes;
+        private long bytes;
+        private boolean confirmada;
+
+        private Reserva(String idEquipo, long bytes, AtomicLong pendientes)
+        {
+            this.idEquipo = idEquipo;
+            this.bytes = bytes;
+            this.pendientes = pendientes;
+        }
+
+        /**
+         * Devuelve la parte de la reserva que la subida no ha llegado a usar.
+         *
+         * @param usados bytes escritos realmente
+         */
+
+        public void ajustar(long usados)
+        {
+            if (usados < bytes)
+            {
+                usoRepo.sumar(idEquipo, usados - bytes, LocalDateTime.now());
+                pendientes.addAndGet(usados - bytes);
+                bytes = usados;
+            }
+        }
+
+        /**
+         * Da la reserva por usada: el documento ya está guardado y cuenta en el uso del equipo.
+         */
+
+        public void confirmar()
+        {
+            confirmada = true;
+        }
+
+        @Override
+        public void close()
+        {
+            pendientes.addAndGet(-bytes);
+            if (!confirmada)
+            {
+                devolver(idEquipo, bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.clubManager.baseDatosClub.entidades.EnvioPush;
+import com.clubManager.baseDatosClub.repositorios.EnvioPushRepositorio;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Servicio que vacía la bandeja de salida de notificaciones push ({@link EnvioPush}).
+ *
+ * Periódicamente reclama un lote de envíos pendientes y los entrega a {@link EnvioPushServicio}.
+ * Según la respuesta de FCM, cada envío se marca como enviado, se reprograma con espera
+ * exponencial o pasa a fallido cuando el error es definitivo o se agotan los intentos.
+ *
+ * Los tokens que FCM declara inválidos se pasan a {@link PodaTokensFcmServicio}.
+ * Los resultados se contabilizan en {@code clubmanager.push.despacho}, etiquetados por resultado.
+ *
+ * Los envíos enviados o fallidos se borran por lotes al vencer su retención, y los borrados se
+ * contabilizan en {@code clubmanager.push.purgados}.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Service
+public class DespachoPushServicio {
+
+	//Area de datos
+
+    private static final Logger log = LoggerFactory.getLogger(DespachoPushServicio.class);
+
+    @Autowired
+    private EnvioPushRepositorio envioPushRepo;
+
+    @Autowired
+    private EnvioPushServicio envioPush;
+
+    @Autowired
+    private CredencialGoogleServicio credencialGoogle;
+
+    @Autowired
+    private PodaTokensFcmServicio podaTokens;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${clubmanager.fcm.outbox.lote:100}")
+    private int lote;
+
+    @Value("${clubmanager.fcm.outbox.max-intentos:8}")
+    private int maxIntentos;
+
+    @Value("${clubmanager.fcm.outbox.espera-inicial-ms:2000}")
+    private long esperaInicialMs;
+
+    @Value("${clubmanager.fcm.outbox.espera-maxima-ms:3600000}")
+    private long esperaMaximaMs;
+
+    @Value("${clubmanager.fcm.outbox.reclamo-ms:300000}")
+    private long reclamoMs;
+
+    @Value("${clubmanager.fcm.outbox.retencion-dias:7}")
+    private long retencionDias;
+
+    @Value("${clubmanager.fcm.outbox.purga-lote:1000}")
+    private int purgaLote;
+
+    //Métodos principales
+
+    /**
+     * Reclama un lote de envíos pendientes y los encola para su entrega.
+     * Nunca reclama más envíos de los que caben en la cola, y el reclamo dura lo suficiente
+     * para que un envío encolado se resuelva antes de que otra instancia pueda reclamarlo.
+     *
+     * @return número de envíos reclamados
+     */
+
+    @Scheduled
+    (
+        fixedDelayString = "${clubmanager.fcm.outbox.intervalo-ms:1000}",
+        initialDelayString = "${clubmanager.fcm.outbox.intervalo-ms:1000}"
+    )
+    public int procesarPendientes()
+    {
+        int tamano = Math.min(lote, envioPush.capacidadLibre());
+        if (tamano <= 0)
+        {
+            return 0;
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Long> candidatos = envioPushRepo.buscarCandidatos(ahora, PageRequest.of(0, tamano));
+        if (candidatos.isEmpty())
+        {
+            return 0;
+        }
+
+        String reclamo = UUID.randomUUID().toString();
+        if (envioPushRepo.reclamar(candidatos, reclamo, ahora.plus(Duration.ofMillis(reclamoMs)), ahora) == 0)
+        {
+            return 0;
+        }
+
+        List<EnvioPush> envios = envioPushRepo.findByReclamadoPor(reclamo);
+        for (EnvioPush envio : envios)
+        {
+            envioPush.encolar(envio.getPayload(), credencialGoogle::obtenerAccessToken)
+                    .whenComplete((respuesta, error) -> registrarResultado(envio, reclamo, respuesta, error));
+        }
+        return envios.size();
+    }
+
+    /**
+     * Borra los envíos enviados o fallidos más antiguos que la retención, un lote cada vez
+     * para no bloquear la tabla con un único DELETE grande.
+     *
+     * @return número de envíos borrados
+     */
+
+    @Scheduled(cron = "${clubmanager.fcm.outbox.purga-cron:0 15 4 * * *}")
+    public int purgarTerminados()
+    {
+        LocalDateTime limite = LocalDateTime.now().minusDays(retencionDias);
+        int total = 0;
+        List<Long> ids;
+        do
+        {
+            ids = envioPushRepo.buscarTerminadosAntesDe(limite, PageRequest.of(0, purgaLote));
+            if (!ids.isEmpty())
+            {
+                total += envioPushRepo.borrarTerminados(ids);
+            }
+        }
+        while (ids.size() == purgaLote);
+
+        meterRegistry.counter("clubmanager.push.purgados").increment(total);
+        if (total > 0)
+        {
+            log.info("Purgados {} envíos push terminados antes de {}", total, limite);
+        }
+        return total;
+    }
+
+    /**
+     * Actualiza el envío según el resultado obtenido.
+     */
+
+    private void registrarResultado(EnvioPush envio, String reclamo, HttpResponse<String> respuesta, Throwable error)
+    {
+        try
+        {
+            Throwable causa = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+
+            if (causa instanceof RejectedExecutionException)
+            {
+                envioPushRepo.reprogramar(envio.getIdEnvio(), reclamo, envio.getIntentos(),
+                        LocalDateTime.now(), envio.getUltimoError());
+                contar("aplazado");
+                return;
+            }
+
+            if (causa == null && respuesta.statusCode() / 100 == 2)
+            {
+                envioPushRepo.marcarEnviado(envio.getIdEnvio(), reclamo);
+                contar("enviado");
+                return;
+            }
+
+            if (causa == null && PodaTokensFcmServicio.esTokenInvalido(respuesta.statusCode(), respuesta.body()))
+            {
+                podaTokens.registrarTokenInvalido(envio.getToken());
+            }
+
+            int intentos = envio.getIntentos() + 1;
+            String mensajeError = causa != null
+                    ? causa.getClass().getSimpleName() + ": " + causa.getMessage()
+                    : respuesta.statusCode() + " " + respuesta.body();
+            mensajeError = mensajeError.length() > 500 ? mensajeError.substring(0, 500) : mensajeError;
+
+            if ((causa == null && esErrorDefinitivo(respuesta.statusCode())) || intentos >= maxIntentos)
+            {
+                envioPushRepo.marcarFallido(envio.getIdEnvio(), reclamo, intentos, mensajeError);
+                contar("fallido");
+                return;
+            }
+
+            envioPushRepo.reprogramar(envio.getIdEnvio(), reclamo, intentos,
+                    LocalDateTime.now().plus(calcularEspera(intentos)), mensajeError);
+            contar("reintento");
+        }
+        catch (Exception e)
+        {
+            log.warn("No se pudo actualizar el envío push {}: {}", envio.getIdEnvio(), e.getMessage());
+        }
+    }
+
+    /**
+     * Errores de FCM que no se resuelven reintentando: petición inválida, token no registrado
+     * o proyecto no autorizado. Los 401, 429 y 5xx se consideran transitorios.
+     */
+
+    private static boolean esErrorDefinitivo(int estado)
+    {
+        return estado == 400 || estado == 403 || estado == 404;
+    }
+
+    /**
+     * Espera exponencial con un 20 % de variación aleatoria, limitada a la espera máxima.
+     */
+
+    private Duration calcularEspera(int intentos)
+    {
+        long base = esperaInicialMs << Math.min(intentos - 1, 30);
+        long espera = Math.min(base > 0 ? base : Long.MAX_VALUE, esperaMaximaMs);
+        long variacion = (long) (espera * 0.2 * ThreadLocalRandom.current().nextDouble());
+        return Duration.ofMillis(espera - variacion);
+    }
+
+    private void contar(String resultado)
+    {
+        meterRegistry.counter("clubmanager.push.despacho", "resultado", resultado).increment();
+    }
+}
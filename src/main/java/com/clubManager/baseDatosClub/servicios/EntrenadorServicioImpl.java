@@ -6,9 +6,12 @@ import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.clubManager.baseDatosClub.entidades.Credencial;
 import com.clubManager.baseDatosClub.entidades.Entrenador;
 import com.clubManager.baseDatosClub.repositorios.EntrenadorRepositorio;
+import com.clubManager.baseDatosClub.seguridad.PasswordServicio;
 
 import jakarta.transaction.Transactional;
 
@@ -28,6 +31,20 @@ public class EntrenadorServicioImpl implements EntrenadorServicio {
     @Autowired
     private EntrenadorRepositorio entrenadorRepositorio;
 
+    @Autowired
+    private CredencialServicio credencialServicio;
+
+    @Autowired
+    private PasswordServicio passwordServicio;
+
+    /**
+     * Las altas y modificaciones abren la transacción a mano para que el hash BCrypt de la
+     * contraseña se calcule antes y no retenga una conexión del pool mientras tanto.
+     */
+
+    @Autowired
+    private TransactionTemplate transaccion;
+
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,}$");
     private static final Pattern DNI_PATTERN = Pattern.compile("^[0-9]{8}[A-Za-z]$");
     private static final Pattern TELEFONO_PATTERN = Pattern.compile("^\\+?[0-9]{7,15}$");
@@ -89,12 +106,18 @@ public class EntrenadorServicioImpl implements EntrenadorServicio {
         }
 
         validarEntrenador(entrenador);
+        entrenador.setPassword(passwordServicio.hashear(entrenador.getPassword()));
 
-        if (entrenadorRepositorio.existsByDni(entrenador.getDni())) 
+        transaccion.executeWithoutResult(estado ->
         {
-            throw new IllegalArgumentException("Ya existe un entrenador con ese DNI.");
-        }
-        entrenadorRepositorio.save(entrenador);
+            if (entrenadorRepositorio.existsByDni(entrenador.getDni())) 
+            {
+                throw new IllegalArgumentException("Ya existe un entrenador con ese DNI.");
+            }
+            entrenadorRepositorio.save(entrenador);
+            credencialServicio.registrar(entrenador.getIdEntrenador(), Credencial.TIPO_ENTRENADOR,
+            		entrenador.getPassword(), null);
+        });
     }
 
     /** 
@@ -102,7 +125,6 @@ public class EntrenadorServicioImpl implements EntrenadorServicio {
      */
     
     @Override
-    @Transactional
     public void modificarEntrenador
     				(String idEntrenador, String nombre, String apellidos, String dni, String direccion,
                      String tipoUsuario, String password, String foto, String telefono, String email) 
@@ -126,7 +148,6 @@ public class EntrenadorServicioImpl implements EntrenadorServicio {
      */
     
     @Override
-    @Transactional
     public void modificarEntrenador(Entrenador entrenadorActualizado) 
     {
         if (entrenadorActualizado == null || entrenadorActualizado.getIdEntrenador() == null) 
@@ -135,26 +156,33 @@ public class EntrenadorServicioImpl implements EntrenadorServicio {
         }
 
         validarEntrenador(entrenadorActualizado);
+        String password = passwordServicio.hashear(entrenadorActualizado.getPassword());
 
-        Entrenador existente = entrenadorRepositorio.findById(entrenadorActualizado.getIdEntrenador())
-                .orElseThrow(() -> new IllegalArgumentException("No se encontró entrenador con ID: " 
-                + entrenadorActualizado.getIdEntrenador()));
-
-        if (!existente.getDni().equals(entrenadorActualizado.getDni()) &&
-            entrenadorRepositorio.existsByDni(entrenadorActualizado.getDni())) 
+        transaccion.executeWithoutResult(estado ->
         {
-            throw new IllegalArgumentException("Ya existe un entrenador con ese DNI.");
-        }
+            Entrenador existente = entrenadorRepositorio.findById(entrenadorActualizado.getIdEntrenador())
+                    .orElseThrow(() -> new IllegalArgumentException("No se encontró entrenador con ID: " 
+                    + entrenadorActualizado.getIdEntrenador()));
+
+            if (!existente.getDni().equals(entrenadorActualizado.getDni()) &&
+                entrenadorRepositorio.existsByDni(entrenadorActualizado.getDni())) 
+            {
+                throw new IllegalArgumentException("Ya existe un entrenador con ese DNI.");
+            }
 
-        existente.setNombre(entrenadorActualizado.getNombre());
-        existente.setApellidos(entrenadorActualizado.getApellidos());
-        existente.setDni(entrenadorActualizado.getDni());
-        existente.setDireccion(entrenadorActualizado.getDireccion());
-        existente.setTipoUsuario(entrenadorActualizado.getTipoUsuario());
-        existente.setPassword(entrenadorActualizado.getPassword());
-        existente.setFoto(entrenadorActualizado.getFoto());
-        existente.setTelefono(entrenadorActualizado.getTelefono());
-        existente.setEmail(entrenadorActualizado.getEmail());
+            existente.setNombre(entrenadorActualizado.getNombre());
+            existente.setApellidos(entrenadorActualizado.getApellidos());
+            existente.setDni(entrenadorActualizado.getDni());
+            existente.setDireccion(entrenadorActualizado.getDireccion());
+            existente.setTipoUsuario(entrenadorActualizado.getTipoUsuario());
+            existente.setPassword(password);
+            existente.setFoto(entrenadorActualizado.getFoto());
+            existente.setTelefono(entrenadorActualizado.getTelefono());
+            existente.setEmail(entrenadorActualizado.getEmail());
+
+            credencialServicio.registrar(existente.getIdEntrenador(), Credencial.TIPO_ENTRENADOR,
+            		existente.getPassword(), null);
+        });
     }
 
     /** 
@@ -162,9 +190,11 @@ public class EntrenadorServicioImpl implements EntrenadorServicio {
      */
     
     @Override
+    @Transactional
     public void eliminarEntrenador(String idEntrenador) 
     {
         entrenadorRepositorio.deleteById(idEntrenador);
+        credencialServicio.eliminar(idEntrenador, Credencial.TIPO_ENTRENADOR);
     }
 
     /** 
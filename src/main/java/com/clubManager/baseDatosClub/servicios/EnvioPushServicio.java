@@ -0,0 +1,180 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Servicio que entrega los mensajes push a Firebase Cloud Messaging (FCM) en segundo plano.
+ *
+ * Cada mensaje se envía desde un pool de hilos propio con concurrencia configurable y una cola
+ * acotada, de forma que quien lo encola no espera a FCM. Si la cola está llena el mensaje se
+ * rechaza y se contabiliza en {@code clubmanager.push.rechazados}.
+ *
+ * La URL de FCM es configurable para poder apuntar a un servidor de pruebas.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Service
+public class EnvioPushServicio {
+
+	//Area de datos
+
+    private final URI fcmUri;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Counter rechazados;
+
+    //Constructor
+
+    /**
+     * Crea el servicio y su pool de envío.
+     *
+     * @param fcmUrl URL del endpoint {@code messages:send} de FCM
+     * @param hilos número de envíos simultáneos
+     * @param colaMax número máximo de mensajes en espera
+     * @param timeoutMs tiempo máximo de conexión y de respuesta de cada envío
+     * @param meterRegistry registro de métricas
+     */
+
+    public EnvioPushServicio
+    		(
+    		@Value("${clubmanager.fcm.url:https://fcm.googleapis.com/v1/projects/clubmanager-1268f/messages:send}") String fcmUrl,
+    		@Value("${clubmanager.fcm.hilos:8}") int hilos,
+    		@Value("${clubmanager.fcm.cola-max:1000}") int colaMax,
+    		@Value("${clubmanager.fcm.timeout-ms:10000}") long timeoutMs,
+    		MeterRegistry meterRegistry
+    		)
+    {
+        AtomicInteger contador = new AtomicInteger();
+
+        this.fcmUri = URI.create(fcmUrl);
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.meterRegistry = meterRegistry;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(colaMax),
+                r ->
+                {
+                    Thread t = new Thread(r, "envio-push-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.rechazados = Counter.builder("clubmanager.push.rechazados")
+                .description("Mensajes push rechazados por tener la cola llena")
+                .register(meterRegistry);
+        meterRegistry.gauge("clubmanager.push.cola", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("clubmanager.push.activos", executor, ThreadPoolExecutor::getActiveCount);
+    }
+
+    //Métodos principales
+
+    /**
+     * Encola el envío de un mensaje a FCM.
+     *
+     * @param payload cuerpo JSON del mensaje
+     * @param accessToken proveedor del token OAuth2, se invoca en el hilo de envío
+     * @return futuro con la respuesta de FCM; falla con {@link RejectedExecutionException}
+     *         si la cola estaba llena, o con la excepción producida al enviar
+     */
+
+    public CompletableFuture<HttpResponse<String>> encolar(String payload, Callable<String> accessToken)
+    {
+        CompletableFuture<HttpResponse<String>> futuro = new CompletableFuture<>();
+        try
+        {
+            executor.execute(() -> enviar(payload, accessToken, futuro));
+        }
+        catch (RejectedExecutionException e)
+        {
+            rechazados.increment();
+            futuro.completeExceptionally(e);
+        }
+        return futuro;
+    }
+
+    /**
+     * Realiza el envío HTTP de un mensaje y registra su duración
+     * en {@code clubmanager.push.envio}, etiquetada por resultado.
+     */
+
+    private void enviar(String payload, Callable<String> accessToken, CompletableFuture<HttpResponse<String>> futuro)
+    {
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        String resultado = "error";
+
+        try
+        {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(fcmUri)
+                    .timeout(timeout)
+                    .header("Authorization", "Bearer " + accessToken.call())
+                    .header("Content-Type", "application/json; charset=UTF-8")
+                    .POST(HttpRequest.BodyPublishers.ofString(payload))
+                    .build();
+
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+            if (response.statusCode() / 100 == 2)
+            {
+                resultado = "ok";
+            }
+            futuro.complete(response);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            futuro.completeExceptionally(e);
+        }
+        catch (Exception e)
+        {
+            futuro.completeExceptionally(e);
+        }
+        finally
+        {
+            muestra.stop(Timer.builder("clubmanager.push.envio")
+                    .tag("resultado", resultado)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Indica cuántos mensajes más caben en la cola de envío.
+     */
+
+    public int capacidadLibre()
+    {
+        return executor.getQueue().remainingCapacity();
+    }
+
+    @PreDestroy
+    public void cerrar()
+    {
+        executor.shutdown();
+    }
+}
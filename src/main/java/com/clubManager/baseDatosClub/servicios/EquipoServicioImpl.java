@@ -6,9 +6,11 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.clubManager.baseDatosClub.dto.EquipoSeleccionDTO;
+import com.clubManager.baseDatosClub.entidades.Credencial;
 import com.clubManager.baseDatosClub.entidades.Entrenador;
 import com.clubManager.baseDatosClub.entidades.Equipo;
 import com.clubManager.baseDatosClub.entidades.Jugador;
@@ -37,6 +39,15 @@ public class EquipoServicioImpl implements EquipoServicio {
     @Autowired
     private EntrenadorRepositorio entrenadorRepo;
 
+    @Autowired
+    private CredencialServicio credencialServicio;
+
+    @Autowired
+    private GaleriaServicio galeriaServicio;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
 	 * {@inheritDoc}
 	 */
@@ -115,7 +126,14 @@ public class EquipoServicioImpl implements EquipoServicio {
     @Override
     public void eliminarEquipo(String idEquipo) 
     {
+        // La cascada del equipo borraría los documentos sin liberar sus archivos
+        galeriaServicio.eliminarGaleriaPorEquipo(idEquipo);
+
+        // Los padres del equipo se borran con él
+        List<String> padres = padreRepo.buscarIdsPorEquipo(idEquipo);
         equipoRepo.deleteById(idEquipo);
+        eventPublisher.publishEvent(new PlantillaCambiadaEvento(idEquipo, null));
+        eventPublisher.publishEvent(new PadresCambiadosEvento(padres));
     }
     
     /**
@@ -142,6 +160,8 @@ public class EquipoServicioImpl implements EquipoServicio {
         jugador.setEquipo(equipo);
 
         jugadorRepo.save(jugador);
+        credencialServicio.actualizarEquipo(idJugador, Credencial.TIPO_JUGADOR, idEquipo);
+        eventPublisher.publishEvent(new PlantillaCambiadaEvento(idEquipo, idJugador));
     }
     
     /**
@@ -0,0 +1,182 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.clubManager.baseDatosClub.almacenamiento.Almacen;
+import com.clubManager.baseDatosClub.entidades.Galeria;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Servicio que exporta los documentos de la galería de un equipo como un ZIP escrito directamente
+ * en un flujo de salida, sin construir el archivo en memoria ni en disco.
+ *
+ * Cada documento se copia desde el almacén a la entrada del ZIP por un búfer de tamaño fijo, así
+ * que la memoria usada no depende del tamaño del álbum. Las fotos, vídeos y audios ya vienen
+ * comprimidos y se escriben con {@link Deflater#NO_COMPRESSION}: comprimirlos de nuevo solo gasta
+ * CPU. Se usa DEFLATED en bloques sin comprimir en lugar de STORED porque una entrada STORED
+ * necesita su tamaño y su CRC antes de escribirse, lo que obligaría a leer cada archivo dos veces;
+ * así se leen una sola vez y el CRC va en el descriptor de datos, a cambio de unos pocos bytes
+ * de cabecera por bloque. El resto se comprime con el nivel más rápido.
+ *
+ * Si el cliente se desconecta, la escritura falla y la exportación se interrumpe sin leer
+ * el resto de documentos. La duración se registra en {@code clubmanager.galeria.zip} por
+ * resultado y los bytes de contenido exportados en {@code clubmanager.galeria.zip.bytes}.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Service
+public class ExportacionGaleriaServicio {
+
+	//Area de datos
+
+    private static final Logger log = LoggerFactory.getLogger(ExportacionGaleriaServicio.class);
+
+    private static final int TAMANO_BUFER = 64 * 1024;
+
+    private static final Set<String> YA_COMPRIMIDOS = Set.of(
+            "jpg", "jpeg", "png", "gif", "webp", "heic", "heif", "avif",
+            "mp4", "m4v", "mov", "webm", "mkv", "avi", "3gp",
+            "mp3", "m4a", "aac", "ogg", "opus",
+            "zip", "gz", "7z", "rar", "docx", "xlsx", "pptx");
+
+    @Autowired
+    private FileStorageService fileStorage;
+
+    private final MeterRegistry meterRegistry;
+
+    //Constructor
+
+    public ExportacionGaleriaServicio(MeterRegistry meterRegistry)
+    {
+        this.meterRegistry = meterRegistry;
+    }
+
+    //Métodos principales
+
+    /**
+     * Escribe los documentos en un ZIP sobre la salida indicada. Los documentos que no están
+     * subidos al servidor o cuyo archivo ya no existe se omiten. La salida no se cierra.
+     *
+     * @param documentos documentos que exportar
+     * @param salida flujo en el que se escribe el ZIP
+     * @return número de documentos incluidos
+     * @throws IOException si falla la escritura, por ejemplo porque el cliente se ha desconectado
+     */
+
+    public int exportarZip(List<Galeria> documentos, OutputStream salida) throws IOException
+    {
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        String resultado = "error";
+        Almacen almacen = fileStorage.getAlmacen();
+        Set<String> nombres = new HashSet<>();
+        int incluidos = 0;
+        long bytes = 0;
+
+        try
+        {
+            // No se cierra al terminar: la salida es de quien llama
+            ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(salida, TAMANO_BUFER));
+
+            for (Galeria documento : documentos)
+            {
+                String clave = fileStorage.clave(documento.getUrl());
+                if (clave == null)
+                {
+                    continue;
+                }
+
+                String extension = extension(clave);
+                ZipEntry entrada = new ZipEntry(nombreEntrada(documento, extension, nombres));
+                if (documento.getFecha() != null)
+                {
+                    entrada.setTimeLocal(documento.getFecha().atStartOfDay());
+                }
+
+                try
+                {
+                    try (InputStream contenido = almacen.abrir(clave, 0, -1))
+                    {
+                        zip.setLevel(YA_COMPRIMIDOS.contains(extension) ? Deflater.NO_COMPRESSION : Deflater.BEST_SPEED);
+                        zip.putNextEntry(entrada);
+                        bytes += contenido.transferTo(zip);
+                        zip.closeEntry();
+                    }
+                }
+                catch (NoSuchFileException e)
+                {
+                    log.warn("Documento {} omitido en la exportación: no existe {}", documento.getIdDocumento(), clave);
+                    continue;
+                }
+                incluidos++;
+            }
+
+            zip.finish();
+            zip.flush();
+            resultado = "ok";
+            return incluidos;
+        }
+        catch (IOException e)
+        {
+            resultado = "abortado";
+            throw e;
+        }
+        finally
+        {
+            meterRegistry.summary("clubmanager.galeria.zip.bytes").record(bytes);
+            muestra.stop(meterRegistry.timer("clubmanager.galeria.zip", "resultado", resultado));
+        }
+    }
+
+    /**
+     * Nombre de la entrada a partir del nombre del documento, sin caracteres no válidos en un
+     * nombre de archivo y numerado si se repite.
+     */
+
+    static String nombreEntrada(Galeria documento, String extension, Set<String> usados)
+    {
+        String base = documento.getNombreDocumento() == null ? "" : documento.getNombreDocumento()
+                .replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+        if (base.isEmpty() || base.startsWith("."))
+        {
+            base = "documento-" + documento.getIdDocumento() + base;
+        }
+        if (!extension.isEmpty() && base.toLowerCase(Locale.ROOT).endsWith("." + extension))
+        {
+            base = base.substring(0, base.length() - extension.length() - 1);
+        }
+
+        String sufijo = extension.isEmpty() ? "" : "." + extension;
+        String nombre = base + sufijo;
+        for (int n = 2; !usados.add(nombre.toLowerCase(Locale.ROOT)); n++)
+        {
+            nombre = base + " (" + n + ")" + sufijo;
+        }
+        return nombre;
+    }
+
+    private static String extension(String clave)
+    {
+        int barra = clave.lastIndexOf('/');
+        int punto = clave.lastIndexOf('.');
+        return punto > barra ? clave.substring(punto + 1).toLowerCase(Locale.ROOT) : "";
+    }
+}
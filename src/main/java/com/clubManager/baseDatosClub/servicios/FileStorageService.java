@@ -1,38 +1,143 @@
 package com.clubManager.baseDatosClub.servicios;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.clubManager.baseDatosClub.almacenamiento.Almacen;
+import com.clubManager.baseDatosClub.almacenamiento.AlmacenLocal;
+import com.clubManager.baseDatosClub.entidades.ContenidoArchivo;
+import com.clubManager.baseDatosClub.repositorios.ContenidoArchivoRepositorio;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Servicio encargado del almacenamiento de archivos en el servidor.
  * Permite guardar archivos en subcarpetas y generar rutas públicas para su acceso.
+ *
+ * El contenido se copia en una sola pasada a través de un búfer de tamaño fijo: mientras se
+ * escribe en el {@link FileChannel} se calcula su SHA-256 y se comprueba el límite de tamaño,
+ * de modo que la memoria usada por subida no depende del tamaño del archivo. Se escribe primero
+ * en un archivo temporal que solo se renombra al nombre definitivo si la copia termina bien.
+ *
+ * Los archivos se guardan por contenido: su nombre es el SHA-256 y cada contenido se escribe
+ * una sola vez, llevando la cuenta de referencias en {@link ContenidoArchivo}. Una subida repetida
+ * solo suma una referencia y el archivo se borra al liberar la última.
+ *
+ * La coordinación entre nodos se hace en la base de datos. La primera subida inserta la fila
+ * sin fusionar, y si otro nodo se adelanta la clave duplicada se resuelve sumando una referencia.
+ * Al liberar la última, la fila se marca para borrar con un UPDATE condicional antes de tocar
+ * el archivo, y solo se elimina cuando el archivo ya no existe; una subida que encuentra la
+ * marca espera a que desaparezca y vuelve a subir el archivo. Si el nodo que borraba cae, otra
+ * subida se queda con el borrado pasados {@code clubmanager.upload.borrado-abandonado-segundos}.
+ * El bloqueo por huella del proceso solo coordina con la limpieza de huérfanos del disco local.
+ *
+ * Los archivos se publican en el {@link Almacen} configurado, con la clave que sigue a
+ * {@code /uploads/} en su URL. La carpeta local de subida se usa siempre para los temporales y,
+ * con el almacén local, también para los archivos publicados.
+ *
+ * Los bytes escritos por subida se registran en {@code clubmanager.upload.bytes} y la duración
+ * en {@code clubmanager.upload.duracion}, etiquetada por resultado. Las subidas deduplicadas se
+ * cuentan en {@code clubmanager.upload.deduplicados} y los bytes que no ocupan espacio en
+ * {@code clubmanager.upload.bytes.ahorrados}.
  */
 
 @Service
 public class FileStorageService {
 
+    private static final int TAMANO_BUFER = 64 * 1024;
+    private static final String PREFIJO_URL = "/uploads/";
+    private static final int INTENTOS_PUBLICAR = 50;
+    private static final long ESPERA_BORRADO_MS = 100;
+
+    public static final String VARIANTE_MINIATURA = "mini";
+    public static final String VARIANTE_VISTA = "vista";
+
+    @Autowired
+    private ContenidoArchivoRepositorio contenidoRepo;
+
+    @Value("${clubmanager.upload.borrado-abandonado-segundos:300}")
+    private long segundosBorradoAbandonado = 300;
+
     private final Path localizacion;
+    private final Almacen almacen;
+    private final long maxBytes;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary bytesEscritos;
+    private final Counter deduplicados;
+    private final Counter bytesAhorrados;
+    private final ReentrantLock[] bloqueos = new ReentrantLock[64];
+
+    /**
+     * Constructor que inicializa la carpeta raíz del almacenamiento y publica en ella los archivos.
+     * @param directorioSubida Ruta base definida en application.properties.
+     * @param maxBytes Tamaño máximo admitido por archivo.
+     * @param meterRegistry Registro de métricas.
+     */
+
+    public FileStorageService(String directorioSubida, long maxBytes, MeterRegistry meterRegistry)
+    {
+        this(directorioSubida, maxBytes, meterRegistry, new AlmacenLocal(directorioSubida));
+    }
 
     /**
      * Constructor que inicializa la carpeta raíz del almacenamiento.
-     * @param uploadDir Ruta base definida en application.properties.
+     * @param directorioSubida Ruta base definida en application.properties.
+     * @param maxBytes Tamaño máximo admitido por archivo.
+     * @param meterRegistry Registro de métricas.
+     * @param almacen Almacén en el que se publican los archivos.
      */
-    
-    public FileStorageService(@Value("${clubmanager.upload.dir}") String directorioSubida) 
+
+    @Autowired
+    public FileStorageService
+    		(
+    		@Value("${clubmanager.upload.dir}") String directorioSubida,
+    		@Value("${clubmanager.upload.max-bytes:20971520}") long maxBytes,
+    		MeterRegistry meterRegistry,
+    		Almacen almacen
+    		)
     {
         this.localizacion = Paths.get(directorioSubida).toAbsolutePath().normalize();
+        this.almacen = almacen;
+        this.maxBytes = maxBytes;
+        this.meterRegistry = meterRegistry;
+        this.bytesEscritos = DistributionSummary.builder("clubmanager.upload.bytes")
+                .description("Bytes escritos en disco por subida")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.deduplicados = meterRegistry.counter("clubmanager.upload.deduplicados");
+        this.bytesAhorrados = meterRegistry.counter("clubmanager.upload.bytes.ahorrados");
+        for (int i = 0; i < bloqueos.length; i++)
+        {
+            bloqueos[i] = new ReentrantLock();
+        }
 
-        try 
+        try
         {
             Files.createDirectories(this.localizacion);
-        } 
-        catch (IOException ex) 
+        }
+        catch (IOException ex)
         {
             throw new RuntimeException("No se pudo crear el directorio de almacenamiento", ex);
         }
@@ -41,46 +146,479 @@ public class FileStorageService {
     /**
      * Guarda un archivo dentro de una subcarpeta.
      * @param file Archivo a almacenar.
-     * @param subcarpeta Subcarpeta donde se guardará el archivo.
-     * @return Ruta relativa que puede usarse como URL pública del archivo.
+     * @param subCarpeta Subcarpeta donde se guardará el archivo.
+     * @return Archivo guardado, con la ruta relativa que puede usarse como URL pública.
      */
-    
-    public String storeFile(MultipartFile file, String subCarpeta) 
+
+    public ArchivoGuardado storeFile(MultipartFile file, String subCarpeta)
     {
-        if (file.isEmpty()) 
+        if (file.isEmpty())
         {
             throw new IllegalArgumentException("El archivo está vacío");
         }
 
-        String nombreOriginal = StringUtils.cleanPath(file.getOriginalFilename());
-        
-        if (nombreOriginal.contains("..")) 
+        try (InputStream entrada = file.getInputStream())
         {
-            throw new IllegalArgumentException("Nombre de archivo inválido");
+            return storeStream(entrada, subCarpeta, file.getOriginalFilename());
         }
-
-        String extension = "";
-        int dot = nombreOriginal.lastIndexOf(".");
-        if (dot != -1) 
+        catch (IOException e)
         {
-            extension = nombreOriginal.substring(dot);
+            throw new RuntimeException("Error al guardar archivo", e);
         }
+    }
+
+    /**
+     * Guarda el contenido de un flujo dentro de una subcarpeta sin cargarlo entero en memoria.
+     * Si el flujo supera el tamaño máximo se interrumpe la copia y no queda nada escrito.
+     * Si el contenido ya estaba guardado se descarta la copia y se reutiliza el archivo existente.
+     * @param entrada Flujo con el contenido del archivo.
+     * @param subCarpeta Subcarpeta donde se guardará el archivo.
+     * @param nombreOriginal Nombre original del archivo, del que se toma la extensión.
+     * @return Archivo guardado, con su URL pública, tamaño y SHA-256.
+     */
 
-        String nombreArchivo = UUID.randomUUID().toString() + extension;
+    public ArchivoGuardado storeStream(InputStream entrada, String subCarpeta, String nombreOriginal)
+    {
+        String extension = extraerExtension(nombreOriginal);
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        String resultado = "error";
+        Path temporal = null;
 
-        try 
+        try
         {
-            Path targetFolder = localizacion.resolve(subCarpeta);
+            Path targetFolder = localizacion.resolve(subCarpeta).normalize();
+            if (!targetFolder.startsWith(localizacion))
+            {
+                throw new IllegalArgumentException("Subcarpeta inválida");
+            }
             Files.createDirectories(targetFolder);
 
-            Path targetFile = targetFolder.resolve(nombreArchivo);
-            Files.copy(file.getInputStream(), targetFile, StandardCopyOption.REPLACE_EXISTING);
+            temporal = targetFolder.resolve("." + UUID.randomUUID() + ".parte");
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            long total = copiar(entrada, temporal, sha256);
 
-            return "/uploads/" + subCarpeta + "/" + nombreArchivo;
-        } 
-        catch (IOException e) 
+            if (total == 0)
+            {
+                throw new IllegalArgumentException("El archivo está vacío");
+            }
+            bytesEscritos.record(total);
+
+            String huella = HexFormat.of().formatHex(sha256.digest());
+            ArchivoGuardado archivo = publicar(temporal, subCarpeta, huella, extension, total);
+            resultado = archivo.isDeduplicado() ? "deduplicado" : "ok";
+            return archivo;
+        }
+        catch (ResponseStatusException e)
+        {
+            resultado = e.getStatusCode() == HttpStatus.PAYLOAD_TOO_LARGE ? "excedido" : "error";
+            throw e;
+        }
+        catch (IOException | NoSuchAlgorithmException e)
         {
             throw new RuntimeException("Error al guardar archivo", e);
         }
+        finally
+        {
+            borrarSilenciosamente(temporal);
+            muestra.stop(meterRegistry.timer("clubmanager.upload.duracion", "resultado", resultado));
+        }
+    }
+
+    /**
+     * Suma una referencia a un contenido ya guardado, sin recibir sus bytes.
+     * @param sha256 Huella SHA-256 del contenido.
+     * @return Archivo guardado si el contenido existe, vacío en caso contrario.
+     */
+
+    public Optional<ArchivoGuardado> reutilizar(String sha256)
+    {
+        ReentrantLock bloqueo = bloqueo(sha256);
+        bloqueo.lock();
+        try
+        {
+            return sumarReferencia(sha256).map(contenido -> deduplicado(contenido, contenido.getTamano()));
+        }
+        finally
+        {
+            bloqueo.unlock();
+        }
+    }
+
+    /**
+     * Resta una referencia al contenido y borra el archivo si era la última.
+     * Solo actúa si la URL coincide con la del contenido, para no liberar por error
+     * un archivo que un documento antiguo no llegó a referenciar. El archivo solo se borra
+     * si este nodo consigue marcar la fila, y la fila se elimina después del archivo.
+     * @param sha256 Huella SHA-256 del contenido.
+     * @param url URL con la que el documento usa el contenido.
+     * @return Bytes liberados en disco, 0 si el contenido sigue en uso.
+     */
+
+    public long liberar(String sha256, String url)
+    {
+        ReentrantLock bloqueo = bloqueo(sha256);
+        bloqueo.lock();
+        try
+        {
+            Optional<ContenidoArchivo> existente = contenidoRepo.findById(sha256);
+            if (existente.isEmpty() || !existente.get().getUrl().equals(url))
+            {
+                return 0;
+            }
+
+            contenidoRepo.restarReferencia(sha256);
+            if (contenidoRepo.marcarBorrando(sha256, LocalDateTime.now()) == 0)
+            {
+                return 0;
+            }
+
+            completarBorrado(sha256, url);
+            return existente.get().getTamano();
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Error al borrar archivo", e);
+        }
+        finally
+        {
+            bloqueo.unlock();
+        }
+    }
+
+    /**
+     * URL de una variante reducida de una imagen: se guarda junto al original, con el mismo
+     * nombre y el sufijo de la variante, siempre en JPEG.
+     * @param url URL pública del original.
+     * @param variante {@link #VARIANTE_MINIATURA} o {@link #VARIANTE_VISTA}.
+     * @return URL pública de la variante.
+     */
+
+    public static String urlVariante(String url, String variante)
+    {
+        int barra = url.lastIndexOf('/');
+        int punto = url.lastIndexOf('.');
+        String base = punto > barra ? url.substring(0, punto) : url;
+        return base + "_" + variante + ".jpg";
+    }
+
+    /**
+     * Tamaño máximo admitido por archivo, en bytes.
+     */
+
+    public long getMaxBytes()
+    {
+        return maxBytes;
+    }
+
+    /**
+     * Carpeta raíz del almacenamiento.
+     */
+
+    public Path getLocalizacion()
+    {
+        return localizacion;
+    }
+
+    /**
+     * URL pública de un archivo del almacén.
+     * @param clave Clave del archivo en el almacén.
+     * @return URL pública del archivo.
+     */
+
+    public String url(String clave)
+    {
+        return PREFIJO_URL + clave;
+    }
+
+    /**
+     * Huella del contenido a partir del nombre de un archivo guardado por contenido
+     * o de una de sus variantes.
+     * @param nombre Nombre del archivo, sin carpetas.
+     * @return Huella SHA-256, o nulo si el nombre no corresponde a un archivo por contenido.
+     */
+
+    static String huellaDeNombre(String nombre)
+    {
+        return nombre.length() >= 64 && nombre.substring(0, 64).matches("[0-9a-f]{64}")
+                && (nombre.length() == 64 || nombre.charAt(64) == '.' || nombre.charAt(64) == '_')
+                ? nombre.substring(0, 64) : null;
+    }
+
+    /**
+     * Copia el flujo al archivo indicado llenando el búfer antes de cada escritura.
+     * @return número de bytes copiados
+     */
+
+    private long copiar(InputStream entrada, Path destino, MessageDigest sha256) throws IOException
+    {
+        byte[] bufer = new byte[TAMANO_BUFER];
+        long total = 0;
+
+        try (FileChannel canal = FileChannel.open(destino, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))
+        {
+            boolean fin = false;
+            while (!fin)
+            {
+                int lleno = 0;
+                while (lleno < bufer.length)
+                {
+                    int leidos = entrada.read(bufer, lleno, bufer.length - lleno);
+                    if (leidos == -1)
+                    {
+                        fin = true;
+                        break;
+                    }
+                    lleno += leidos;
+                }
+
+                total += lleno;
+                if (total > maxBytes)
+                {
+                    throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                            "El archivo supera el tamaño máximo de " + maxBytes + " bytes");
+                }
+
+                sha256.update(bufer, 0, lleno);
+                ByteBuffer datos = ByteBuffer.wrap(bufer, 0, lleno);
+                while (datos.hasRemaining())
+                {
+                    canal.write(datos);
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Mueve el temporal a su ruta por contenido, o suma una referencia si ese contenido ya existe.
+     * Si el contenido se está borrando en otro nodo, espera a que termine y lo vuelve a publicar.
+     */
+
+    private ArchivoGuardado publicar(Path temporal, String subCarpeta, String sha256, String extension, long total)
+            throws IOException
+    {
+        String relativa = subCarpeta + "/" + sha256.substring(0, 2) + "/" + sha256 + extension;
+        String url = PREFIJO_URL + relativa;
+
+        for (int intento = 1; intento <= INTENTOS_PUBLICAR; intento++)
+        {
+            ReentrantLock bloqueo = bloqueo(sha256);
+            bloqueo.lock();
+            try
+            {
+                Optional<ContenidoArchivo> existente = sumarReferencia(sha256);
+                if (existente.isPresent())
+                {
+                    return deduplicado(existente.get(), total);
+                }
+
+                // Se sube en cada intento: un borrado en curso puede haber retirado la copia anterior
+                guardarCopia(relativa, temporal);
+                try
+                {
+                    contenidoRepo.insertar(sha256, url, total, LocalDateTime.now());
+                    return new ArchivoGuardado(url, total, sha256, false);
+                }
+                catch (DataIntegrityViolationException e)
+                {
+                    // Otro nodo lo ha insertado a la vez o lo está borrando
+                }
+
+                existente = sumarReferencia(sha256);
+                if (existente.isPresent())
+                {
+                    // Mientras tenga nuestra referencia nadie más puede publicar con otra URL
+                    if (!existente.get().getUrl().equals(url))
+                    {
+                        almacen.borrar(relativa);
+                    }
+                    return deduplicado(existente.get(), total);
+                }
+
+                LocalDateTime ahora = LocalDateTime.now();
+                if (contenidoRepo.tomarBorradoAbandonado(sha256, ahora.minusSeconds(segundosBorradoAbandonado), ahora) == 1)
+                {
+                    Optional<ContenidoArchivo> abandonado = contenidoRepo.findById(sha256);
+                    if (abandonado.isPresent())
+                    {
+                        completarBorrado(sha256, abandonado.get().getUrl());
+                    }
+                    continue;
+                }
+            }
+            finally
+            {
+                bloqueo.unlock();
+            }
+
+            esperarBorrado();
+        }
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "El archivo se está borrando, vuelve a intentarlo");
+    }
+
+    /**
+     * Suma una referencia al contenido, si existe y no se está borrando. Con la referencia ya
+     * sumada la fila no puede borrarse, así que se lee después.
+     */
+
+    private Optional<ContenidoArchivo> sumarReferencia(String sha256)
+    {
+        return contenidoRepo.sumarReferencia(sha256) == 1 ? contenidoRepo.findById(sha256) : Optional.empty();
+    }
+
+    /**
+     * Publica una copia del temporal, que el almacén consume, y conserva el original para
+     * otro intento. La copia es un enlace duro cuando el sistema de archivos lo admite.
+     */
+
+    private void guardarCopia(String relativa, Path temporal) throws IOException
+    {
+        Path copia = temporal.resolveSibling("." + UUID.randomUUID() + ".parte");
+        try
+        {
+            try
+            {
+                Files.createLink(copia, temporal);
+            }
+            catch (UnsupportedOperationException | IOException e)
+            {
+                Files.copy(temporal, copia);
+            }
+            almacen.guardar(relativa, copia);
+        }
+        finally
+        {
+            borrarSilenciosamente(copia);
+        }
+    }
+
+    private ArchivoGuardado deduplicado(ContenidoArchivo contenido, long total)
+    {
+        deduplicados.increment();
+        bytesAhorrados.increment(total);
+        return new ArchivoGuardado(contenido.getUrl(), total, contenido.getSha256(), true);
+    }
+
+    /**
+     * Borra el archivo de un contenido marcado y sus variantes, y después su fila. Si falla,
+     * la fila queda marcada y otra subida retomará el borrado cuando se considere abandonado.
+     */
+
+    private void completarBorrado(String sha256, String url) throws IOException
+    {
+        String clave = clave(url);
+        if (clave != null)
+        {
+            almacen.borrar(clave);
+            almacen.borrar(clave(urlVariante(url, VARIANTE_MINIATURA)));
+            almacen.borrar(clave(urlVariante(url, VARIANTE_VISTA)));
+        }
+        contenidoRepo.eliminarBorrado(sha256);
+    }
+
+    private static void esperarBorrado()
+    {
+        try
+        {
+            Thread.sleep(ESPERA_BORRADO_MS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Subida interrumpida");
+        }
+    }
+
+    /**
+     * Clave en el almacén de una URL pública. Se rechazan las rutas con segmentos vacíos o que
+     * empiezan por punto, que no corresponden a archivos publicados.
+     * @param url URL pública del archivo.
+     * @return Clave del archivo, o nulo si la URL no es de un archivo subido.
+     */
+
+    public String clave(String url)
+    {
+        if (url == null || !url.startsWith(PREFIJO_URL) || url.length() == PREFIJO_URL.length())
+        {
+            return null;
+        }
+        String clave = url.substring(PREFIJO_URL.length());
+        for (String segmento : clave.split("/", -1))
+        {
+            if (segmento.isEmpty() || segmento.startsWith(".") || segmento.contains("\\"))
+            {
+                return null;
+            }
+        }
+        return clave;
+    }
+
+    /**
+     * Ruta en disco de una URL pública, o nulo si no es de un archivo subido o el almacén no es local.
+     * @param url URL pública del archivo.
+     * @return Ruta del archivo en disco.
+     */
+
+    public Path resolver(String url)
+    {
+        String clave = clave(url);
+        return clave == null ? null : almacen.rutaLocal(clave).orElse(null);
+    }
+
+    /**
+     * Almacén en el que se publican los archivos.
+     */
+
+    public Almacen getAlmacen()
+    {
+        return almacen;
+    }
+
+    /**
+     * Ruta de un temporal nuevo en la carpeta de subida, para preparar un archivo antes de publicarlo.
+     */
+
+    Path crearTemporal()
+    {
+        return localizacion.resolve("." + UUID.randomUUID() + ".parte");
+    }
+
+    /**
+     * Bloqueo que serializa las operaciones sobre un mismo contenido, compartido con la
+     * limpieza de archivos huérfanos.
+     */
+
+    ReentrantLock bloqueo(String sha256)
+    {
+        return bloqueos[Math.floorMod(sha256.hashCode(), bloqueos.length)];
+    }
+
+    private static String extraerExtension(String nombreOriginal)
+    {
+        String nombre = StringUtils.cleanPath(nombreOriginal == null ? "" : nombreOriginal);
+        if (nombre.contains(".."))
+        {
+            throw new IllegalArgumentException("Nombre de archivo inválido");
+        }
+
+        int dot = nombre.lastIndexOf(".");
+        return dot != -1 && nombre.indexOf('/', dot) == -1 ? nombre.substring(dot) : "";
+    }
+
+    private static void borrarSilenciosamente(Path archivo)
+    {
+        if (archivo == null)
+        {
+            return;
+        }
+        try
+        {
+            Files.deleteIfExists(archivo);
+        }
+        catch (IOException e)
+        {
+            // Queda con el prefijo de temporal y nunca llega a tener URL pública
+        }
     }
-}
\ No newline at end of file
+}
@@ -4,6 +4,8 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
+import com.clubManager.baseDatosClub.dto.EstadisticasAlmacenamientoDTO;
+import com.clubManager.baseDatosClub.dto.PaginaGaleriaDTO;
 import com.clubManager.baseDatosClub.entidades.Galeria;
 
 /**
@@ -26,6 +28,19 @@ public interface GaleriaServicio {
 	
     List<Galeria> listarGaleriaPorEquipo(String idEquipo);
 
+    /**
+     * Lista por páginas los documentos de un equipo, del más reciente al más antiguo,
+     * con una sola consulta por página.
+     * 
+     * @param idEquipo identificador del equipo
+     * @param tipo tipo de documento por el que filtrar (opcional)
+     * @param cursor cursor devuelto en la página anterior, o nulo para la primera
+     * @param tamano número de documentos por página (opcional)
+     * @return página de documentos con el cursor de la siguiente
+     */
+
+    PaginaGaleriaDTO listarPaginaPorEquipo(String idEquipo, String tipo, String cursor, Integer tamano);
+
     /**
      * Busca un documento específico de la galería por su ID.
      * 
@@ -48,6 +63,32 @@ public interface GaleriaServicio {
     
     void crearDocumento(String tipo, String autor, LocalDate fecha, String url, String nombreDocumento, String idEquipo);
 
+    /**
+     * Crea un nuevo documento en la galería para un archivo subido al servidor,
+     * guardando junto a su URL el tamaño y la huella SHA-256 del contenido.
+     * El tamaño ya debe estar reservado en la cuota del equipo con {@link CuotaAlmacenamientoServicio}.
+     * 
+     * @param tipo tipo de documento (ej. imagen, vídeo, PDF)
+     * @param autor autor o creador del documento
+     * @param fecha fecha de creación o subida
+     * @param archivo archivo ya guardado por {@link FileStorageService}
+     * @param nombreDocumento nombre del documento
+     * @param idEquipo identificador del equipo al que se asocia el documento
+     * @return el documento creado
+     */
+    
+    Galeria crearDocumento(String tipo, String autor, LocalDate fecha, ArchivoGuardado archivo, 
+    		String nombreDocumento, String idEquipo);
+
+    /**
+     * Obtiene el resumen del almacenamiento deduplicado: archivos en disco, documentos que
+     * los usan, bytes ocupados y bytes ahorrados por no guardar copias repetidas.
+     * 
+     * @return estadísticas de almacenamiento
+     */
+    
+    EstadisticasAlmacenamientoDTO obtenerEstadisticasAlmacenamiento();
+
     /**
      * Modifica los datos de un documento existente en la galería.
      * 
@@ -70,10 +111,20 @@ public interface GaleriaServicio {
     void eliminarDocumento(Long id);
 
     /**
-     * Elimina todos los documentos asociados a un equipo específico.
+     * Elimina todos los documentos asociados a un equipo específico, liberando sus archivos.
      * 
      * @param idEquipo identificador del equipo cuya galería se desea eliminar
      */
     
-    void eliminarGaleriaPorEquipo(Long idEquipo);
+    void eliminarGaleriaPorEquipo(String idEquipo);
+
+    /**
+     * Comprueba si un equipo ya tiene un documento con el contenido indicado.
+     * 
+     * @param idEquipo identificador del equipo
+     * @param sha256 huella SHA-256 del contenido
+     * @return true si alguno de sus documentos usa ese contenido
+     */
+    
+    boolean equipoTieneContenido(String idEquipo, String sha256);
 }
\ No newline at end of file
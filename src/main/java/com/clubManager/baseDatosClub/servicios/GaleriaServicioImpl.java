@@ -10,11 +10,17 @@ import java.util.Optional;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.clubManager.baseDatosClub.dto.EstadisticasAlmacenamientoDTO;
+import com.clubManager.baseDatosClub.dto.GaleriaResumenDTO;
+import com.clubManager.baseDatosClub.dto.PaginaGaleriaDTO;
 import com.clubManager.baseDatosClub.entidades.Equipo;
 import com.clubManager.baseDatosClub.entidades.Galeria;
+import com.clubManager.baseDatosClub.repositorios.ContenidoArchivoRepositorio;
 import com.clubManager.baseDatosClub.repositorios.EquipoRepositorio;
 import com.clubManager.baseDatosClub.repositorios.GaleriaRepositorio;
 
@@ -26,6 +32,11 @@ import org.springframework.http.HttpStatus;
  * Gestiona la creación, consulta, modificación y eliminación de documentos en la galería,
  * asegurando que cada documento esté vinculado a un equipo.
  * 
+ * Los documentos subidos al servidor comparten archivo cuando su contenido es idéntico;
+ * al crearlos o eliminarlos se suma o se libera su referencia en {@link FileStorageService}.
+ * Tras crearlos se encola la generación de sus miniaturas en {@link MiniaturasServicio}.
+ * Al eliminarlos se devuelve su tamaño al uso del equipo en {@link CuotaAlmacenamientoServicio}.
+ * 
  * @author Sergio Vigil Soto
  */
 
@@ -39,6 +50,24 @@ public class GaleriaServicioImpl implements GaleriaServicio {
 
     @Autowired
     private EquipoRepositorio equipoRepositorio;
+
+    @Autowired
+    private ContenidoArchivoRepositorio contenidoRepositorio;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private MiniaturasServicio miniaturasServicio;
+
+    @Autowired
+    private CuotaAlmacenamientoServicio cuotaServicio;
+
+    @Value("${clubmanager.galeria.pagina.tamano:30}")
+    private int tamanoPorDefecto;
+
+    @Value("${clubmanager.galeria.pagina.tamano-max:100}")
+    private int tamanoMaximo;
     
     //Métodos Principales
 
@@ -52,6 +81,57 @@ public class GaleriaServicioImpl implements GaleriaServicio {
         return galeriaRepositorio.findByEquipo_IdEquipo(idEquipo);
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * Se pide un documento más de los que caben en la página para saber si hay siguiente
+     * sin hacer otra consulta. El cursor es la fecha y el id del último documento devuelto.
+     * Con filtro de tipo se usan las consultas por tipo, que leen su propio índice.
+     */
+
+    @Override
+    public PaginaGaleriaDTO listarPaginaPorEquipo(String idEquipo, String tipo, String cursor, Integer tamano) 
+    {
+        int tamanoPagina = tamano == null ? tamanoPorDefecto : Math.max(1, Math.min(tamano, tamanoMaximo));
+        PageRequest limite = PageRequest.of(0, tamanoPagina + 1);
+        String filtroTipo = tipo == null || tipo.isBlank() ? null : tipo;
+
+        List<GaleriaResumenDTO> filas;
+        if (cursor == null || cursor.isBlank()) 
+        {
+            filas = filtroTipo == null
+                    ? galeriaRepositorio.buscarPrimeraPagina(idEquipo, limite)
+                    : galeriaRepositorio.buscarPrimeraPaginaPorTipo(idEquipo, filtroTipo, limite);
+        } 
+        else 
+        {
+            LocalDate fecha;
+            Long idDocumento;
+            try 
+            {
+                int separador = cursor.lastIndexOf('_');
+                fecha = LocalDate.parse(cursor.substring(0, separador));
+                idDocumento = Long.valueOf(cursor.substring(separador + 1));
+            } 
+            catch (RuntimeException e) 
+            {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor no válido: " + cursor);
+            }
+            filas = filtroTipo == null
+                    ? galeriaRepositorio.buscarPaginaTras(idEquipo, fecha, idDocumento, limite)
+                    : galeriaRepositorio.buscarPaginaTrasPorTipo(idEquipo, filtroTipo, fecha, idDocumento, limite);
+        }
+
+        if (filas.size() <= tamanoPagina) 
+        {
+            return new PaginaGaleriaDTO(filas, null);
+        }
+
+        List<GaleriaResumenDTO> pagina = filas.subList(0, tamanoPagina);
+        GaleriaResumenDTO ultimo = pagina.get(tamanoPagina - 1);
+        return new PaginaGaleriaDTO(pagina, ultimo.getFecha() + "_" + ultimo.getIdDocumento());
+    }
+
     /** 
      * {@inheritDoc} 
      */
@@ -84,6 +164,52 @@ public class GaleriaServicioImpl implements GaleriaServicio {
     			galeriaRepositorio.save(galeria);
     		}
 
+    /** 
+     * {@inheritDoc} 
+     */
+    
+    @Override
+    public Galeria crearDocumento(String tipo, String autor, LocalDate fecha, ArchivoGuardado archivo,
+            String nombreDocumento, String idEquipo) 
+    {
+        Galeria galeria = new Galeria();
+        try 
+        {
+            Equipo equipo = equipoRepositorio.findById(idEquipo)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Equipo no encontrado"));
+
+            galeria.setTipo(tipo);
+            galeria.setAutor(autor);
+            galeria.setFecha(fecha);
+            galeria.setUrl(archivo.getUrl());
+            galeria.setSha256(archivo.getSha256());
+            galeria.setTamano(archivo.getTamano());
+            galeria.setNombreDocumento(nombreDocumento);
+            galeria.setEquipo(equipo);
+
+            galeria = galeriaRepositorio.save(galeria);
+        } 
+        catch (RuntimeException e) 
+        {
+            // La referencia ya se había sumado al guardar el archivo
+            fileStorageService.liberar(archivo.getSha256(), archivo.getUrl());
+            throw e;
+        }
+
+        miniaturasServicio.programar(archivo.getUrl());
+        return galeria;
+    }
+
+    /** 
+     * {@inheritDoc} 
+     */
+    
+    @Override
+    public EstadisticasAlmacenamientoDTO obtenerEstadisticasAlmacenamiento() 
+    {
+        return contenidoRepositorio.resumir();
+    }
+
     /** 
      * {@inheritDoc} 
      */
@@ -95,13 +221,39 @@ public class GaleriaServicioImpl implements GaleriaServicio {
         Galeria galeria = galeriaRepositorio.findById(id)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Documento no encontrado"));
 
+        String urlAnterior = galeria.getUrl();
+        String sha256Anterior = galeria.getSha256();
+        Long tamanoAnterior = galeria.getTamano();
+        boolean cambiaArchivo = sha256Anterior != null && !sha256Anterior.isEmpty() && !url.equals(urlAnterior);
+
         galeria.setTipo(tipo);
         galeria.setAutor(autor);
         galeria.setFecha(fecha);
         galeria.setUrl(url);
         galeria.setNombreDocumento(nombreDocumento);
+        if (!url.equals(urlAnterior)) 
+        {
+            // Las variantes eran del archivo anterior
+            galeria.setUrlMiniatura(null);
+            galeria.setUrlVista(null);
+            galeria.setEstadoVariantes(null);
+        }
+        if (cambiaArchivo) 
+        {
+            galeria.setSha256(null);
+            galeria.setTamano(null);
+        }
 
         galeriaRepositorio.save(galeria);
+
+        if (cambiaArchivo) 
+        {
+            fileStorageService.liberar(sha256Anterior, urlAnterior);
+            if (tamanoAnterior != null) 
+            {
+                cuotaServicio.devolver(galeria.getEquipo().getIdEquipo(), tamanoAnterior);
+            }
+        }
     }
 
     /** 
@@ -110,10 +262,10 @@ public class GaleriaServicioImpl implements GaleriaServicio {
     
     @Override
     public void eliminarDocumento(Long id) {
-        if (!galeriaRepositorio.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Documento no encontrado");
-        }
-        galeriaRepositorio.deleteById(id);
+        Galeria galeria = galeriaRepositorio.findById(id)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Documento no encontrado"));
+        galeriaRepositorio.delete(galeria);
+        liberarArchivo(galeria);
     }
 
     /** 
@@ -121,8 +273,37 @@ public class GaleriaServicioImpl implements GaleriaServicio {
      */
     
     @Override
-    public void eliminarGaleriaPorEquipo(Long idEquipo) 
+    public void eliminarGaleriaPorEquipo(String idEquipo) 
     {
-        galeriaRepositorio.deleteByEquipo_IdEquipo(String.valueOf(idEquipo));
-    }  
+        List<Galeria> documentos = galeriaRepositorio.findByEquipo_IdEquipo(idEquipo);
+        galeriaRepositorio.deleteAll(documentos);
+        documentos.forEach(this::liberarArchivo);
+    }
+
+    /** 
+     * {@inheritDoc} 
+     */
+    
+    @Override
+    public boolean equipoTieneContenido(String idEquipo, String sha256) 
+    {
+        return galeriaRepositorio.existsByEquipo_IdEquipoAndSha256(idEquipo, sha256);
+    }
+
+    /**
+     * Libera la referencia del documento a su archivo, si se subió al servidor,
+     * y descuenta su tamaño del uso del equipo.
+     */
+    
+    private void liberarArchivo(Galeria galeria) 
+    {
+        if (galeria.getSha256() != null) 
+        {
+            fileStorageService.liberar(galeria.getSha256(), galeria.getUrl());
+        }
+        if (galeria.getTamano() != null && galeria.getEquipo() != null) 
+        {
+            cuotaServicio.devolver(galeria.getEquipo().getIdEquipo(), galeria.getTamano());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,449 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.clubManager.baseDatosClub.dto.PersonaBusquedaDTO;
+
+/**
+ * Índice en memoria para buscar personas por el comienzo de las palabras de su nombre, sus
+ * apellidos o su DNI, sin distinguir mayúsculas ni acentos.
+ *
+ * Cada palabra normalizada de una persona es una entrada de un array ordenado, emparejado con
+ * el de fichas. Hay una tabla con todas las personas y otra por cada tipo, para que filtrar por
+ * tipo no obligue a saltar las entradas del otro. Una consulta localiza con búsquedas binarias el
+ * tramo de entradas que empiezan por cada una de sus palabras, recorre el más corto y comprueba el
+ * resto de palabras en las fichas de ese tramo, parando al llenar el límite o al revisar el máximo
+ * de entradas. Ese máximo acota las consultas de una o dos letras con otra palabra que casi nadie
+ * cumple, que si no recorrerían una buena parte del índice. Las consultas leen las tablas
+ * publicadas sin bloqueos; cada cambio construye las siguientes en una sola pasada de mezcla y
+ * las publica de una vez.
+ *
+ * Ese copiado es el precio de no bloquear las lecturas: cada llamada a {@link #aplicar} recorre
+ * y copia la tabla de todas las personas y las de los tipos afectados, unas seis entradas por
+ * persona, aunque solo cambie una. Con cien mil personas son unos pocos milisegundos y unos
+ * megabytes de basura joven por cambio, asumible para los cambios de plantilla, que llegan de uno
+ * en uno y con poca frecuencia. Los cambios masivos deben entrar en una sola llamada con todas sus
+ * fichas, no en una por persona.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+class IndiceBusqueda {
+
+	//Area de datos
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private final Map<String, Ficha> fichas = new HashMap<>();
+    private volatile Tablas tablas = new Tablas(Tabla.VACIA, Map.of());
+    private volatile int personas;
+
+    //Métodos principales
+
+    /**
+     * Sustituye todo el contenido del índice.
+     *
+     * @param nuevas fichas de todas las personas
+     */
+
+    synchronized void cargar(Collection<Ficha> nuevas)
+    {
+        fichas.clear();
+        List<Entrada> entradas = new ArrayList<>();
+        for (Ficha ficha : nuevas)
+        {
+            fichas.put(ficha.clave, ficha);
+            ficha.entradas(entradas);
+        }
+        entradas.sort(IndiceBusqueda::comparar);
+        Map<String, List<Entrada>> porTipo = new HashMap<>();
+        for (Entrada entrada : entradas)
+        {
+            porTipo.computeIfAbsent(entrada.ficha().tipo, t -> new ArrayList<>()).add(entrada);
+        }
+        Map<String, Tabla> tablasPorTipo = new HashMap<>();
+        porTipo.forEach((tipo, suyas) -> tablasPorTipo.put(tipo, Tabla.de(suyas)));
+        tablas = new Tablas(Tabla.de(entradas), Map.copyOf(tablasPorTipo));
+        personas = fichas.size();
+    }
+
+    /**
+     * Añade o sustituye unas personas y quita otras. Cuesta lo mismo que copiar el índice entero,
+     * sea cual sea el número de fichas, así que conviene agrupar los cambios en una llamada.
+     *
+     * @param nuevas fichas que se añaden o sustituyen a las de la misma persona
+     * @param quitadas claves de las personas que se quitan
+     */
+
+    synchronized void aplicar(Collection<Ficha> nuevas, Collection<String> quitadas)
+    {
+        Set<Ficha> salientes = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String clave : quitadas)
+        {
+            Ficha anterior = fichas.remove(clave);
+            if (anterior != null)
+            {
+                salientes.add(anterior);
+            }
+        }
+        // Si una persona viene repetida solo entra su última ficha
+        Map<String, Ficha> porClave = new LinkedHashMap<>();
+        nuevas.forEach(ficha -> porClave.put(ficha.clave, ficha));
+        List<Entrada> entrantes = new ArrayList<>();
+        for (Ficha ficha : porClave.values())
+        {
+            Ficha anterior = fichas.put(ficha.clave, ficha);
+            if (anterior != null)
+            {
+                salientes.add(anterior);
+            }
+            ficha.entradas(entrantes);
+        }
+        personas = fichas.size();
+        if (salientes.isEmpty() && entrantes.isEmpty())
+        {
+            return;
+        }
+        entrantes.sort(IndiceBusqueda::comparar);
+
+        Tablas actuales = tablas;
+        Map<String, Tabla> porTipo = new HashMap<>(actuales.porTipo());
+        Set<String> tipos = new HashSet<>();
+        salientes.forEach(ficha -> tipos.add(ficha.tipo));
+        entrantes.forEach(entrada -> tipos.add(entrada.ficha().tipo));
+        for (String tipo : tipos)
+        {
+            Set<Ficha> suyas = Collections.newSetFromMap(new IdentityHashMap<>());
+            salientes.stream().filter(f -> f.tipo.equals(tipo)).forEach(suyas::add);
+            porTipo.put(tipo, mezclar(porTipo.getOrDefault(tipo, Tabla.VACIA), suyas,
+                    entrantes.stream().filter(e -> e.ficha().tipo.equals(tipo)).toList()));
+        }
+        tablas = new Tablas(mezclar(actuales.todas(), salientes, entrantes), Map.copyOf(porTipo));
+    }
+
+    /**
+     * Busca las personas que tienen, para cada palabra del texto, alguna palabra que empiece
+     * por ella.
+     *
+     * @param texto texto escrito por el usuario
+     * @param tipo tipo de persona, o null para todas
+     * @param limite número máximo de resultados
+     * @param revisables número máximo de entradas que se revisan; al llegar a él se devuelve lo
+     *        encontrado hasta entonces
+     * @return personas encontradas, por orden alfabético de la palabra que coincide
+     */
+
+    List<PersonaBusquedaDTO> buscar(String texto, String tipo, int limite, int revisables)
+    {
+        String[] palabras = palabras(texto);
+        if (palabras.length == 0 || limite <= 0)
+        {
+            return List.of();
+        }
+
+        // Se recorre el tramo de la palabra con menos entradas
+        Tablas actuales = tablas;
+        Tabla actual = tipo == null ? actuales.todas() : actuales.porTipo().getOrDefault(tipo, Tabla.VACIA);
+        int inicio = 0;
+        int fin = actual.terminos.length;
+        for (String palabra : palabras)
+        {
+            int desde = actual.inicio(palabra);
+            int hasta = actual.fin(palabra, desde);
+            if (hasta - desde < fin - inicio)
+            {
+                inicio = desde;
+                fin = hasta;
+            }
+        }
+
+        List<Ficha> encontradas = new ArrayList<>();
+        int tope = (int) Math.min(fin, (long) inicio + revisables);
+        for (int i = inicio; i < tope; i++)
+        {
+            Ficha ficha = actual.fichas[i];
+            if (ficha.contiene(palabras) && !contieneMisma(encontradas, ficha))
+            {
+                encontradas.add(ficha);
+                if (encontradas.size() == limite)
+                {
+                    break;
+                }
+            }
+        }
+        return encontradas.stream().map(Ficha::resultado).toList();
+    }
+
+    /**
+     * Identificadores de las personas de un tipo indexadas en un equipo.
+     */
+
+    synchronized List<String> idsDeEquipo(String tipo, String idEquipo)
+    {
+        return fichas.values().stream()
+                .filter(f -> f.tipo.equals(tipo) && idEquipo.equals(f.idEquipo))
+                .map(f -> f.id)
+                .toList();
+    }
+
+    /**
+     * Número de personas indexadas.
+     */
+
+    int tamano()
+    {
+        return personas;
+    }
+
+    /**
+     * Pasa el texto a minúsculas y le quita tildes y diéresis; la eñe queda como ene.
+     */
+
+    static String normalizar(String texto)
+    {
+        if (texto == null)
+        {
+            return "";
+        }
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinMarcas.toLowerCase(Locale.ROOT);
+    }
+
+    static String clave(String tipo, String id)
+    {
+        return tipo + ":" + id;
+    }
+
+    private static String[] palabras(String texto)
+    {
+        Set<String> palabras = new LinkedHashSet<>();
+        for (String palabra : SEPARADORES.split(normalizar(texto)))
+        {
+            if (!palabra.isEmpty())
+            {
+                palabras.add(palabra);
+            }
+        }
+        return palabras.toArray(new String[0]);
+    }
+
+    /**
+     * Mezcla las entradas de una tabla que no son de las fichas salientes, que ya están ordenadas,
+     * con las entrantes ordenadas.
+     */
+
+    private static Tabla mezclar(Tabla actual, Set<Ficha> salientes, List<Entrada> entrantes)
+    {
+        int quedan = actual.terminos.length;
+        for (Ficha saliente : salientes)
+        {
+            quedan -= saliente.terminos.length;
+        }
+        String[] terminos = new String[quedan + entrantes.size()];
+        Ficha[] destino = new Ficha[terminos.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < terminos.length; k++)
+        {
+            while (i < actual.terminos.length && salientes.contains(actual.fichas[i]))
+            {
+                i++;
+            }
+            if (i == actual.terminos.length
+                    || j < entrantes.size() && comparar(entrantes.get(j), actual.terminos[i], actual.fichas[i]) < 0)
+            {
+                Entrada entrante = entrantes.get(j++);
+                terminos[k] = entrante.termino();
+                destino[k] = entrante.ficha();
+            }
+            else
+            {
+                terminos[k] = actual.terminos[i];
+                destino[k] = actual.fichas[i++];
+            }
+        }
+        return new Tabla(terminos, destino);
+    }
+
+    private static boolean contieneMisma(List<Ficha> fichas, Ficha ficha)
+    {
+        for (Ficha otra : fichas)
+        {
+            if (otra == ficha)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int comparar(Entrada a, Entrada b)
+    {
+        return comparar(a, b.termino(), b.ficha());
+    }
+
+    private static int comparar(Entrada a, String termino, Ficha ficha)
+    {
+        int porTermino = a.termino().compareTo(termino);
+        return porTermino != 0 ? porTermino : a.ficha().clave.compareTo(ficha.clave);
+    }
+
+    /**
+     * Persona indexada con sus palabras normalizadas. El DNI se indexa pero no se devuelve
+     * en los resultados.
+     */
+
+    static final class Ficha {
+
+        private final String clave;
+        private final String tipo;
+        private final String id;
+        private final String nombre;
+        private final String apellidos;
+        private final String idEquipo;
+        private final String[] terminos;
+
+        Ficha(String tipo, String id, String nombre, String apellidos, String dni, String idEquipo)
+        {
+            this.clave = clave(tipo, id);
+            this.tipo = tipo;
+            this.id = id;
+            this.nombre = nombre;
+            this.apellidos = apellidos;
+            this.idEquipo = idEquipo;
+
+            Set<String> propios = new LinkedHashSet<>();
+            Collections.addAll(propios, palabras(nombre));
+            Collections.addAll(propios, palabras(apellidos));
+            String documento = SEPARADORES.matcher(normalizar(dni)).replaceAll("");
+            if (!documento.isEmpty())
+            {
+                propios.add(documento);
+            }
+            this.terminos = propios.toArray(new String[0]);
+        }
+
+        private void entradas(List<Entrada> destino)
+        {
+            for (String termino : terminos)
+            {
+                destino.add(new Entrada(termino, this));
+            }
+        }
+
+        private boolean contiene(String[] palabras)
+        {
+            for (String palabra : palabras)
+            {
+                boolean encontrada = false;
+                for (String termino : terminos)
+                {
+                    if (termino.startsWith(palabra))
+                    {
+                        encontrada = true;
+                        break;
+                    }
+                }
+                if (!encontrada)
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private PersonaBusquedaDTO resultado()
+        {
+            return new PersonaBusquedaDTO(tipo, id, nombre, apellidos, idEquipo);
+        }
+    }
+
+    private record Entrada(String termino, Ficha ficha) {}
+
+    /**
+     * Tabla de todas las personas y tablas de cada tipo, que se publican juntas.
+     */
+
+    private record Tablas(Tabla todas, Map<String, Tabla> porTipo) {}
+
+    /**
+     * Arrays ordenados de palabras y fichas. No se modifican una vez publicados.
+     */
+
+    private record Tabla(String[] terminos, Ficha[] fichas) {
+
+        private static final Tabla VACIA = new Tabla(new String[0], new Ficha[0]);
+
+        private static Tabla de(List<Entrada> entradas)
+        {
+            String[] terminos = new String[entradas.size()];
+            Ficha[] fichas = new Ficha[entradas.size()];
+            for (int i = 0; i < terminos.length; i++)
+            {
+                terminos[i] = entradas.get(i).termino();
+                fichas[i] = entradas.get(i).ficha();
+            }
+            return new Tabla(terminos, fichas);
+        }
+
+        /**
+         * Primera entrada que no va antes del prefijo.
+         */
+
+        private int inicio(String prefijo)
+        {
+            int bajo = 0;
+            int alto = terminos.length;
+            while (bajo < alto)
+            {
+                int medio = (bajo + alto) >>> 1;
+                if (terminos[medio].compareTo(prefijo) < 0)
+                {
+                    bajo = medio + 1;
+                }
+                else
+                {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+
+        /**
+         * Primera entrada, a partir de la del inicio del prefijo, que no empieza por él.
+         */
+
+        private int fin(String prefijo, int inicio)
+        {
+            int bajo = inicio;
+            int alto = terminos.length;
+            while (bajo < alto)
+            {
+                int medio = (bajo + alto) >>> 1;
+                if (terminos[medio].startsWith(prefijo))
+                {
+                    bajo = medio + 1;
+                }
+                else
+                {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+    }
+}
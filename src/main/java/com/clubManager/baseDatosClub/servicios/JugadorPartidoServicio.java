@@ -3,6 +3,7 @@ package com.clubManager.baseDatosClub.servicios;
 import java.util.List;
 import java.util.Optional;
 
+import com.clubManager.baseDatosClub.dto.EstadisticaActaDTO;
 import com.clubManager.baseDatosClub.dto.JugadorPuntuacionDTO;
 import com.clubManager.baseDatosClub.entidades.JugadorPartido;
 import com.clubManager.baseDatosClub.entidades.JugadorPartidoPK;
@@ -88,4 +89,16 @@ public interface JugadorPartidoServicio {
      */
     
     public JugadorPuntuacionDTO asignarPuntuacion(String idJugador, Long idPartido, Integer puntuacion);
-}
\ No newline at end of file
+    
+    /**
+     * Aplica el acta de un partido: suma a cada jugador sus goles, goles encajados, tarjetas y
+     * puntos, y los puntos también a su puntuación en el partido. Todo se aplica en una sola
+     * transacción; si algún jugador no está en el partido no se aplica nada.
+     *
+     * @param idPartido Identificador del partido.
+     * @param acta      Lo que suma cada jugador, una línea por jugador.
+     * @return Puntuación en el partido y puntos totales de los jugadores del acta.
+     */
+    
+    List<JugadorPuntuacionDTO> registrarActa(Long idPartido, List<EstadisticaActaDTO> acta);
+}
@@ -1,12 +1,21 @@
 package com.clubManager.baseDatosClub.servicios;
 
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import com.clubManager.baseDatosClub.dto.EstadisticaActaDTO;
 import com.clubManager.baseDatosClub.dto.JugadorPuntuacionDTO;
 import com.clubManager.baseDatosClub.entidades.Jugador;
 import com.clubManager.baseDatosClub.entidades.JugadorPartido;
@@ -24,6 +33,14 @@ import jakarta.transaction.Transactional;
  * 
  * Proporciona la lógica de negocio para gestionar la relación entre jugadores y partidos.
  * 
+ * El acta de un partido se aplica con dos sentencias UPDATE enviadas en lote por JDBC, una
+ * para los jugadores y otra para sus puntuaciones en el partido, en lugar de una petición y una
+ * transacción por jugador y estadística. Las líneas se aplican ordenadas por jugador, para que
+ * dos actas que comparten jugadores bloqueen las filas en el mismo orden.
+ * 
+ * Cada suma de puntos se avisa con un {@link PuntosJugadorEvento} para que el ranking del
+ * equipo se actualice sin recargarse.
+ * 
  * @author Sergio Vigil Soto
  */
 
@@ -40,6 +57,24 @@ public class JugadorPartidoServicioImpl implements JugadorPartidoServicio {
     
     @Autowired
     private JugadorRepositorio jugadorRepositorio;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private static final String SUMAR_ESTADISTICAS = "UPDATE jugador SET "
+            + "goles = COALESCE(goles, 0) + ?, "
+            + "golesEncajados = COALESCE(golesEncajados, 0) + ?, "
+            + "tarjetasAmarillas = COALESCE(tarjetasAmarillas, 0) + ?, "
+            + "tarjetasRojas = COALESCE(tarjetasRojas, 0) + ?, "
+            + "puntosTotales = COALESCE(puntosTotales, 0) + ? "
+            + "WHERE idJugador = ?";
+
+    private static final String SUMAR_PUNTUACION = "UPDATE jugador_partido "
+            + "SET puntuacion = COALESCE(puntuacion, 0) + ? "
+            + "WHERE idJugador = ? AND idPartido = ?";
     
     //Métodos principales
 
@@ -154,7 +189,8 @@ public class JugadorPartidoServicioImpl implements JugadorPartidoServicio {
     }
     
     /**
-     * Asigna una puntuación a un jugador en un partido.
+     * Asigna una puntuación a un jugador en un partido. Ambas sumas son UPDATE atómicos, en el
+     * mismo orden que el acta, para no pisar cambios simultáneos sobre el jugador.
      */
     
     @Transactional
@@ -166,25 +202,84 @@ public class JugadorPartidoServicioImpl implements JugadorPartidoServicio {
             throw new IllegalArgumentException("La puntuación debe ser positiva.");
         }
 
-        JugadorPartidoPK pk = new JugadorPartidoPK(idJugador, idPartido);
-        JugadorPartido jp = jugadorPartidoRepositorio.findById(pk)
-                .orElseThrow(() -> new EntityNotFoundException("Jugador no encontrado en este partido"));
-
-        int puntuacionActual = jp.getPuntuacion() != null ? jp.getPuntuacion() : 0;
-        jp.setPuntuacion(puntuacionActual + puntuacion);
-        jugadorPartidoRepositorio.save(jp);
-
-        Jugador jugador = jp.getJugador();
-        int puntosTotales = jugador.getPuntosTotales() != null ? jugador.getPuntosTotales() : 0;
-        jugador.setPuntosTotales(puntosTotales + puntuacion);
-        jugadorRepositorio.save(jugador);
-
-        return new JugadorPuntuacionDTO
-        		(
-                jugador.getIdJugador(),
-                jugador.getNombre(),
-                jugador.getPuntosTotales(),
-                jp.getPuntuacion()
-        		);
+        // La transacción deshace la suma del jugador si no estaba en el partido
+        if (jugadorRepositorio.sumarPuntos(idJugador, puntuacion) == 0
+                || jugadorPartidoRepositorio.sumarPuntuacion(idJugador, idPartido, puntuacion) == 0) 
+        {
+            throw new EntityNotFoundException("Jugador no encontrado en este partido");
+        }
+
+        JugadorPuntuacionDTO resultado = jugadorPartidoRepositorio.buscarPuntuaciones(idPartido, List.of(idJugador)).get(0);
+        eventPublisher.publishEvent(new PuntosJugadorEvento(resultado.getIdJugador(), resultado.getPuntosTotales()));
+        return resultado;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    
+    @Override
+    @Transactional
+    public List<JugadorPuntuacionDTO> registrarActa(Long idPartido, List<EstadisticaActaDTO> acta) 
+    {
+        if (acta == null || acta.isEmpty()) 
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El acta no tiene jugadores");
+        }
+        if (!partidoRepositorio.existsById(idPartido)) 
+        {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Partido con ID " + idPartido + " no encontrado");
+        }
+
+        Set<String> ids = new HashSet<>();
+        for (EstadisticaActaDTO linea : acta) 
+        {
+            if (linea.getIdJugador() == null || !ids.add(linea.getIdJugador())) 
+            {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Cada jugador debe aparecer una sola vez en el acta: " + linea.getIdJugador());
+            }
+            if (valor(linea.getGoles()) < 0 || valor(linea.getGolesEncajados()) < 0 || valor(linea.getTarjetasAmarillas()) < 0
+                    || valor(linea.getTarjetasRojas()) < 0 || valor(linea.getPuntos()) < 0) 
+            {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Las estadísticas del jugador " + linea.getIdJugador() + " no pueden ser negativas");
+            }
+        }
+
+        List<String> ausentes = new ArrayList<>(ids);
+        ausentes.removeAll(jugadorPartidoRepositorio.buscarIdsJugadores(idPartido));
+        if (!ausentes.isEmpty()) 
+        {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Jugadores no encontrados en este partido: " + ausentes);
+        }
+
+        List<EstadisticaActaDTO> ordenadas = new ArrayList<>(acta);
+        ordenadas.sort(Comparator.comparing(EstadisticaActaDTO::getIdJugador));
+
+        jdbcTemplate.batchUpdate(SUMAR_ESTADISTICAS, ordenadas, ordenadas.size(), (sentencia, linea) -> 
+        {
+            sentencia.setInt(1, valor(linea.getGoles()));
+            sentencia.setInt(2, valor(linea.getGolesEncajados()));
+            sentencia.setInt(3, valor(linea.getTarjetasAmarillas()));
+            sentencia.setInt(4, valor(linea.getTarjetasRojas()));
+            sentencia.setInt(5, valor(linea.getPuntos()));
+            sentencia.setString(6, linea.getIdJugador());
+        });
+        jdbcTemplate.batchUpdate(SUMAR_PUNTUACION, ordenadas, ordenadas.size(), (sentencia, linea) -> 
+        {
+            sentencia.setInt(1, valor(linea.getPuntos()));
+            sentencia.setString(2, linea.getIdJugador());
+            sentencia.setLong(3, idPartido);
+        });
+
+        List<JugadorPuntuacionDTO> puntuaciones = jugadorPartidoRepositorio.buscarPuntuaciones(idPartido, ids);
+        puntuaciones.forEach(p -> eventPublisher.publishEvent(new PuntosJugadorEvento(p.getIdJugador(), p.getPuntosTotales())));
+        return puntuaciones;
+    }
+
+    private static int valor(Integer cantidad) 
+    {
+        return cantidad == null ? 0 : cantidad;
     }
-}
\ No newline at end of file
+}
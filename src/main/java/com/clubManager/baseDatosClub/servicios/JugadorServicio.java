@@ -3,7 +3,9 @@ package com.clubManager.baseDatosClub.servicios;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 
+import com.clubManager.baseDatosClub.dto.JugadorPlantillaDTO;
 import com.clubManager.baseDatosClub.dto.JugadorPuntuacionDTO;
 import com.clubManager.baseDatosClub.dto.JugadorRelacionDTO;
 import com.clubManager.baseDatosClub.entidades.Jugador;
@@ -114,10 +116,10 @@ public interface JugadorServicio {
     /**
      * Lista solo los jugadores que se encuentran activos y que pertenezcan a un equipo.
      * 
-     * @return lista de jugadores activos de un equipo dado.
+     * @return plantilla activa de un equipo dado.
      */
     
-    public List<Jugador> listarJugadoresActivosPorEquipo(String idEquipo);
+    public List<JugadorPlantillaDTO> listarJugadoresActivosPorEquipo(String idEquipo);
 
     /**
      * Cambia el estado activo/inactivo de un jugador.
@@ -134,40 +136,40 @@ public interface JugadorServicio {
      * 
      * @param idJugador identificador del jugador
      * @param tarjetasRojas cantidad de tarjetas rojas a sumar
-     * @return jugador actualizado
+     * @return tarjetas rojas del jugador tras la suma
      */
     
-    Jugador incrementarRojas(String idJugador, Integer tarjetasRojas);
+    int incrementarRojas(String idJugador, Integer tarjetasRojas);
     
     /**
      * Incrementa la cantidad de tarjetas amarillas de un jugador.
      * 
      * @param idJugador identificador del jugador
      * @param tarjetasAmarillas cantidad de tarjetas amarillas a sumar
-     * @return jugador actualizado
+     * @return tarjetas amarillas del jugador tras la suma
      */
     
-    Jugador incrementarAmarillas(String idJugador, Integer tarjetasAmarillas);
+    int incrementarAmarillas(String idJugador, Integer tarjetasAmarillas);
     
     /**
      * Incrementa la cantidad de goles recibidos por un portero.
      * 
      * @param idJugador identificador del jugador
-     * @param goles cantidad de goles a sumar
-     * @return jugador actualizado
+     * @param golesEncajados cantidad de goles a sumar
+     * @return goles encajados del jugador tras la suma
      */
     
-    Jugador incrementarGolesEncajados(String idJugador, Integer golesEncajados);
+    int incrementarGolesEncajados(String idJugador, Integer golesEncajados);
     
     /**
      * Incrementa la cantidad de goles anotados por un jugador.
      * 
      * @param idJugador identificador del jugador
      * @param goles cantidad de goles a sumar
-     * @return jugador actualizado
+     * @return goles del jugador tras la suma
      */
     
-    Jugador incrementarGoles(String idJugador, Integer goles);
+    int incrementarGoles(String idJugador, Integer goles);
     
     /**
      * Vincula un padre existente a un jugador, añadiendo la relación en la tabla intermedia.
@@ -207,6 +209,27 @@ public interface JugadorServicio {
     
     List<JugadorPuntuacionDTO> obtenerRankingPorEquipo(String idEquipo);
     
+    /**
+     * Obtiene los primeros jugadores del ranking de un equipo.
+     *
+     * @param idEquipo ID del equipo
+     * @param limite número máximo de jugadores, positivo
+     * @return los {@code limite} primeros jugadores con sus puntos totales
+     */
+    
+    List<JugadorPuntuacionDTO> obtenerRankingPorEquipo(String idEquipo, int limite);
+    
+    /**
+     * Obtiene la posición de un jugador en el ranking de su equipo. Los jugadores empatados
+     * a puntos comparten posición.
+     *
+     * @param idEquipo ID del equipo
+     * @param idJugador ID del jugador
+     * @return posición empezando en 1, vacío si el jugador no pertenece al equipo
+     */
+    
+    OptionalInt obtenerPosicionEnRanking(String idEquipo, String idJugador);
+    
     /**
      * Reactiva un jugador previamente inactivo y elimina su estado actual.
      *
@@ -230,8 +253,8 @@ public interface JugadorServicio {
      *
      * @param idJugador Identificador del jugador.
      * @param puntos    Cantidad de puntos a incrementar.
-     * @return El {@link Jugador} actualizado con los nuevos puntos.
+     * @return Puntos totales del jugador tras la suma.
      */
     
-    Jugador incrementarPuntos(String idJugador, Integer puntos);
+    int incrementarPuntos(String idJugador, Integer puntos);
 }
\ No newline at end of file
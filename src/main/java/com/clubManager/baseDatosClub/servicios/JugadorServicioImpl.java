@@ -1,16 +1,20 @@
 package com.clubManager.baseDatosClub.servicios;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.clubManager.baseDatosClub.dto.JugadorPlantillaDTO;
 import com.clubManager.baseDatosClub.dto.JugadorPuntuacionDTO;
 import com.clubManager.baseDatosClub.dto.JugadorRelacionDTO;
+import com.clubManager.baseDatosClub.entidades.Credencial;
 import com.clubManager.baseDatosClub.entidades.Jugador;
 import com.clubManager.baseDatosClub.entidades.Lesion;
 import com.clubManager.baseDatosClub.entidades.Padre;
@@ -20,6 +24,7 @@ import com.clubManager.baseDatosClub.repositorios.JugadorRepositorio;
 import com.clubManager.baseDatosClub.repositorios.LesionRepositorio;
 import com.clubManager.baseDatosClub.repositorios.PadreRepositorio;
 import com.clubManager.baseDatosClub.repositorios.SancionRepositorio;
+import com.clubManager.baseDatosClub.seguridad.PasswordServicio;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
@@ -27,6 +32,13 @@ import jakarta.transaction.Transactional;
 /**
  * Implementación de la interfaz {@link JugadorServicio}.
  * 
+ * Las estadísticas se suman con un UPDATE atómico y el nuevo valor se lee en la misma
+ * transacción: el bloqueo de la fila que toma el UPDATE dura hasta el final, así que el valor
+ * leído es exactamente el que ha dejado esta suma.
+ * 
+ * El ranking de cada equipo se sirve desde {@link ClasificacionServicio}. Las sumas de puntos
+ * y los cambios de plantilla se le avisan con eventos que se aplican al confirmar la transacción.
+ * 
  * @author Sergio Vigil Soto
  */
 
@@ -50,6 +62,26 @@ public class JugadorServicioImpl implements JugadorServicio {
     @Autowired
     private LesionRepositorio lesionRepo;
 
+    @Autowired
+    private CredencialServicio credencialServicio;
+
+    @Autowired
+    private PasswordServicio passwordServicio;
+
+    /**
+     * Transacción de las altas y modificaciones, que se abre una vez calculado el hash de la
+     * contraseña para que BCrypt no se ejecute con una conexión del pool reservada.
+     */
+
+    @Autowired
+    private TransactionTemplate transaccion;
+
+    @Autowired
+    private ClasificacionServicio clasificacionServicio;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,}$");
     private static final Pattern DNI_PATTERN = Pattern.compile("^[0-9]{8}[A-Za-z]$");
     private static final Pattern TELEFONO_PATTERN = Pattern.compile("^\\+?[0-9]{7,15}$");
@@ -86,13 +118,19 @@ public class JugadorServicioImpl implements JugadorServicio {
         jugador.setDni(dni);
         jugador.setDireccion(direccion);
         jugador.setTipoUsuario(tipoUsuario);
-        jugador.setPassword(password);
+        jugador.setPassword(passwordServicio.hashear(password));
         jugador.setTelefono(telefono);
         jugador.setEmail(email);
         jugador.setPosicion(posicion);
         jugador.setFechaNacimiento(fechaNacimiento);
         jugador.setActivo(true);
-        jugadorRepositorio.save(jugador);
+
+        transaccion.executeWithoutResult(estado ->
+        {
+            jugadorRepositorio.save(jugador);
+            registrarCredencial(jugador);
+            avisarCambioPlantilla(jugador);
+        });
     }
 
     /** 
@@ -104,31 +142,38 @@ public class JugadorServicioImpl implements JugadorServicio {
     							 String tipoUsuario, String password, String foto, String telefono, String email,
                                  String posicion, LocalDate fechaNacimiento) 
     {
-        Jugador jugador = jugadorRepositorio.findById(idJugador)
-            .orElseThrow(() -> new IllegalArgumentException("No se encontró el jugador con el id: " + idJugador));
-
         validarDatosJugador(idJugador, nombre, apellidos, dni, direccion, tipoUsuario, password,
         		telefono, email, posicion, fechaNacimiento);
+        String hash = passwordServicio.hashear(password);
 
-        jugador.setNombre(nombre);
-        jugador.setApellidos(apellidos);
-        jugador.setDni(dni);
-        jugador.setDireccion(direccion);
-        jugador.setTipoUsuario(tipoUsuario);
-        jugador.setPassword(password);
-        jugador.setFoto(foto);
-        jugador.setTelefono(telefono);
-        jugador.setEmail(email);
-        jugador.setPosicion(posicion);
-        jugador.setFechaNacimiento(fechaNacimiento);
-
-        jugadorRepositorio.save(jugador);
+        transaccion.executeWithoutResult(estado ->
+        {
+            Jugador jugador = jugadorRepositorio.findById(idJugador)
+                .orElseThrow(() -> new IllegalArgumentException("No se encontró el jugador con el id: " + idJugador));
+
+            jugador.setNombre(nombre);
+            jugador.setApellidos(apellidos);
+            jugador.setDni(dni);
+            jugador.setDireccion(direccion);
+            jugador.setTipoUsuario(tipoUsuario);
+            jugador.setPassword(hash);
+            jugador.setFoto(foto);
+            jugador.setTelefono(telefono);
+            jugador.setEmail(email);
+            jugador.setPosicion(posicion);
+            jugador.setFechaNacimiento(fechaNacimiento);
+
+            jugadorRepositorio.save(jugador);
+            registrarCredencial(jugador);
+            avisarCambioPlantilla(jugador);
+        });
     }
 
     /** 
      * {@inheritDoc} 
      */
     
+    @Transactional
     public boolean eliminarJugador(String idJugador, String idEquipo) 
     {
         Optional<Jugador> jugadorOpt = jugadorRepositorio.findById(idJugador);
@@ -140,6 +185,8 @@ public class JugadorServicioImpl implements JugadorServicio {
                 jugador.getEquipo().getIdEquipo().equals(idEquipo)) {
 
                 jugadorRepositorio.delete(jugador);
+                credencialServicio.eliminar(idJugador, Credencial.TIPO_JUGADOR);
+                eventPublisher.publishEvent(new PlantillaCambiadaEvento(idEquipo, idJugador));
                 return true;
             }
         }
@@ -156,7 +203,15 @@ public class JugadorServicioImpl implements JugadorServicio {
         validarDatosJugador(jugador.getIdJugador(), jugador.getNombre(), jugador.getApellidos(), jugador.getDni(), jugador.getDireccion(),
                 jugador.getTipoUsuario(), jugador.getPassword(), jugador.getTelefono(), jugador.getEmail(),
                 jugador.getPosicion(), jugador.getFechaNacimiento());
-        return jugadorRepositorio.save(jugador);
+        jugador.setPassword(passwordServicio.hashear(jugador.getPassword()));
+
+        return transaccion.execute(estado ->
+        {
+            Jugador guardado = jugadorRepositorio.save(jugador);
+            registrarCredencial(jugador);
+            avisarCambioPlantilla(jugador);
+            return guardado;
+        });
     }
 
     /** 
@@ -176,7 +231,7 @@ public class JugadorServicioImpl implements JugadorServicio {
     @Override
     public Jugador actualizarJugador(Jugador jugador) 
     {
-        if (jugador.getIdJugador() == null || jugadorRepositorio.findById(jugador.getIdJugador()).isEmpty()) 
+        if (jugador.getIdJugador() == null) 
         {
             throw new IllegalArgumentException("No existe jugador con ese ID.");
         }
@@ -184,8 +239,20 @@ public class JugadorServicioImpl implements JugadorServicio {
         validarDatosJugador(jugador.getIdJugador(), jugador.getNombre(), jugador.getApellidos(), jugador.getDni(), jugador.getDireccion(),
                 jugador.getTipoUsuario(), jugador.getPassword(), jugador.getTelefono(), jugador.getEmail(),
                 jugador.getPosicion(), jugador.getFechaNacimiento());
+        jugador.setPassword(passwordServicio.hashear(jugador.getPassword()));
 
-        return jugadorRepositorio.save(jugador);
+        return transaccion.execute(estado ->
+        {
+            if (jugadorRepositorio.findById(jugador.getIdJugador()).isEmpty()) 
+            {
+                throw new IllegalArgumentException("No existe jugador con ese ID.");
+            }
+
+            Jugador guardado = jugadorRepositorio.save(jugador);
+            registrarCredencial(jugador);
+            avisarCambioPlantilla(jugador);
+            return guardado;
+        });
     }
 
     /** 
@@ -193,9 +260,12 @@ public class JugadorServicioImpl implements JugadorServicio {
      */
     
     @Override
+    @Transactional
     public void eliminarJugadorPorId(String idJugador) 
     {
         jugadorRepositorio.deleteById(idJugador);
+        credencialServicio.eliminar(idJugador, Credencial.TIPO_JUGADOR);
+        eventPublisher.publishEvent(new PlantillaCambiadaEvento(null, idJugador));
     }
 
     /** 
@@ -203,9 +273,9 @@ public class JugadorServicioImpl implements JugadorServicio {
      */
     
     @Override
-    public List<Jugador> listarJugadoresActivosPorEquipo(String idEquipo) 
+    public List<JugadorPlantillaDTO> listarJugadoresActivosPorEquipo(String idEquipo) 
     {
-        return jugadorRepositorio.findByActivoTrueAndEquipo_idEquipo(idEquipo);
+        return jugadorRepositorio.buscarPlantillaActivaPorEquipo(idEquipo);
     }
 
     /** 
@@ -227,18 +297,19 @@ public class JugadorServicioImpl implements JugadorServicio {
      */
     
     @Override
-    public Jugador incrementarGoles(String idJugador, Integer goles) 
+    @Transactional
+    public int incrementarGoles(String idJugador, Integer goles) 
     {
         if (goles <= 0) 
         {
             throw new IllegalArgumentException("Los goles a incrementar deben ser positivos.");
         }
 
-        Jugador jugador = jugadorRepositorio.findById(idJugador)
-            .orElseThrow(() -> new IllegalArgumentException("No se encontró el jugador con id: " + idJugador));
-
-        jugador.setGoles(jugador.getGoles() + goles);
-        return jugadorRepositorio.save(jugador);
+        if (jugadorRepositorio.sumarGoles(idJugador, goles) == 0) 
+        {
+            throw new IllegalArgumentException("No se encontró el jugador con id: " + idJugador);
+        }
+        return jugadorRepositorio.leerGoles(idJugador);
     }
     
     /** 
@@ -246,18 +317,19 @@ public class JugadorServicioImpl implements JugadorServicio {
      */
     
     @Override
-    public Jugador incrementarGolesEncajados(String idJugador, Integer golesEncajados) 
+    @Transactional
+    public int incrementarGolesEncajados(String idJugador, Integer golesEncajados) 
     {
         if (golesEncajados <= 0) 
         {
             throw new IllegalArgumentException("Los goles a incrementar deben ser positivos.");
         }
 
-        Jugador jugador = jugadorRepositorio.findById(idJugador)
-            .orElseThrow(() -> new IllegalArgumentException("No se encontró el jugador con id: " + idJugador));
-
-        jugador.setGolesEncajados(jugador.getGolesEncajados() + golesEncajados);
-        return jugadorRepositorio.save(jugador);
+        if (jugadorRepositorio.sumarGolesEncajados(idJugador, golesEncajados) == 0) 
+        {
+            throw new IllegalArgumentException("No se encontró el jugador con id: " + idJugador);
+        }
+        return jugadorRepositorio.leerGolesEncajados(idJugador);
     }
     
     /** 
@@ -265,33 +337,35 @@ public class JugadorServicioImpl implements JugadorServicio {
      */
     
     @Override
-	public Jugador incrementarRojas(String idJugador, Integer tarjetasRojas) 
+    @Transactional
+	public int incrementarRojas(String idJugador, Integer tarjetasRojas) 
     {
     	if (tarjetasRojas <= 0) 
         {
             throw new IllegalArgumentException("Las tarjetas rojas a incrementar deben ser positivas.");
         }
 
-        Jugador jugador = jugadorRepositorio.findById(idJugador)
-            .orElseThrow(() -> new IllegalArgumentException("No se encontró el jugador con id: " + idJugador));
-
-        jugador.setTarjetasRojas(jugador.getTarjetasRojas() + tarjetasRojas);
-        return jugadorRepositorio.save(jugador);
+        if (jugadorRepositorio.sumarRojas(idJugador, tarjetasRojas) == 0) 
+        {
+            throw new IllegalArgumentException("No se encontró el jugador con id: " + idJugador);
+        }
+        return jugadorRepositorio.leerRojas(idJugador);
 	}
 
 	@Override
-	public Jugador incrementarAmarillas(String idJugador, Integer tarjetasAmarillas) 
+	@Transactional
+	public int incrementarAmarillas(String idJugador, Integer tarjetasAmarillas) 
 	{
 		if (tarjetasAmarillas <= 0) 
         {
             throw new IllegalArgumentException("Las tarjetas amarillas a incrementar deben ser positivas.");
         }
 
-        Jugador jugador = jugadorRepositorio.findById(idJugador)
-            .orElseThrow(() -> new IllegalArgumentException("No se encontró el jugador con id: " + idJugador));
-
-        jugador.setTarjetasAmarillas(jugador.getTarjetasAmarillas() + tarjetasAmarillas);
-        return jugadorRepositorio.save(jugador);
+        if (jugadorRepositorio.sumarAmarillas(idJugador, tarjetasAmarillas) == 0) 
+        {
+            throw new IllegalArgumentException("No se encontró el jugador con id: " + idJugador);
+        }
+        return jugadorRepositorio.leerAmarillas(idJugador);
 	}
     
     /** 
@@ -323,10 +397,7 @@ public class JugadorServicioImpl implements JugadorServicio {
     @Override
     public List<JugadorRelacionDTO> listarJugadoresPorEquipo(String idEquipo) 
     {
-        List<Jugador> jugadores = jugadorRepositorio.findByEquipo_IdEquipo(idEquipo);
-        return jugadores.stream()
-            .map(j -> new JugadorRelacionDTO(j.getIdJugador(), j.getNombre(), j.getApellidos()))
-            .toList();
+        return jugadorRepositorio.buscarRelacionPorEquipo(idEquipo);
     }
     
     /** 
@@ -341,6 +412,8 @@ public class JugadorServicioImpl implements JugadorServicio {
             throw new IllegalArgumentException("El equipo con ID '" + idEquipo + "' no existe.");
         }
         jugadorRepositorio.deleteByEquipo_IdEquipo(idEquipo);
+        credencialServicio.eliminarJugadoresDeEquipo(idEquipo);
+        eventPublisher.publishEvent(new PlantillaCambiadaEvento(idEquipo, null));
     }
     
     /** 
@@ -378,22 +451,21 @@ public class JugadorServicioImpl implements JugadorServicio {
      */
     
     @Override
-    public Jugador incrementarPuntos(String idJugador, Integer puntos) 
+    @Transactional
+    public int incrementarPuntos(String idJugador, Integer puntos) 
     {
         if (puntos == null || puntos <= 0) 
         {
             throw new IllegalArgumentException("Los puntos a incrementar deben ser un valor positivo.");
         }
 
-        Jugador jugador = jugadorRepositorio.findById(idJugador)
-            .orElseThrow(() -> new EntityNotFoundException("No se encontró el jugador con id: " + idJugador));
-
-        int puntosPrevios = jugador.getPuntosTotales() != null ? jugador.getPuntosTotales() : 0;
-        int nuevosPuntos = puntosPrevios + puntos;
-
-        jugador.setPuntosTotales(nuevosPuntos);
-
-        return jugadorRepositorio.save(jugador);
+        if (jugadorRepositorio.sumarPuntos(idJugador, puntos) == 0) 
+        {
+            throw new EntityNotFoundException("No se encontró el jugador con id: " + idJugador);
+        }
+        int puntosTotales = jugadorRepositorio.leerPuntos(idJugador);
+        eventPublisher.publishEvent(new PuntosJugadorEvento(idJugador, puntosTotales));
+        return puntosTotales;
     }
     
     /** 
@@ -403,17 +475,51 @@ public class JugadorServicioImpl implements JugadorServicio {
     @Override
     public List<JugadorPuntuacionDTO> obtenerRankingPorEquipo(String idEquipo) 
     {
-        List<Jugador> jugadores = jugadorRepositorio.findByEquipo_IdEquipoOrderByPuntosTotalesDesc(idEquipo);
-
-        List<JugadorPuntuacionDTO> ranking = new ArrayList<>();
-        for (Jugador jugador : jugadores) {
-            JugadorPuntuacionDTO dto = new JugadorPuntuacionDTO();
-            dto.setIdJugador(jugador.getIdJugador());
-            dto.setNombre(jugador.getNombre());
-            dto.setPuntosTotales(jugador.getPuntosTotales());
-            ranking.add(dto);
+        return clasificacionServicio.primeros(idEquipo, -1);
+    }
+
+    /** 
+     * {@inheritDoc} 
+     */
+
+    @Override
+    public List<JugadorPuntuacionDTO> obtenerRankingPorEquipo(String idEquipo, int limite) 
+    {
+        if (limite <= 0) 
+        {
+            throw new IllegalArgumentException("El límite del ranking debe ser positivo.");
         }
-        return ranking;
+        return clasificacionServicio.primeros(idEquipo, limite);
+    }
+
+    /** 
+     * {@inheritDoc} 
+     */
+
+    @Override
+    public OptionalInt obtenerPosicionEnRanking(String idEquipo, String idJugador) 
+    {
+        return clasificacionServicio.posicion(idEquipo, idJugador);
+    }
+    
+    /**
+     * Avisa del cambio en la plantilla del equipo del jugador.
+     */
+    
+    private void avisarCambioPlantilla(Jugador jugador) 
+    {
+        String idEquipo = jugador.getEquipo() != null ? jugador.getEquipo().getIdEquipo() : null;
+        eventPublisher.publishEvent(new PlantillaCambiadaEvento(idEquipo, jugador.getIdJugador()));
+    }
+    
+    /**
+     * Mantiene al día la credencial de login del jugador.
+     */
+    
+    private void registrarCredencial(Jugador jugador) 
+    {
+        String idEquipo = jugador.getEquipo() != null ? jugador.getEquipo().getIdEquipo() : null;
+        credencialServicio.registrar(jugador.getIdJugador(), Credencial.TIPO_JUGADOR, jugador.getPassword(), idEquipo);
     }
     
     /**
@@ -0,0 +1,322 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.clubManager.baseDatosClub.almacenamiento.Almacen;
+import com.clubManager.baseDatosClub.almacenamiento.AlmacenLocal;
+import com.clubManager.baseDatosClub.almacenamiento.EstadoObjeto;
+import com.clubManager.baseDatosClub.almacenamiento.ObjetoListado;
+import com.clubManager.baseDatosClub.dto.ResultadoLimpiezaDTO;
+import com.clubManager.baseDatosClub.repositorios.ContenidoArchivoRepositorio;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Servicio que retira del almacén de archivos los que ya no referencia ningún registro.
+ *
+ * Recorre el {@link Almacen} configurado con {@link Almacen#listar}, que lo lee de forma perezosa
+ * (en S3, por páginas de ListObjectsV2), y comprueba los archivos por lotes con una sola consulta
+ * por lote, de modo que la memoria usada depende del tamaño del lote y no del número de archivos.
+ * Solo se consideran los archivos más antiguos que el periodo de gracia, para no retirar una
+ * subida cuyo registro aún no se ha guardado, y cada huérfano se vuelve a comprobar justo antes
+ * de retirarlo bajo el bloqueo de su contenido.
+ *
+ * Los huérfanos se mueven bajo la clave {@code .cuarentena/}, donde se borran al vencer la
+ * retención, o se borran directamente si la cuarentena está desactivada. Los temporales
+ * {@code .parte} de subidas interrumpidas se borran siempre; con un almacén remoto se buscan
+ * en la carpeta local de subida, que es donde se preparan.
+ *
+ * Los archivos retirados se cuentan en {@code clubmanager.upload.limpieza.huerfanos} y los bytes en
+ * {@code clubmanager.upload.limpieza.bytes}, etiquetados por destino.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Service
+public class LimpiezaArchivosServicio {
+
+	//Area de datos
+
+    private static final Logger log = LoggerFactory.getLogger(LimpiezaArchivosServicio.class);
+
+    static final String CARPETA_CUARENTENA = ".cuarentena";
+    private static final String PREFIJO_CUARENTENA = CARPETA_CUARENTENA + "/";
+    private static final String SUFIJO_TEMPORAL = ".parte";
+
+    @Autowired
+    private FileStorageService fileStorage;
+
+    @Autowired
+    private ContenidoArchivoRepositorio contenidoRepo;
+
+    @Value("${clubmanager.upload.limpieza.gracia-horas:24}")
+    private long graciaHoras;
+
+    @Value("${clubmanager.upload.limpieza.lote:500}")
+    private int lote;
+
+    @Value("${clubmanager.upload.limpieza.cuarentena:true}")
+    private boolean cuarentena;
+
+    @Value("${clubmanager.upload.limpieza.retencion-dias:7}")
+    private long retencionDias;
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean enCurso = new AtomicBoolean();
+
+    //Constructor
+
+    public LimpiezaArchivosServicio(MeterRegistry meterRegistry)
+    {
+        this.meterRegistry = meterRegistry;
+    }
+
+    //Métodos principales
+
+    /**
+     * Pasada programada de la limpieza. Si ya hay una en curso no hace nada.
+     */
+
+    @Scheduled(cron = "${clubmanager.upload.limpieza.cron:0 30 4 * * *}")
+    public void limpiezaProgramada()
+    {
+        try
+        {
+            limpiar();
+        }
+        catch (ResponseStatusException e)
+        {
+            log.info("Limpieza de archivos omitida: {}", e.getReason());
+        }
+    }
+
+    /**
+     * Retira los archivos huérfanos y purga la cuarentena vencida.
+     *
+     * @return archivos revisados, huérfanos retirados y bytes apartados y recuperados
+     * @throws ResponseStatusException 409 si ya hay una limpieza en curso
+     */
+
+    public ResultadoLimpiezaDTO limpiar()
+    {
+        if (!enCurso.compareAndSet(false, true))
+        {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Ya hay una limpieza en curso");
+        }
+
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        ResultadoLimpiezaDTO resultado = new ResultadoLimpiezaDTO();
+        try
+        {
+            Almacen almacen = fileStorage.getAlmacen();
+            Instant limite = Instant.now().minus(Duration.ofHours(graciaHoras));
+
+            recorrer(almacen, limite, resultado, true);
+            if (!(almacen instanceof AlmacenLocal))
+            {
+                // Con un almacén remoto los temporales quedan en la carpeta local de subida
+                recorrer(new AlmacenLocal(fileStorage.getLocalizacion().toString()), limite, resultado, false);
+            }
+            purgarCuarentena(almacen, resultado);
+
+            log.info("Limpieza de archivos: {} revisados, {} huérfanos, {} bytes en cuarentena, {} bytes recuperados",
+                    resultado.getRevisados(), resultado.getHuerfanos(),
+                    resultado.getBytesEnCuarentena(), resultado.getBytesRecuperados());
+            return resultado;
+        }
+        catch (IOException | UncheckedIOException e)
+        {
+            throw new RuntimeException("Error al recorrer el almacén de archivos", e);
+        }
+        finally
+        {
+            meterRegistry.counter("clubmanager.upload.limpieza.huerfanos").increment(resultado.getHuerfanos());
+            meterRegistry.counter("clubmanager.upload.limpieza.bytes", "destino", "cuarentena")
+                    .increment(resultado.getBytesEnCuarentena());
+            meterRegistry.counter("clubmanager.upload.limpieza.bytes", "destino", "recuperados")
+                    .increment(resultado.getBytesRecuperados());
+            muestra.stop(meterRegistry.timer("clubmanager.upload.limpieza"));
+            enCurso.set(false);
+        }
+    }
+
+    /**
+     * Recorre un almacén fuera de la cuarentena y retira por lotes los archivos antiguos huérfanos.
+     *
+     * @param publicados si el almacén guarda archivos publicados; si no, solo se buscan temporales
+     */
+
+    private void recorrer(Almacen almacen, Instant limite, ResultadoLimpiezaDTO resultado, boolean publicados)
+            throws IOException
+    {
+        List<ObjetoListado> pendientes = new ArrayList<>(lote);
+        try (Stream<ObjetoListado> objetos = almacen.listar(""))
+        {
+            Iterator<ObjetoListado> it = objetos
+                    .filter(o -> !o.getClave().startsWith(PREFIJO_CUARENTENA))
+                    .filter(o -> publicados || esTemporal(o.getClave()))
+                    .iterator();
+            while (it.hasNext())
+            {
+                ObjetoListado objeto = it.next();
+                resultado.setRevisados(resultado.getRevisados() + 1);
+                if (objeto.getModificado().isBefore(limite))
+                {
+                    pendientes.add(objeto);
+                }
+                if (pendientes.size() >= lote)
+                {
+                    procesar(almacen, pendientes, limite, resultado);
+                    pendientes.clear();
+                }
+            }
+        }
+        procesar(almacen, pendientes, limite, resultado);
+    }
+
+    /**
+     * Comprueba un lote de archivos antiguos con una sola consulta y retira los que nadie referencia.
+     */
+
+    private void procesar(Almacen almacen, List<ObjetoListado> pendientes, Instant limite, ResultadoLimpiezaDTO resultado)
+    {
+        if (pendientes.isEmpty())
+        {
+            return;
+        }
+
+        Map<String, String> porUrl = new LinkedHashMap<>();
+        for (ObjetoListado objeto : pendientes)
+        {
+            if (esTemporal(objeto.getClave()))
+            {
+                retirar(almacen, objeto.getClave(), null, limite, resultado);
+            }
+            else
+            {
+                porUrl.put(fileStorage.url(objeto.getClave()), objeto.getClave());
+            }
+        }
+        if (porUrl.isEmpty())
+        {
+            return;
+        }
+
+        Set<String> referenciadas = new HashSet<>(contenidoRepo.buscarUrlsReferenciadas(porUrl.keySet()));
+        for (Map.Entry<String, String> entrada : porUrl.entrySet())
+        {
+            if (!referenciadas.contains(entrada.getKey()))
+            {
+                retirar(almacen, entrada.getValue(), entrada.getKey(), limite, resultado);
+            }
+        }
+    }
+
+    /**
+     * Retira un archivo huérfano. Bajo el bloqueo de su contenido se vuelve a comprobar que sigue
+     * sin referencias y sin modificar, por si una subida lo ha vuelto a publicar desde la consulta
+     * del lote.
+     *
+     * @param url URL pública del archivo, o nulo si es un temporal y se borra sin comprobar
+     */
+
+    private void retirar(Almacen almacen, String clave, String url, Instant limite, ResultadoLimpiezaDTO resultado)
+    {
+        String huella = FileStorageService.huellaDeNombre(clave.substring(clave.lastIndexOf('/') + 1));
+        ReentrantLock bloqueo = huella == null ? null : fileStorage.bloqueo(huella);
+        if (bloqueo != null)
+        {
+            bloqueo.lock();
+        }
+
+        try
+        {
+            EstadoObjeto estado = almacen.estado(clave).orElse(null);
+            if (estado == null || !estado.getModificado().isBefore(limite)
+                    || (url != null && !contenidoRepo.buscarUrlsReferenciadas(List.of(url)).isEmpty()))
+            {
+                return;
+            }
+
+            if (url != null && cuarentena)
+            {
+                // La retención cuenta desde que entra en cuarentena
+                almacen.mover(clave, PREFIJO_CUARENTENA + clave);
+                resultado.setBytesEnCuarentena(resultado.getBytesEnCuarentena() + estado.getTamano());
+            }
+            else
+            {
+                almacen.borrar(clave);
+                resultado.setBytesRecuperados(resultado.getBytesRecuperados() + estado.getTamano());
+            }
+            resultado.setHuerfanos(resultado.getHuerfanos() + 1);
+        }
+        catch (NoSuchFileException e)
+        {
+            // Ya lo ha borrado otra operación
+        }
+        catch (IOException | UncheckedIOException e)
+        {
+            log.warn("No se pudo retirar el archivo huérfano {}: {}", clave, e.getMessage());
+        }
+        finally
+        {
+            if (bloqueo != null)
+            {
+                bloqueo.unlock();
+            }
+        }
+    }
+
+    /**
+     * Borra de la cuarentena los archivos cuya retención ha vencido.
+     */
+
+    private void purgarCuarentena(Almacen almacen, ResultadoLimpiezaDTO resultado) throws IOException
+    {
+        Instant limite = Instant.now().minus(Duration.ofDays(retencionDias));
+        try (Stream<ObjetoListado> objetos = almacen.listar(PREFIJO_CUARENTENA))
+        {
+            Iterator<ObjetoListado> it = objetos.iterator();
+            while (it.hasNext())
+            {
+                ObjetoListado objeto = it.next();
+                if (objeto.getModificado().isBefore(limite))
+                {
+                    almacen.borrar(objeto.getClave());
+                    resultado.setBytesRecuperados(resultado.getBytesRecuperados() + objeto.getTamano());
+                }
+            }
+        }
+    }
+
+    private static boolean esTemporal(String clave)
+    {
+        String nombre = clave.substring(clave.lastIndexOf('/') + 1);
+        return nombre.startsWith(".") && nombre.endsWith(SUFIJO_TEMPORAL);
+    }
+}
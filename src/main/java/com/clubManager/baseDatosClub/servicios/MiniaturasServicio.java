@@ -0,0 +1,370 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.clubManager.baseDatosClub.almacenamiento.Almacen;
+import com.clubManager.baseDatosClub.entidades.Galeria;
+import com.clubManager.baseDatosClub.repositorios.GaleriaRepositorio;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Servicio que genera en segundo plano las variantes reducidas de las imágenes de la galería:
+ * una miniatura cuadrada para las cuadrículas y una vista previa de tamaño medio.
+ *
+ * Cada imagen se procesa en un pool de hilos propio con cola acotada; si la cola está llena
+ * la imagen se queda sin variantes hasta la siguiente pasada del proceso de puesta al día,
+ * que recorre por lotes los documentos que aún no tienen miniatura. Al leer la imagen se
+ * submuestrea según el tamaño de la vista previa, para no decodificar a resolución completa
+ * fotos de decenas de megapíxeles.
+ *
+ * Las variantes se guardan junto al original y se asignan a todos los documentos que comparten
+ * el archivo. Los archivos que no son imágenes, o que ya no existen, se marcan en sus documentos
+ * para que la puesta al día no los vuelva a abrir en cada vuelta. Tanto la lectura como la escritura
+ * pasan por el almacén configurado, así que funciona igual con el disco local que con uno compartido.
+ *
+ * El tiempo de cada generación se registra en {@code clubmanager.galeria.miniaturas} por
+ * resultado, y el tamaño de cada variante en {@code clubmanager.galeria.variante.bytes}.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Service
+public class MiniaturasServicio {
+
+	//Area de datos
+
+    private static final Logger log = LoggerFactory.getLogger(MiniaturasServicio.class);
+
+    private static final float CALIDAD_JPEG = 0.8f;
+
+    @Autowired
+    private GaleriaRepositorio galeriaRepo;
+
+    @Autowired
+    private FileStorageService fileStorage;
+
+    @Value("${clubmanager.galeria.miniaturas.lote:50}")
+    private int lote;
+
+    private final int ladoMiniatura;
+    private final int ladoVista;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+
+    private volatile long cursorPuestaAlDia = 0L;
+
+    //Constructor
+
+    /**
+     * Crea el servicio y su pool de generación.
+     *
+     * @param hilos número de imágenes procesadas a la vez
+     * @param colaMax número máximo de imágenes en espera
+     * @param ladoMiniatura lado en píxeles de la miniatura cuadrada
+     * @param ladoVista lado mayor en píxeles de la vista previa
+     * @param meterRegistry registro de métricas
+     */
+
+    public MiniaturasServicio
+    		(
+    		@Value("${clubmanager.galeria.miniaturas.hilos:2}") int hilos,
+    		@Value("${clubmanager.galeria.miniaturas.cola-max:200}") int colaMax,
+    		@Value("${clubmanager.galeria.miniaturas.lado-miniatura:256}") int ladoMiniatura,
+    		@Value("${clubmanager.galeria.miniaturas.lado-vista:1024}") int ladoVista,
+    		MeterRegistry meterRegistry
+    		)
+    {
+        AtomicInteger contador = new AtomicInteger();
+
+        this.ladoMiniatura = ladoMiniatura;
+        this.ladoVista = ladoVista;
+        this.meterRegistry = meterRegistry;
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(colaMax),
+                r ->
+                {
+                    Thread t = new Thread(r, "miniaturas-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                });
+
+        meterRegistry.gauge("clubmanager.galeria.miniaturas.cola", executor, e -> e.getQueue().size());
+    }
+
+    //Métodos principales
+
+    /**
+     * Encola la generación de las variantes de un archivo.
+     *
+     * @param url ruta pública del archivo original
+     * @return true si se ha encolado, false si la cola está llena
+     */
+
+    public boolean programar(String url)
+    {
+        try
+        {
+            executor.execute(() -> generar(url));
+            return true;
+        }
+        catch (RejectedExecutionException e)
+        {
+            meterRegistry.counter("clubmanager.galeria.miniaturas.rechazadas").increment();
+            return false;
+        }
+    }
+
+    /**
+     * Encola un lote de documentos que aún no tienen miniatura, continuando donde se quedó la
+     * pasada anterior. Al llegar al final vuelve a empezar, de modo que los documentos que no
+     * pudieron encolarse se recogen en la siguiente vuelta.
+     *
+     * @return número de documentos encolados
+     */
+
+    @Scheduled
+    (
+        fixedDelayString = "${clubmanager.galeria.miniaturas.intervalo-ms:60000}",
+        initialDelayString = "${clubmanager.galeria.miniaturas.intervalo-ms:60000}"
+    )
+    public int ponerAlDia()
+    {
+        int libres = executor.getQueue().remainingCapacity();
+        if (libres == 0)
+        {
+            return 0;
+        }
+
+        List<Object[]> pendientes = galeriaRepo.buscarSinMiniatura(cursorPuestaAlDia,
+                PageRequest.of(0, Math.min(lote, libres)));
+        if (pendientes.isEmpty())
+        {
+            cursorPuestaAlDia = 0L;
+            return 0;
+        }
+
+        int encolados = 0;
+        for (Object[] fila : pendientes)
+        {
+            if (!programar((String) fila[1]))
+            {
+                break;
+            }
+            cursorPuestaAlDia = (Long) fila[0];
+            encolados++;
+        }
+        return encolados;
+    }
+
+    @PreDestroy
+    public void cerrar()
+    {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Genera las variantes que falten y las asigna a los documentos del archivo.
+     */
+
+    void generar(String url)
+    {
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        String resultado = "error";
+
+        try
+        {
+            Almacen almacen = fileStorage.getAlmacen();
+            String original = fileStorage.clave(url);
+            if (original == null || almacen.estado(original).isEmpty())
+            {
+                resultado = Galeria.VARIANTES_SIN_ARCHIVO;
+                galeriaRepo.marcarSinVariantes(url, resultado);
+                return;
+            }
+
+            String urlMiniatura = FileStorageService.urlVariante(url, FileStorageService.VARIANTE_MINIATURA);
+            String urlVista = FileStorageService.urlVariante(url, FileStorageService.VARIANTE_VISTA);
+            String miniatura = fileStorage.clave(urlMiniatura);
+            String vista = fileStorage.clave(urlVista);
+
+            if (almacen.estado(miniatura).isEmpty() || almacen.estado(vista).isEmpty())
+            {
+                BufferedImage imagen = leer(almacen, original);
+                if (imagen == null)
+                {
+                    resultado = Galeria.VARIANTES_NO_IMAGEN;
+                    galeriaRepo.marcarSinVariantes(url, resultado);
+                    return;
+                }
+
+                escribir(ajustar(imagen, ladoVista), vista, FileStorageService.VARIANTE_VISTA);
+                escribir(recortarCuadrado(imagen, ladoMiniatura), miniatura, FileStorageService.VARIANTE_MINIATURA);
+            }
+
+            galeriaRepo.actualizarVariantes(url, urlMiniatura, urlVista);
+            resultado = "ok";
+        }
+        catch (Exception e)
+        {
+            log.warn("No se pudieron generar las variantes de {}: {}", url, e.getMessage());
+        }
+        finally
+        {
+            muestra.stop(meterRegistry.timer("clubmanager.galeria.miniaturas", "resultado", resultado));
+        }
+    }
+
+    /**
+     * Lee la imagen submuestreada de modo que su lado mayor no baje del de la vista previa.
+     *
+     * @return imagen leída, o nulo si el archivo no es una imagen reconocida
+     */
+
+    private BufferedImage leer(Almacen almacen, String original) throws IOException
+    {
+        try (InputStream flujo = almacen.abrir(original, 0, -1);
+             ImageInputStream entrada = ImageIO.createImageInputStream(flujo))
+        {
+            Iterator<ImageReader> lectores = entrada == null ? null : ImageIO.getImageReaders(entrada);
+            if (lectores == null || !lectores.hasNext())
+            {
+                return null;
+            }
+
+            ImageReader lector = lectores.next();
+            try
+            {
+                lector.setInput(entrada, true, true);
+                int ladoMayor = Math.max(lector.getWidth(0), lector.getHeight(0));
+                int paso = Math.max(1, ladoMayor / ladoVista);
+
+                ImageReadParam parametros = lector.getDefaultReadParam();
+                parametros.setSourceSubsampling(paso, paso, 0, 0);
+                return lector.read(0, parametros);
+            }
+            finally
+            {
+                lector.dispose();
+            }
+        }
+    }
+
+    /**
+     * Reduce la imagen para que su lado mayor mida como mucho {@code lado}.
+     */
+
+    private static BufferedImage ajustar(BufferedImage imagen, int lado)
+    {
+        double escala = Math.min(1.0, (double) lado / Math.max(imagen.getWidth(), imagen.getHeight()));
+        int ancho = Math.max(1, (int) Math.round(imagen.getWidth() * escala));
+        int alto = Math.max(1, (int) Math.round(imagen.getHeight() * escala));
+        return escalar(imagen, 0, 0, imagen.getWidth(), imagen.getHeight(), ancho, alto);
+    }
+
+    /**
+     * Recorta el cuadrado central de la imagen y lo escala a {@code lado} x {@code lado}.
+     */
+
+    private static BufferedImage recortarCuadrado(BufferedImage imagen, int lado)
+    {
+        int corte = Math.min(imagen.getWidth(), imagen.getHeight());
+        int x = (imagen.getWidth() - corte) / 2;
+        int y = (imagen.getHeight() - corte) / 2;
+        int destino = Math.min(lado, corte);
+        return escalar(imagen, x, y, corte, corte, destino, destino);
+    }
+
+    /**
+     * Escala una región de la imagen a RGB sobre fondo blanco, para poder guardarla en JPEG
+     * aunque el original tenga transparencia.
+     */
+
+    private static BufferedImage escalar(BufferedImage imagen, int x, int y, int ancho, int alto,
+            int anchoDestino, int altoDestino)
+    {
+        BufferedImage resultado = new BufferedImage(anchoDestino, altoDestino, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = resultado.createGraphics();
+        try
+        {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, anchoDestino, altoDestino);
+            g.drawImage(imagen, 0, 0, anchoDestino, altoDestino, x, y, x + ancho, y + alto, null);
+        }
+        finally
+        {
+            g.dispose();
+        }
+        return resultado;
+    }
+
+    /**
+     * Guarda la imagen en JPEG en un temporal y lo publica en el almacén, para no dejar nunca
+     * una variante a medias.
+     */
+
+    private void escribir(BufferedImage imagen, String destino, String variante) throws IOException
+    {
+        Path temporal = fileStorage.crearTemporal();
+        ImageWriter escritor = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream salida = ImageIO.createImageOutputStream(temporal.toFile()))
+        {
+            ImageWriteParam parametros = escritor.getDefaultWriteParam();
+            parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametros.setCompressionQuality(CALIDAD_JPEG);
+            escritor.setOutput(salida);
+            escritor.write(null, new IIOImage(imagen, null, null), parametros);
+        }
+        finally
+        {
+            escritor.dispose();
+        }
+
+        try
+        {
+            long tamano = Files.size(temporal);
+            fileStorage.getAlmacen().guardar(destino, temporal);
+            meterRegistry.summary("clubmanager.galeria.variante.bytes", "variante", variante).record(tamano);
+        }
+        finally
+        {
+            Files.deleteIfExists(temporal);
+        }
+    }
+}
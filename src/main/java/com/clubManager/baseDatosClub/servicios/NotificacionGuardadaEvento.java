@@ -0,0 +1,40 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import com.clubManager.baseDatosClub.dto.NotificacionDTO;
+import com.clubManager.baseDatosClub.entidades.Notificacion;
+
+/**
+ * Evento que se publica cada vez que se guarda una nueva {@link Notificacion}.
+ * Lleva los datos ya copiados a un {@link NotificacionDTO} para que los oyentes
+ * no necesiten acceder a la entidad fuera de su transacción.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+public class NotificacionGuardadaEvento {
+
+	//Area de datos
+
+    private final NotificacionDTO notificacion;
+
+    //Constructor
+
+    public NotificacionGuardadaEvento(Notificacion notificacion)
+    {
+        this.notificacion = new NotificacionDTO
+        		(
+        		notificacion.getIdNotificacion(),
+        		notificacion.getTitulo(),
+        		notificacion.getMensaje(),
+        		notificacion.getFecha(),
+        		notificacion.getEquipo().getIdEquipo()
+        		);
+    }
+
+    //Métodos Getter
+
+    public NotificacionDTO getNotificacion()
+    {
+        return notificacion;
+    }
+}
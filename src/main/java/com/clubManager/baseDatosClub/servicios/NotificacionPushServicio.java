@@ -1,31 +1,35 @@
 package com.clubManager.baseDatosClub.servicios;
 
-import java.io.FileNotFoundException;
-import java.io.InputStream;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.time.LocalDate;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import com.clubManager.baseDatosClub.entidades.Entrenador;
+import com.clubManager.baseDatosClub.entidades.EnvioPush;
 import com.clubManager.baseDatosClub.entidades.Equipo;
-import com.clubManager.baseDatosClub.entidades.Jugador;
 import com.clubManager.baseDatosClub.entidades.Notificacion;
-import com.clubManager.baseDatosClub.entidades.Padre;
+import com.clubManager.baseDatosClub.repositorios.EnvioPushRepositorio;
+import com.clubManager.baseDatosClub.repositorios.EquipoRepositorio;
 import com.clubManager.baseDatosClub.repositorios.NotificacionRepositorio;
-import com.google.auth.oauth2.GoogleCredentials;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.transaction.Transactional;
 
 /**
  * Servicio encargado de enviar notificaciones push a los miembros de un equipo
  * (jugadores, padres y entrenadores) mediante Firebase Cloud Messaging (FCM).
  * 
+ * La notificación se guarda junto con un {@link EnvioPush} por dispositivo en la misma
+ * transacción; {@link DespachoPushServicio} los entrega después en segundo plano.
+ * 
  * @author Sergio Vigil Soto
  */
 
@@ -37,121 +41,93 @@ public class NotificacionPushServicio {
     @Autowired
     private NotificacionRepositorio notificacionRepo;
 
-    private static final String PROJECT_ID = "clubmanager-1268f";
+    @Autowired
+    private EquipoRepositorio equipoRepo;
 
-    private static final String FCM_URL =
-            "https://fcm.googleapis.com/v1/projects/" + PROJECT_ID + "/messages:send";
+    @Autowired
+    private EnvioPushRepositorio envioPushRepo;
 
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     /**
      * Envía una notificación push a todos los miembros del equipo
      * (jugadores, padres y entrenadores) que tengan un token FCM registrado.
+     * Los tokens se obtienen con una sola consulta, sin cargar los miembros del equipo.
+     * El número de destinatarios se registra en {@code clubmanager.push.destinatarios}.
+     * El método vuelve en cuanto la notificación y sus envíos pendientes están guardados,
+     * de modo que si la transacción se deshace tampoco se envía nada.
      */
     
+    @Transactional
     public void enviarNotificacionAEquipo(Equipo equipo, String titulo, String mensaje) 
     {
-        Set<String> tokens = new HashSet<>();
-
-        if (equipo.getJugadores() != null) 
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : equipoRepo.buscarTokensFcm(equipo.getIdEquipo())) 
         {
-            equipo.getJugadores().stream()
-                    .filter(j -> j != null && j.getFcmToken() != null)
-                    .map(Jugador::getFcmToken)
-                    .forEach(tokens::add);
-        }
-
-        if (equipo.getPadres() != null) 
-        {
-            equipo.getPadres().stream()
-                    .filter(p -> p != null && p.getFcmToken() != null)
-                    .map(Padre::getFcmToken)
-                    .forEach(tokens::add);
+            String cleanToken = token.replace("\"", "").trim();
+            if (!cleanToken.isEmpty()) 
+            {
+                tokens.add(cleanToken);
+            }
         }
 
-        if (equipo.getEntrenadores() != null) 
-        {
-            equipo.getEntrenadores().stream()
-                    .filter(e -> e != null && e.getFcmToken() != null)
-                    .map(Entrenador::getFcmToken)
-                    .forEach(tokens::add);
-        }
+        DistributionSummary.builder("clubmanager.push.destinatarios")
+                .description("Dispositivos destinatarios por notificación")
+                .register(meterRegistry)
+                .record(tokens.size());
 
         Notificacion notificacion = guardarNotificacion(titulo, mensaje, LocalDate.now(), equipo);
         Long idNotificacion = notificacion.getIdNotificacion();
         String fechaNotificacion = notificacion.getFecha().toString();
+        String tituloJson = escaparJson(titulo);
+        String mensajeJson = escaparJson(mensaje);
 
-        for (String token : tokens) {
-            try {
-                String accessToken = obtenerAccessToken();
-                String cleanToken = token.replace("\"", "").trim();
-
-                String payload = """
-                {
-                  "message": {
-                    "token": "%s",
-                    "notification": {
-                      "title": "%s",
-                      "body": "%s"
-                    },
-                    "data": {
-                      "tipo": "notificacion",
-                      "equipo": "%s",
-                      "idNotificacion": "%s",
-                      "fechaNotificacion": "%s",
-                      "mensajeNotificacion": "%s"
-                    }
-                  }
-                }
-                """.formatted(cleanToken, titulo, mensaje, equipo.getIdEquipo(),
-                        idNotificacion, fechaNotificacion, mensaje);
-
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(FCM_URL))
-                        .header("Authorization", "Bearer " + accessToken)
-                        .header("Content-Type", "application/json; charset=UTF-8")
-                        .POST(HttpRequest.BodyPublishers.ofString(payload))
-                        .build();
-
-                httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-            } 
-            catch (Exception e) 
+        List<EnvioPush> envios = new ArrayList<>();
+        for (String token : tokens) 
+        {
+            String payload = """
             {
-                e.getMessage();
+              "message": {
+                "token": "%s",
+                "notification": {
+                  "title": "%s",
+                  "body": "%s"
+                },
+                "data": {
+                  "tipo": "notificacion",
+                  "equipo": "%s",
+                  "idNotificacion": "%s",
+                  "fechaNotificacion": "%s",
+                  "mensajeNotificacion": "%s"
+                }
+              }
             }
+            """.formatted(escaparJson(token), tituloJson, mensajeJson, equipo.getIdEquipo(),
+                    idNotificacion, fechaNotificacion, mensajeJson);
+
+            envios.add(new EnvioPush(idNotificacion, token, payload));
         }
+
+        envioPushRepo.saveAll(envios);
     }
 
     /**
-     * Obtiene un token de acceso OAuth2 válido usando la cuenta de servicio de Firebase.
+     * Escapa un texto para incluirlo dentro de una cadena JSON.
+     * Sin esto, unas comillas en el título harían que FCM rechazase el mensaje.
      */
     
-    private String obtenerAccessToken() throws Exception 
+    private static String escaparJson(String texto) 
     {
-        try (InputStream serviceAccount = getClass().getClassLoader().getResourceAsStream("service-account.json")) {
-            if (serviceAccount == null)
-            {
-                throw new FileNotFoundException("No se encontró service-account.json en el classpath");
-            }
-
-            GoogleCredentials googleCredentials = GoogleCredentials
-                    .fromStream(serviceAccount)
-                    .createScoped(List.of("https://www.googleapis.com/auth/firebase.messaging"));
-
-            googleCredentials.refreshIfExpired();
-
-            if (googleCredentials.getAccessToken() == null) 
-            {
-                googleCredentials.refresh();
-            }
-
-            return googleCredentials.getAccessToken().getTokenValue();
-        }
+        return texto == null ? "" : new String(JsonStringEncoder.getInstance().quoteAsString(texto));
     }
 
     /**
-     * Guarda la notificación en la base de datos asociada al equipo indicado.
+     * Guarda la notificación en la base de datos asociada al equipo indicado
+     * y publica un {@link NotificacionGuardadaEvento}.
      */
     
     public Notificacion guardarNotificacion(String titulo, String mensaje, LocalDate fecha, Equipo equipo) 
@@ -162,6 +138,8 @@ public class NotificacionPushServicio {
         notificacion.setFecha(fecha);
         notificacion.setEquipo(equipo);
 
-        return notificacionRepo.save(notificacion);
+        Notificacion guardada = notificacionRepo.save(notificacion);
+        eventPublisher.publishEvent(new NotificacionGuardadaEvento(guardada));
+        return guardada;
     }
 }
@@ -3,6 +3,8 @@ package com.clubManager.baseDatosClub.servicios;
 import java.util.List;
 import java.util.Optional;
 
+import com.clubManager.baseDatosClub.dto.NotificacionDTO;
+import com.clubManager.baseDatosClub.dto.PaginaNotificacionesDTO;
 import com.clubManager.baseDatosClub.entidades.Equipo;
 import com.clubManager.baseDatosClub.entidades.Notificacion;
 
@@ -24,6 +26,18 @@ public interface NotificacionServicio {
 	
     List<Notificacion> listarNotificacionesPorEquipo(String idEquipo);
 
+    /**
+     * Devuelve una página del historial de notificaciones de un equipo, de la más reciente
+     * a la más antigua, paginando por cursor en lugar de por desplazamiento.
+     * 
+     * @param idEquipo el identificador del equipo
+     * @param cursor el {@code siguienteCursor} de la página anterior, o nulo para la primera
+     * @param tamano número de notificaciones por página, o nulo para el tamaño por defecto
+     * @return la página con sus notificaciones y el cursor de la siguiente
+     */
+
+    PaginaNotificacionesDTO listarPaginaPorEquipo(String idEquipo, String cursor, Integer tamano);
+
     /**
      * Busca una notificación por su ID, validando que pertenezca al equipo indicado.
      * 
@@ -38,10 +52,10 @@ public interface NotificacionServicio {
      * Busca la última notificación emitida para un equipo.
      * 
      * @param idEquipo el ID del equipo al que debe pertenecer
-     * @return un {@link Optional} con la notificación si existe.
+     * @return un {@link Optional} con los datos de la notificación si existe.
      */
     
-    Optional<Notificacion> obtenerUltimaPorEquipo(String idEquipo);
+    Optional<NotificacionDTO> obtenerUltimaPorEquipo(String idEquipo);
 
     /**
      * Crea y guarda una notificación asociada a un equipo específico.
@@ -1,11 +1,18 @@
 package com.clubManager.baseDatosClub.servicios;
 
 import com.clubManager.baseDatosClub.entidades.Equipo;
+import com.clubManager.baseDatosClub.dto.NotificacionDTO;
+import com.clubManager.baseDatosClub.dto.PaginaNotificacionesDTO;
 import com.clubManager.baseDatosClub.entidades.Notificacion;
 import com.clubManager.baseDatosClub.repositorios.NotificacionRepositorio;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -25,6 +32,18 @@ public class NotificacionServicioImpl implements NotificacionServicio {
 	
     @Autowired
     private NotificacionRepositorio notificacionRepo;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private UltimaNotificacionServicio ultimaNotificacion;
+
+    @Value("${clubmanager.notificaciones.pagina.tamano:20}")
+    private int tamanoPorDefecto;
+
+    @Value("${clubmanager.notificaciones.pagina.tamano-max:100}")
+    private int tamanoMaximo;
     
     //Métodos principales
 
@@ -38,6 +57,51 @@ public class NotificacionServicioImpl implements NotificacionServicio {
         return notificacionRepo.findByEquipo_IdEquipo(idEquipo);
     }
     
+    /**
+     * {@inheritDoc}
+     * 
+     * El cursor tiene la forma {@code fecha_idNotificacion} de la última notificación devuelta.
+     * Se pide una fila más de las necesarias para saber si existe una página siguiente.
+     */
+
+    @Override
+    public PaginaNotificacionesDTO listarPaginaPorEquipo(String idEquipo, String cursor, Integer tamano) 
+    {
+        int tamanoPagina = tamano == null ? tamanoPorDefecto : Math.max(1, Math.min(tamano, tamanoMaximo));
+        PageRequest limite = PageRequest.of(0, tamanoPagina + 1);
+
+        List<NotificacionDTO> filas;
+        if (cursor == null || cursor.isBlank()) 
+        {
+            filas = notificacionRepo.buscarPrimeraPagina(idEquipo, limite);
+        } 
+        else 
+        {
+            LocalDate fecha;
+            Long idNotificacion;
+            try 
+            {
+                int separador = cursor.lastIndexOf('_');
+                fecha = LocalDate.parse(cursor.substring(0, separador));
+                idNotificacion = Long.valueOf(cursor.substring(separador + 1));
+            } 
+            catch (RuntimeException e) 
+            {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor no válido: " + cursor);
+            }
+            filas = notificacionRepo.buscarPaginaTras(idEquipo, fecha, idNotificacion, limite);
+        }
+
+        if (filas.size() <= tamanoPagina) 
+        {
+            return new PaginaNotificacionesDTO(filas, null);
+        }
+
+        List<NotificacionDTO> pagina = filas.subList(0, tamanoPagina);
+        NotificacionDTO ultima = pagina.get(tamanoPagina - 1);
+        return new PaginaNotificacionesDTO(pagina, ultima.getFecha() + "_" + ultima.getIdNotificacion());
+    }
+    
     /**
      * {@inheritDoc}
      */
@@ -62,16 +126,19 @@ public class NotificacionServicioImpl implements NotificacionServicio {
         notificacion.setFecha(LocalDate.now());
         notificacion.setEquipo(equipo);
 
-        notificacionRepo.save(notificacion);
+        eventPublisher.publishEvent(new NotificacionGuardadaEvento(notificacionRepo.save(notificacion)));
     }
     
     /**
      * {@inheritDoc}
+     * 
+     * Se sirve desde {@link UltimaNotificacionServicio}.
      */
     
-    public Optional<Notificacion> obtenerUltimaPorEquipo(String idEquipo) 
+    @Override
+    public Optional<NotificacionDTO> obtenerUltimaPorEquipo(String idEquipo) 
     {
-        return notificacionRepo.findTopByEquipo_IdEquipoOrderByFechaDesc(idEquipo);
+        return ultimaNotificacion.obtener(idEquipo);
     }
 
     /**
@@ -85,6 +152,7 @@ public class NotificacionServicioImpl implements NotificacionServicio {
         if (notificacion.isPresent()) 
         {
             notificacionRepo.deleteById(idNotificacion);
+            ultimaNotificacion.invalidar(idEquipo);
         } 
         else
         {
@@ -104,5 +172,6 @@ public class NotificacionServicioImpl implements NotificacionServicio {
     {
         List<Notificacion> notificaciones = listarNotificacionesPorEquipo(idEquipo);
         notificacionRepo.deleteAll(notificaciones);
+        ultimaNotificacion.invalidar(idEquipo);
     }
 }
\ No newline at end of file
@@ -5,14 +5,19 @@ import java.util.Optional;
 import java.util.regex.Pattern;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.clubManager.baseDatosClub.dto.PadreRelacionDTO;
+import com.clubManager.baseDatosClub.entidades.Credencial;
 import com.clubManager.baseDatosClub.entidades.Padre;
 import com.clubManager.baseDatosClub.repositorios.EquipoRepositorio;
 import com.clubManager.baseDatosClub.repositorios.PadreRepositorio;
+import com.clubManager.baseDatosClub.seguridad.PasswordServicio;
 
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.transaction.Transactional;
 
 /**
  * Implementación de la interfaz {@link PadreServicio} que gestiona la lógica de negocio
@@ -32,6 +37,23 @@ public class PadreServicioImpl implements PadreServicio {
     @Autowired
     private EquipoRepositorio equipoRepositorio;
 
+    @Autowired
+    private CredencialServicio credencialServicio;
+
+    @Autowired
+    private PasswordServicio passwordServicio;
+
+    /**
+     * Transacción abierta a mano en altas y modificaciones, después de calcular el hash
+     * de la contraseña, para no ocupar una conexión mientras dura BCrypt.
+     */
+
+    @Autowired
+    private TransactionTemplate transaccion;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,}$");
     private static final Pattern DNI_PATTERN = Pattern.compile("^[0-9]{8}[A-Za-z]$");
     private static final Pattern TELEFONO_PATTERN = Pattern.compile("^\\+?[0-9]{7,15}$");
@@ -58,25 +80,31 @@ public class PadreServicioImpl implements PadreServicio {
                            String password, String foto, String telefono, String email, String vinculo) 
     {
         validarDatosPadre(idPadre, nombre, apellidos, dni, direccion, tipoUsuario, password, telefono, email, vinculo);
+        String hash = passwordServicio.hashear(password);
 
-        if (padreRepositorio.findByDni(dni).isPresent()) 
+        transaccion.executeWithoutResult(estado ->
         {
-            throw new IllegalArgumentException("Ya existe un padre con ese DNI.");
-        }
+            if (padreRepositorio.findByDni(dni).isPresent()) 
+            {
+                throw new IllegalArgumentException("Ya existe un padre con ese DNI.");
+            }
 
-        Padre padre = new Padre();
-        padre.setIdPadre(idPadre);
-        padre.setNombre(nombre);
-        padre.setApellidos(apellidos);
-        padre.setDni(dni);
-        padre.setDireccion(direccion);
-        padre.setTipoUsuario(tipoUsuario);
-        padre.setPassword(password);
-        padre.setFoto(foto);
-        padre.setTelefono(telefono);
-        padre.setEmail(email);
-        padre.setVinculo(vinculo);
-        padreRepositorio.save(padre);
+            Padre padre = new Padre();
+            padre.setIdPadre(idPadre);
+            padre.setNombre(nombre);
+            padre.setApellidos(apellidos);
+            padre.setDni(dni);
+            padre.setDireccion(direccion);
+            padre.setTipoUsuario(tipoUsuario);
+            padre.setPassword(hash);
+            padre.setFoto(foto);
+            padre.setTelefono(telefono);
+            padre.setEmail(email);
+            padre.setVinculo(vinculo);
+            padreRepositorio.save(padre);
+            credencialServicio.registrar(idPadre, Credencial.TIPO_PADRE, padre.getPassword(), null);
+            eventPublisher.publishEvent(new PadresCambiadosEvento(List.of(idPadre)));
+        });
     }
 
     /**
@@ -88,26 +116,33 @@ public class PadreServicioImpl implements PadreServicio {
                                String tipoUsuario, String password, String foto, 
                                String telefono, String email, String vinculo) 
     {
-        Optional<Padre> optionalPadre = padreRepositorio.findById(idPadre);
-        if (optionalPadre.isEmpty()) 
-        {
-            throw new IllegalArgumentException("No se encontró el padre con el id: " + idPadre);
-        }
         validarDatosPadre(idPadre, nombre, apellidos, dni, direccion, tipoUsuario, password, telefono, email, vinculo);
+        String hash = passwordServicio.hashear(password);
+
+        transaccion.executeWithoutResult(estado ->
+        {
+            Optional<Padre> optionalPadre = padreRepositorio.findById(idPadre);
+            if (optionalPadre.isEmpty()) 
+            {
+                throw new IllegalArgumentException("No se encontró el padre con el id: " + idPadre);
+            }
 
-        Padre padre = optionalPadre.get();
-        padre.setNombre(nombre);
-        padre.setApellidos(apellidos);
-        padre.setDni(dni);
-        padre.setDireccion(direccion);
-        padre.setTipoUsuario(tipoUsuario);
-        padre.setPassword(password);
-        padre.setFoto(foto);
-        padre.setTelefono(telefono);
-        padre.setEmail(email);
-        padre.setVinculo(vinculo);
+            Padre padre = optionalPadre.get();
+            padre.setNombre(nombre);
+            padre.setApellidos(apellidos);
+            padre.setDni(dni);
+            padre.setDireccion(direccion);
+            padre.setTipoUsuario(tipoUsuario);
+            padre.setPassword(hash);
+            padre.setFoto(foto);
+            padre.setTelefono(telefono);
+            padre.setEmail(email);
+            padre.setVinculo(vinculo);
 
-        padreRepositorio.save(padre);
+            padreRepositorio.save(padre);
+            credencialServicio.registrar(idPadre, Credencial.TIPO_PADRE, padre.getPassword(), null);
+            eventPublisher.publishEvent(new PadresCambiadosEvento(List.of(idPadre)));
+        });
     }
 
     /**
@@ -115,9 +150,12 @@ public class PadreServicioImpl implements PadreServicio {
      */
     
     @Override
+    @Transactional
     public void eliminarPadre(String idPadre) 
     {
         padreRepositorio.deleteById(idPadre);
+        credencialServicio.eliminar(idPadre, Credencial.TIPO_PADRE);
+        eventPublisher.publishEvent(new PadresCambiadosEvento(List.of(idPadre)));
     }
 
     /**
@@ -0,0 +1,31 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.util.List;
+
+/**
+ * Evento que se publica cuando se crean, modifican o borran padres, también cuando se borran
+ * al eliminar su equipo.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+public class PadresCambiadosEvento {
+
+	//Area de datos
+
+    private final List<String> idsPadres;
+
+    //Constructor
+
+    public PadresCambiadosEvento(List<String> idsPadres)
+    {
+        this.idsPadres = List.copyOf(idsPadres);
+    }
+
+    //Métodos Getter
+
+    public List<String> getIdsPadres()
+    {
+        return idsPadres;
+    }
+}
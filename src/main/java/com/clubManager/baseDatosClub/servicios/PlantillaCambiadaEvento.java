@@ -0,0 +1,37 @@
+package com.clubManager.baseDatosClub.servicios;
+
+/**
+ * Evento que se publica cuando cambia la plantilla de un equipo: se crea, modifica, borra o
+ * traspasa un jugador. Cualquiera de los dos identificadores puede ser nulo cuando no se conoce
+ * o no aplica; sin jugador, el cambio afecta al equipo entero, como al borrarlo.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+public class PlantillaCambiadaEvento {
+
+	//Area de datos
+
+    private final String idEquipo;
+    private final String idJugador;
+
+    //Constructor
+
+    public PlantillaCambiadaEvento(String idEquipo, String idJugador)
+    {
+        this.idEquipo = idEquipo;
+        this.idJugador = idJugador;
+    }
+
+    //Métodos Getter
+
+    public String getIdEquipo()
+    {
+        return idEquipo;
+    }
+
+    public String getIdJugador()
+    {
+        return idJugador;
+    }
+}
@@ -0,0 +1,166 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.clubManager.baseDatosClub.repositorios.EntrenadorRepositorio;
+import com.clubManager.baseDatosClub.repositorios.EnvioPushRepositorio;
+import com.clubManager.baseDatosClub.repositorios.JugadorRepositorio;
+import com.clubManager.baseDatosClub.repositorios.PadreRepositorio;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Servicio que elimina los tokens FCM que Firebase ya no reconoce.
+ *
+ * Cuando FCM responde a un envío con {@code UNREGISTERED}, o con {@code INVALID_ARGUMENT}
+ * referido al token de registro, el token se anota en memoria. Periódicamente los tokens
+ * anotados se borran de jugadores, padres y entrenadores con unas pocas actualizaciones por
+ * lotes, y se descartan los envíos pendientes dirigidos a ellos.
+ *
+ * Los tokens eliminados se contabilizan en {@code clubmanager.push.tokens.podados}.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Service
+public class PodaTokensFcmServicio {
+
+	//Area de datos
+
+    private static final Logger log = LoggerFactory.getLogger(PodaTokensFcmServicio.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    private JugadorRepositorio jugadorRepo;
+
+    @Autowired
+    private PadreRepositorio padreRepo;
+
+    @Autowired
+    private EntrenadorRepositorio entrenadorRepo;
+
+    @Autowired
+    private EnvioPushRepositorio envioPushRepo;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${clubmanager.fcm.poda.lote:500}")
+    private int lote;
+
+    private final Set<String> pendientes = ConcurrentHashMap.newKeySet();
+
+    //Métodos principales
+
+    /**
+     * Indica si la respuesta de FCM señala que el token del destinatario ya no es válido.
+     * {@code UNREGISTERED} siempre lo indica; {@code INVALID_ARGUMENT} solo cuando el mensaje
+     * de error se refiere al token, ya que también se devuelve para mensajes mal formados.
+     *
+     * @param estado código HTTP de la respuesta
+     * @param cuerpo cuerpo JSON de la respuesta
+     * @return true si el token debe eliminarse
+     */
+
+    public static boolean esTokenInvalido(int estado, String cuerpo)
+    {
+        if (estado / 100 == 2 || cuerpo == null || cuerpo.isBlank())
+        {
+            return false;
+        }
+
+        try
+        {
+            JsonNode error = MAPPER.readTree(cuerpo).path("error");
+            String codigo = error.path("status").asText();
+            for (JsonNode detalle : error.path("details"))
+            {
+                if (detalle.hasNonNull("errorCode"))
+                {
+                    codigo = detalle.path("errorCode").asText();
+                }
+            }
+
+            return "UNREGISTERED".equals(codigo)
+                    || ("INVALID_ARGUMENT".equals(codigo)
+                        && error.path("message").asText().toLowerCase().contains("registration token"));
+        }
+        catch (Exception e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Anota un token para eliminarlo en la siguiente poda.
+     *
+     * @param token token FCM inválido
+     */
+
+    public void registrarTokenInvalido(String token)
+    {
+        if (token != null && !token.isBlank())
+        {
+            pendientes.add(token);
+        }
+    }
+
+    /**
+     * Elimina de la base de datos los tokens anotados, en lotes.
+     *
+     * @return número de tokens procesados
+     */
+
+    @Scheduled(fixedDelayString = "${clubmanager.fcm.poda.intervalo-ms:10000}")
+    public int podar()
+    {
+        int procesados = 0;
+
+        while (!pendientes.isEmpty())
+        {
+            List<String> tokens = new ArrayList<>();
+            Iterator<String> it = pendientes.iterator();
+            while (it.hasNext() && tokens.size() < lote)
+            {
+                tokens.add(it.next());
+                it.remove();
+            }
+
+            // El endpoint de registro guarda el cuerpo tal cual, así que algunos tokens llevan comillas
+            List<String> variantes = new ArrayList<>(tokens);
+            tokens.forEach(t -> variantes.add("\"" + t + "\""));
+
+            try
+            {
+                int usuarios = jugadorRepo.eliminarTokensFcm(variantes)
+                        + padreRepo.eliminarTokensFcm(variantes)
+                        + entrenadorRepo.eliminarTokensFcm(variantes);
+                envioPushRepo.descartarPendientesPorToken(tokens, "Token FCM no válido");
+
+                meterRegistry.counter("clubmanager.push.tokens.podados").increment(usuarios);
+                procesados += tokens.size();
+            }
+            catch (Exception e)
+            {
+                pendientes.addAll(tokens);
+                log.warn("No se pudieron eliminar tokens FCM inválidos: {}", e.getMessage());
+                break;
+            }
+        }
+        return procesados;
+    }
+}
@@ -0,0 +1,36 @@
+package com.clubManager.baseDatosClub.servicios;
+
+/**
+ * Evento que se publica cuando suben los puntos totales de un jugador. Lleva el total que
+ * queda tras la suma, no la cantidad sumada, para que aplicarlo dos veces no cambie nada.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+public class PuntosJugadorEvento {
+
+	//Area de datos
+
+    private final String idJugador;
+    private final int puntosTotales;
+
+    //Constructor
+
+    public PuntosJugadorEvento(String idJugador, int puntosTotales)
+    {
+        this.idJugador = idJugador;
+        this.puntosTotales = puntosTotales;
+    }
+
+    //Métodos Getter
+
+    public String getIdJugador()
+    {
+        return idJugador;
+    }
+
+    public int getPuntosTotales()
+    {
+        return puntosTotales;
+    }
+}
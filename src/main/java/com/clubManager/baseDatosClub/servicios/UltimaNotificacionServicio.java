@@ -0,0 +1,191 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.clubManager.baseDatosClub.dto.NotificacionDTO;
+import com.clubManager.baseDatosClub.repositorios.NotificacionRepositorio;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Servicio que mantiene en memoria la última notificación de cada equipo.
+ *
+ * La caché se rellena al consultar un equipo por primera vez y se actualiza en escritura:
+ * cada notificación guardada sustituye a la anterior en cuanto se confirma su transacción,
+ * sin volver a consultar la base de datos. Al borrar notificaciones, o el equipo con todas
+ * ellas, se descarta la entrada del equipo y la siguiente consulta la recarga.
+ *
+ * Solo llegan aquí las notificaciones guardadas y borradas por este proceso. Si hay varias
+ * instancias de la aplicación, lo que se publica o se borra en otra no toca esta caché, así que
+ * cada entrada caduca a los {@code clubmanager.notificaciones.cache.ttl-ms} de leerse de la base
+ * de datos, aunque se haya actualizado después con notificaciones propias.
+ *
+ * Los aciertos y fallos se contabilizan en {@code clubmanager.notificaciones.ultima.cache},
+ * y la proporción de aciertos se publica en {@code clubmanager.notificaciones.ultima.cache.ratio}.
+ *
+ * @author Sergio Vigil Soto
+ */
+
+@Service
+public class UltimaNotificacionServicio {
+
+	//Area de datos
+
+    private static final Comparator<NotificacionDTO> ORDEN = Comparator
+            .comparing(NotificacionDTO::getFecha)
+            .thenComparing(NotificacionDTO::getIdNotificacion);
+
+    @Autowired
+    private NotificacionRepositorio notificacionRepo;
+
+    @Value("${clubmanager.notificaciones.cache.max-entradas:5000}")
+    private int maxEntradas;
+
+    @Value("${clubmanager.notificaciones.cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    private final Map<String, Entrada> ultimas = new ConcurrentHashMap<>();
+    private final AtomicLong generacion = new AtomicLong();
+    private final Counter aciertos;
+    private final Counter fallos;
+
+    //Constructor
+
+    public UltimaNotificacionServicio(MeterRegistry meterRegistry)
+    {
+        this.aciertos = meterRegistry.counter("clubmanager.notificaciones.ultima.cache", "resultado", "acierto");
+        this.fallos = meterRegistry.counter("clubmanager.notificaciones.ultima.cache", "resultado", "fallo");
+        meterRegistry.gauge("clubmanager.notificaciones.ultima.cache.ratio", this, UltimaNotificacionServicio::ratioAciertos);
+    }
+
+    //Métodos principales
+
+    /**
+     * Obtiene la última notificación de un equipo, desde la caché si está disponible.
+     *
+     * @param idEquipo identificador del equipo
+     * @return Optional con la última notificación, vacío si el equipo no tiene ninguna
+     */
+
+    public Optional<NotificacionDTO> obtener(String idEquipo)
+    {
+        Entrada cacheada = ultimas.get(idEquipo);
+        if (cacheada != null && System.nanoTime() - cacheada.cargada() < ttlMs * 1_000_000)
+        {
+            aciertos.increment();
+            return cacheada.ultima();
+        }
+        if (cacheada != null)
+        {
+            ultimas.remove(idEquipo, cacheada);
+        }
+        fallos.increment();
+
+        // Si se guarda o se borra algo mientras se consulta, el resultado puede estar obsoleto y no se guarda
+        long inicio = generacion.get();
+        List<NotificacionDTO> ultima = notificacionRepo.buscarPrimeraPagina(idEquipo, PageRequest.of(0, 1));
+        Entrada cargada = new Entrada(ultima.stream().findFirst(), System.nanoTime());
+
+        if (generacion.get() == inicio && (ultimas.size() < maxEntradas || ultimas.containsKey(idEquipo)))
+        {
+            return ultimas.merge(idEquipo, cargada, Entrada::mezclar).ultima();
+        }
+        return cargada.ultima();
+    }
+
+    /**
+     * Actualiza la caché con una notificación recién guardada, una vez confirmada la transacción.
+     *
+     * @param evento evento con la notificación guardada
+     */
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alGuardarNotificacion(NotificacionGuardadaEvento evento)
+    {
+        NotificacionDTO notificacion = evento.getNotificacion();
+        generacion.incrementAndGet();
+        ultimas.computeIfPresent(notificacion.getIdEquipo(),
+                (k, actual) -> new Entrada(masReciente(actual.ultima(), Optional.of(notificacion)), actual.cargada()));
+    }
+
+    /**
+     * Descarta la entrada de un equipo cuando cambia el equipo entero, una vez confirmado.
+     * Al borrar un equipo se borran en cascada sus notificaciones, y un equipo creado después
+     * con el mismo identificador no debe recibir la última del anterior.
+     *
+     * @param evento evento con el equipo afectado
+     */
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarPlantilla(PlantillaCambiadaEvento evento)
+    {
+        if (evento.getIdJugador() == null && evento.getIdEquipo() != null)
+        {
+            invalidar(evento.getIdEquipo());
+        }
+    }
+
+    /**
+     * Descarta la entrada de un equipo. Se llama tras borrar alguna de sus notificaciones.
+     *
+     * @param idEquipo identificador del equipo
+     */
+
+    public void invalidar(String idEquipo)
+    {
+        generacion.incrementAndGet();
+        ultimas.remove(idEquipo);
+    }
+
+    /**
+     * Proporción de consultas servidas desde la caché.
+     */
+
+    public double ratioAciertos()
+    {
+        double total = aciertos.count() + fallos.count();
+        return total == 0 ? 0 : aciertos.count() / total;
+    }
+
+    private static Optional<NotificacionDTO> masReciente(Optional<NotificacionDTO> a, Optional<NotificacionDTO> b)
+    {
+        if (a.isEmpty())
+        {
+            return b;
+        }
+        if (b.isEmpty())
+        {
+            return a;
+        }
+        return ORDEN.compare(a.get(), b.get()) >= 0 ? a : b;
+    }
+
+    /**
+     * Última notificación de un equipo y momento en que se leyó de la base de datos, en la
+     * escala de {@link System#nanoTime()}.
+     */
+
+    private record Entrada(Optional<NotificacionDTO> ultima, long cargada) {
+
+        /**
+         * Combina dos lecturas del mismo equipo; caduca cuando le tocaría a la más antigua.
+         */
+
+        private static Entrada mezclar(Entrada a, Entrada b)
+        {
+            return new Entrada(masReciente(a.ultima, b.ultima), Math.min(a.cargada, b.cargada));
+        }
+    }
+}
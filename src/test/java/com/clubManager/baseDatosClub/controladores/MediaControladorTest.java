@@ -0,0 +1,138 @@
+package com.clubManager.baseDatosClub.controladores;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.clubManager.baseDatosClub.almacenamiento.AlmacenMemoria;
+import com.clubManager.baseDatosClub.servicios.FileStorageService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de las respuestas condicionales y por rangos de {@link MediaControlador}.
+ */
+
+class MediaControladorTest {
+
+	//Area de Datos
+
+    private static final String SHA = "ab".repeat(32);
+
+    @TempDir
+    Path directorio;
+
+    private MediaControlador controlador;
+    private byte[] contenido;
+
+    @BeforeEach
+    void setUp() throws Exception
+    {
+        controlador = new MediaControlador();
+        ReflectionTestUtils.setField(controlador, "fileStorageService",
+                new FileStorageService(directorio.toString(), 1_000_000, new SimpleMeterRegistry()));
+
+        contenido = new byte[1000];
+        for (int i = 0; i < contenido.length; i++)
+        {
+            contenido[i] = (byte) i;
+        }
+        Files.createDirectories(directorio.resolve("videos/ab"));
+        Files.write(directorio.resolve("videos/ab/" + SHA + ".mp4"), contenido);
+        Files.write(directorio.resolve("videos/antiguo.mp4"), contenido);
+    }
+
+    @Test
+    void servir_porContenido_usaLaHuellaComoEtagYCacheInmutable() throws Exception
+    {
+        MockHttpServletResponse respuesta = servir("/uploads/videos/ab/" + SHA + ".mp4", null);
+
+        assertEquals(200, respuesta.getStatus());
+        assertEquals("\"" + SHA + "\"", respuesta.getHeader(HttpHeaders.ETAG));
+        assertTrue(respuesta.getHeader(HttpHeaders.CACHE_CONTROL).contains("immutable"));
+        assertEquals("bytes", respuesta.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("video/mp4", respuesta.getContentType());
+        assertArrayEquals(contenido, respuesta.getContentAsByteArray());
+    }
+
+    @Test
+    void servir_conEtagConocido_responde304SinCuerpo() throws Exception
+    {
+        MockHttpServletRequest peticion = peticion("/uploads/videos/ab/" + SHA + ".mp4");
+        peticion.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + SHA + "\"");
+        MockHttpServletResponse respuesta = new MockHttpServletResponse();
+        controlador.servir(peticion, respuesta);
+
+        assertEquals(304, respuesta.getStatus());
+        assertEquals(0, respuesta.getContentAsByteArray().length);
+    }
+
+    @Test
+    void servir_conRango_responde206ConLosBytesPedidos() throws Exception
+    {
+        MockHttpServletResponse respuesta = servir("/uploads/videos/antiguo.mp4", "bytes=100-199");
+
+        assertEquals(206, respuesta.getStatus());
+        assertEquals("bytes 100-199/1000", respuesta.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("no-cache", respuesta.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertArrayEquals(Arrays.copyOfRange(contenido, 100, 200), respuesta.getContentAsByteArray());
+
+        MockHttpServletResponse sufijo = servir("/uploads/videos/antiguo.mp4", "bytes=-10");
+        assertEquals("bytes 990-999/1000", sufijo.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(contenido, 990, 1000), sufijo.getContentAsByteArray());
+    }
+
+    @Test
+    void servir_rangoFueraDelArchivoOArchivoInexistente_respondeError() throws Exception
+    {
+        MockHttpServletResponse fuera = servir("/uploads/videos/antiguo.mp4", "bytes=1000-");
+        assertEquals(416, fuera.getStatus());
+        assertEquals("bytes */1000", fuera.getHeader(HttpHeaders.CONTENT_RANGE));
+
+        assertEquals(404, servir("/uploads/videos/no-existe.mp4", null).getStatus());
+        assertEquals(404, servir("/uploads/../secreto.txt", null).getStatus());
+    }
+
+    @Test
+    void servir_conAlmacenEnMemoria_sirveElRangoDesdeSuFlujo() throws Exception
+    {
+        AlmacenMemoria memoria = new AlmacenMemoria();
+        memoria.guardar("videos/ab/" + SHA + ".mp4", Files.write(directorio.resolve(".subida.parte"), contenido));
+        ReflectionTestUtils.setField(controlador, "fileStorageService",
+                new FileStorageService(directorio.toString(), 1_000_000, new SimpleMeterRegistry(), memoria));
+
+        MockHttpServletResponse respuesta = servir("/uploads/videos/ab/" + SHA + ".mp4", "bytes=500-");
+
+        assertEquals(206, respuesta.getStatus());
+        assertEquals("bytes 500-999/1000", respuesta.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(Arrays.copyOfRange(contenido, 500, 1000), respuesta.getContentAsByteArray());
+        assertEquals(404, servir("/uploads/videos/antiguo.mp4", null).getStatus());
+    }
+
+    private MockHttpServletResponse servir(String uri, String rango) throws Exception
+    {
+        MockHttpServletRequest peticion = peticion(uri);
+        if (rango != null)
+        {
+            peticion.addHeader(HttpHeaders.RANGE, rango);
+        }
+        MockHttpServletResponse respuesta = new MockHttpServletResponse();
+        controlador.servir(peticion, respuesta);
+        return respuesta;
+    }
+
+    private static MockHttpServletRequest peticion(String uri)
+    {
+        return new MockHttpServletRequest("GET", uri);
+    }
+}
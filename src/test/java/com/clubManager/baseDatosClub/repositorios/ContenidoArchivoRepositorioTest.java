@@ -0,0 +1,198 @@
+package com.clubManager.baseDatosClub.repositorios;
+
+import com.clubManager.baseDatosClub.dto.EstadisticasAlmacenamientoDTO;
+import com.clubManager.baseDatosClub.entidades.ContenidoArchivo;
+import com.clubManager.baseDatosClub.entidades.Equipo;
+import com.clubManager.baseDatosClub.entidades.Galeria;
+import com.clubManager.baseDatosClub.servicios.ArchivoGuardado;
+import com.clubManager.baseDatosClub.servicios.CuotaAlmacenamientoServicio;
+import com.clubManager.baseDatosClub.servicios.EquipoServicioImpl;
+import com.clubManager.baseDatosClub.servicios.FileStorageService;
+import com.clubManager.baseDatosClub.servicios.GaleriaServicioImpl;
+import com.clubManager.baseDatosClub.servicios.MiniaturasServicio;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.jakarta.persistence.validation.mode=none"
+})
+class ContenidoArchivoRepositorioTest {
+
+    @Autowired
+    private ContenidoArchivoRepositorio contenidoArchivoRepositorio;
+
+    @Autowired
+    private GaleriaRepositorio galeriaRepositorio;
+
+    @Autowired
+    private EquipoRepositorio equipoRepositorio;
+
+    @Autowired
+    private PadreRepositorio padreRepositorio;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void marcarBorrando_soloTrasLiberarLaUltimaYSinAdmitirReferenciasNuevas() 
+    {
+        String sha = "a".repeat(64);
+        LocalDateTime ahora = LocalDateTime.now();
+        Assertions.assertEquals(1, contenidoArchivoRepositorio.insertar(sha, "/uploads/f/aa/a.jpg", 100, ahora));
+
+        Assertions.assertEquals(1, contenidoArchivoRepositorio.sumarReferencia(sha));
+        Assertions.assertEquals(1, contenidoArchivoRepositorio.restarReferencia(sha));
+        Assertions.assertEquals(0, contenidoArchivoRepositorio.marcarBorrando(sha, ahora));
+        Assertions.assertEquals(0, contenidoArchivoRepositorio.eliminarBorrado(sha));
+        Assertions.assertEquals(1, contenidoArchivoRepositorio.restarReferencia(sha));
+        Assertions.assertEquals(1, contenidoArchivoRepositorio.marcarBorrando(sha, ahora));
+        Assertions.assertEquals(0, contenidoArchivoRepositorio.marcarBorrando(sha, ahora));
+
+        // Una subida que llega durante el borrado no puede sumar ni insertar
+        Assertions.assertEquals(0, contenidoArchivoRepositorio.sumarReferencia(sha));
+        Assertions.assertEquals(0, contenidoArchivoRepositorio.tomarBorradoAbandonado(sha, ahora.minusMinutes(5), ahora));
+        Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> contenidoArchivoRepositorio.insertar(sha, "/uploads/g/aa/a.jpg", 100, ahora));
+        Assertions.assertEquals(1, contenidoArchivoRepositorio.tomarBorradoAbandonado(sha, ahora.plusMinutes(5), ahora));
+
+        Assertions.assertEquals(1, contenidoArchivoRepositorio.eliminarBorrado(sha));
+        entityManager.clear();
+
+        Assertions.assertTrue(contenidoArchivoRepositorio.findById(sha).isEmpty());
+    }
+
+    @Test
+    void resumir_calculaLosBytesAhorrados() 
+    {
+        ContenidoArchivo repetido = new ContenidoArchivo("b".repeat(64), "/uploads/f/bb/b.jpg", 1000);
+        repetido.setReferencias(5);
+        contenidoArchivoRepositorio.save(repetido);
+        contenidoArchivoRepositorio.save(new ContenidoArchivo("c".repeat(64), "/uploads/f/cc/c.jpg", 300));
+
+        EstadisticasAlmacenamientoDTO resumen = contenidoArchivoRepositorio.resumir();
+
+        Assertions.assertEquals(2, resumen.getContenidos());
+        Assertions.assertEquals(6, resumen.getReferencias());
+        Assertions.assertEquals(1300, resumen.getBytesAlmacenados());
+        Assertions.assertEquals(4000, resumen.getBytesAhorrados());
+        Assertions.assertEquals(3.0, resumen.getRatioDeduplicacion(), 1e-9);
+    }
+
+    @Test
+    void buscarUrlsReferenciadas_devuelveSoloLasUrlsEnUso() 
+    {
+        contenidoArchivoRepositorio.save(new ContenidoArchivo("d".repeat(64), "/uploads/f/dd/d.jpg", 10));
+        Galeria antigua = new Galeria();
+        antigua.setTipo("foto");
+        antigua.setAutor("autor");
+        antigua.setFecha(LocalDate.of(2024, 1, 1));
+        antigua.setNombreDocumento("antigua");
+        antigua.setUrl("/uploads/f/antigua.jpg");
+        antigua.setUrlMiniatura("/uploads/f/antigua_mini.jpg");
+        entityManager.persistAndFlush(antigua);
+
+        Set<String> referenciadas = new HashSet<>(contenidoArchivoRepositorio.buscarUrlsReferenciadas(List.of(
+                "/uploads/f/dd/d.jpg", "/uploads/f/antigua.jpg", "/uploads/f/antigua_mini.jpg",
+                "/uploads/f/antigua_vista.jpg", "/uploads/f/huerfana.jpg")));
+
+        Assertions.assertEquals(Set.of("/uploads/f/dd/d.jpg", "/uploads/f/antigua.jpg", "/uploads/f/antigua_mini.jpg"),
+                referenciadas);
+    }
+
+    @Test
+    void eliminarEquipo_liberaLosArchivosDeSuGaleria() throws Exception
+    {
+        FileStorageService almacenamiento = new FileStorageService(directorio.toString(), 1_000_000, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(almacenamiento, "contenidoRepo", contenidoArchivoRepositorio);
+
+        GaleriaServicioImpl galeria = new GaleriaServicioImpl();
+        ReflectionTestUtils.setField(galeria, "galeriaRepositorio", galeriaRepositorio);
+        ReflectionTestUtils.setField(galeria, "equipoRepositorio", equipoRepositorio);
+        ReflectionTestUtils.setField(galeria, "contenidoRepositorio", contenidoArchivoRepositorio);
+        ReflectionTestUtils.setField(galeria, "fileStorageService", almacenamiento);
+        ReflectionTestUtils.setField(galeria, "miniaturasServicio", Mockito.mock(MiniaturasServicio.class));
+        ReflectionTestUtils.setField(galeria, "cuotaServicio", Mockito.mock(CuotaAlmacenamientoServicio.class));
+
+        EquipoServicioImpl equipos = new EquipoServicioImpl();
+        ReflectionTestUtils.setField(equipos, "equipoRepo", equipoRepositorio);
+        ReflectionTestUtils.setField(equipos, "padreRepo", padreRepositorio);
+        ReflectionTestUtils.setField(equipos, "galeriaServicio", galeria);
+        ReflectionTestUtils.setField(equipos, "eventPublisher", eventPublisher);
+
+        crearEquipo("EQ1");
+        crearEquipo("EQ2");
+        byte[] compartido = aleatorio(1);
+        byte[] propio = aleatorio(2);
+        ArchivoGuardado delBorrado = subir(almacenamiento, galeria, compartido, "EQ1");
+        ArchivoGuardado delOtro = subir(almacenamiento, galeria, compartido, "EQ2");
+        ArchivoGuardado soloDelBorrado = subir(almacenamiento, galeria, propio, "EQ1");
+        Assertions.assertEquals(delBorrado.getUrl(), delOtro.getUrl());
+
+        equipos.eliminarEquipo("EQ1");
+        entityManager.flush();
+        entityManager.clear();
+
+        Assertions.assertEquals(1, contenidoArchivoRepositorio.findById(delBorrado.getSha256()).orElseThrow().getReferencias());
+        Assertions.assertTrue(Files.exists(almacenamiento.resolver(delBorrado.getUrl())));
+        Assertions.assertTrue(contenidoArchivoRepositorio.findById(soloDelBorrado.getSha256()).isEmpty());
+        Assertions.assertFalse(Files.exists(directorio.resolve(soloDelBorrado.getUrl().substring("/uploads/".length()))));
+        Assertions.assertTrue(galeriaRepositorio.findByEquipo_IdEquipo("EQ1").isEmpty());
+        Assertions.assertEquals(1, galeriaRepositorio.findByEquipo_IdEquipo("EQ2").size());
+    }
+
+    private ArchivoGuardado subir(FileStorageService almacenamiento, GaleriaServicioImpl galeria, byte[] contenido,
+            String idEquipo)
+    {
+        ArchivoGuardado archivo = almacenamiento.storeStream(new ByteArrayInputStream(contenido), "galeria", "foto.jpg");
+        galeria.crearDocumento("imagen", "autor", LocalDate.of(2024, 1, 1), archivo, "foto", idEquipo);
+        return archivo;
+    }
+
+    private void crearEquipo(String id)
+    {
+        Equipo equipo = new Equipo();
+        equipo.setIdEquipo(id);
+        equipo.setNombreEquipo("Equipo " + id);
+        equipo.setPassword("password123");
+        equipo.setCategoria("Senior");
+        equipo.setJugadores(new ArrayList<>());
+        equipo.setPadres(new ArrayList<>());
+        entityManager.persistAndFlush(equipo);
+    }
+
+    private static byte[] aleatorio(long semilla)
+    {
+        byte[] contenido = new byte[10_000];
+        new Random(semilla).nextBytes(contenido);
+        return contenido;
+    }
+}
@@ -0,0 +1,140 @@
+package com.clubManager.baseDatosClub.repositorios;
+
+import com.clubManager.baseDatosClub.entidades.Credencial;
+import com.clubManager.baseDatosClub.entidades.Entrenador;
+import com.clubManager.baseDatosClub.entidades.Equipo;
+import com.clubManager.baseDatosClub.entidades.Jugador;
+import com.clubManager.baseDatosClub.servicios.CredencialServicioImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class CredencialRepositorioTest {
+
+    @Autowired
+    private CredencialRepositorio credencialRepositorio;
+
+    @Autowired
+    private EquipoRepositorio equipoRepositorio;
+
+    @Autowired
+    private JugadorRepositorio jugadorRepositorio;
+
+    @Autowired
+    private EntrenadorRepositorio entrenadorRepositorio;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Jugador crearJugador(String id, String dni, Equipo equipo) 
+    {
+        Jugador jugador = new Jugador();
+        jugador.setIdJugador(id);
+        jugador.setNombre("Jugador");
+        jugador.setApellidos("Apellidos");
+        jugador.setDni(dni);
+        jugador.setFechaNacimiento(LocalDate.of(2000, 1, 1));
+        jugador.setPassword("password123");
+        jugador.setTelefono("600987654");
+        jugador.setTipoUsuario("JUGADOR");
+        jugador.setEquipo(equipo);
+        return jugador;
+    }
+
+    private Entrenador crearEntrenador(String id, String dni) 
+    {
+        Entrenador entrenador = new Entrenador();
+        entrenador.setIdEntrenador(id);
+        entrenador.setNombre("Entrenador");
+        entrenador.setApellidos("Apellidos");
+        entrenador.setDni(dni);
+        entrenador.setTipoUsuario("ENTRENADOR");
+        entrenador.setPassword("clave123");
+        return entrenador;
+    }
+
+    @Test
+    void findByIdentificador_devuelveUnaCredencialPorTipo() 
+    {
+        credencialRepositorio.save(new Credencial("u1", Credencial.TIPO_JUGADOR, "a", "eq1"));
+        credencialRepositorio.save(new Credencial("u1", Credencial.TIPO_PADRE, "b", null));
+        credencialRepositorio.save(new Credencial("u2", Credencial.TIPO_PADRE, "c", null));
+
+        List<Credencial> credenciales = credencialRepositorio.findByIdentificador("u1");
+
+        Assertions.assertEquals(2, credenciales.size());
+    }
+
+    @Test
+    void indexarPendientes_creaCredencialesUnaSolaVez() 
+    {
+        Equipo equipo = new Equipo();
+        equipo.setIdEquipo("eq1");
+        equipo.setNombreEquipo("Equipo");
+        equipo.setCategoria("Senior");
+        equipo.setPassword("password123");
+        equipoRepositorio.save(equipo);
+
+        jugadorRepositorio.save(crearJugador("j1", "12345678A", equipo));
+        jugadorRepositorio.save(crearJugador("j2", "12345678B", null));
+        entrenadorRepositorio.save(crearEntrenador("e1", "12345678C"));
+
+        Assertions.assertEquals(2, credencialRepositorio.indexarJugadoresPendientes());
+        Assertions.assertEquals(1, credencialRepositorio.indexarEntrenadoresPendientes());
+        Assertions.assertEquals(0, credencialRepositorio.indexarJugadoresPendientes());
+
+        Optional<Credencial> j1 = credencialRepositorio.findByIdentificadorAndTipoUsuario("j1", Credencial.TIPO_JUGADOR);
+        Assertions.assertTrue(j1.isPresent());
+        Assertions.assertEquals("eq1", j1.get().getIdEquipo());
+        Assertions.assertEquals("password123", j1.get().getPassword());
+
+        Optional<Credencial> j2 = credencialRepositorio.findByIdentificadorAndTipoUsuario("j2", Credencial.TIPO_JUGADOR);
+        Assertions.assertTrue(j2.isPresent());
+        Assertions.assertNull(j2.get().getIdEquipo());
+    }
+
+    @Test
+    void rehashearPassword_noDeshaceUnCambioHechoMientrasSeCalculaba() 
+    {
+        CredencialServicioImpl servicio = new CredencialServicioImpl();
+        ReflectionTestUtils.setField(servicio, "credencialRepositorio", credencialRepositorio);
+        ReflectionTestUtils.setField(servicio, "jugadorRepositorio", jugadorRepositorio);
+        jugadorRepositorio.save(crearJugador("j1", "12345678A", null));
+        credencialRepositorio.save(new Credencial("j1", Credencial.TIPO_JUGADOR, "password123", null));
+
+        // El usuario cambia la contraseña antes de que termine el hash de la antigua
+        servicio.actualizarPassword("j1", Credencial.TIPO_JUGADOR, "$2a$12$nueva");
+        Assertions.assertFalse(servicio.rehashearPassword("j1", Credencial.TIPO_JUGADOR, "password123", "$2a$12$antigua"));
+        entityManager.clear();
+        Assertions.assertEquals("$2a$12$nueva", jugadorRepositorio.findById("j1").orElseThrow().getPassword());
+        Assertions.assertEquals("$2a$12$nueva", credencialRepositorio
+                .findByIdentificadorAndTipoUsuario("j1", Credencial.TIPO_JUGADOR).orElseThrow().getPassword());
+
+        Assertions.assertTrue(servicio.rehashearPassword("j1", Credencial.TIPO_JUGADOR, "$2a$12$nueva", "$2a$14$nueva"));
+        entityManager.clear();
+        Assertions.assertEquals("$2a$14$nueva", jugadorRepositorio.findById("j1").orElseThrow().getPassword());
+        Assertions.assertEquals("$2a$14$nueva", credencialRepositorio
+                .findByIdentificadorAndTipoUsuario("j1", Credencial.TIPO_JUGADOR).orElseThrow().getPassword());
+    }
+
+    @Test
+    void eliminarPorEquipoYTipo_soloBorraJugadoresDelEquipo() 
+    {
+        credencialRepositorio.save(new Credencial("j1", Credencial.TIPO_JUGADOR, "a", "eq1"));
+        credencialRepositorio.save(new Credencial("j2", Credencial.TIPO_JUGADOR, "a", "eq2"));
+        credencialRepositorio.save(new Credencial("e1", Credencial.TIPO_ENTRENADOR, "a", "eq1"));
+
+        credencialRepositorio.eliminarPorEquipoYTipo("eq1", Credencial.TIPO_JUGADOR);
+
+        Assertions.assertEquals(2, credencialRepositorio.count());
+        Assertions.assertTrue(credencialRepositorio.findByIdentificadorAndTipoUsuario("j1", Credencial.TIPO_JUGADOR).isEmpty());
+    }
+}
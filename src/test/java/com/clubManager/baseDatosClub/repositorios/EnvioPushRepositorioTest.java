@@ -0,0 +1,98 @@
+package com.clubManager.baseDatosClub.repositorios;
+
+import com.clubManager.baseDatosClub.entidades.EnvioPush;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class EnvioPushRepositorioTest {
+
+    @Autowired
+    private EnvioPushRepositorio envioPushRepositorio;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void reclamar_segundoReclamoNoObtieneLosMismosEnvios() 
+    {
+        envioPushRepositorio.save(new EnvioPush(1L, "T1", "{}"));
+        envioPushRepositorio.save(new EnvioPush(1L, "T2", "{}"));
+        LocalDateTime ahora = LocalDateTime.now().plusSeconds(1);
+
+        List<Long> candidatos = envioPushRepositorio.buscarCandidatos(ahora, PageRequest.of(0, 10));
+        int primero = envioPushRepositorio.reclamar(candidatos, "A", ahora.plusMinutes(5), ahora);
+        int segundo = envioPushRepositorio.reclamar(candidatos, "B", ahora.plusMinutes(5), ahora);
+        entityManager.clear();
+
+        Assertions.assertEquals(2, primero);
+        Assertions.assertEquals(0, segundo);
+        Assertions.assertEquals(2, envioPushRepositorio.findByReclamadoPor("A").size());
+        Assertions.assertTrue(envioPushRepositorio.buscarCandidatos(ahora, PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    void reprogramar_liberaElEnvioHastaElProximoIntento() 
+    {
+        EnvioPush envio = envioPushRepositorio.save(new EnvioPush(1L, "T1", "{}"));
+        LocalDateTime ahora = LocalDateTime.now().plusSeconds(1);
+        envioPushRepositorio.reclamar(List.of(envio.getIdEnvio()), "A", ahora.plusMinutes(5), ahora);
+
+        envioPushRepositorio.reprogramar(envio.getIdEnvio(), "A", 1, ahora.plusMinutes(1), "503");
+        entityManager.clear();
+
+        Assertions.assertTrue(envioPushRepositorio.buscarCandidatos(ahora, PageRequest.of(0, 10)).isEmpty());
+        Assertions.assertEquals(List.of(envio.getIdEnvio()),
+                envioPushRepositorio.buscarCandidatos(ahora.plusMinutes(2), PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void marcarFallido_conReclamoCaducado_noModificaElEnvio() 
+    {
+        EnvioPush envio = envioPushRepositorio.save(new EnvioPush(1L, "T1", "{}"));
+        LocalDateTime ahora = LocalDateTime.now().plusSeconds(1);
+        envioPushRepositorio.reclamar(List.of(envio.getIdEnvio()), "A", ahora.minusSeconds(1), ahora);
+        envioPushRepositorio.reclamar(List.of(envio.getIdEnvio()), "B", ahora.plusMinutes(5), ahora);
+
+        Assertions.assertEquals(0, envioPushRepositorio.marcarFallido(envio.getIdEnvio(), "A", 1, "404"));
+        Assertions.assertEquals(1, envioPushRepositorio.marcarEnviado(envio.getIdEnvio(), "B"));
+        entityManager.clear();
+
+        Assertions.assertEquals(EnvioPush.ESTADO_ENVIADO,
+                envioPushRepositorio.findById(envio.getIdEnvio()).orElseThrow().getEstado());
+    }
+
+    @Test
+    void borrarTerminados_soloBorraEnviosTerminadosAntiguos() 
+    {
+        LocalDateTime ahora = LocalDateTime.now();
+        EnvioPush enviado = envioPushRepositorio.save(envio("T1", EnvioPush.ESTADO_ENVIADO, ahora.minusDays(10)));
+        EnvioPush fallido = envioPushRepositorio.save(envio("T2", EnvioPush.ESTADO_FALLIDO, ahora.minusDays(10)));
+        EnvioPush pendiente = envioPushRepositorio.save(envio("T3", EnvioPush.ESTADO_PENDIENTE, ahora.minusDays(10)));
+        EnvioPush reciente = envioPushRepositorio.save(envio("T4", EnvioPush.ESTADO_ENVIADO, ahora));
+
+        List<Long> terminados = envioPushRepositorio.buscarTerminadosAntesDe(ahora.minusDays(7), PageRequest.of(0, 10));
+        Assertions.assertEquals(2, envioPushRepositorio.borrarTerminados(terminados));
+        entityManager.clear();
+
+        Assertions.assertFalse(envioPushRepositorio.existsById(enviado.getIdEnvio()));
+        Assertions.assertFalse(envioPushRepositorio.existsById(fallido.getIdEnvio()));
+        Assertions.assertTrue(envioPushRepositorio.existsById(pendiente.getIdEnvio()));
+        Assertions.assertTrue(envioPushRepositorio.existsById(reciente.getIdEnvio()));
+    }
+
+    private static EnvioPush envio(String token, String estado, LocalDateTime fechaCreacion)
+    {
+        EnvioPush envio = new EnvioPush(1L, token, "{}");
+        envio.setEstado(estado);
+        envio.setFechaCreacion(fechaCreacion);
+        return envio;
+    }
+}
@@ -0,0 +1,189 @@
+package com.clubManager.baseDatosClub.repositorios;
+
+import com.clubManager.baseDatosClub.dto.GaleriaResumenDTO;
+import com.clubManager.baseDatosClub.entidades.Equipo;
+import com.clubManager.baseDatosClub.entidades.Galeria;
+import com.clubManager.baseDatosClub.repositorios.NotificacionRepositorioTest.SentenciasCapturadas;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import jakarta.persistence.EntityManager;
+import java.sql.Date;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.jakarta.persistence.validation.mode=none",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.clubManager.baseDatosClub.repositorios.NotificacionRepositorioTest$SentenciasCapturadas"
+})
+class GaleriaRepositorioTest {
+
+    private static final int DIAS = 30;
+    private static final int PAGINA = 25;
+    private static final int PAGINA_TIPO = 5;
+
+    @Autowired
+    private GaleriaRepositorio galeriaRepositorio;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp()
+    {
+        Equipo equipo = crearEquipo("EQ1");
+        Equipo otro = crearEquipo("EQ2");
+        LocalDate inicio = LocalDate.of(2024, 9, 1);
+        for (int d = 0; d < DIAS; d++)
+        {
+            entityManager.persist(crearDocumento(equipo, "imagen", inicio.plusDays(d)));
+            entityManager.persist(crearDocumento(equipo, "imagen", inicio.plusDays(d)));
+            entityManager.persist(crearDocumento(equipo, "video", inicio.plusDays(d)));
+            entityManager.persist(crearDocumento(otro, "imagen", inicio.plusDays(d)));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void paginas_recorrenLaGaleriaFiltradaConUnaConsultaPorPagina()
+    {
+        Statistics estadisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        List<GaleriaResumenDTO> todos = new ArrayList<>();
+        int paginas = 0;
+
+        estadisticas.clear();
+        List<GaleriaResumenDTO> pagina = galeriaRepositorio.buscarPrimeraPaginaPorTipo("EQ1", "imagen", PageRequest.of(0, PAGINA));
+        while (!pagina.isEmpty())
+        {
+            paginas++;
+            Assertions.assertEquals(paginas, estadisticas.getPrepareStatementCount());
+            todos.addAll(pagina);
+            GaleriaResumenDTO ultimo = pagina.get(pagina.size() - 1);
+            pagina = galeriaRepositorio.buscarPaginaTrasPorTipo("EQ1", "imagen", ultimo.getFecha(),
+                    ultimo.getIdDocumento(), PageRequest.of(0, PAGINA));
+        }
+
+        Assertions.assertEquals(DIAS * 2, todos.size());
+        Assertions.assertEquals(todos.size(), todos.stream().map(GaleriaResumenDTO::getIdDocumento).distinct().count());
+        Assertions.assertTrue(todos.stream().allMatch(d -> "imagen".equals(d.getTipo())));
+        Assertions.assertEquals(0, estadisticas.getEntityLoadCount());
+        for (int i = 1; i < todos.size(); i++)
+        {
+            GaleriaResumenDTO anterior = todos.get(i - 1);
+            GaleriaResumenDTO actual = todos.get(i);
+            int orden = anterior.getFecha().compareTo(actual.getFecha());
+            Assertions.assertTrue(orden > 0 || (orden == 0 && anterior.getIdDocumento() > actual.getIdDocumento()));
+        }
+    }
+
+    @Test
+    void buscarPrimeraPagina_sinTipo_devuelveTodosLosDelEquipo()
+    {
+        List<GaleriaResumenDTO> pagina = galeriaRepositorio.buscarPrimeraPagina("EQ1", PageRequest.of(0, 1000));
+
+        Assertions.assertEquals(DIAS * 3, pagina.size());
+        Assertions.assertEquals(LocalDate.of(2024, 9, 1).plusDays(DIAS - 1), pagina.get(0).getFecha());
+    }
+
+    @Test
+    void buscarPaginaTrasPorTipo_soloLeeDocumentosDelTipo()
+    {
+        // Los vídeos son un tercio de la galería del equipo
+        List<GaleriaResumenDTO> videos = galeriaRepositorio.buscarPrimeraPaginaPorTipo("EQ1", "video", PageRequest.of(0, 1000));
+        GaleriaResumenDTO cursor = videos.get(videos.size() - PAGINA_TIPO - 5);
+
+        SentenciasCapturadas.SENTENCIAS.clear();
+        List<GaleriaResumenDTO> pagina = galeriaRepositorio.buscarPaginaTrasPorTipo("EQ1", "video", cursor.getFecha(),
+                cursor.getIdDocumento(), PageRequest.of(0, PAGINA_TIPO));
+        Assertions.assertEquals(PAGINA_TIPO, pagina.size());
+        Assertions.assertEquals(1, SentenciasCapturadas.SENTENCIAS.size(), SentenciasCapturadas.SENTENCIAS.toString());
+
+        String sql = SentenciasCapturadas.SENTENCIAS.get(0);
+        String plan = entityManager.unwrap(Session.class).doReturningWork(conexion ->
+        {
+            try (PreparedStatement ps = conexion.prepareStatement("EXPLAIN ANALYZE " + sql))
+            {
+                // Los parámetros se asignan por tipo; el equipo va antes que el tipo y el límite al final
+                ParameterMetaData metadatos = ps.getParameterMetaData();
+                int parametros = metadatos.getParameterCount();
+                List<String> textos = new ArrayList<>(List.of("EQ1", "video"));
+                for (int i = 1; i <= parametros; i++)
+                {
+                    switch (i == parametros ? Types.NULL : metadatos.getParameterType(i))
+                    {
+                        case Types.NULL -> ps.setInt(i, PAGINA_TIPO);
+                        case Types.DATE -> ps.setDate(i, Date.valueOf(cursor.getFecha()));
+                        case Types.VARCHAR -> ps.setString(i, textos.remove(0));
+                        default -> ps.setLong(i, cursor.getIdDocumento());
+                    }
+                }
+                try (ResultSet rs = ps.executeQuery())
+                {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            }
+        });
+        Matcher m = Pattern.compile("scanCount: (\\d+)").matcher(plan);
+        Assertions.assertTrue(m.find(), plan);
+        long filas = Long.parseLong(m.group(1));
+        Assertions.assertTrue(filas <= PAGINA_TIPO + 1, "Filas leídas: " + filas + "\n" + plan);
+    }
+
+    @Test
+    void buscarSinMiniatura_omiteLosDocumentosYaProcesados()
+    {
+        int pendientes = galeriaRepositorio.buscarSinMiniatura(0L, PageRequest.of(0, 1000)).size();
+        String url = "/uploads/fotos/" + LocalDate.of(2024, 9, 1) + "-imagen.jpg";
+
+        Assertions.assertEquals(3, galeriaRepositorio.marcarSinVariantes(url, Galeria.VARIANTES_NO_IMAGEN));
+        entityManager.clear();
+
+        List<Object[]> restantes = galeriaRepositorio.buscarSinMiniatura(0L, PageRequest.of(0, 1000));
+        Assertions.assertEquals(pendientes - 3, restantes.size());
+        Assertions.assertTrue(restantes.stream().noneMatch(f -> url.equals(f[1])));
+    }
+
+    private Equipo crearEquipo(String id)
+    {
+        Equipo equipo = new Equipo();
+        equipo.setIdEquipo(id);
+        equipo.setNombreEquipo("Equipo " + id);
+        equipo.setPassword("password123");
+        equipo.setCategoria("Senior");
+        equipo.setJugadores(new ArrayList<>());
+        equipo.setPadres(new ArrayList<>());
+        entityManager.persist(equipo);
+        return equipo;
+    }
+
+    private Galeria crearDocumento(Equipo equipo, String tipo, LocalDate fecha)
+    {
+        Galeria documento = new Galeria();
+        documento.setTipo(tipo);
+        documento.setAutor("Entrenador");
+        documento.setFecha(fecha);
+        documento.setNombreDocumento("Documento");
+        documento.setUrl("/uploads/fotos/" + fecha + "-" + tipo + ".jpg");
+        documento.setEquipo(equipo);
+        return documento;
+    }
+}
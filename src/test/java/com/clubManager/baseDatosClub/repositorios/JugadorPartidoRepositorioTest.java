@@ -0,0 +1,167 @@
+package com.clubManager.baseDatosClub.repositorios;
+
+import com.clubManager.baseDatosClub.dto.EstadisticaActaDTO;
+import com.clubManager.baseDatosClub.dto.JugadorPuntuacionDTO;
+import com.clubManager.baseDatosClub.entidades.Jugador;
+import com.clubManager.baseDatosClub.entidades.JugadorPartido;
+import com.clubManager.baseDatosClub.entidades.JugadorPartidoPK;
+import com.clubManager.baseDatosClub.entidades.Partido;
+import com.clubManager.baseDatosClub.servicios.JugadorPartidoServicioImpl;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import jakarta.persistence.EntityNotFoundException;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.jakarta.persistence.validation.mode=none"
+})
+class JugadorPartidoRepositorioTest {
+
+    @Autowired
+    private JugadorPartidoRepositorio jugadorPartidoRepositorio;
+
+    @Autowired
+    private PartidoRepositorio partidoRepositorio;
+
+    @Autowired
+    private JugadorRepositorio jugadorRepositorio;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private JugadorPartidoServicioImpl servicio;
+    private Long idPartido;
+
+    @BeforeEach
+    void setUp()
+    {
+        Partido partido = new Partido();
+        partido.setFecha(LocalDate.of(2024, 10, 5));
+        partido.setLocal("Club");
+        partido.setVisitante("Rival");
+        idPartido = entityManager.persist(partido).getIdPartido();
+
+        convocar(partido, crearJugador("J1", "11111111A", 10));
+        convocar(partido, crearJugador("J2", "22222222B", null));
+        crearJugador("J3", "33333333C", 0);
+        entityManager.flush();
+        entityManager.clear();
+
+        servicio = new JugadorPartidoServicioImpl();
+        ReflectionTestUtils.setField(servicio, "jugadorPartidoRepositorio", jugadorPartidoRepositorio);
+        ReflectionTestUtils.setField(servicio, "partidoRepositorio", partidoRepositorio);
+        ReflectionTestUtils.setField(servicio, "jugadorRepositorio", jugadorRepositorio);
+        ReflectionTestUtils.setField(servicio, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(servicio, "eventPublisher", eventPublisher);
+    }
+
+    @Test
+    void registrarActa_aplicaTodasLasLineasYDevuelveLasPuntuaciones()
+    {
+        List<JugadorPuntuacionDTO> puntuaciones = servicio.registrarActa(idPartido, List.of(
+                new EstadisticaActaDTO("J2", 2, null, 1, null, 8),
+                new EstadisticaActaDTO("J1", null, 3, null, 1, 5)));
+        entityManager.clear();
+
+        Assertions.assertEquals(List.of("J1", "J2"), puntuaciones.stream().map(JugadorPuntuacionDTO::getIdJugador).toList());
+        Assertions.assertEquals(15, puntuaciones.get(0).getPuntosTotales());
+        Assertions.assertEquals(5, puntuaciones.get(0).getPuntuacion());
+        Assertions.assertEquals(8, puntuaciones.get(1).getPuntosTotales());
+
+        Jugador j1 = jugadorRepositorio.findById("J1").orElseThrow();
+        Jugador j2 = jugadorRepositorio.findById("J2").orElseThrow();
+        Assertions.assertEquals(3, j1.getGolesEncajados());
+        Assertions.assertEquals(1, j1.getTarjetasRojas());
+        Assertions.assertEquals(2, j2.getGoles());
+        Assertions.assertEquals(1, j2.getTarjetasAmarillas());
+        Assertions.assertEquals(8, jugadorPartidoRepositorio.findById(new JugadorPartidoPK("J2", idPartido))
+                .orElseThrow().getPuntuacion());
+    }
+
+    @Test
+    void registrarActa_conUnJugadorFueraDelPartido_noAplicaNada()
+    {
+        ResponseStatusException e = Assertions.assertThrows(ResponseStatusException.class,
+                () -> servicio.registrarActa(idPartido, List.of(
+                        new EstadisticaActaDTO("J1", 1, 0, 0, 0, 1),
+                        new EstadisticaActaDTO("J3", 1, 0, 0, 0, 1))));
+        entityManager.clear();
+
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+        Assertions.assertEquals(0, jugadorRepositorio.leerGoles("J1"));
+        Assertions.assertEquals(10, jugadorRepositorio.leerPuntos("J1"));
+    }
+
+    @Test
+    void registrarActa_rechazaJugadoresRepetidosYCantidadesNegativas()
+    {
+        Assertions.assertThrows(ResponseStatusException.class, () -> servicio.registrarActa(idPartido, List.of(
+                new EstadisticaActaDTO("J1", 1, 0, 0, 0, 0),
+                new EstadisticaActaDTO("J1", 1, 0, 0, 0, 0))));
+        Assertions.assertThrows(ResponseStatusException.class, () -> servicio.registrarActa(idPartido, List.of(
+                new EstadisticaActaDTO("J1", -1, 0, 0, 0, 0))));
+    }
+
+    @Test
+    void asignarPuntuacion_sumaSinPisarCambiosSimultaneosDelJugador()
+    {
+        jugadorRepositorio.findById("J1").orElseThrow();
+        jdbcTemplate.update("UPDATE jugador SET goles = 4 WHERE idJugador = 'J1'");
+
+        JugadorPuntuacionDTO puntuacion = servicio.asignarPuntuacion("J1", idPartido, 3);
+        entityManager.flush();
+        entityManager.clear();
+
+        Assertions.assertEquals(13, puntuacion.getPuntosTotales());
+        Assertions.assertEquals(3, puntuacion.getPuntuacion());
+        Assertions.assertEquals(4, jugadorRepositorio.leerGoles("J1"));
+        Assertions.assertEquals(13, jugadorRepositorio.leerPuntos("J1"));
+        Assertions.assertEquals(3, jugadorPartidoRepositorio.findById(new JugadorPartidoPK("J1", idPartido))
+                .orElseThrow().getPuntuacion());
+        Assertions.assertThrows(EntityNotFoundException.class, () -> servicio.asignarPuntuacion("J3", idPartido, 1));
+    }
+
+    private Jugador crearJugador(String id, String dni, Integer puntos)
+    {
+        Jugador jugador = new Jugador();
+        jugador.setIdJugador(id);
+        jugador.setNombre("Jugador " + id);
+        jugador.setApellidos("Apellidos");
+        jugador.setDni(dni);
+        jugador.setFechaNacimiento(LocalDate.of(2000, 1, 1));
+        jugador.setPassword("password123");
+        jugador.setTelefono("600987654");
+        jugador.setTipoUsuario("JUGADOR");
+        jugador.setPuntosTotales(puntos);
+        return entityManager.persist(jugador);
+    }
+
+    private void convocar(Partido partido, Jugador jugador)
+    {
+        JugadorPartido jugadorPartido = new JugadorPartido();
+        jugadorPartido.setId(new JugadorPartidoPK(jugador.getIdJugador(), partido.getIdPartido()));
+        jugadorPartido.setJugador(jugador);
+        jugadorPartido.setPartido(partido);
+        entityManager.persist(jugadorPartido);
+    }
+}
@@ -0,0 +1,187 @@
+package com.clubManager.baseDatosClub.repositorios;
+
+import com.clubManager.baseDatosClub.dto.JugadorPlantillaDTO;
+import com.clubManager.baseDatosClub.dto.JugadorRelacionDTO;
+import com.clubManager.baseDatosClub.entidades.Equipo;
+import com.clubManager.baseDatosClub.entidades.Jugador;
+import com.clubManager.baseDatosClub.entidades.Padre;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Las sumas se hacen desde varios hilos, cada una en su propia transacción confirmada,
+ * por lo que la prueba no se ejecuta dentro de la transacción de {@link DataJpaTest}. Las
+ * pruebas que no lo necesitan sí abren una, que se deshace al terminar.
+ */
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.jakarta.persistence.validation.mode=none",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JugadorRepositorioTest {
+
+    private static final int HILOS = 8;
+    private static final int SUMAS = 200;
+
+    @Autowired
+    private JugadorRepositorio jugadorRepositorio;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @AfterEach
+    void tearDown()
+    {
+        jugadorRepositorio.deleteAll();
+    }
+
+    @Test
+    void sumarGoles_enParaleloNoPierdeNingunaSumaYCadaUnaVeSuPropioValor() throws Exception
+    {
+        jugadorRepositorio.save(crearJugador("J1"));
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+
+        List<Future<Integer>> resultados = new ArrayList<>();
+        try
+        {
+            Callable<Integer> sumar = () ->
+            {
+                salida.await();
+                return transaccion.execute(estado ->
+                {
+                    jugadorRepositorio.sumarGoles("J1", 1);
+                    return jugadorRepositorio.leerGoles("J1");
+                });
+            };
+            for (int i = 0; i < SUMAS; i++)
+            {
+                resultados.add(hilos.submit(sumar));
+            }
+            salida.countDown();
+
+            Set<Integer> vistos = new HashSet<>();
+            for (Future<Integer> resultado : resultados)
+            {
+                vistos.add(resultado.get());
+            }
+
+            Assertions.assertEquals(SUMAS, vistos.size());
+            Assertions.assertEquals(SUMAS, jugadorRepositorio.leerGoles("J1"));
+        }
+        finally
+        {
+            hilos.shutdownNow();
+        }
+    }
+
+    @Test
+    void sumarPuntos_tomaComoCeroLosPuntosNulosEIgnoraJugadoresInexistentes()
+    {
+        Jugador jugador = crearJugador("J2");
+        jugador.setPuntosTotales(null);
+        jugadorRepositorio.save(jugador);
+
+        Assertions.assertEquals(1, jugadorRepositorio.sumarPuntos("J2", 3));
+        Assertions.assertEquals(3, jugadorRepositorio.leerPuntos("J2"));
+        Assertions.assertEquals(0, jugadorRepositorio.sumarPuntos("NO-EXISTE", 3));
+    }
+
+    @Test
+    @Transactional
+    void listadosDeEquipo_unaConsultaSinCargarEntidades()
+    {
+        Padre padre = new Padre();
+        padre.setIdPadre("P1");
+        padre.setNombre("Padre");
+        padre.setApellidos("Apellidos");
+        padre.setDni("87654321Z");
+        padre.setPassword("password123");
+        padre.setTelefono("600123456");
+        padre.setTipoUsuario("PADRE");
+        padre.setEmail("padre@club.es");
+        padre.setVinculo("Padre");
+        entityManager.persist(padre);
+
+        Equipo equipo = new Equipo();
+        equipo.setIdEquipo("EQ1");
+        equipo.setNombreEquipo("Equipo");
+        equipo.setPassword("password123");
+        equipo.setCategoria("Senior");
+        equipo.setJugadores(new ArrayList<>());
+        equipo.setPadres(new ArrayList<>(List.of(padre)));
+        entityManager.persist(equipo);
+
+        for (String id : List.of("J3", "J4", "J5"))
+        {
+            Jugador jugador = crearJugador(id);
+            jugador.setEquipo(equipo);
+            jugador.setActivo(!"J5".equals(id));
+            jugador.setFcmToken("token-" + id);
+            entityManager.persist(jugador);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics estadisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        List<JugadorRelacionDTO> relacion = jugadorRepositorio.buscarRelacionPorEquipo("EQ1");
+        Assertions.assertEquals(1, estadisticas.getPrepareStatementCount());
+
+        estadisticas.clear();
+        List<JugadorPlantillaDTO> plantilla = jugadorRepositorio.buscarPlantillaActivaPorEquipo("EQ1");
+        Assertions.assertEquals(1, estadisticas.getPrepareStatementCount());
+        Assertions.assertEquals(0, estadisticas.getEntityLoadCount());
+        Assertions.assertEquals(0, estadisticas.getCollectionLoadCount());
+
+        Assertions.assertEquals(Set.of("J3", "J4", "J5"),
+                Set.copyOf(relacion.stream().map(JugadorRelacionDTO::getIdJugador).toList()));
+        Assertions.assertEquals(Set.of("J3", "J4"),
+                Set.copyOf(plantilla.stream().map(JugadorPlantillaDTO::getIdJugador).toList()));
+        Assertions.assertEquals("Apellidos", relacion.get(0).getApellidos());
+    }
+
+    private Jugador crearJugador(String id)
+    {
+        Jugador jugador = new Jugador();
+        jugador.setIdJugador(id);
+        jugador.setNombre("Jugador");
+        jugador.setApellidos("Apellidos");
+        jugador.setDni("1234567" + id.charAt(id.length() - 1) + "A");
+        jugador.setFechaNacimiento(LocalDate.of(2000, 1, 1));
+        jugador.setPassword("password123");
+        jugador.setTelefono("600987654");
+        jugador.setTipoUsuario("JUGADOR");
+        jugador.setGoles(0);
+        return jugador;
+    }
+}
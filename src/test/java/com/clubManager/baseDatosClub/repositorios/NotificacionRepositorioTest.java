@@ -0,0 +1,185 @@
+package com.clubManager.baseDatosClub.repositorios;
+
+import com.clubManager.baseDatosClub.dto.NotificacionDTO;
+import com.clubManager.baseDatosClub.entidades.Equipo;
+import com.clubManager.baseDatosClub.entidades.Notificacion;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import jakarta.persistence.EntityManager;
+import java.sql.Date;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.jakarta.persistence.validation.mode=none",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.clubManager.baseDatosClub.repositorios.NotificacionRepositorioTest$SentenciasCapturadas"
+})
+class NotificacionRepositorioTest {
+
+    private static final int POR_DIA = 10;
+    private static final int DIAS = 60;
+    private static final int PAGINA = 20;
+
+    @Autowired
+    private NotificacionRepositorio notificacionRepositorio;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() 
+    {
+        Equipo equipo = crearEquipo("EQ1");
+        Equipo otro = crearEquipo("EQ2");
+        LocalDate inicio = LocalDate.of(2024, 1, 1);
+        for (int d = 0; d < DIAS; d++) 
+        {
+            for (int i = 0; i < POR_DIA; i++) 
+            {
+                entityManager.persist(crearNotificacion(equipo, inicio.plusDays(d)));
+                entityManager.persist(crearNotificacion(otro, inicio.plusDays(d)));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void paginas_recorrenTodoElHistorialEnOrdenSinRepetir() 
+    {
+        List<NotificacionDTO> todas = new ArrayList<>();
+        List<NotificacionDTO> pagina = notificacionRepositorio.buscarPrimeraPagina("EQ1", PageRequest.of(0, PAGINA));
+        while (!pagina.isEmpty()) 
+        {
+            todas.addAll(pagina);
+            NotificacionDTO ultima = pagina.get(pagina.size() - 1);
+            pagina = notificacionRepositorio.buscarPaginaTras("EQ1", ultima.getFecha(),
+                    ultima.getIdNotificacion(), PageRequest.of(0, PAGINA));
+        }
+
+        Assertions.assertEquals(DIAS * POR_DIA, todas.size());
+        Assertions.assertEquals(todas.size(), todas.stream().map(NotificacionDTO::getIdNotificacion).distinct().count());
+        Assertions.assertTrue(todas.stream().allMatch(n -> "EQ1".equals(n.getIdEquipo())));
+        for (int i = 1; i < todas.size(); i++) 
+        {
+            NotificacionDTO anterior = todas.get(i - 1);
+            NotificacionDTO actual = todas.get(i);
+            int orden = anterior.getFecha().compareTo(actual.getFecha());
+            Assertions.assertTrue(orden > 0 || (orden == 0 && anterior.getIdNotificacion() > actual.getIdNotificacion()));
+        }
+    }
+
+    @Test
+    void paginas_leenLasMismasFilasEnCualquierProfundidad() 
+    {
+        List<NotificacionDTO> primera = notificacionRepositorio.buscarPrimeraPagina("EQ1", PageRequest.of(0, DIAS * POR_DIA));
+        NotificacionDTO cercana = primera.get(PAGINA - 1);
+        NotificacionDTO profunda = primera.get(primera.size() - PAGINA - 5);
+
+        long filasCercana = filasLeidas(cercana);
+        long filasProfunda = filasLeidas(profunda);
+
+        Assertions.assertTrue(filasCercana <= 2 * PAGINA, "Filas leídas: " + filasCercana);
+        Assertions.assertTrue(filasProfunda <= 2 * PAGINA, "Filas leídas: " + filasProfunda);
+    }
+
+    /**
+     * Filas que H2 recorre al ejecutar {@link NotificacionRepositorio#buscarPaginaTras}. Se llama
+     * al repositorio, se comprueba que lanza una sola sentencia y se pide a H2 el plan de esa
+     * misma sentencia, tal como la ha generado Hibernate.
+     */
+
+    private long filasLeidas(NotificacionDTO cursor) 
+    {
+        SentenciasCapturadas.SENTENCIAS.clear();
+        List<NotificacionDTO> pagina = notificacionRepositorio.buscarPaginaTras("EQ1", cursor.getFecha(),
+                cursor.getIdNotificacion(), PageRequest.of(0, PAGINA));
+        Assertions.assertEquals(PAGINA, pagina.size());
+        Assertions.assertEquals(1, SentenciasCapturadas.SENTENCIAS.size(), SentenciasCapturadas.SENTENCIAS.toString());
+
+        String sql = SentenciasCapturadas.SENTENCIAS.get(0);
+        String plan = entityManager.unwrap(Session.class).doReturningWork(conexion -> 
+        {
+            try (PreparedStatement ps = conexion.prepareStatement("EXPLAIN ANALYZE " + sql)) 
+            {
+                // Los parámetros se asignan por tipo; Hibernate deja el límite siempre al final
+                ParameterMetaData metadatos = ps.getParameterMetaData();
+                int parametros = metadatos.getParameterCount();
+                for (int i = 1; i <= parametros; i++) 
+                {
+                    switch (i == parametros ? Types.NULL : metadatos.getParameterType(i)) 
+                    {
+                        case Types.NULL -> ps.setInt(i, PAGINA);
+                        case Types.DATE -> ps.setDate(i, Date.valueOf(cursor.getFecha()));
+                        case Types.VARCHAR -> ps.setString(i, "EQ1");
+                        default -> ps.setLong(i, cursor.getIdNotificacion());
+                    }
+                }
+                try (ResultSet rs = ps.executeQuery()) 
+                {
+                    rs.next();
+                    return rs.getString(1);
+                }
+            }
+        });
+        Matcher m = Pattern.compile("scanCount: (\\d+)").matcher(plan);
+        Assertions.assertTrue(m.find(), plan);
+        return Long.parseLong(m.group(1));
+    }
+
+    /**
+     * Guarda las sentencias SQL que Hibernate prepara.
+     */
+
+    public static class SentenciasCapturadas implements StatementInspector 
+    {
+        static final List<String> SENTENCIAS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) 
+        {
+            SENTENCIAS.add(sql);
+            return sql;
+        }
+    }
+
+    private Equipo crearEquipo(String id) 
+    {
+        Equipo equipo = new Equipo();
+        equipo.setIdEquipo(id);
+        equipo.setNombreEquipo("Equipo " + id);
+        equipo.setPassword("password123");
+        equipo.setCategoria("Senior");
+        equipo.setJugadores(new ArrayList<>());
+        equipo.setPadres(new ArrayList<>());
+        entityManager.persist(equipo);
+        return equipo;
+    }
+
+    private Notificacion crearNotificacion(Equipo equipo, LocalDate fecha) 
+    {
+        Notificacion notificacion = new Notificacion();
+        notificacion.setTitulo("Aviso");
+        notificacion.setMensaje("Mensaje");
+        notificacion.setFecha(fecha);
+        notificacion.setEquipo(equipo);
+        return notificacion;
+    }
+}
@@ -0,0 +1,146 @@
+package com.clubManager.baseDatosClub.repositorios;
+
+import com.clubManager.baseDatosClub.entidades.Equipo;
+import com.clubManager.baseDatosClub.entidades.Galeria;
+import com.clubManager.baseDatosClub.servicios.CuotaAlmacenamientoServicio;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.jakarta.persistence.validation.mode=none"
+})
+class UsoAlmacenamientoRepositorioTest {
+
+    @Autowired
+    private UsoAlmacenamientoRepositorio usoRepositorio;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Equipo equipo;
+    private CuotaAlmacenamientoServicio cuotaServicio;
+
+    @BeforeEach
+    void setUp()
+    {
+        equipo = crearEquipo("EQ1");
+        entityManager.persist(crearDocumento(equipo, 300L));
+        entityManager.persist(crearDocumento(equipo, 200L));
+        entityManager.persist(crearDocumento(equipo, null));
+        entityManager.flush();
+
+        cuotaServicio = new CuotaAlmacenamientoServicio(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cuotaServicio, "usoRepo", usoRepositorio);
+        ReflectionTestUtils.setField(cuotaServicio, "cuota", 1000L);
+    }
+
+    @Test
+    void reservar_creaElContadorConLoQueYaOcupaYRechazaLoQueNoCabe()
+    {
+        try (CuotaAlmacenamientoServicio.Reserva reserva = cuotaServicio.reservar("EQ1", 400))
+        {
+            reserva.confirmar();
+        }
+        Assertions.assertEquals(900, cuotaServicio.consultar("EQ1").getBytesUsados());
+
+        ResponseStatusException excedida = Assertions.assertThrows(ResponseStatusException.class,
+                () -> cuotaServicio.reservar("EQ1", 101));
+        Assertions.assertEquals(HttpStatus.INSUFFICIENT_STORAGE, excedida.getStatusCode());
+
+        ResponseStatusException sinEquipo = Assertions.assertThrows(ResponseStatusException.class,
+                () -> cuotaServicio.reservar("NO-EXISTE", 1));
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, sinEquipo.getStatusCode());
+        Assertions.assertTrue(usoRepositorio.findById("NO-EXISTE").isEmpty());
+    }
+
+    @Test
+    void reserva_sinConfirmarDevuelveLosBytesYAjustarDevuelveLoNoUsado()
+    {
+        try (CuotaAlmacenamientoServicio.Reserva reserva = cuotaServicio.reservar("EQ1", 400))
+        {
+            reserva.ajustar(150);
+            Assertions.assertEquals(650, cuotaServicio.consultar("EQ1").getBytesUsados());
+            reserva.confirmar();
+        }
+        try (CuotaAlmacenamientoServicio.Reserva reserva = cuotaServicio.reservar("EQ1", 300))
+        {
+            // La subida falla antes de confirmarse
+        }
+        cuotaServicio.devolver("EQ1", 200);
+        entityManager.clear();
+
+        Assertions.assertEquals(450, cuotaServicio.consultar("EQ1").getBytesUsados());
+        Assertions.assertEquals(550, cuotaServicio.consultar("EQ1").getBytesDisponibles());
+    }
+
+    @Test
+    void reconciliar_corrigeLaDesviacionYCreaLosContadoresQueFaltan()
+    {
+        Equipo otro = crearEquipo("EQ2");
+        entityManager.persist(crearDocumento(otro, 70L));
+        cuotaServicio.consultar("EQ1");
+        usoRepositorio.sumar("EQ1", 12345, LocalDateTime.now().minusHours(2));
+        entityManager.clear();
+
+        Assertions.assertEquals(1, cuotaServicio.reconciliar());
+        entityManager.clear();
+
+        Assertions.assertEquals(500, usoRepositorio.findById("EQ1").orElseThrow().getBytes());
+        Assertions.assertEquals(70, usoRepositorio.findById("EQ2").orElseThrow().getBytes());
+        Assertions.assertEquals(0, usoRepositorio.corregir("EQ1", 12345, 0, LocalDateTime.now()));
+    }
+
+    @Test
+    void reconciliar_noTocaUnContadorConUnaReservaRecienteDeOtroNodo()
+    {
+        cuotaServicio.consultar("EQ1");
+        // Reserva abierta en otro nodo: cambia el contador pero no pasa por este servicio
+        Assertions.assertEquals(1, usoRepositorio.reservar("EQ1", 400, 1000, LocalDateTime.now()));
+        entityManager.clear();
+
+        Assertions.assertEquals(0, cuotaServicio.reconciliar());
+        entityManager.clear();
+
+        Assertions.assertEquals(900, usoRepositorio.findById("EQ1").orElseThrow().getBytes());
+    }
+
+    private Equipo crearEquipo(String id)
+    {
+        Equipo nuevo = new Equipo();
+        nuevo.setIdEquipo(id);
+        nuevo.setNombreEquipo("Equipo " + id);
+        nuevo.setPassword("password123");
+        nuevo.setCategoria("Senior");
+        nuevo.setJugadores(new ArrayList<>());
+        nuevo.setPadres(new ArrayList<>());
+        return entityManager.persist(nuevo);
+    }
+
+    private Galeria crearDocumento(Equipo propietario, Long tamano)
+    {
+        Galeria documento = new Galeria();
+        documento.setTipo("imagen");
+        documento.setAutor("Entrenador");
+        documento.setFecha(LocalDate.of(2024, 9, 1));
+        documento.setNombreDocumento("Documento");
+        documento.setUrl("/uploads/fotos/documento.jpg");
+        documento.setTamano(tamano);
+        documento.setEquipo(propietario);
+        return documento;
+    }
+}
@@ -0,0 +1,95 @@
+package com.clubManager.baseDatosClub.seguridad;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PasswordServicioTest {
+
+    @Test
+    void hashear_generaHashQueSeVerifica() 
+    {
+        PasswordServicio servicio = new PasswordServicio(4, 1, 8, 5000, new SimpleMeterRegistry());
+
+        String hash = servicio.hashear("secreto1");
+
+        assertTrue(servicio.esHash(hash));
+        assertTrue(servicio.verificar("secreto1", hash));
+        assertFalse(servicio.verificar("otra", hash));
+        assertSame(hash, servicio.hashear(hash));
+    }
+
+    @Test
+    void verificar_passwordEnTextoPlano_coincideYNecesitaRehash() 
+    {
+        PasswordServicio servicio = new PasswordServicio(4, 1, 8, 5000, new SimpleMeterRegistry());
+
+        assertTrue(servicio.verificar("secreto1", "secreto1"));
+        assertFalse(servicio.verificar("secreto2", "secreto1"));
+        assertTrue(servicio.necesitaRehash("secreto1"));
+    }
+
+    @Test
+    void necesitaRehash_costeInferiorAlConfigurado() 
+    {
+        PasswordServicio antiguo = new PasswordServicio(4, 1, 8, 5000, new SimpleMeterRegistry());
+        PasswordServicio actual = new PasswordServicio(5, 1, 8, 5000, new SimpleMeterRegistry());
+        String hash = antiguo.hashear("secreto1");
+
+        assertFalse(antiguo.necesitaRehash(hash));
+        assertTrue(actual.necesitaRehash(hash));
+        assertTrue(actual.verificar("secreto1", hash));
+    }
+
+    @Test
+    void rehashEnSegundoPlano_entregaNuevoHash() throws InterruptedException 
+    {
+        PasswordServicio servicio = new PasswordServicio(4, 1, 8, 5000, new SimpleMeterRegistry());
+        AtomicReference<String> guardado = new AtomicReference<>();
+        CountDownLatch hecho = new CountDownLatch(1);
+
+        servicio.rehashEnSegundoPlano("secreto1", hash ->
+        {
+            guardado.set(hash);
+            hecho.countDown();
+        });
+
+        assertTrue(hecho.await(5, TimeUnit.SECONDS));
+        assertTrue(servicio.verificar("secreto1", guardado.get()));
+    }
+
+    @Test
+    void hashear_poolSaturado_rechazaConServicioNoDisponible() throws InterruptedException 
+    {
+        PasswordServicio servicio = new PasswordServicio(4, 1, 1, 5000, new SimpleMeterRegistry());
+        CountDownLatch bloqueo = new CountDownLatch(1);
+
+        servicio.rehashEnSegundoPlano("a", hash -> esperar(bloqueo));
+        servicio.rehashEnSegundoPlano("b", hash -> {});
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> servicio.hashear("secreto1"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        bloqueo.countDown();
+    }
+
+    private static void esperar(CountDownLatch latch) 
+    {
+        try 
+        {
+            latch.await(5, TimeUnit.SECONDS);
+        } 
+        catch (InterruptedException e) 
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.clubManager.baseDatosClub.seguridad;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+
+class TokenServiceTest {
+
+    @Test
+    void verificarToken_devuelveClaimsDelToken() 
+    {
+        TokenService servicio = new TokenService(100, 300);
+        String token = servicio.generarToken("J1", "jugador");
+
+        Claims claims = servicio.verificarToken(token);
+
+        assertEquals("J1", claims.getSubject());
+        assertEquals("jugador", claims.get("tipoUsuario", String.class));
+    }
+
+    @Test
+    void verificarToken_repetido_reutilizaClaimsEnCache() 
+    {
+        TokenService servicio = new TokenService(100, 300);
+        String token = servicio.generarToken("J1", "jugador");
+
+        Claims primera = servicio.verificarToken(token);
+        Claims segunda = servicio.verificarToken(token);
+
+        assertSame(primera, segunda);
+    }
+
+    @Test
+    void verificarToken_sinCache_vuelveAVerificar() 
+    {
+        TokenService servicio = new TokenService(100, 0);
+        String token = servicio.generarToken("J1", "jugador");
+
+        assertNotSame(servicio.verificarToken(token), servicio.verificarToken(token));
+    }
+
+    @Test
+    void verificarToken_firmaAlterada_LanzaExcepcion() 
+    {
+        TokenService servicio = new TokenService(100, 300);
+        String token = servicio.generarToken("J1", "jugador");
+        String alterado = token.substring(0, token.length() - 2) + "xx";
+
+        assertThrows(JwtException.class, () -> servicio.verificarToken(alterado));
+    }
+
+    @Test
+    void validarToken_compruebaSujeto() 
+    {
+        TokenService servicio = new TokenService(100, 300);
+        String token = servicio.generarToken("J1", "jugador");
+
+        assertTrue(servicio.validarToken(token, "J1"));
+        assertFalse(servicio.validarToken(token, "J2"));
+    }
+}
@@ -0,0 +1,300 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.clubManager.baseDatosClub.dto.PersonaBusquedaDTO;
+import com.clubManager.baseDatosClub.repositorios.JugadorRepositorio;
+import com.clubManager.baseDatosClub.repositorios.PadreRepositorio;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de la búsqueda en memoria de {@link BusquedaServicio}.
+ */
+
+class BusquedaServicioTest {
+
+	//Area de Datos
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaServicioTest.class);
+
+    private static final String[] NOMBRES = { "José", "María", "Íñigo", "Lucía", "Álvaro", "Nuria", "Óscar", "Inés" };
+    private static final String[] APELLIDOS = { "Muñoz", "García", "Peña", "Sánchez", "López", "Ibáñez", "Martín", "Gómez" };
+
+    private JugadorRepositorio jugadorRepo;
+    private PadreRepositorio padreRepo;
+    private SimpleMeterRegistry registry;
+    private BusquedaServicio servicio;
+
+    @BeforeEach
+    void setUp()
+    {
+        jugadorRepo = mock(JugadorRepositorio.class);
+        padreRepo = mock(PadreRepositorio.class);
+        registry = new SimpleMeterRegistry();
+        servicio = new BusquedaServicio(registry);
+        ReflectionTestUtils.setField(servicio, "jugadorRepo", jugadorRepo);
+        ReflectionTestUtils.setField(servicio, "padreRepo", padreRepo);
+        ReflectionTestUtils.setField(servicio, "limitePorDefecto", 10);
+        ReflectionTestUtils.setField(servicio, "limiteMaximo", 50);
+        ReflectionTestUtils.setField(servicio, "maxRevisadas", 5000);
+        ReflectionTestUtils.setField(servicio, "lote", 2);
+    }
+
+    @Test
+    void buscar_ignoraMayusculasYAcentosYBuscaPorDni()
+    {
+        paginar(jugadorRepo, List.of(
+                jugador("J1", "José", "Muñoz García", "12345678-A", "E1"),
+                jugador("J2", "Lucía", "Peña", "23456789B", "E1"),
+                jugador("J3", "Jose Luis", "Sanz", null, null)));
+        paginar(padreRepo, List.<Object[]>of(padre("P1", "Ana", "García", "87654321C")));
+        assertEquals(4, servicio.construir());
+        assertEquals(4.0, registry.get("clubmanager.busqueda.personas").gauge().value());
+
+        assertEquals(List.of("J1"), ids(servicio.buscar("MUNOZ", null, null)));
+        assertEquals(List.of("J1"), ids(servicio.buscar("muñ jo", null, null)));
+        assertEquals(List.of("J1", "J3"), ids(servicio.buscar("jose", null, null)));
+        assertEquals(List.of("J2"), ids(servicio.buscar("pena LUCIA", null, null)));
+        assertEquals(List.of("J1"), ids(servicio.buscar("12345678a", null, null)));
+        assertEquals(List.of("J1", "P1"), ids(servicio.buscar("garcía", null, null)));
+        assertEquals(List.of("P1"), ids(servicio.buscar("garcia", "padre", null)));
+        assertEquals(List.of("J1"), ids(servicio.buscar("garcia", null, 1)));
+        assertTrue(servicio.buscar("  -- ", null, null).isEmpty());
+        assertTrue(servicio.buscar("jose pena", null, null).isEmpty());
+
+        PersonaBusquedaDTO persona = servicio.buscar("lucia", null, null).get(0);
+        assertEquals("jugador", persona.getTipo());
+        assertEquals("Peña", persona.getApellidos());
+        assertEquals("E1", persona.getIdEquipo());
+    }
+
+    @Test
+    void buscar_rechazaParametrosNoValidosYEsperaAlIndice()
+    {
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+                assertThrows(ResponseStatusException.class, () -> servicio.buscar("jose", null, null)).getStatusCode());
+
+        servicio.construir();
+
+        assertEquals(HttpStatus.BAD_REQUEST,
+                assertThrows(ResponseStatusException.class, () -> servicio.buscar("jose", "entrenador", null)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                assertThrows(ResponseStatusException.class, () -> servicio.buscar("jose", null, 0)).getStatusCode());
+        assertTrue(servicio.buscar("jose", null, 500).isEmpty());
+    }
+
+    @Test
+    void eventos_actualizanLasPersonasAfectadas()
+    {
+        paginar(jugadorRepo, List.of(
+                jugador("J1", "José", "Muñoz", "1", "E1"),
+                jugador("J2", "Lucía", "Peña", "2", "E1")));
+        paginar(padreRepo, List.<Object[]>of(padre("P1", "Ana", "García", "3")));
+        servicio.construir();
+
+        // Modificación de un jugador
+        when(jugadorRepo.buscarParaBusqueda(anyCollection()))
+                .thenReturn(List.<Object[]>of(jugador("J1", "José", "Ibáñez", "1", "E2")));
+        servicio.alCambiarPlantilla(new PlantillaCambiadaEvento("E2", "J1"));
+        assertTrue(servicio.buscar("munoz", null, null).isEmpty());
+        assertEquals("E2", servicio.buscar("ibanez", null, null).get(0).getIdEquipo());
+
+        // Borrado del equipo: se revisan los jugadores que tenía en el índice
+        when(jugadorRepo.buscarParaBusqueda(anyCollection())).thenReturn(List.of());
+        when(jugadorRepo.buscarIdsPorEquipo("E1")).thenReturn(List.of());
+        servicio.alCambiarPlantilla(new PlantillaCambiadaEvento("E1", null));
+        assertTrue(servicio.buscar("lucia", null, null).isEmpty());
+        assertEquals(List.of("J1"), ids(servicio.buscar("jose", null, null)));
+
+        // Alta y baja de padres
+        when(padreRepo.buscarParaBusqueda(anyCollection()))
+                .thenReturn(List.<Object[]>of(padre("P2", "Íñigo", "López", "4")));
+        servicio.alCambiarPadres(new PadresCambiadosEvento(List.of("P1", "P2")));
+        assertTrue(servicio.buscar("ana", null, null).isEmpty());
+        assertEquals(List.of("P2"), ids(servicio.buscar("inigo lo", null, null)));
+        assertEquals(2.0, registry.get("clubmanager.busqueda.personas").gauge().value());
+    }
+
+    @Test
+    void construir_aplicaAlTerminarLosCambiosRecibidosMientrasLee()
+    {
+        when(jugadorRepo.buscarLoteParaBusqueda(anyString(), any(Pageable.class))).thenAnswer(inv ->
+        {
+            // El cambio se confirma después de haber leído al jugador con los datos antiguos
+            servicio.alCambiarPlantilla(new PlantillaCambiadaEvento("E1", "J1"));
+            return List.<Object[]>of(jugador("J1", "José", "Muñoz", "1", "E1"));
+        });
+        when(jugadorRepo.buscarParaBusqueda(anyCollection()))
+                .thenReturn(List.<Object[]>of(jugador("J1", "José", "Peña", "1", "E1")));
+
+        servicio.construir();
+
+        assertTrue(servicio.buscar("munoz", null, null).isEmpty());
+        assertEquals(List.of("J1"), ids(servicio.buscar("pena", null, null)));
+        verify(jugadorRepo, times(1)).buscarParaBusqueda(anyCollection());
+    }
+
+    @Test
+    void reconstruir_recogeLosCambiosSinEvento()
+    {
+        paginar(jugadorRepo, List.<Object[]>of(jugador("J1", "José", "Muñoz", "1", "E1")));
+        servicio.construir();
+
+        // Otra instancia cambia el jugador y añade un padre; a esta no le llega ningún evento
+        paginar(jugadorRepo, List.<Object[]>of(jugador("J1", "José", "Peña", "1", "E1")));
+        paginar(padreRepo, List.<Object[]>of(padre("P1", "Ana", "García", "2")));
+        assertEquals(List.of("J1"), ids(servicio.buscar("munoz", null, null)));
+
+        servicio.reconstruir();
+
+        assertTrue(servicio.buscar("munoz", null, null).isEmpty());
+        assertEquals(List.of("J1"), ids(servicio.buscar("pena", null, null)));
+        assertEquals(List.of("P1"), ids(servicio.buscar("ana", null, null)));
+    }
+
+    @Test
+    void buscar_recorreElTramoMasCortoYParaAlMaximoDeRevisadas()
+    {
+        List<Object[]> filas = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+        {
+            filas.add(jugador(String.format("J%02d", i), "Luis", "Alonso", null, "E1"));
+        }
+        for (int i = 40; i < 60; i++)
+        {
+            filas.add(jugador(String.format("J%02d", i), "Ana", "Pérez", null, "E1"));
+        }
+        filas.add(jugador("J99", "Ana", "Alonso Ruiz", null, "E1"));
+        paginar(jugadorRepo, filas);
+        paginar(padreRepo, List.<Object[]>of(padre("P1", "Ana", "Alonso", null)));
+        servicio.construir();
+        assertEquals(List.of("J99"), ids(servicio.buscar("al an", "jugador", null)));
+
+        ReflectionTestUtils.setField(servicio, "maxRevisadas", 10);
+
+        // Las dos palabras tienen tramos largos: se revisan diez entradas de "al" y no llega a J99
+        assertTrue(servicio.buscar("al an", "jugador", null).isEmpty());
+        // Una palabra de tramo corto guía la consulta aunque la otra tenga muchas entradas
+        assertEquals(List.of("J99"), ids(servicio.buscar("al an ru", "jugador", null)));
+        // Los padres tienen su propia tabla y no esperan detrás de los jugadores
+        assertEquals(List.of("P1"), ids(servicio.buscar("al an", "padre", null)));
+    }
+
+    @Test
+    void indice_grandeEncuentraLoEsperado()
+    {
+        int jugadores = 80_000;
+        int padres = 20_000;
+        List<Object[]> filasJugadores = new ArrayList<>();
+        for (int i = 0; i < jugadores; i++)
+        {
+            filasJugadores.add(jugador(String.format("J%06d", i), nombre(i), apellidos(i),
+                    String.format("%08dX", i), "E" + i % 500));
+        }
+        filasJugadores.add(jugador("J999999", "Zoé", "Ñañez Úbeda", "99999999Z", "E1"));
+        List<Object[]> filasPadres = new ArrayList<>();
+        for (int i = 0; i < padres; i++)
+        {
+            filasPadres.add(padre(String.format("P%06d", i), nombre(i * 7), apellidos(i * 3),
+                    String.format("%08dY", 50_000_000 + i)));
+        }
+        paginar(jugadorRepo, filasJugadores);
+        paginar(padreRepo, filasPadres);
+        ReflectionTestUtils.setField(servicio, "lote", 1000);
+
+        assertEquals(jugadores + padres + 1, servicio.construir());
+
+        assertEquals(List.of("J999999"), ids(servicio.buscar("zoe nan", null, null)));
+        assertEquals(List.of("J000042"), ids(servicio.buscar("00000042", null, null)));
+        List<PersonaBusquedaDTO> encontrados = servicio.buscar("jose munoz", "padre", 50);
+        assertEquals(50, encontrados.size());
+        assertTrue(encontrados.stream().allMatch(p -> "padre".equals(p.getTipo())
+                && p.getNombre().equals("José") && p.getApellidos().contains("Muñoz")));
+
+        String[] consultas = { "jo", "maria pe", "inigo", "lucia sanchez", "al", "gomez n", "osc", "ines ib" };
+        for (String consulta : consultas)
+        {
+            assertFalse(servicio.buscar(consulta, null, null).isEmpty(), consulta);
+        }
+
+        // Informe de latencias sin comprobaciones: depende de la máquina que ejecuta las pruebas
+        String[] medidas = { "jo", "maria pe", "gomez n", "a", "a m", "jose munoz" };
+        String[] tipos = { null, null, null, null, null, "padre" };
+        for (int c = 0; c < medidas.length; c++)
+        {
+            long[] tiempos = new long[2000];
+            for (int i = 0; i < tiempos.length; i++)
+            {
+                long inicio = System.nanoTime();
+                servicio.buscar(medidas[c], tipos[c], 50);
+                tiempos[i] = System.nanoTime() - inicio;
+            }
+            Arrays.sort(tiempos);
+            log.info("Búsqueda \"{}\" tipo {}: p50 {} µs, p99 {} µs", medidas[c], tipos[c],
+                    tiempos[tiempos.length / 2] / 1000, tiempos[tiempos.length * 99 / 100] / 1000);
+        }
+    }
+
+    //Métodos auxiliares
+
+    private static void paginar(JugadorRepositorio repo, List<Object[]> filas)
+    {
+        when(repo.buscarLoteParaBusqueda(anyString(), any(Pageable.class)))
+                .thenAnswer(inv -> lote(filas, inv.getArgument(0), inv.getArgument(1)));
+    }
+
+    private static void paginar(PadreRepositorio repo, List<Object[]> filas)
+    {
+        when(repo.buscarLoteParaBusqueda(anyString(), any(Pageable.class)))
+                .thenAnswer(inv -> lote(filas, inv.getArgument(0), inv.getArgument(1)));
+    }
+
+    private static List<Object[]> lote(List<Object[]> filas, String ultimo, Pageable pagina)
+    {
+        return filas.stream()
+                .filter(fila -> ((String) fila[0]).compareTo(ultimo) > 0)
+                .limit(pagina.getPageSize())
+                .toList();
+    }
+
+    private static String nombre(int i)
+    {
+        return NOMBRES[i % NOMBRES.length];
+    }
+
+    private static String apellidos(int i)
+    {
+        return APELLIDOS[i % APELLIDOS.length] + " " + APELLIDOS[(i / NOMBRES.length) % APELLIDOS.length];
+    }
+
+    private static Object[] jugador(String id, String nombre, String apellidos, String dni, String idEquipo)
+    {
+        return new Object[] { id, nombre, apellidos, dni, idEquipo };
+    }
+
+    private static Object[] padre(String id, String nombre, String apellidos, String dni)
+    {
+        return new Object[] { id, nombre, apellidos, dni };
+    }
+
+    private static List<String> ids(List<PersonaBusquedaDTO> personas)
+    {
+        return personas.stream().map(PersonaBusquedaDTO::getId).toList();
+    }
+}
@@ -0,0 +1,256 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.clubManager.baseDatosClub.dto.NotificacionDTO;
+import com.clubManager.baseDatosClub.repositorios.NotificacionRepositorio;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de {@link CanalNotificacionesServicio} con miles de conexiones simuladas:
+ * los emisores registran los ids de evento en lugar de escribir en una respuesta HTTP.
+ */
+
+class CanalNotificacionesServicioTest {
+
+	//Area de Datos
+
+    private static final Pattern ID = Pattern.compile("^id:(\\d+)$", Pattern.MULTILINE);
+
+    private NotificacionRepositorio notificacionRepo;
+    private CanalNotificacionesServicio canal;
+    private final Map<SseEmitter, List<Long>> recibidos = new ConcurrentHashMap<>();
+    private volatile boolean conexionesRotas;
+
+    @BeforeEach
+    void setUp()
+    {
+        notificacionRepo = mock(NotificacionRepositorio.class);
+        canal = new CanalNotificacionesServicio(new SimpleMeterRegistry())
+        {
+            @Override
+            protected SseEmitter crearEmitter()
+            {
+                return new EmisorGrabador();
+            }
+        };
+        ReflectionTestUtils.setField(canal, "notificacionRepo", notificacionRepo);
+        ReflectionTestUtils.setField(canal, "timeoutMs", 0L);
+        ReflectionTestUtils.setField(canal, "maxReenvio", 100);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        canal.cerrar();
+    }
+
+    @Test
+    void publicar_repartePorEquipoEnOrdenAMilesDeConexiones() throws InterruptedException
+    {
+        int equipos = 20;
+        int porEquipo = 150;
+        Map<String, List<SseEmitter>> emisores = new ConcurrentHashMap<>();
+        for (int e = 0; e < equipos; e++)
+        {
+            for (int i = 0; i < porEquipo; i++)
+            {
+                emisores.computeIfAbsent("E" + e, k -> new ArrayList<>()).add(canal.suscribir("E" + e, null));
+            }
+        }
+        assertEquals(equipos * porEquipo, canal.getConexiones());
+
+        long id = 1;
+        for (int ronda = 0; ronda < 5; ronda++)
+        {
+            for (int e = 0; e < equipos; e++)
+            {
+                canal.publicar(notificacion(id++, "E" + e));
+            }
+        }
+
+        esperar(() -> recibidos.values().stream().allMatch(ids -> ids.size() == 5));
+        for (int e = 0; e < equipos; e++)
+        {
+            List<Long> esperados = List.of(e + 1L, e + 21L, e + 41L, e + 61L, e + 81L);
+            for (SseEmitter emitter : emisores.get("E" + e))
+            {
+                assertEquals(esperados, recibidos.get(emitter));
+            }
+        }
+    }
+
+    @Test
+    void suscribir_conLastEventIdReenviaLasPerdidasSinDuplicados() throws InterruptedException
+    {
+        CountDownLatch consulta = new CountDownLatch(1);
+        when(notificacionRepo.buscarPosterioresA(eq("E1"), eq(2L), any())).thenAnswer(inv ->
+        {
+            consulta.await(5, TimeUnit.SECONDS);
+            return List.of(notificacion(3L, "E1"), notificacion(4L, "E1"));
+        });
+
+        SseEmitter emitter = canal.suscribir("E1", 2L);
+        // Llegan mientras se consulta el histórico; la 4 ya viene en el reenvío
+        canal.publicar(notificacion(4L, "E1"));
+        canal.publicar(notificacion(5L, "E1"));
+        Thread.sleep(200);
+        consulta.countDown();
+
+        esperar(() -> recibidos.get(emitter).size() >= 3);
+        assertEquals(List.of(3L, 4L, 5L), recibidos.get(emitter));
+    }
+
+    @Test
+    void publicar_entregaLasQueSeConfirmanFueraDeOrden() throws InterruptedException
+    {
+        SseEmitter emitter = canal.suscribir("E1", null);
+        // La 6 se confirma antes que la 5, que no debe perderse
+        canal.publicar(notificacion(6L, "E1"));
+        canal.publicar(notificacion(5L, "E1"));
+        canal.publicar(notificacion(6L, "E1"));
+
+        esperar(() -> recibidos.get(emitter).size() >= 2);
+        Thread.sleep(100);
+        assertEquals(List.of(6L, 5L), recibidos.get(emitter));
+    }
+
+    @Test
+    void publicar_unClienteLentoNoRetrasaAlResto() throws InterruptedException
+    {
+        ReflectionTestUtils.setField(canal, "maxPendientes", 5);
+        CountDownLatch liberar = new CountDownLatch(1);
+        EmisorGrabador lento = (EmisorGrabador) canal.suscribir("E1", null);
+        lento.bloqueo = liberar;
+        SseEmitter rapido = canal.suscribir("E2", null);
+
+        try
+        {
+            canal.publicar(notificacion(1L, "E1"));
+            esperar(() -> lento.enviando);
+            assertTimeoutPreemptively(Duration.ofSeconds(2), () ->
+            {
+                for (long id = 2; id <= 10; id++)
+                {
+                    canal.publicar(notificacion(id, "E1"));
+                }
+                canal.enviarLatidos();
+                canal.publicar(notificacion(100L, "E2"));
+            });
+
+            esperar(() -> recibidos.get(rapido).size() == 1);
+            assertEquals(List.of(100L), recibidos.get(rapido));
+            // La cola del lento se llenó y su conexión se cerró para que se reconecte
+            assertEquals(1, canal.getConexiones());
+        }
+        finally
+        {
+            liberar.countDown();
+        }
+    }
+
+    @Test
+    void publicar_descartaLasConexionesCerradas() throws InterruptedException
+    {
+        for (int i = 0; i < 10; i++)
+        {
+            canal.suscribir("E1", null);
+        }
+        assertEquals(10, canal.getConexiones());
+
+        conexionesRotas = true;
+        canal.publicar(notificacion(1L, "E1"));
+
+        esperar(() -> canal.getConexiones() == 0);
+        assertEquals(0, canal.getConexiones());
+    }
+
+    //Métodos auxiliares
+
+    private static NotificacionDTO notificacion(long id, String idEquipo)
+    {
+        return new NotificacionDTO(id, "Aviso " + id, "Mensaje", LocalDate.now(), idEquipo);
+    }
+
+    private static void esperar(BooleanSupplier condicion) throws InterruptedException
+    {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condicion.getAsBoolean() && System.nanoTime() < limite)
+        {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Emisor que anota los ids de los eventos enviados.
+     */
+
+    private class EmisorGrabador extends SseEmitter
+    {
+        volatile CountDownLatch bloqueo;
+        volatile boolean enviando;
+
+        EmisorGrabador()
+        {
+            recibidos.put(this, new CopyOnWriteArrayList<>());
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException
+        {
+            if (conexionesRotas)
+            {
+                throw new IOException("Conexión cerrada");
+            }
+            if (bloqueo != null)
+            {
+                enviando = true;
+                try
+                {
+                    bloqueo.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            StringBuilder texto = new StringBuilder();
+            for (var parte : builder.build())
+            {
+                if (parte.getData() instanceof String s)
+                {
+                    texto.append(s);
+                }
+            }
+            Matcher m = ID.matcher(texto);
+            if (m.find())
+            {
+                recibidos.get(this).add(Long.valueOf(m.group(1)));
+            }
+        }
+    }
+}
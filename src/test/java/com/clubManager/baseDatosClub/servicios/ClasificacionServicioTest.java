@@ -0,0 +1,156 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.clubManager.baseDatosClub.dto.JugadorPuntuacionDTO;
+import com.clubManager.baseDatosClub.repositorios.JugadorRepositorio;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de la clasificación en memoria de {@link ClasificacionServicio}.
+ */
+
+class ClasificacionServicioTest {
+
+	//Area de Datos
+
+    private JugadorRepositorio jugadorRepo;
+    private SimpleMeterRegistry registry;
+    private ClasificacionServicio servicio;
+
+    @BeforeEach
+    void setUp()
+    {
+        jugadorRepo = mock(JugadorRepositorio.class);
+        registry = new SimpleMeterRegistry();
+        servicio = new ClasificacionServicio(registry);
+        ReflectionTestUtils.setField(servicio, "jugadorRepo", jugadorRepo);
+        ReflectionTestUtils.setField(servicio, "maxEntradas", 100);
+        ReflectionTestUtils.setField(servicio, "ttlMs", 60_000L);
+        when(jugadorRepo.buscarPuntosPorEquipo("E1")).thenReturn(filas(
+                fila("J3", 4), fila("J1", 10), fila("J2", 4), fila("J4", 0)));
+    }
+
+    @Test
+    void primeros_ordenaPorPuntosYDesempataPorIdentificador()
+    {
+        assertEquals(List.of("J1", "J2", "J3", "J4"), ids(servicio.primeros("E1", -1)));
+        assertEquals(List.of("J1", "J2"), ids(servicio.primeros("E1", 2)));
+        assertEquals(10, servicio.primeros("E1", 1).get(0).getPuntosTotales());
+
+        verify(jugadorRepo, times(1)).buscarPuntosPorEquipo("E1");
+        assertEquals(2.0 / 3, registry.get("clubmanager.clasificacion.cache.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void posicion_compartidaEntreEmpatados()
+    {
+        assertEquals(OptionalInt.of(1), servicio.posicion("E1", "J1"));
+        assertEquals(OptionalInt.of(2), servicio.posicion("E1", "J2"));
+        assertEquals(OptionalInt.of(2), servicio.posicion("E1", "J3"));
+        assertEquals(OptionalInt.of(4), servicio.posicion("E1", "J4"));
+        assertTrue(servicio.posicion("E1", "OTRO").isEmpty());
+    }
+
+    @Test
+    void alSumarPuntos_mueveAlJugadorSinRecargarEIgnoraTotalesAtrasados()
+    {
+        servicio.primeros("E1", -1);
+
+        servicio.alSumarPuntos(new PuntosJugadorEvento("J4", 11));
+        servicio.alSumarPuntos(new PuntosJugadorEvento("J3", 10));
+        servicio.alSumarPuntos(new PuntosJugadorEvento("J4", 5));
+
+        assertEquals(List.of("J4", "J1", "J3", "J2"), ids(servicio.primeros("E1", -1)));
+        assertEquals(OptionalInt.of(2), servicio.posicion("E1", "J3"));
+        verify(jugadorRepo, times(1)).buscarPuntosPorEquipo("E1");
+    }
+
+    @Test
+    void alCambiarPlantilla_descartaElEquipoAnteriorDelJugador()
+    {
+        servicio.primeros("E1", -1);
+        when(jugadorRepo.buscarPuntosPorEquipo("E1")).thenReturn(filas(fila("J1", 10)));
+
+        servicio.alCambiarPlantilla(new PlantillaCambiadaEvento("E2", "J2"));
+
+        assertEquals(List.of("J1"), ids(servicio.primeros("E1", -1)));
+        verify(jugadorRepo, times(2)).buscarPuntosPorEquipo("E1");
+    }
+
+    @Test
+    void obtener_recargaLaClasificacionCaducadaAunqueSeHayaActualizado()
+    {
+        servicio.primeros("E1", -1);
+        servicio.alSumarPuntos(new PuntosJugadorEvento("J4", 11));
+        // Otra instancia suma puntos a J2 sin que llegue el aviso a esta
+        when(jugadorRepo.buscarPuntosPorEquipo("E1")).thenReturn(filas(
+                fila("J3", 4), fila("J1", 10), fila("J2", 20), fila("J4", 11)));
+        assertEquals(List.of("J4", "J1", "J2", "J3"), ids(servicio.primeros("E1", -1)));
+
+        ReflectionTestUtils.setField(servicio, "ttlMs", 0L);
+
+        assertEquals(List.of("J2", "J4", "J1", "J3"), ids(servicio.primeros("E1", -1)));
+        assertEquals(OptionalInt.of(1), servicio.posicion("E1", "J2"));
+        verify(jugadorRepo, times(3)).buscarPuntosPorEquipo("E1");
+    }
+
+    @Test
+    void clasificacion_grandeSeMantieneOrdenadaTrasMuchasSumas()
+    {
+        int jugadores = 5000;
+        List<Object[]> muchas = new ArrayList<>();
+        for (int i = 0; i < jugadores; i++)
+        {
+            muchas.add(fila(String.format("J%05d", i), i % 50));
+        }
+        Clasificacion clasificacion = new Clasificacion(muchas);
+
+        for (int i = 0; i < jugadores; i += 7)
+        {
+            clasificacion.actualizar(String.format("J%05d", i), 40 + i % 100);
+        }
+
+        List<JugadorPuntuacionDTO> todos = clasificacion.primeros(-1);
+        assertEquals(jugadores, todos.size());
+        for (int i = 1; i < todos.size(); i++)
+        {
+            JugadorPuntuacionDTO anterior = todos.get(i - 1);
+            JugadorPuntuacionDTO actual = todos.get(i);
+            assertTrue(anterior.getPuntosTotales() > actual.getPuntosTotales()
+                    || anterior.getPuntosTotales().equals(actual.getPuntosTotales())
+                            && anterior.getIdJugador().compareTo(actual.getIdJugador()) < 0);
+            if (!anterior.getPuntosTotales().equals(actual.getPuntosTotales()))
+            {
+                assertEquals(OptionalInt.of(i + 1), clasificacion.posicion(actual.getIdJugador()));
+            }
+        }
+    }
+
+    //Métodos auxiliares
+
+    private static Object[] fila(String idJugador, int puntos)
+    {
+        return new Object[] { idJugador, "Jugador " + idJugador, puntos };
+    }
+
+    private static List<Object[]> filas(Object[]... filas)
+    {
+        return List.of(filas);
+    }
+
+    private static List<String> ids(List<JugadorPuntuacionDTO> ranking)
+    {
+        return ranking.stream().map(JugadorPuntuacionDTO::getIdJugador).toList();
+    }
+}
@@ -0,0 +1,131 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de {@link CredencialGoogleServicio} con credenciales simuladas.
+ */
+
+class CredencialGoogleServicioTest {
+
+    @Test
+    void obtenerAccessToken_reutilizaTokenVigente() throws Exception 
+    {
+        CredencialesSimuladas simuladas = new CredencialesSimuladas(Duration.ofHours(1), null);
+        AtomicInteger cargas = new AtomicInteger();
+        CredencialGoogleServicio servicio = new CredencialGoogleServicio(() -> 
+        {
+            cargas.incrementAndGet();
+            return simuladas;
+        }, Duration.ofMinutes(5), new SimpleMeterRegistry());
+
+        assertEquals("token-1", servicio.obtenerAccessToken());
+        assertEquals("token-1", servicio.obtenerAccessToken());
+
+        assertEquals(1, cargas.get());
+        assertEquals(1, simuladas.refrescos.get());
+        servicio.cerrar();
+    }
+
+    @Test
+    void obtenerAccessToken_concurrente_compartenUnSoloRefresco() throws Exception 
+    {
+        CountDownLatch bloqueo = new CountDownLatch(1);
+        CredencialesSimuladas simuladas = new CredencialesSimuladas(Duration.ofHours(1), bloqueo);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CredencialGoogleServicio servicio = new CredencialGoogleServicio(() -> simuladas,
+                Duration.ofMinutes(5), registry);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        List<Future<String>> resultados = new ArrayList<>();
+        for (int i = 0; i < 8; i++) 
+        {
+            resultados.add(pool.submit(servicio::obtenerAccessToken));
+        }
+        Thread.sleep(100);
+        bloqueo.countDown();
+
+        for (Future<String> resultado : resultados) 
+        {
+            assertEquals("token-1", resultado.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, simuladas.refrescos.get());
+        assertEquals(1, registry.get("clubmanager.fcm.credencial.refresco").tag("resultado", "ok").timer().count());
+        pool.shutdown();
+        servicio.cerrar();
+    }
+
+    @Test
+    void tokenProximoACaducar_seRenuevaEnSegundoPlano() throws Exception 
+    {
+        CredencialesSimuladas simuladas = new CredencialesSimuladas(Duration.ofMinutes(5).plusMillis(200), null);
+        CredencialGoogleServicio servicio = new CredencialGoogleServicio(() -> simuladas,
+                Duration.ofMinutes(5), new SimpleMeterRegistry());
+
+        assertEquals("token-1", servicio.obtenerAccessToken());
+
+        long limite = System.currentTimeMillis() + 5000;
+        while (simuladas.refrescos.get() < 2 && System.currentTimeMillis() < limite) 
+        {
+            Thread.sleep(20);
+        }
+        assertTrue(simuladas.refrescos.get() >= 2);
+        assertNotEquals("token-1", servicio.obtenerAccessToken());
+        servicio.cerrar();
+    }
+
+    /**
+     * Credenciales que generan tokens numerados con la duración indicada.
+     */
+
+    private static class CredencialesSimuladas extends GoogleCredentials 
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Duration duracion;
+        private final transient CountDownLatch bloqueo;
+        private final transient AtomicInteger refrescos = new AtomicInteger();
+
+        CredencialesSimuladas(Duration duracion, CountDownLatch bloqueo) 
+        {
+            this.duracion = duracion;
+            this.bloqueo = bloqueo;
+        }
+
+        @Override
+        public AccessToken refreshAccessToken() 
+        {
+            try 
+            {
+                if (bloqueo != null) 
+                {
+                    bloqueo.await(5, TimeUnit.SECONDS);
+                }
+            } 
+            catch (InterruptedException e) 
+            {
+                Thread.currentThread().interrupt();
+            }
+            int n = refrescos.incrementAndGet();
+            return new AccessToken("token-" + n, new Date(System.currentTimeMillis() + duracion.toMillis()));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de {@link EnvioPushServicio} contra un servidor FCM simulado en local.
+ */
+
+class EnvioPushServicioTest {
+
+	//Area de Datos
+
+    private HttpServer servidor;
+    private String url;
+    private final List<String> recibidos = new CopyOnWriteArrayList<>();
+    private final List<String> autorizaciones = new CopyOnWriteArrayList<>();
+    private volatile CountDownLatch bloqueo = new CountDownLatch(0);
+
+    @BeforeEach
+    void setUp() throws IOException 
+    {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/messages:send", this::responder);
+        servidor.start();
+        url = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/messages:send";
+    }
+
+    @AfterEach
+    void tearDown() 
+    {
+        bloqueo.countDown();
+        servidor.stop(0);
+    }
+
+    @Test
+    void encolar_entregaTodosLosMensajesAlEndpoint() throws InterruptedException 
+    {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EnvioPushServicio envio = new EnvioPushServicio(url, 4, 100, 2000, registry);
+
+        for (int i = 0; i < 20; i++) 
+        {
+            assertFalse(envio.encolar("{\"n\":" + i + "}", () -> "tok").isCompletedExceptionally());
+        }
+
+        esperarEnvios(registry, 20);
+        assertEquals(20, recibidos.size());
+        assertTrue(autorizaciones.stream().allMatch("Bearer tok"::equals));
+        assertEquals(20, registry.get("clubmanager.push.envio").tag("resultado", "ok").timer().count());
+        envio.cerrar();
+    }
+
+    @Test
+    void encolar_colaLlena_rechazaYContabiliza() 
+    {
+        bloqueo = new CountDownLatch(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EnvioPushServicio envio = new EnvioPushServicio(url, 1, 1, 5000, registry);
+
+        assertFalse(envio.encolar("{}", () -> "tok").isCompletedExceptionally());
+        assertFalse(envio.encolar("{}", () -> "tok").isCompletedExceptionally());
+        assertTrue(envio.encolar("{}", () -> "tok").isCompletedExceptionally());
+
+        assertEquals(1.0, registry.get("clubmanager.push.rechazados").counter().count());
+        bloqueo.countDown();
+        envio.cerrar();
+    }
+
+    @Test
+    void encolar_servidorLento_registraError() throws InterruptedException 
+    {
+        bloqueo = new CountDownLatch(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EnvioPushServicio envio = new EnvioPushServicio(url, 1, 10, 200, registry);
+
+        envio.encolar("{}", () -> "tok");
+
+        long limite = System.currentTimeMillis() + 5000;
+        while (registry.find("clubmanager.push.envio").tag("resultado", "error").timer() == null
+                && System.currentTimeMillis() < limite) 
+        {
+            Thread.sleep(20);
+        }
+        assertNotNull(registry.find("clubmanager.push.envio").tag("resultado", "error").timer());
+        envio.cerrar();
+    }
+
+    private void responder(HttpExchange exchange) throws IOException 
+    {
+        try 
+        {
+            bloqueo.await(5, TimeUnit.SECONDS);
+        } 
+        catch (InterruptedException e) 
+        {
+            Thread.currentThread().interrupt();
+        }
+        recibidos.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        autorizaciones.add(exchange.getRequestHeaders().getFirst("Authorization"));
+        byte[] respuesta = "{\"name\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, respuesta.length);
+        exchange.getResponseBody().write(respuesta);
+        exchange.close();
+    }
+
+    private void esperarEnvios(SimpleMeterRegistry registry, long total) throws InterruptedException 
+    {
+        long limite = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < limite) 
+        {
+            var timer = registry.find("clubmanager.push.envio").tag("resultado", "ok").timer();
+            if (timer != null && timer.count() >= total) 
+            {
+                return;
+            }
+            Thread.sleep(20);
+        }
+    }
+}
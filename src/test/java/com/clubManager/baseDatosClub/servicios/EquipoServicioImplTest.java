@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 import com.clubManager.baseDatosClub.dto.EquipoSeleccionDTO;
 import com.clubManager.baseDatosClub.entidades.Entrenador;
@@ -35,6 +36,15 @@ class EquipoServicioImplTest {
     @Mock
     private EntrenadorRepositorio entrenadorRepo;
 
+    @Mock
+    private CredencialServicio credencialServicio;
+
+    @Mock
+    private GaleriaServicio galeriaServicio;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private EquipoServicioImpl servicio;
 
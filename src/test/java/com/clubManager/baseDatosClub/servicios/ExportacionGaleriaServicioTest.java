@@ -0,0 +1,168 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.clubManager.baseDatosClub.almacenamiento.AlmacenMemoria;
+import com.clubManager.baseDatosClub.entidades.Galeria;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de la exportación en ZIP de {@link ExportacionGaleriaServicio} sobre un almacén en memoria.
+ */
+
+class ExportacionGaleriaServicioTest {
+
+	//Area de Datos
+
+    @TempDir
+    Path directorio;
+
+    private SimpleMeterRegistry registry;
+    private AlmacenMemoria almacen;
+    private final Map<String, Integer> aperturas = new HashMap<>();
+    private ExportacionGaleriaServicio servicio;
+
+    @BeforeEach
+    void setUp()
+    {
+        registry = new SimpleMeterRegistry();
+        almacen = new AlmacenMemoria()
+        {
+            @Override
+            public InputStream abrir(String clave, long inicio, long longitud) throws IOException
+            {
+                aperturas.merge(clave, 1, Integer::sum);
+                return super.abrir(clave, inicio, longitud);
+            }
+        };
+        servicio = new ExportacionGaleriaServicio(registry);
+        ReflectionTestUtils.setField(servicio, "fileStorage",
+                new FileStorageService(directorio.toString(), 1_000_000, registry, almacen));
+    }
+
+    @Test
+    void exportarZip_noRecomprimeLoYaComprimidoYOmiteLoQueNoEstaEnElServidor() throws Exception
+    {
+        byte[] foto = aleatorio(200_000);
+        byte[] acta = "Acta del partido\n".repeat(1000).getBytes(StandardCharsets.UTF_8);
+        guardar("fotos/final.jpg", foto);
+        guardar("fotos/final2.jpg", foto);
+        guardar("docs/acta.txt", acta);
+
+        List<Galeria> documentos = List.of(
+                documento(1L, "Final", "/uploads/fotos/final.jpg"),
+                documento(2L, "Final.JPG", "/uploads/fotos/final2.jpg"),
+                documento(3L, "Acta: jornada 1/2", "/uploads/docs/acta.txt"),
+                documento(4L, "Enlace", "https://example.com/video"),
+                documento(5L, "Borrada", "/uploads/fotos/no-existe.jpg"));
+
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        assertEquals(3, servicio.exportarZip(documentos, salida));
+
+        Map<String, ZipEntry> entradas = new HashMap<>();
+        Map<String, byte[]> contenidos = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(salida.toByteArray())))
+        {
+            ZipEntry entrada;
+            while ((entrada = zip.getNextEntry()) != null)
+            {
+                entradas.put(entrada.getName(), entrada);
+                contenidos.put(entrada.getName(), zip.readAllBytes());
+            }
+        }
+
+        assertEquals(List.of("Acta_ jornada 1_2.txt", "Final (2).jpg", "Final.jpg"),
+                entradas.keySet().stream().sorted().toList());
+        ZipEntry final1 = entradas.get("Final.jpg");
+        ZipEntry acta1 = entradas.get("Acta_ jornada 1_2.txt");
+        assertTrue(final1.getCompressedSize() >= foto.length && final1.getCompressedSize() < foto.length + foto.length / 100);
+        assertTrue(acta1.getCompressedSize() > 0 && acta1.getCompressedSize() < acta.length / 10);
+        assertEquals(Map.of("fotos/final.jpg", 1, "fotos/final2.jpg", 1, "docs/acta.txt", 1,
+                "fotos/no-existe.jpg", 1), aperturas);
+        assertArrayEquals(foto, contenidos.get("Final (2).jpg"));
+        assertArrayEquals(acta, contenidos.get("Acta_ jornada 1_2.txt"));
+        assertEquals(LocalDate.of(2024, 5, 1).atStartOfDay(), entradas.get("Final.jpg").getTimeLocal());
+    }
+
+    @Test
+    void exportarZip_siElClienteSeDesconecta_interrumpeSinLeerElResto() throws Exception
+    {
+        for (int i = 0; i < 5; i++)
+        {
+            guardar("videos/v" + i + ".mp4", aleatorio(1_000_000));
+        }
+        List<Galeria> documentos = List.of(
+                documento(1L, "v0", "/uploads/videos/v0.mp4"), documento(2L, "v1", "/uploads/videos/v1.mp4"),
+                documento(3L, "v2", "/uploads/videos/v2.mp4"), documento(4L, "v3", "/uploads/videos/v3.mp4"),
+                documento(5L, "v4", "/uploads/videos/v4.mp4"));
+
+        OutputStream desconectada = new OutputStream()
+        {
+            private long escritos;
+
+            @Override
+            public void write(int b) throws IOException
+            {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException
+            {
+                escritos += len;
+                if (escritos > 1_500_000)
+                {
+                    throw new IOException("Conexión cerrada por el cliente");
+                }
+            }
+        };
+
+        assertThrows(IOException.class, () -> servicio.exportarZip(documentos, desconectada));
+        assertEquals(1, registry.get("clubmanager.galeria.zip").tag("resultado", "abortado").timer().count());
+        assertTrue(registry.get("clubmanager.galeria.zip.bytes").summary().totalAmount() < 2_000_000);
+    }
+
+    private void guardar(String clave, byte[] contenido) throws IOException
+    {
+        almacen.guardar(clave, Files.write(directorio.resolve(".temporal.parte"), contenido));
+    }
+
+    private static byte[] aleatorio(int tamano)
+    {
+        byte[] contenido = new byte[tamano];
+        new Random(tamano).nextBytes(contenido);
+        return contenido;
+    }
+
+    private static Galeria documento(Long id, String nombre, String url)
+    {
+        Galeria documento = new Galeria();
+        documento.setIdDocumento(id);
+        documento.setNombreDocumento(nombre);
+        documento.setUrl(url);
+        documento.setFecha(LocalDate.of(2024, 5, 1));
+        return documento;
+    }
+}
@@ -0,0 +1,277 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.clubManager.baseDatosClub.entidades.ContenidoArchivo;
+import com.clubManager.baseDatosClub.repositorios.ContenidoArchivoRepositorio;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de la subida en streaming y la deduplicación de {@link FileStorageService}.
+ * El repositorio de contenidos se simula con un mapa en memoria que reproduce sus UPDATE
+ * condicionales y la clave duplicada al insertar.
+ */
+
+class FileStorageServiceTest {
+
+	//Area de Datos
+
+    @TempDir
+    Path directorio;
+
+    private SimpleMeterRegistry registry;
+    private FileStorageService servicio;
+    private final Map<String, ContenidoArchivo> contenidos = new ConcurrentHashMap<>();
+    private final AtomicBoolean otroNodoSeAdelanta = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp()
+    {
+        registry = new SimpleMeterRegistry();
+        servicio = new FileStorageService(directorio.toString(), 1_000_000, registry);
+        ReflectionTestUtils.setField(servicio, "contenidoRepo", repositorioEnMemoria());
+    }
+
+    @Test
+    void storeStream_guardaElContenidoYCalculaSuHuella() throws Exception
+    {
+        byte[] contenido = new byte[300_000];
+        new Random(7).nextBytes(contenido);
+
+        ArchivoGuardado archivo = servicio.storeStream(new ByteArrayInputStream(contenido), "fotos", "foto.jpg");
+
+        String esperado = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contenido));
+        assertEquals(esperado, archivo.getSha256());
+        assertEquals(contenido.length, archivo.getTamano());
+        assertTrue(archivo.getUrl().startsWith("/uploads/fotos/") && archivo.getUrl().endsWith(".jpg"));
+
+        Path guardado = directorio.resolve(archivo.getUrl().substring("/uploads/".length()));
+        assertArrayEquals(contenido, Files.readAllBytes(guardado));
+        assertEquals(contenido.length, registry.get("clubmanager.upload.bytes").summary().totalAmount());
+    }
+
+    @Test
+    void storeStream_superandoElLimite_responde413YNoDejaArchivos() throws IOException
+    {
+        byte[] contenido = new byte[1_000_001];
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> servicio.storeStream(new ByteArrayInputStream(contenido), "fotos", "video.mp4"));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, e.getStatusCode());
+        assertEquals(0, contarArchivos());
+        assertEquals(1, registry.get("clubmanager.upload.duracion").tag("resultado", "excedido").timer().count());
+    }
+
+    @Test
+    void storeStream_contenidoRepetido_reutilizaElArchivoHastaLiberarLaUltimaReferencia() throws IOException
+    {
+        byte[] contenido = new byte[100_000];
+        new Random(3).nextBytes(contenido);
+
+        ArchivoGuardado primero = servicio.storeStream(new ByteArrayInputStream(contenido), "fotos", "a.jpg");
+        ArchivoGuardado segundo = servicio.storeStream(new ByteArrayInputStream(contenido), "fotos", "b.png");
+        ArchivoGuardado tercero = servicio.reutilizar(primero.getSha256()).orElseThrow();
+
+        assertFalse(primero.isDeduplicado());
+        assertTrue(segundo.isDeduplicado() && tercero.isDeduplicado());
+        assertEquals(primero.getUrl(), segundo.getUrl());
+        assertEquals(primero.getUrl(), tercero.getUrl());
+        assertEquals(1, contarArchivos());
+        assertEquals(3, contenidos.get(primero.getSha256()).getReferencias());
+        assertEquals(2 * contenido.length, registry.get("clubmanager.upload.bytes.ahorrados").counter().count());
+
+        assertEquals(0, servicio.liberar(primero.getSha256(), primero.getUrl()));
+        assertEquals(0, servicio.liberar(primero.getSha256(), primero.getUrl()));
+        assertEquals(1, contarArchivos());
+        assertEquals(contenido.length, servicio.liberar(primero.getSha256(), primero.getUrl()));
+        assertEquals(0, contarArchivos());
+        assertTrue(servicio.reutilizar(primero.getSha256()).isEmpty());
+    }
+
+    @Test
+    void storeStream_primeraSubidaSimultaneaEnOtroNodo_sumaUnaReferenciaALaSuya() throws Exception
+    {
+        byte[] contenido = new byte[50_000];
+        new Random(5).nextBytes(contenido);
+        String huella = huella(contenido);
+        otroNodoSeAdelanta.set(true);
+
+        ArchivoGuardado archivo = servicio.storeStream(new ByteArrayInputStream(contenido), "fotos", "a.jpg");
+
+        assertTrue(archivo.isDeduplicado());
+        assertEquals("/uploads/otro/" + huella + ".jpg", archivo.getUrl());
+        assertEquals(2, contenidos.get(huella).getReferencias());
+        assertEquals(0, contarArchivos());
+    }
+
+    @Test
+    void storeStream_contenidoBorrandoseEnOtroNodo_esperaYLoVuelveAPublicar() throws Exception
+    {
+        byte[] contenido = new byte[50_000];
+        new Random(9).nextBytes(contenido);
+        String huella = huella(contenido);
+        String url = "/uploads/fotos/" + huella.substring(0, 2) + "/" + huella + ".jpg";
+        ContenidoArchivo borrando = new ContenidoArchivo(huella, url, contenido.length);
+        borrando.setReferencias(0);
+        borrando.setBorrandoDesde(LocalDateTime.now());
+        contenidos.put(huella, borrando);
+
+        // El otro nodo borra el archivo y después la fila
+        CompletableFuture<Void> otroNodo = CompletableFuture.runAsync(() ->
+        {
+            try
+            {
+                Thread.sleep(250);
+                Files.deleteIfExists(directorio.resolve(url.substring("/uploads/".length())));
+                contenidos.remove(huella);
+            }
+            catch (Exception e)
+            {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        ArchivoGuardado archivo = servicio.storeStream(new ByteArrayInputStream(contenido), "fotos", "a.jpg");
+        otroNodo.join();
+
+        assertFalse(archivo.isDeduplicado());
+        assertEquals(url, archivo.getUrl());
+        assertEquals(1, contenidos.get(huella).getReferencias());
+        assertNull(contenidos.get(huella).getBorrandoDesde());
+        assertArrayEquals(contenido, Files.readAllBytes(directorio.resolve(url.substring("/uploads/".length()))));
+    }
+
+    @Test
+    void storeStream_borradoAbandonado_loTerminaYPublica() throws Exception
+    {
+        byte[] contenido = new byte[50_000];
+        new Random(11).nextBytes(contenido);
+        String huella = huella(contenido);
+        Path anterior = directorio.resolve("docs/" + huella + ".jpg");
+        Files.createDirectories(anterior.getParent());
+        Files.write(anterior, contenido);
+        ContenidoArchivo abandonado = new ContenidoArchivo(huella, "/uploads/docs/" + huella + ".jpg", contenido.length);
+        abandonado.setReferencias(0);
+        abandonado.setBorrandoDesde(LocalDateTime.now().minusHours(1));
+        contenidos.put(huella, abandonado);
+
+        ArchivoGuardado archivo = servicio.storeStream(new ByteArrayInputStream(contenido), "fotos", "a.jpg");
+
+        assertFalse(archivo.isDeduplicado());
+        assertTrue(archivo.getUrl().startsWith("/uploads/fotos/"));
+        assertFalse(Files.exists(anterior));
+        assertEquals(archivo.getUrl(), contenidos.get(huella).getUrl());
+        assertEquals(1, contarArchivos());
+    }
+
+    @Test
+    void storeStream_rechazaSubcarpetasFueraDelDirectorio()
+    {
+        assertThrows(IllegalArgumentException.class,
+                () -> servicio.storeStream(new ByteArrayInputStream(new byte[10]), "../fuera", "a.jpg"));
+    }
+
+    //Métodos auxiliares
+
+    private long contarArchivos() throws IOException
+    {
+        try (Stream<Path> archivos = Files.walk(directorio))
+        {
+            return archivos.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static String huella(byte[] contenido) throws Exception
+    {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contenido));
+    }
+
+    private ContenidoArchivoRepositorio repositorioEnMemoria()
+    {
+        ContenidoArchivoRepositorio repo = mock(ContenidoArchivoRepositorio.class);
+        when(repo.findById(anyString())).thenAnswer(inv -> Optional.ofNullable(contenidos.get(inv.getArgument(0))));
+        when(repo.insertar(anyString(), anyString(), anyLong(), any())).thenAnswer(inv ->
+        {
+            String sha256 = inv.getArgument(0);
+            if (otroNodoSeAdelanta.getAndSet(false))
+            {
+                contenidos.put(sha256, new ContenidoArchivo(sha256, "/uploads/otro/" + sha256 + ".jpg", inv.getArgument(2)));
+            }
+            if (contenidos.putIfAbsent(sha256, new ContenidoArchivo(sha256, inv.getArgument(1), inv.getArgument(2))) != null)
+            {
+                throw new DataIntegrityViolationException("Clave duplicada " + sha256);
+            }
+            return 1;
+        });
+        when(repo.sumarReferencia(anyString())).thenAnswer(inv ->
+        {
+            ContenidoArchivo c = contenidos.get(inv.getArgument(0));
+            return c != null && c.getBorrandoDesde() == null ? sumar(c, 1) : 0;
+        });
+        when(repo.restarReferencia(anyString())).thenAnswer(inv ->
+        {
+            ContenidoArchivo c = contenidos.get(inv.getArgument(0));
+            return c != null && c.getReferencias() > 0 ? sumar(c, -1) : 0;
+        });
+        when(repo.marcarBorrando(anyString(), any())).thenAnswer(inv ->
+        {
+            ContenidoArchivo c = contenidos.get(inv.getArgument(0));
+            if (c == null || c.getReferencias() > 0 || c.getBorrandoDesde() != null)
+            {
+                return 0;
+            }
+            c.setBorrandoDesde(inv.getArgument(1));
+            return 1;
+        });
+        when(repo.tomarBorradoAbandonado(anyString(), any(), any())).thenAnswer(inv ->
+        {
+            ContenidoArchivo c = contenidos.get(inv.getArgument(0));
+            LocalDateTime limite = inv.getArgument(1);
+            if (c == null || c.getBorrandoDesde() == null || !c.getBorrandoDesde().isBefore(limite))
+            {
+                return 0;
+            }
+            c.setBorrandoDesde(inv.getArgument(2));
+            return 1;
+        });
+        when(repo.eliminarBorrado(anyString())).thenAnswer(inv ->
+        {
+            ContenidoArchivo c = contenidos.get(inv.getArgument(0));
+            return c != null && c.getBorrandoDesde() != null && contenidos.remove(c.getSha256()) != null ? 1 : 0;
+        });
+        return repo;
+    }
+
+    private static int sumar(ContenidoArchivo c, int delta)
+    {
+        c.setReferencias(c.getReferencias() + delta);
+        return 1;
+    }
+}
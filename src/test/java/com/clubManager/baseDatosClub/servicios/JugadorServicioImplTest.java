@@ -10,11 +10,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 
+import com.clubManager.baseDatosClub.dto.JugadorPlantillaDTO;
 import com.clubManager.baseDatosClub.dto.JugadorPuntuacionDTO;
 import com.clubManager.baseDatosClub.dto.JugadorRelacionDTO;
 import com.clubManager.baseDatosClub.entidades.*;
 import com.clubManager.baseDatosClub.repositorios.*;
+import com.clubManager.baseDatosClub.seguridad.PasswordServicio;
 
 
 @SpringBootTest
@@ -37,6 +40,18 @@ class JugadorServicioImplTest {
     @Mock
     private LesionRepositorio lesionRepo;
 
+    @Mock
+    private CredencialServicio credencialServicio;
+
+    @Mock
+    private PasswordServicio passwordServicio;
+
+    @Mock
+    private ClasificacionServicio clasificacionServicio;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private JugadorServicioImpl jugadorServicio;
 
@@ -183,10 +198,11 @@ class JugadorServicioImplTest {
     @Test
     void listarJugadoresActivosPorEquipo_OK() 
     {
-        when(jugadorRepo.findByActivoTrueAndEquipo_idEquipo("E1"))
-            .thenReturn(List.of(jugador));
+        when(jugadorRepo.buscarPlantillaActivaPorEquipo("E1"))
+            .thenReturn(List.of(new JugadorPlantillaDTO("J1", "Juan", "Perez", 9, "Delantero", null,
+                    LocalDate.of(2000, 1, 1), 0, 0, 0, 0, 10)));
 
-        List<Jugador> list = jugadorServicio.listarJugadoresActivosPorEquipo("E1");
+        List<JugadorPlantillaDTO> list = jugadorServicio.listarJugadoresActivosPorEquipo("E1");
         assertEquals(1, list.size());
     }
 
@@ -210,9 +226,10 @@ class JugadorServicioImplTest {
     @Test
     void incrementarGoles_OK() 
     {
-        when(jugadorRepo.findById("J1")).thenReturn(Optional.of(jugador));
-        jugadorServicio.incrementarGoles("J1", 2);
-        assertEquals(2, jugador.getGoles());
+        when(jugadorRepo.sumarGoles("J1", 2)).thenReturn(1);
+        when(jugadorRepo.leerGoles("J1")).thenReturn(2);
+        assertEquals(2, jugadorServicio.incrementarGoles("J1", 2));
+        verify(jugadorRepo, never()).save(any());
     }
 
     @Test
@@ -259,7 +276,7 @@ class JugadorServicioImplTest {
     @Test
     void listarJugadoresPorEquipo_OK() 
     {
-        when(jugadorRepo.findByEquipo_IdEquipo("E1")).thenReturn(List.of(jugador));
+        when(jugadorRepo.buscarRelacionPorEquipo("E1")).thenReturn(List.of(new JugadorRelacionDTO("J1", "Juan", "Perez")));
 
         List<JugadorRelacionDTO> list = jugadorServicio.listarJugadoresPorEquipo("E1");
 
@@ -296,18 +313,12 @@ class JugadorServicioImplTest {
 
     @Test
     void incrementarPuntos_OK() {
-        Jugador jugador = new Jugador();
-        jugador.setIdJugador("J1");
-        jugador.setPuntosTotales(10);
+        when(jugadorRepo.sumarPuntos("J1", 5)).thenReturn(1);
+        when(jugadorRepo.leerPuntos("J1")).thenReturn(15);
 
-        when(jugadorRepo.findById("J1")).thenReturn(Optional.of(jugador));
-
-        when(jugadorRepo.save(any(Jugador.class)))
-            .thenAnswer(inv -> inv.getArgument(0));
+        int result = jugadorServicio.incrementarPuntos("J1", 5);
 
-        Jugador result = jugadorServicio.incrementarPuntos("J1", 5);
-
-        assertEquals(15, result.getPuntosTotales());
+        assertEquals(15, result);
     }
 
 
@@ -320,10 +331,8 @@ class JugadorServicioImplTest {
     @Test
     void obtenerRankingPorEquipo_OK() 
     {
-        jugador.setPuntosTotales(15);
-
-        when(jugadorRepo.findByEquipo_IdEquipoOrderByPuntosTotalesDesc("E1"))
-            .thenReturn(List.of(jugador));
+        when(clasificacionServicio.primeros("E1", -1))
+            .thenReturn(List.of(new JugadorPuntuacionDTO("J1", "Juan", 15, null)));
 
         List<JugadorPuntuacionDTO> ranking = jugadorServicio.obtenerRankingPorEquipo("E1");
 
@@ -0,0 +1,136 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.clubManager.baseDatosClub.almacenamiento.AlmacenMemoria;
+import com.clubManager.baseDatosClub.dto.ResultadoLimpiezaDTO;
+import com.clubManager.baseDatosClub.repositorios.ContenidoArchivoRepositorio;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de la limpieza de archivos huérfanos de {@link LimpiezaArchivosServicio}.
+ * Las referencias se simulan con un conjunto de URLs en memoria.
+ */
+
+class LimpiezaArchivosServicioTest {
+
+	//Area de Datos
+
+    private static final String SHA = "ef".repeat(32);
+
+    @TempDir
+    Path directorio;
+
+    private final Set<String> referenciadas = new HashSet<>();
+    private ContenidoArchivoRepositorio contenidoRepo;
+    private LimpiezaArchivosServicio servicio;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp()
+    {
+        contenidoRepo = mock(ContenidoArchivoRepositorio.class);
+        when(contenidoRepo.buscarUrlsReferenciadas(anyCollection())).thenAnswer(inv ->
+                ((Collection<String>) inv.getArgument(0)).stream().filter(referenciadas::contains).toList());
+
+        servicio = new LimpiezaArchivosServicio(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(servicio, "fileStorage",
+                new FileStorageService(directorio.toString(), 1_000_000, new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(servicio, "contenidoRepo", contenidoRepo);
+        ReflectionTestUtils.setField(servicio, "graciaHoras", 24L);
+        ReflectionTestUtils.setField(servicio, "lote", 2);
+        ReflectionTestUtils.setField(servicio, "cuarentena", true);
+        ReflectionTestUtils.setField(servicio, "retencionDias", 7L);
+    }
+
+    @Test
+    void limpiar_apartaLosHuerfanosAntiguosYRespetaLosReferenciadosYLosRecientes() throws Exception
+    {
+        Path usado = crear("fotos/ef/" + SHA + ".jpg", 100, 48);
+        Path miniaturaUsada = crear("fotos/ef/" + SHA + "_mini.jpg", 10, 48);
+        Path huerfano = crear("fotos/antigua.jpg", 300, 48);
+        Path reciente = crear("fotos/nueva.jpg", 50, 1);
+        Path temporal = crear("fotos/.abc.parte", 70, 48);
+        referenciadas.add("/uploads/fotos/ef/" + SHA + ".jpg");
+        referenciadas.add("/uploads/fotos/ef/" + SHA + "_mini.jpg");
+
+        ResultadoLimpiezaDTO resultado = servicio.limpiar();
+
+        assertEquals(5, resultado.getRevisados());
+        assertEquals(2, resultado.getHuerfanos());
+        assertEquals(300, resultado.getBytesEnCuarentena());
+        assertEquals(70, resultado.getBytesRecuperados());
+        assertTrue(Files.exists(usado) && Files.exists(miniaturaUsada) && Files.exists(reciente));
+        assertFalse(Files.exists(huerfano) || Files.exists(temporal));
+        assertTrue(Files.exists(directorio.resolve(".cuarentena/fotos/antigua.jpg")));
+
+        // Los lotes se comprueban con una consulta cada uno, no archivo a archivo
+        verify(contenidoRepo, atMost(3)).buscarUrlsReferenciadas(argThat(urls -> urls.size() > 1));
+    }
+
+    @Test
+    void limpiar_purgaLaCuarentenaVencidaYBorraSinCuarentenaSiEstaDesactivada() throws Exception
+    {
+        crear(".cuarentena/fotos/vieja.jpg", 400, 24 * 8);
+        Path huerfano = crear("fotos/antigua.jpg", 300, 48);
+        ReflectionTestUtils.setField(servicio, "cuarentena", false);
+
+        ResultadoLimpiezaDTO resultado = servicio.limpiar();
+
+        assertEquals(1, resultado.getRevisados());
+        assertEquals(700, resultado.getBytesRecuperados());
+        assertFalse(Files.exists(huerfano));
+        assertFalse(Files.exists(directorio.resolve(".cuarentena/fotos/vieja.jpg")));
+    }
+
+    @Test
+    void limpiar_conAlmacenRemotoRecorreElAlmacenYLosTemporalesLocales() throws Exception
+    {
+        AlmacenMemoria almacen = new AlmacenMemoria();
+        ReflectionTestUtils.setField(servicio, "fileStorage",
+                new FileStorageService(directorio.toString(), 1_000_000, new SimpleMeterRegistry(), almacen));
+        // Todo lo guardado cuenta como antiguo
+        ReflectionTestUtils.setField(servicio, "graciaHoras", -1L);
+        almacen.guardar("fotos/ef/" + SHA + ".jpg", Files.write(directorio.resolve("a"), new byte[100]));
+        almacen.guardar("fotos/antigua.jpg", Files.write(directorio.resolve("b"), new byte[300]));
+        referenciadas.add("/uploads/fotos/ef/" + SHA + ".jpg");
+        Path temporal = crear("fotos/.abc.parte", 70, 48);
+
+        ResultadoLimpiezaDTO resultado = servicio.limpiar();
+
+        assertEquals(3, resultado.getRevisados());
+        assertEquals(2, resultado.getHuerfanos());
+        assertEquals(300, resultado.getBytesEnCuarentena());
+        assertEquals(70, resultado.getBytesRecuperados());
+        assertTrue(almacen.estado("fotos/ef/" + SHA + ".jpg").isPresent());
+        assertTrue(almacen.estado("fotos/antigua.jpg").isEmpty());
+        assertEquals(300, almacen.estado(".cuarentena/fotos/antigua.jpg").orElseThrow().getTamano());
+        assertFalse(Files.exists(temporal));
+    }
+
+    private Path crear(String relativa, int tamano, long horas) throws Exception
+    {
+        Path ruta = directorio.resolve(relativa);
+        Files.createDirectories(ruta.getParent());
+        Files.write(ruta, new byte[tamano]);
+        Files.setLastModifiedTime(ruta, FileTime.from(Instant.now().minus(Duration.ofHours(horas))));
+        return ruta;
+    }
+}
@@ -0,0 +1,94 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.clubManager.baseDatosClub.repositorios.GaleriaRepositorio;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de la generación de variantes de {@link MiniaturasServicio}.
+ */
+
+class MiniaturasServicioTest {
+
+	//Area de Datos
+
+    @TempDir
+    Path directorio;
+
+    private GaleriaRepositorio galeriaRepo;
+    private MiniaturasServicio servicio;
+
+    @BeforeEach
+    void setUp()
+    {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        galeriaRepo = mock(GaleriaRepositorio.class);
+        servicio = new MiniaturasServicio(1, 10, 256, 1024, registry);
+        ReflectionTestUtils.setField(servicio, "galeriaRepo", galeriaRepo);
+        ReflectionTestUtils.setField(servicio, "fileStorage", new FileStorageService(directorio.toString(), 1_000_000, registry));
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        servicio.cerrar();
+    }
+
+    @Test
+    void generar_creaMiniaturaCuadradaYVistaReducida() throws Exception
+    {
+        Files.createDirectories(directorio.resolve("fotos"));
+        BufferedImage original = new BufferedImage(4000, 3000, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = original.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.BLUE, 4000, 3000, Color.ORANGE));
+        g.fillRect(0, 0, 4000, 3000);
+        g.dispose();
+        ImageIO.write(original, "png", directorio.resolve("fotos/partido.png").toFile());
+
+        servicio.generar("/uploads/fotos/partido.png");
+
+        BufferedImage miniatura = ImageIO.read(directorio.resolve("fotos/partido_mini.jpg").toFile());
+        BufferedImage vista = ImageIO.read(directorio.resolve("fotos/partido_vista.jpg").toFile());
+        assertEquals(256, miniatura.getWidth());
+        assertEquals(256, miniatura.getHeight());
+        assertEquals(1024, vista.getWidth());
+        assertEquals(768, vista.getHeight());
+        verify(galeriaRepo).actualizarVariantes("/uploads/fotos/partido.png",
+                "/uploads/fotos/partido_mini.jpg", "/uploads/fotos/partido_vista.jpg");
+    }
+
+    @Test
+    void generar_omiteLosArchivosQueNoSonImagenes() throws Exception
+    {
+        Files.createDirectories(directorio.resolve("docs"));
+        Files.writeString(directorio.resolve("docs/acta.pdf"), "%PDF-1.4 no es una imagen");
+
+        servicio.generar("/uploads/docs/acta.pdf");
+
+        assertFalse(Files.exists(directorio.resolve("docs/acta_mini.jpg")));
+        verify(galeriaRepo, never()).actualizarVariantes(anyString(), anyString(), anyString());
+        verify(galeriaRepo).marcarSinVariantes("/uploads/docs/acta.pdf", "no_imagen");
+
+        servicio.generar("/uploads/docs/perdido.pdf");
+        verify(galeriaRepo).marcarSinVariantes("/uploads/docs/perdido.pdf", "sin_archivo");
+    }
+}
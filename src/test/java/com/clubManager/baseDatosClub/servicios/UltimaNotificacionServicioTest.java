@@ -0,0 +1,140 @@
+package com.clubManager.baseDatosClub.servicios;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.clubManager.baseDatosClub.dto.NotificacionDTO;
+import com.clubManager.baseDatosClub.entidades.Equipo;
+import com.clubManager.baseDatosClub.entidades.Notificacion;
+import com.clubManager.baseDatosClub.repositorios.NotificacionRepositorio;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de la caché de {@link UltimaNotificacionServicio}.
+ */
+
+class UltimaNotificacionServicioTest {
+
+	//Area de Datos
+
+    private static final LocalDate HOY = LocalDate.of(2025, 3, 1);
+
+    private NotificacionRepositorio notificacionRepo;
+    private SimpleMeterRegistry registry;
+    private UltimaNotificacionServicio servicio;
+
+    @BeforeEach
+    void setUp()
+    {
+        notificacionRepo = mock(NotificacionRepositorio.class);
+        registry = new SimpleMeterRegistry();
+        servicio = new UltimaNotificacionServicio(registry);
+        ReflectionTestUtils.setField(servicio, "notificacionRepo", notificacionRepo);
+        ReflectionTestUtils.setField(servicio, "maxEntradas", 100);
+        ReflectionTestUtils.setField(servicio, "ttlMs", 30_000L);
+    }
+
+    @Test
+    void obtener_consultaLaBaseDeDatosSoloLaPrimeraVez()
+    {
+        when(notificacionRepo.buscarPrimeraPagina(eq("E1"), any())).thenReturn(List.of(dto(5L, HOY)));
+
+        for (int i = 0; i < 4; i++)
+        {
+            assertEquals(5L, servicio.obtener("E1").orElseThrow().getIdNotificacion());
+        }
+
+        verify(notificacionRepo, times(1)).buscarPrimeraPagina(eq("E1"), any());
+        assertEquals(0.75, registry.get("clubmanager.notificaciones.ultima.cache.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void alGuardarNotificacion_actualizaLaEntradaSinConsultar()
+    {
+        when(notificacionRepo.buscarPrimeraPagina(eq("E1"), any())).thenReturn(List.of());
+        assertTrue(servicio.obtener("E1").isEmpty());
+
+        servicio.alGuardarNotificacion(evento(7L, HOY));
+        servicio.alGuardarNotificacion(evento(3L, HOY.minusDays(1)));
+
+        assertEquals(Optional.of(7L), servicio.obtener("E1").map(NotificacionDTO::getIdNotificacion));
+        verify(notificacionRepo, times(1)).buscarPrimeraPagina(eq("E1"), any());
+    }
+
+    @Test
+    void invalidar_obligaARecargarTrasUnBorrado()
+    {
+        when(notificacionRepo.buscarPrimeraPagina(eq("E1"), any()))
+                .thenReturn(List.of(dto(5L, HOY)))
+                .thenReturn(List.of(dto(4L, HOY)));
+        servicio.obtener("E1");
+
+        servicio.invalidar("E1");
+
+        assertEquals(4L, servicio.obtener("E1").orElseThrow().getIdNotificacion());
+        verify(notificacionRepo, times(2)).buscarPrimeraPagina(eq("E1"), any());
+    }
+
+    @Test
+    void alCambiarPlantilla_descartaLaEntradaAlBorrarElEquipo()
+    {
+        when(notificacionRepo.buscarPrimeraPagina(eq("E1"), any()))
+                .thenReturn(List.of(dto(5L, HOY)))
+                .thenReturn(List.of());
+        servicio.obtener("E1");
+
+        servicio.alCambiarPlantilla(new PlantillaCambiadaEvento("E1", "J1"));
+        assertEquals(5L, servicio.obtener("E1").orElseThrow().getIdNotificacion());
+
+        servicio.alCambiarPlantilla(new PlantillaCambiadaEvento("E1", null));
+        assertTrue(servicio.obtener("E1").isEmpty());
+        verify(notificacionRepo, times(2)).buscarPrimeraPagina(eq("E1"), any());
+    }
+
+    @Test
+    void obtener_recargaLaEntradaCaducadaAunqueSeHayaActualizado()
+    {
+        when(notificacionRepo.buscarPrimeraPagina(eq("E1"), any()))
+                .thenReturn(List.of(dto(5L, HOY)))
+                .thenReturn(List.of(dto(4L, HOY)));
+        servicio.obtener("E1");
+        servicio.alGuardarNotificacion(evento(6L, HOY));
+        assertEquals(6L, servicio.obtener("E1").orElseThrow().getIdNotificacion());
+
+        // Otra instancia ha borrado la 5 y la 6 sin que el aviso llegue a esta
+        ReflectionTestUtils.setField(servicio, "ttlMs", 0L);
+
+        assertEquals(4L, servicio.obtener("E1").orElseThrow().getIdNotificacion());
+        verify(notificacionRepo, times(2)).buscarPrimeraPagina(eq("E1"), any());
+    }
+
+    //Métodos auxiliares
+
+    private static NotificacionDTO dto(long id, LocalDate fecha)
+    {
+        return new NotificacionDTO(id, "Aviso", "Mensaje", fecha, "E1");
+    }
+
+    private static NotificacionGuardadaEvento evento(long id, LocalDate fecha)
+    {
+        Equipo equipo = new Equipo();
+        equipo.setIdEquipo("E1");
+        Notificacion notificacion = new Notificacion();
+        notificacion.setIdNotificacion(id);
+        notificacion.setTitulo("Aviso");
+        notificacion.setMensaje("Mensaje");
+        notificacion.setFecha(fecha);
+        notificacion.setEquipo(equipo);
+        return new NotificacionGuardadaEvento(notificacion);
+    }
+}